@@ -15,7 +15,12 @@
  */
 package software.xdev.spring.data.eclipse.store.core;
 
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+
+
 public interface EntityListProvider
 {
+	ReadWriteLock getReadWriteLock();
+	
 	<T, ID> EntityProvider<T, ID> getEntityProvider(final Class<T> clazz);
 }
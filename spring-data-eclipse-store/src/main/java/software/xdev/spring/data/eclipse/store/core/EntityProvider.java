@@ -18,18 +18,45 @@ package software.xdev.spring.data.eclipse.store.core;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import jakarta.annotation.Nullable;
+
+import org.eclipse.serializer.reference.Lazy;
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.index.LazyEntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.SortedIndex;
+import software.xdev.spring.data.eclipse.store.repository.query.antlr.HSqlIndexedCollection;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
 import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.LazyEntityData;
 
 
 @SuppressWarnings("java:S119")
 public class EntityProvider<T, ID>
 {
 	private final List<EntityData<? extends T, ID>> entityDataList = new ArrayList<>();
+	private final QueryParallelism parallelism;
+	
+	public EntityProvider()
+	{
+		this(QueryParallelism.disabled());
+	}
+	
+	public EntityProvider(final QueryParallelism parallelism)
+	{
+		this.parallelism = Objects.requireNonNull(parallelism);
+	}
 	
 	public void addEntityData(final EntityData<? extends T, ID> entityData)
 	{
@@ -41,28 +68,392 @@ public class EntityProvider<T, ID>
 		return this.entityDataList.stream().flatMap(EntityData::getEntitiesAsStream);
 	}
 	
+	/**
+	 * Streams all entities that fulfill the given criteria. If the criteria contains a range on an indexed field,
+	 * only the entities within this range are checked.
+	 */
+	public Stream<? extends T> stream(final Criteria<T> criteria)
+	{
+		final List<IndexRange> ranges = criteria.getIndexRanges();
+		return this.entityDataList
+			.stream()
+			.flatMap(entityData -> streamCandidates(entityData, ranges))
+			.filter(QueryExecutionStatistics.track(criteria)::evaluate);
+	}
+	
+	/**
+	 * Streams all entities that fulfill the given criteria for callers that read all of them anyway (e.g. to sort
+	 * them). If many entities must be scanned, the criteria is evaluated in parallel and the matching entities are
+	 * collected in encounter order before they are streamed.
+	 */
+	public Stream<? extends T> streamAll(final Criteria<T> criteria)
+	{
+		final List<IndexRange> ranges = criteria.getIndexRanges();
+		if(!this.shouldRunInParallel(criteria, ranges))
+		{
+			return this.stream(criteria);
+		}
+		return this.parallelism.execute(this.streamConcatenated(criteria, ranges), Stream::toList).stream();
+	}
+	
+	/**
+	 * Counts all entities that fulfill the given criteria. If the criteria accepts all entities, the counts of the
+	 * entity types are summed without scanning. If many entities must be scanned, they are counted in parallel.
+	 */
+	public long count(final Criteria<T> criteria)
+	{
+		if(criteria.acceptsAll())
+		{
+			QueryExecutionStatistics.recordPlan("count of entity types");
+			return this.size();
+		}
+		final List<IndexRange> ranges = criteria.getIndexRanges();
+		if(!this.shouldRunInParallel(criteria, ranges))
+		{
+			return this.stream(criteria).count();
+		}
+		return this.parallelism.execute(this.streamConcatenated(criteria, ranges), Stream::count);
+	}
+	
+	/**
+	 * Checks if any entity fulfills the given criteria. If many entities must be scanned, they are checked in
+	 * parallel.
+	 */
+	public boolean anyMatch(final Criteria<T> criteria)
+	{
+		if(criteria.acceptsAll())
+		{
+			QueryExecutionStatistics.recordPlan("count of entity types");
+			return !this.isEmpty();
+		}
+		final List<IndexRange> ranges = criteria.getIndexRanges();
+		if(!this.shouldRunInParallel(criteria, ranges))
+		{
+			return this.stream(criteria).findAny().isPresent();
+		}
+		return this.parallelism.execute(
+			this.streamConcatenated(criteria, ranges),
+			entityStream -> entityStream.findAny().isPresent());
+	}
+	
+	/**
+	 * Collects all entities that fulfill the given criteria with the given collector (e.g. to aggregate them). If
+	 * many entities must be scanned, they are collected in parallel, so the collector must support concurrent
+	 * accumulation through its combiner like every {@link Collector}.
+	 */
+	public <R> R collect(final Criteria<T> criteria, final Collector<? super T, ?, R> collector)
+	{
+		final List<IndexRange> ranges = criteria.getIndexRanges();
+		if(!this.shouldRunInParallel(criteria, ranges))
+		{
+			return this.stream(criteria).collect(collector);
+		}
+		return this.parallelism.execute(
+			this.streamConcatenated(criteria, ranges),
+			entityStream -> entityStream.collect(collector));
+	}
+	
+	/**
+	 * Executing a query in parallel only pays off if many entities are scanned and the criteria must actually be
+	 * evaluated. Entities that are found through an index are not counted, since reading an index is cheap.
+	 */
+	private boolean shouldRunInParallel(final Criteria<T> criteria, final List<IndexRange> ranges)
+	{
+		if(!this.parallelism.isEnabled() || criteria.acceptsAll())
+		{
+			return false;
+		}
+		long scannedEntityCount = 0;
+		for(final EntityData<? extends T, ID> entityData : this.entityDataList)
+		{
+			if(ranges.isEmpty() || !hasCandidateIndex(entityData, ranges))
+			{
+				scannedEntityCount += entityData.getEntityCount();
+			}
+		}
+		if(!this.parallelism.shouldRunInParallel(scannedEntityCount))
+		{
+			return false;
+		}
+		QueryExecutionStatistics.recordParallel();
+		return true;
+	}
+	
+	/**
+	 * Same as {@link #stream(Criteria)}, but the streams of the entity types are concatenated instead of flat-mapped.
+	 * A flat-mapped stream is only split between the entity types, a concatenated stream is also split within them.
+	 */
+	private Stream<T> streamConcatenated(final Criteria<T> criteria, final List<IndexRange> ranges)
+	{
+		Stream<T> candidates = Stream.empty();
+		for(final EntityData<? extends T, ID> entityData : this.entityDataList)
+		{
+			candidates = Stream.concat(candidates, streamCandidates(entityData, ranges));
+		}
+		return candidates.filter(QueryExecutionStatistics.track(criteria)::evaluate);
+	}
+	
+	private static boolean hasCandidateIndex(final EntityData<?, ?> entityData, final List<IndexRange> ranges)
+	{
+		final EntityIndexes<?> indexes = entityData.getIndexes();
+		final LazyEntityIndexes<?> lazyIndexes = getLazyIndexes(entityData);
+		return indexes != null && indexes.hasCandidateIndex(ranges)
+			|| lazyIndexes != null && lazyIndexes.hasCandidateIndex(ranges);
+	}
+	
+	private static <S> Stream<S> streamCandidates(final EntityData<S, ?> entityData, final List<IndexRange> ranges)
+	{
+		if(!ranges.isEmpty())
+		{
+			final EntityIndexes<S> indexes = entityData.getIndexes();
+			final LazyEntityIndexes<S> lazyIndexes = getLazyIndexes(entityData);
+			Optional<Stream<S>> candidates = Optional.empty();
+			if(indexes != null)
+			{
+				candidates = indexes.streamCandidates(ranges);
+			}
+			else if(lazyIndexes != null)
+			{
+				candidates = lazyIndexes.streamCandidates(ranges);
+			}
+			if(candidates.isPresent())
+			{
+				return candidates.get();
+			}
+		}
+		if(QueryExecutionStatistics.isRecording())
+		{
+			QueryExecutionStatistics.recordPlan(String.format("full scan of %d entities", entityData.getEntityCount()));
+		}
+		return entityData.getEntitiesAsStream();
+	}
+	
+	/**
+	 * Streams all entities that fulfill the given criteria in the order of the first field of the given sort by reading
+	 * an index of this field. The other orders of the sort are not applied. This is only possible, if the first order
+	 * is case-sensitive with native null handling and all entity types of this provider have an index for its field.
+	 *
+	 * @param isLimited if only the first entities are needed. If not, a range on another indexed field is preferred to
+	 *                  reading the whole ordered index.
+	 * @return the ordered entities or {@link Optional#empty()} if the entities can't be read in order from an index.
+	 */
+	public Optional<Stream<? extends T>> streamOrderedByIndex(
+		final Criteria<T> criteria,
+		final Sort sort,
+		final boolean isLimited)
+	{
+		if(sort.isUnsorted())
+		{
+			return Optional.empty();
+		}
+		final Sort.Order order = sort.iterator().next();
+		if(order.isIgnoreCase() || order.getNullHandling() != Sort.NullHandling.NATIVE)
+		{
+			return Optional.empty();
+		}
+		
+		final List<IndexRange> ranges = IndexRange.mergeByField(criteria.getIndexRanges());
+		final IndexRange rangeOfSortedField = ranges
+			.stream()
+			.filter(range -> range.fieldName().equals(order.getProperty()))
+			.findFirst()
+			.orElseGet(() -> IndexRange.unbounded(order.getProperty()));
+		if(!isLimited && rangeOfSortedField.isUnbounded() && ranges.stream().anyMatch(this::isIndexed))
+		{
+			return Optional.empty();
+		}
+		
+		final List<SortedIndex<? extends T>> indexes = new ArrayList<>();
+		final List<Stream<? extends Map.Entry<Object, ? extends Supplier<? extends T>>>> lazyEntries =
+			new ArrayList<>();
+		for(final EntityData<? extends T, ID> entityData : this.entityDataList)
+		{
+			final Optional<? extends SortedIndex<? extends T>> index = getIndex(entityData, order.getProperty());
+			if(index.isPresent() && index.get().supports(rangeOfSortedField))
+			{
+				indexes.add(index.get());
+				continue;
+			}
+			final Optional<? extends Stream<? extends Map.Entry<Object, ? extends Supplier<? extends T>>>> entries =
+				streamLazyEntries(entityData, order.getProperty(), rangeOfSortedField, order.isDescending());
+			if(entries.isEmpty())
+			{
+				return Optional.empty();
+			}
+			lazyEntries.add(entries.get());
+		}
+		if(!indexes.isEmpty() && !lazyEntries.isEmpty())
+		{
+			// Indexes of lazy and non-lazy entity types are not merged.
+			return Optional.empty();
+		}
+		QueryExecutionStatistics.recordPlan("ordered by index on " + order.getProperty());
+		final Stream<? extends T> orderedEntities = lazyEntries.isEmpty()
+			? SortedIndex.<T>streamMerged(indexes, rangeOfSortedField, order.isDescending())
+			// Only the entities that are consumed are loaded.
+			: SortedIndex.<Supplier<? extends T>>mergeEntries(lazyEntries, order.isDescending()).map(Supplier::get);
+		return Optional.of(orderedEntities.filter(QueryExecutionStatistics.track(criteria)::evaluate));
+	}
+	
+	private boolean isIndexed(final IndexRange range)
+	{
+		return !range.isUnbounded() && this.entityDataList
+			.stream()
+			.allMatch(entityData -> getIndex(entityData, range.fieldName())
+				.filter(index -> index.supports(range))
+				.isPresent()
+				|| getLazyIndex(entityData, range.fieldName())
+				.filter(index -> index.supports(range))
+				.isPresent());
+	}
+	
+	private static <S> Optional<SortedIndex<S>> getIndex(final EntityData<S, ?> entityData, final String fieldName)
+	{
+		final EntityIndexes<S> indexes = entityData.getIndexes();
+		return indexes == null ? Optional.empty() : indexes.getIndex(fieldName);
+	}
+	
+	private static <S> Optional<SortedIndex<Lazy<S>>> getLazyIndex(
+		final EntityData<S, ?> entityData,
+		final String fieldName)
+	{
+		final LazyEntityIndexes<S> indexes = getLazyIndexes(entityData);
+		return indexes == null ? Optional.empty() : indexes.getIndex(fieldName);
+	}
+	
+	/**
+	 * @return the indexes of lazy entities or {@code null} if the entities are not lazy or not indexed.
+	 */
+	@Nullable
+	private static <S> LazyEntityIndexes<S> getLazyIndexes(final EntityData<S, ?> entityData)
+	{
+		return entityData instanceof final LazyEntityData<S, ?> lazyEntityData ? lazyEntityData.getLazyIndexes() : null;
+	}
+	
+	private static <S> Optional<Stream<Map.Entry<Object, Supplier<S>>>> streamLazyEntries(
+		final EntityData<S, ?> entityData,
+		final String fieldName,
+		final IndexRange range,
+		final boolean descending)
+	{
+		final LazyEntityIndexes<S> indexes = getLazyIndexes(entityData);
+		if(indexes == null || getLazyIndex(entityData, fieldName).filter(index -> index.supports(range)).isEmpty())
+		{
+			return Optional.empty();
+		}
+		return indexes.streamOrderedEntries(fieldName, range, descending);
+	}
+	
+	/**
+	 * Returns the long-lived collection for HSQL queries of the given domain class. This is only possible if all
+	 * entities of this provider are of exactly this class and are not lazy.
+	 *
+	 * @return the collection or {@link Optional#empty()} if the entities must be collected for every query.
+	 */
+	@SuppressWarnings("unchecked")
+	public Optional<HSqlIndexedCollection<T>> getHSqlCollection(final Class<T> domainClass)
+	{
+		if(this.entityDataList.size() != 1)
+		{
+			return Optional.empty();
+		}
+		final EntityData<T, ID> entityData = (EntityData<T, ID>)this.entityDataList.get(0);
+		final EntityIndexes<T> indexes = entityData.getIndexes();
+		if(indexes == null || indexes.getDomainClass() != domainClass)
+		{
+			return Optional.empty();
+		}
+		return Optional.of(indexes.getHSqlCollection(entityData::getEntitiesAsStream));
+	}
+	
+	/**
+	 * @return the latest {@link EntityData#getLastModification() modification stamp} of all entity types of this
+	 * provider. If the stamp has not changed, no entity of this provider was stored or removed in the meantime.
+	 */
+	public long getLastModification()
+	{
+		return this.entityDataList.stream().mapToLong(EntityData::getLastModification).max().orElse(0);
+	}
+	
 	public Collection<T> toCollection()
 	{
 		return this.stream().collect(Collectors.toUnmodifiableList());
 	}
 	
+	/**
+	 * Checks the counts of the entity types, so it takes constant time per type, no matter how many entities are
+	 * stored.
+	 */
 	public boolean isEmpty()
 	{
-		return this.stream().findAny().isEmpty();
+		for(final EntityData<? extends T, ID> entityData : this.entityDataList)
+		{
+			if(entityData.getEntityCount() > 0)
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 	
+	/**
+	 * Sums the counts of the entity types, so it takes constant time per type, no matter how many entities are
+	 * stored.
+	 */
 	public long size()
 	{
-		return this.stream().count();
+		long size = 0;
+		for(final EntityData<? extends T, ID> entityData : this.entityDataList)
+		{
+			size += entityData.getEntityCount();
+		}
+		return size;
 	}
 	
-	@SuppressWarnings("unchecked")
 	public Optional<T> findAnyEntityWithId(final ID id)
 	{
-		return (Optional<T>)this.entityDataList
-			.stream()
-			.map(entityData -> entityData.getEntityById(id))
-			.filter(Objects::nonNull)
-			.findAny();
+		return Optional.ofNullable(this.findEntityWithId(id));
+	}
+	
+	/**
+	 * Finds the entities with the given ids in a single pass over the ids. Each id is looked up in the entity types
+	 * until it is found. If many ids are given, they are looked up in parallel.
+	 *
+	 * @return the found entities in the order of the given ids. Ids without an entity are skipped.
+	 */
+	public List<T> findAllEntitiesWithIds(final Collection<? extends ID> ids)
+	{
+		if(!this.parallelism.shouldRunInParallel(ids.size()))
+		{
+			return this.findEntitiesWithIds(ids.stream());
+		}
+		return this.parallelism.execute(ids.stream(), this::findEntitiesWithIds);
+	}
+	
+	private List<T> findEntitiesWithIds(final Stream<? extends ID> ids)
+	{
+		return ids.map(this::findEntityWithId).filter(Objects::nonNull).toList();
+	}
+	
+	/**
+	 * Types without entities (e.g. abstract classes of a hierarchy) are skipped, so that only the id maps of types
+	 * with entities are probed.
+	 */
+	@Nullable
+	private T findEntityWithId(final ID id)
+	{
+		for(final EntityData<? extends T, ID> entityData : this.entityDataList)
+		{
+			if(entityData.getEntityCount() == 0)
+			{
+				continue;
+			}
+			final T entity = entityData.getEntityById(id);
+			if(entity != null)
+			{
+				return entity;
+			}
+		}
+		return null;
 	}
 }
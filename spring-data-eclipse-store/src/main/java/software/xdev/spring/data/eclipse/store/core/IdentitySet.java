@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.stream.Collectors;
 
 import jakarta.annotation.Nonnull;
@@ -67,6 +68,15 @@ public class IdentitySet<E> implements Set<E>
 		return this.internalMap.keySet().iterator();
 	}
 	
+	/**
+	 * Uses the spliterator of the internal map, so parallel streams can split the set evenly.
+	 */
+	@Override
+	public Spliterator<E> spliterator()
+	{
+		return this.internalMap.keySet().spliterator();
+	}
+	
 	@Override
 	@Nonnull
 	public Object[] toArray()
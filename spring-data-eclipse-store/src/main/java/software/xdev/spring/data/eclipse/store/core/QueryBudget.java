@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.Nullable;
+
+import software.xdev.spring.data.eclipse.store.exceptions.QueryBudgetExceededException;
+import software.xdev.spring.data.eclipse.store.exceptions.QueryTimeoutException;
+import software.xdev.spring.data.eclipse.store.repository.QueryLimits;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+
+
+/**
+ * Limits how long a single query may run and how many entities it may scan.
+ * <p>
+ * Every execution of a query {@link #start() starts} its own {@link Tracker}, which is notified about every scanned
+ * entity. The timeout is checked cooperatively every {@value #TIMEOUT_CHECK_INTERVAL} scanned entities. If a limit is
+ * exceeded, the scanning thread throws an exception, which aborts the query and releases the lock of the storage.
+ * This also works for queries that are executed in parallel.
+ * </p>
+ */
+public class QueryBudget
+{
+	/**
+	 * Reading the clock for every scanned entity would be more expensive than evaluating most criteria.
+	 */
+	static final int TIMEOUT_CHECK_INTERVAL = 256;
+	private static final QueryBudget UNLIMITED = new QueryBudget(0, 0);
+	
+	private final long timeoutMillis;
+	private final long maxScannedEntities;
+	
+	/**
+	 * @param timeoutMillis      maximum duration of a query in milliseconds. If it is {@code 0} or less, queries never
+	 *                           time out.
+	 * @param maxScannedEntities maximum count of entities that a query may scan. If it is {@code 0} or less, the count
+	 *                           is not limited.
+	 */
+	public QueryBudget(final long timeoutMillis, final long maxScannedEntities)
+	{
+		this.timeoutMillis = Math.max(timeoutMillis, 0);
+		this.maxScannedEntities = Math.max(maxScannedEntities, 0);
+	}
+	
+	public static QueryBudget unlimited()
+	{
+		return UNLIMITED;
+	}
+	
+	public boolean isLimited()
+	{
+		return this.timeoutMillis > 0 || this.maxScannedEntities > 0;
+	}
+	
+	public long getTimeoutMillis()
+	{
+		return this.timeoutMillis;
+	}
+	
+	public long getMaxScannedEntities()
+	{
+		return this.maxScannedEntities;
+	}
+	
+	/**
+	 * @param limits of a single query method. Can be {@code null} if the method has no own limits.
+	 * @return a budget with the limits that are defined by the annotation and the limits of this budget otherwise.
+	 */
+	public QueryBudget withLimits(@Nullable final QueryLimits limits)
+	{
+		if(limits == null)
+		{
+			return this;
+		}
+		return new QueryBudget(
+			limits.timeoutMillis() < 0 ? this.timeoutMillis : limits.timeoutMillis(),
+			limits.maxScannedEntities() < 0 ? this.maxScannedEntities : limits.maxScannedEntities());
+	}
+	
+	/**
+	 * Starts tracking a single execution of a query. The timeout starts now.
+	 */
+	public Tracker start()
+	{
+		return new Tracker(this);
+	}
+	
+	/**
+	 * Starts tracking a single execution of a query that scans the entities with the given criteria.
+	 *
+	 * @return criteria that counts every evaluated entity or the given criteria itself, if this budget is not
+	 * limited.
+	 */
+	public <T> Criteria<T> track(final Criteria<T> criteria)
+	{
+		if(!this.isLimited())
+		{
+			return criteria;
+		}
+		return this.start().track(criteria);
+	}
+	
+	/**
+	 * Counts the scanned entities of a single execution of a query and checks them against the limits. Is thread safe,
+	 * so that it can be notified by the threads of a parallel query.
+	 */
+	public static final class Tracker
+	{
+		private final QueryBudget budget;
+		private final long deadline;
+		private final AtomicLong scannedCount = new AtomicLong();
+		
+		private Tracker(final QueryBudget budget)
+		{
+			this.budget = budget;
+			this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget.timeoutMillis);
+		}
+		
+		/**
+		 * Counts a scanned entity.
+		 *
+		 * @throws QueryBudgetExceededException if more entities than allowed were scanned
+		 * @throws QueryTimeoutException        if the timeout has passed
+		 */
+		public void scanned()
+		{
+			final long count = this.scannedCount.incrementAndGet();
+			if(this.budget.maxScannedEntities > 0 && count > this.budget.maxScannedEntities)
+			{
+				throw new QueryBudgetExceededException(String.format(
+					"Query was aborted, because it scanned more than %d entities.",
+					this.budget.maxScannedEntities));
+			}
+			if(count % TIMEOUT_CHECK_INTERVAL == 0)
+			{
+				this.checkTimeout();
+			}
+		}
+		
+		/**
+		 * @throws QueryTimeoutException if the timeout has passed
+		 */
+		public void checkTimeout()
+		{
+			if(this.budget.timeoutMillis > 0 && System.nanoTime() - this.deadline > 0)
+			{
+				throw new QueryTimeoutException(String.format(
+					"Query was aborted, because it ran longer than %d ms.",
+					this.budget.timeoutMillis));
+			}
+		}
+		
+		public long getScannedCount()
+		{
+			return this.scannedCount.get();
+		}
+		
+		/**
+		 * @return criteria that counts every evaluated entity before evaluating it with the given criteria.
+		 */
+		public <T> Criteria<T> track(final Criteria<T> criteria)
+		{
+			return new Criteria<>()
+			{
+				@Override
+				public boolean evaluate(@Nullable final T object)
+				{
+					Tracker.this.scanned();
+					return criteria.evaluate(object);
+				}
+				
+				@Override
+				public List<IndexRange> getIndexRanges()
+				{
+					return criteria.getIndexRanges();
+				}
+				
+				@Override
+				public boolean acceptsAll()
+				{
+					return criteria.acceptsAll();
+				}
+			};
+		}
+	}
+}
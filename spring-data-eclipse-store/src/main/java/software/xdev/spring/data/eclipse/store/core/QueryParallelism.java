@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.core;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import jakarta.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+
+
+/**
+ * Decides whether a query is executed in parallel and holds the {@link ForkJoinPool} for these queries.
+ * <p>
+ * Queries that must scan at least {@code threshold} entities are filtered and counted in parallel. They run in a
+ * dedicated pool, so they neither block nor are blocked by other users of the common pool. The pool is created with
+ * the first parallel query.
+ * </p>
+ * <p>
+ * The calling thread waits until all tasks of a query are done. If a lock is set with
+ * {@link #withinReadLockOf(ReadWriteLock)}, the calling thread holds its read lock during the whole execution, so
+ * that the tasks never read entities or indexes while they are changed. The tasks themselves must not acquire the
+ * lock, because they would wait for writers that wait for the calling thread.
+ * </p>
+ */
+public class QueryParallelism implements AutoCloseable
+{
+	private static final Logger LOG = LoggerFactory.getLogger(QueryParallelism.class);
+	private static final QueryParallelism DISABLED = new QueryParallelism(0, 1);
+	
+	private final long threshold;
+	private final int parallelism;
+	@Nullable
+	private final ReadWriteLock readWriteLock;
+	private ForkJoinPool pool;
+	
+	/**
+	 * @param threshold   count of entities that must be scanned by a query to execute it in parallel. If it is
+	 *                    {@code 0} or less, queries are never executed in parallel.
+	 * @param parallelism count of threads of the pool. If it is {@code 0} or less, the count of available processors
+	 *                    is used.
+	 */
+	public QueryParallelism(final long threshold, final int parallelism)
+	{
+		this(threshold, parallelism, null);
+	}
+	
+	private QueryParallelism(
+		final long threshold,
+		final int parallelism,
+		@Nullable final ReadWriteLock readWriteLock)
+	{
+		this.threshold = threshold;
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.readWriteLock = readWriteLock;
+	}
+	
+	/**
+	 * @param readWriteLock of the storage, whose read lock is held by the calling thread while a query is executed in
+	 *                      parallel
+	 * @return the same settings with their own pool, which execute every parallel query within the read lock.
+	 */
+	public QueryParallelism withinReadLockOf(final ReadWriteLock readWriteLock)
+	{
+		return new QueryParallelism(this.threshold, this.parallelism, Objects.requireNonNull(readWriteLock));
+	}
+	
+	public static QueryParallelism disabled()
+	{
+		return DISABLED;
+	}
+	
+	public boolean isEnabled()
+	{
+		return this.threshold > 0 && this.parallelism > 1;
+	}
+	
+	/**
+	 * @param scannedEntityCount count of entities that a query must read
+	 */
+	public boolean shouldRunInParallel(final long scannedEntityCount)
+	{
+		return this.isEnabled() && scannedEntityCount >= this.threshold;
+	}
+	
+	/**
+	 * Executes the terminal operation on the parallel stream within the pool and waits for its result.
+	 */
+	public <S, R> R execute(final Stream<S> stream, final Function<Stream<S>, R> terminalOperation)
+	{
+		if(this.readWriteLock == null)
+		{
+			return this.submit(stream, terminalOperation);
+		}
+		// The read lock is reentrant, so callers that already hold it can execute queries in parallel as well.
+		return this.readWriteLock.read(() -> this.submit(stream, terminalOperation));
+	}
+	
+	private <S, R> R submit(final Stream<S> stream, final Function<Stream<S>, R> terminalOperation)
+	{
+		return this.getPool().submit(() -> terminalOperation.apply(stream.parallel())).join();
+	}
+	
+	private synchronized ForkJoinPool getPool()
+	{
+		if(this.pool == null)
+		{
+			if(LOG.isDebugEnabled())
+			{
+				LOG.debug("Creating pool for parallel queries with {} threads...", this.parallelism);
+			}
+			this.pool = new ForkJoinPool(this.parallelism, QueryParallelism::createThread, null, false);
+		}
+		return this.pool;
+	}
+	
+	private static ForkJoinWorkerThread createThread(final ForkJoinPool pool)
+	{
+		final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("spring-data-eclipse-store-query-" + thread.getPoolIndex());
+		// Entity classes may be loaded through another class loader than the system class loader (e.g. DevTools).
+		thread.setContextClassLoader(QueryParallelism.class.getClassLoader());
+		return thread;
+	}
+	
+	/**
+	 * Shuts the pool down. It is created again, if another parallel query is executed afterwards.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if(this.pool != null)
+		{
+			this.pool.shutdown();
+			this.pool = null;
+		}
+	}
+}
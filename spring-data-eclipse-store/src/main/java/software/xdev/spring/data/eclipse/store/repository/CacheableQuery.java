@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Caches the results of a derived query method per combination of parameters.
+ * <p>
+ * The cache holds the original entities and only copies them when a cached result is returned, so a cache hit
+ * skips filtering and sorting completely. A cached result is discarded as soon as an entity of a queried type (the
+ * domain type, its subtypes and the types of nested properties in the method name) is stored or deleted. This makes
+ * the cache especially useful for reference data or queries that are executed very often between writes.
+ * </p>
+ * <p>
+ * Methods that return a {@link java.util.stream.Stream} are not cached. The hit and miss counts of all caches are
+ * available through {@link EclipseStoreStorage#getQueryResultCaches()}.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface CacheableQuery
+{
+	/**
+	 * Maximum count of cached results (one per combination of parameters). If more results are cached, the least
+	 * recently used result is evicted.
+	 */
+	int maxSize() default 100;
+}
@@ -18,7 +18,9 @@ package software.xdev.spring.data.eclipse.store.repository;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.serializer.persistence.binary.jdk17.java.util.BinaryHandlerImmutableCollectionsList12;
@@ -34,15 +36,23 @@ import org.slf4j.LoggerFactory;
 
 import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
 import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.core.QueryParallelism;
 import software.xdev.spring.data.eclipse.store.exceptions.AlreadyRegisteredException;
 import software.xdev.spring.data.eclipse.store.exceptions.InvalidRootException;
 import software.xdev.spring.data.eclipse.store.repository.config.EclipseStoreClientConfiguration;
 import software.xdev.spring.data.eclipse.store.repository.config.EclipseStoreStorageFoundationProvider;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreRepository;
+import software.xdev.spring.data.eclipse.store.repository.lazy.LazyEvictionPolicy;
+import software.xdev.spring.data.eclipse.store.repository.lazy.LazyReferenceStatistics;
+import software.xdev.spring.data.eclipse.store.repository.query.cache.QueryResultCache;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryStatistics;
 import software.xdev.spring.data.eclipse.store.repository.root.EclipseStoreMigrator;
 import software.xdev.spring.data.eclipse.store.repository.root.VersionedRoot;
 import software.xdev.spring.data.eclipse.store.repository.root.data.version.DataVersion;
 import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.LazyEntityData;
 import software.xdev.spring.data.eclipse.store.repository.support.SimpleEclipseStoreRepository;
 import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
 import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReentrantJavaReadWriteLock;
@@ -87,11 +97,23 @@ public class EclipseStoreStorage
 	private final WorkingCopyRegistry registry = new WorkingCopyRegistry();
 	private final ReadWriteLock readWriteLock = new ReentrantJavaReadWriteLock();
 	private RepositorySynchronizer repositorySynchronizer;
+	private final QueryParallelism queryParallelism;
+	private final QueryBudget queryBudget;
+	private final QueryStatistics queryStatistics;
+	private final boolean hSqlIndexedCollectionEnabled;
+	private final Set<QueryResultCache> queryResultCaches = ConcurrentHashMap.newKeySet();
+	private final LazyEvictionPolicy lazyEvictionPolicy;
+	private final LazyReferenceStatistics lazyReferenceStatistics = new LazyReferenceStatistics();
 	
 	public EclipseStoreStorage(final EclipseStoreClientConfiguration storeConfiguration)
 	{
 		this.foundationProvider = storeConfiguration;
 		this.classLoaderProvider = storeConfiguration.getClassLoaderProvider();
+		this.queryParallelism = storeConfiguration.createQueryParallelism().withinReadLockOf(this.readWriteLock);
+		this.queryBudget = storeConfiguration.createQueryBudget();
+		this.queryStatistics = storeConfiguration.createQueryStatistics();
+		this.hSqlIndexedCollectionEnabled = storeConfiguration.isQueryHSqlIndexedCollectionEnabled();
+		this.lazyEvictionPolicy = storeConfiguration.createLazyEvictionPolicy();
 	}
 	
 	public EmbeddedStorageManager getInstanceOfStorageManager()
@@ -123,6 +145,7 @@ public class EclipseStoreStorage
 				this.root.getCurrentRootData().getEntityCount()
 			);
 			EclipseStoreMigrator.migrateStructure(this.root, this.storageManager);
+			this.lazyEvictionPolicy.start(this::evictLazyEntities);
 		}
 	}
 	
@@ -180,7 +203,8 @@ public class EclipseStoreStorage
 		this.entitySetCollector =
 			new EntitySetCollector(
 				this.root.getCurrentRootData()::getEntityData,
-				this.entityClassToRepository.keySet());
+				this.entityClassToRepository.keySet(),
+				this.queryParallelism);
 		if(LOG.isDebugEnabled())
 		{
 			LOG.debug("Done initializing entity lists.");
@@ -201,6 +225,14 @@ public class EclipseStoreStorage
 			{
 				this.setIdManagerForEntityData(entityClass, this.root);
 			}
+			this.setIndexesForEntityData(entityClass, this.root);
+			if(this.root.getCurrentRootData().getEntityData(entityClass)
+				instanceof final LazyEntityData<?, ?> lazyEntityData)
+			{
+				lazyEntityData.setObjectIdLookup(
+					this.storageManager.persistenceManager().objectRegistry()::lookupObjectId);
+				lazyEntityData.setLazyReferenceStatistics(this.lazyReferenceStatistics);
+			}
 		}
 		if(entityListMustGetStored)
 		{
@@ -236,6 +268,13 @@ public class EclipseStoreStorage
 		}
 	}
 	
+	private <T> void setIndexesForEntityData(final Class<T> entityClass, final VersionedRoot root)
+	{
+		final EntityData<T, Object> entityData = root.getCurrentRootData().getEntityData(entityClass);
+		// Also set without indexed fields, since the indexes hold the collection for HSQL queries.
+		entityData.setIndexes(EntityIndexes.create(entityClass));
+	}
+	
 	@Override
 	public synchronized <T, ID> void registerEntity(
 		final Class<T> classToRegister,
@@ -346,6 +385,35 @@ public class EclipseStoreStorage
 		);
 	}
 	
+	@Override
+	public <T> void deleteAll(final Class<T> clazz, final Collection<? extends T> entitiesToRemove)
+	{
+		if(entitiesToRemove.isEmpty())
+		{
+			return;
+		}
+		this.ensureEntitiesInRoot();
+		this.readWriteLock.write(
+			() ->
+			{
+				final EntityData<T, ?> entityData = this.getEntityData(clazz);
+				Collection<Object> objectsToStore = List.of();
+				for(final T entityToRemove : entitiesToRemove)
+				{
+					objectsToStore = entityData.removeEntityAndReturnObjectsToStore(entityToRemove);
+				}
+				// The objects to store are the internal collections of the entity data, which are the same for
+				// every removed entity.
+				this.storageManager.storeAll(objectsToStore);
+				
+				if(LOG.isDebugEnabled())
+				{
+					LOG.debug("Deleted {} entities of class {}.", entitiesToRemove.size(), clazz.getSimpleName());
+				}
+			}
+		);
+	}
+	
 	@Override
 	public <T> void deleteAll(final Class<T> clazz)
 	{
@@ -376,6 +444,7 @@ public class EclipseStoreStorage
 				
 				instanceOfstorageManager.setRoot(this.root);
 				instanceOfstorageManager.storeRoot();
+				this.queryResultCaches.forEach(QueryResultCache::clear);
 				if(LOG.isDebugEnabled())
 				{
 					LOG.debug("Cleared all entities.");
@@ -409,6 +478,9 @@ public class EclipseStoreStorage
 					this.registry.reset();
 					this.idManagers.clear();
 					this.versionManagers.clear();
+					this.queryResultCaches.forEach(QueryResultCache::clear);
+					this.queryParallelism.close();
+					this.lazyEvictionPolicy.close();
 					LOG.info("Stopped storage.");
 				}
 				else
@@ -505,6 +577,91 @@ public class EclipseStoreStorage
 		return this.readWriteLock;
 	}
 	
+	/**
+	 * @return the global limits of queries, which can be overridden per method with {@link QueryLimits}.
+	 */
+	public QueryBudget getQueryBudget()
+	{
+		return this.queryBudget;
+	}
+	
+	/**
+	 * @return {@code true} if the entities of {@code @Query} methods are kept in a long-lived collection per entity
+	 * type.
+	 */
+	public boolean isHSqlIndexedCollectionEnabled()
+	{
+		return this.hSqlIndexedCollectionEnabled;
+	}
+	
+	/**
+	 * @return the statistics of all query methods of the repositories in this storage.
+	 */
+	@Override
+	public QueryStatistics getQueryStatistics()
+	{
+		return this.queryStatistics;
+	}
+	
+	/**
+	 * Clears the loaded entities of lazy repositories that exceed the limits of the {@link LazyEvictionPolicy}. Is
+	 * executed periodically if the policy has an interval, but can also be called explicitly (e.g. after a batch job
+	 * that read many entities).
+	 * <p>
+	 * Only the references that were loaded since the last eviction are checked (see
+	 * {@link LazyEntityData#getLoadedReferences()}), so the read lock is not held for a scan of all entities.
+	 * </p>
+	 *
+	 * @return the count of cleared entities
+	 */
+	public long evictLazyEntities()
+	{
+		if(!this.lazyEvictionPolicy.isEnabled())
+		{
+			return 0;
+		}
+		return this.readWriteLock.read(() -> {
+			if(this.root == null)
+			{
+				return 0L;
+			}
+			final long evictedCount = this.lazyEvictionPolicy.evict(
+				this.root.getCurrentRootData()
+					.getAllEntityData()
+					.stream()
+					.filter(LazyEntityData.class::isInstance)
+					.map(entityData -> ((LazyEntityData<?, ?>)entityData).getLoadedReferences())
+					.filter(loadedReferences -> !loadedReferences.isEmpty())
+					.toList());
+			this.lazyReferenceStatistics.recordEvictions(evictedCount);
+			return evictedCount;
+		});
+	}
+	
+	/**
+	 * @return how often the entities of lazy repositories were loaded, found in memory or evicted.
+	 */
+	public LazyReferenceStatistics getLazyReferenceStatistics()
+	{
+		return this.lazyReferenceStatistics;
+	}
+	
+	/**
+	 * Registers the cache of a {@link CacheableQuery}, so that it is cleared together with the storage.
+	 */
+	public void registerQueryResultCache(final QueryResultCache queryResultCache)
+	{
+		this.queryResultCaches.add(queryResultCache);
+	}
+	
+	/**
+	 * @return the caches of all {@link CacheableQuery} methods, e.g. to monitor their hit and miss counts.
+	 */
+	public List<QueryResultCache> getQueryResultCaches()
+	{
+		return List.copyOf(this.queryResultCaches);
+	}
+	
 	/**
 	 * <b>Warning!</b> Please be very cautious if you access the root object.
 	 * This should only be done if absolutely necessary!
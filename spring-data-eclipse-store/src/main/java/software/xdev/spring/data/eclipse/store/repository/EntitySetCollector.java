@@ -16,14 +16,17 @@
 package software.xdev.spring.data.eclipse.store.repository;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
 
 import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryParallelism;
 import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
 
 
@@ -32,11 +35,21 @@ public class EntitySetCollector
 {
 	private static final Logger LOG = LoggerFactory.getLogger(EntitySetCollector.class);
 	private final Map<Class<?>, EntityProvider<?, ?>> childClassToParentSets = new HashMap<>();
+	private final QueryParallelism queryParallelism;
 	
 	public <T, ID> EntitySetCollector(
 		final Function<Class<T>, EntityData<T, ID>> entityLists,
 		final Set<Class<?>> entityClasses)
 	{
+		this(entityLists, entityClasses, QueryParallelism.disabled());
+	}
+	
+	public <T, ID> EntitySetCollector(
+		final Function<Class<T>, EntityData<T, ID>> entityLists,
+		final Set<Class<?>> entityClasses,
+		final QueryParallelism queryParallelism)
+	{
+		this.queryParallelism = queryParallelism;
 		this.buildParentClassList(entityLists, entityClasses);
 	}
 	
@@ -49,21 +62,17 @@ public class EntitySetCollector
 		{
 			LOG.debug("Initializing parent class list...");
 		}
-		for(final Class<?> possibleParentEntry : entityClasses)
+		for(final Class<?> entityClass : entityClasses)
+		{
+			this.childClassToParentSets.put(entityClass, new EntityProvider<>(this.queryParallelism));
+		}
+		// Each class is added to the sets of its supertypes, so only the hierarchy of each class is visited
+		// instead of comparing all pairs of classes.
+		for(final Class<?> entityClass : entityClasses)
 		{
-			for(final Class<?> possibleChildEntry : entityClasses)
+			for(final Class<?> superType : getTypeHierarchy(entityClass))
 			{
-				this.childClassToParentSets.putIfAbsent(
-					possibleChildEntry, new EntityProvider<>()
-				);
-				if(possibleChildEntry.isAssignableFrom(possibleParentEntry))
-				{
-					this.addEntityData(
-						(EntityProvider<T, ID>)this.childClassToParentSets.get(possibleChildEntry),
-						entityLists,
-						(Class<T>)possibleParentEntry
-					);
-				}
+				this.addToSetOf(superType, entityLists, entityClass);
 			}
 		}
 		if(LOG.isDebugEnabled())
@@ -72,13 +81,31 @@ public class EntitySetCollector
 		}
 	}
 	
-	private <T, ID> void addEntityData(
-		final EntityProvider<T, ID> entities,
+	/**
+	 * @return the class itself, all its superclasses and all interfaces it implements.
+	 */
+	private static Set<Class<?>> getTypeHierarchy(final Class<?> clazz)
+	{
+		final Set<Class<?>> typeHierarchy = new LinkedHashSet<>();
+		for(Class<?> superClass = clazz; superClass != null; superClass = superClass.getSuperclass())
+		{
+			typeHierarchy.add(superClass);
+		}
+		typeHierarchy.addAll(ClassUtils.getAllInterfacesForClassAsSet(clazz));
+		return typeHierarchy;
+	}
+	
+	private <T, ID> void addToSetOf(
+		final Class<?> superType,
 		final Function<Class<T>, EntityData<T, ID>> entityLists,
-		final Class<T> possibleParentEntry
+		final Class<?> entityClass
 	)
 	{
-		entities.addEntityData(entityLists.apply(possibleParentEntry));
+		final EntityProvider<T, ID> entities = (EntityProvider<T, ID>)this.childClassToParentSets.get(superType);
+		if(entities != null)
+		{
+			entities.addEntityData(entityLists.apply((Class<T>)entityClass));
+		}
 	}
 	
 	/**
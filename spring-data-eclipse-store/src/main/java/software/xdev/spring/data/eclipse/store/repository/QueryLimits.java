@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Limits how long a single execution of a derived query or a {@link Query} method may run and how many entities it
+ * may scan. These limits replace the global limits of the storage (see
+ * {@link software.xdev.spring.data.eclipse.store.core.QueryBudget}) for this method.
+ * <p>
+ * The limits are checked while the entities are scanned. If a limit is exceeded, the query is aborted with a
+ * {@link software.xdev.spring.data.eclipse.store.exceptions.QueryBudgetExceededException} and releases the lock of
+ * the storage, so that a single bad query can't block all writers. Entities that are found through an index are not
+ * scanned and don't count towards the limit.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface QueryLimits
+{
+	/**
+	 * Maximum duration of an execution in milliseconds. {@code 0} disables the timeout, a negative value keeps the
+	 * global timeout.
+	 */
+	long timeoutMillis() default -1;
+	
+	/**
+	 * Maximum count of entities that an execution may scan. {@code 0} disables the limit, a negative value keeps the
+	 * global limit.
+	 */
+	long maxScannedEntities() default -1;
+}
@@ -17,27 +17,30 @@ package software.xdev.spring.data.eclipse.store.repository;
 
 import java.util.Collection;
 
-import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.SimpleEclipseStoreRepository;
-import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
 
 
 @SuppressWarnings("java:S119")
-public interface StorageCommunicator
+public interface StorageCommunicator extends EntityListProvider
 {
-	ReadWriteLock getReadWriteLock();
-	
 	<T> void store(
 		final Collection<Object> nonEntitiesToStore, final Class<T> clazz,
 		final Iterable<T> entitiesToStore);
 	
-	<T, ID> EntityProvider<T, ID> getEntityProvider(final Class<T> clazz);
-	
 	<T> long getEntityCount(Class<T> domainClass);
 	
 	<T> void delete(Class<T> domainClass, T foundEntity);
 	
+	/**
+	 * Deletes multiple entities, but stores the changed entity data only once.
+	 */
+	<T> void deleteAll(Class<T> domainClass, Collection<? extends T> foundEntities);
+	
 	<T> void deleteAll(Class<T> domainClass);
 	
 	<T, ID> void registerEntity(Class<T> domainClass, SimpleEclipseStoreRepository<T, ID> repository);
+	
+	QueryStatistics getQueryStatistics();
 }
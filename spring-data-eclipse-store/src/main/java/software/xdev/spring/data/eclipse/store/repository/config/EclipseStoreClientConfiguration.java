@@ -40,7 +40,11 @@ import org.springframework.context.event.EventListener;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import software.xdev.micromigration.migrater.MicroMigrater;
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.core.QueryParallelism;
 import software.xdev.spring.data.eclipse.store.repository.EclipseStoreStorage;
+import software.xdev.spring.data.eclipse.store.repository.lazy.LazyEvictionPolicy;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryStatistics;
 import software.xdev.spring.data.eclipse.store.repository.root.EclipseStoreMigrator;
 import software.xdev.spring.data.eclipse.store.transactions.EclipseStoreTransactionManager;
 
@@ -89,6 +93,74 @@ public abstract class EclipseStoreClientConfiguration implements EclipseStoreSto
 	@Value("${spring.devtools.restart.enabled:true}")
 	protected boolean springDevtoolsRestartEnabled;
 	
+	/**
+	 * Count of entities that a query must scan to be executed in parallel. Parallel queries are disabled if it is
+	 * {@code 0} or less.
+	 */
+	@Value("${spring-data-eclipse-store.query.parallel.threshold:100000}")
+	protected long queryParallelThreshold;
+	
+	/**
+	 * Count of threads for parallel queries. If it is {@code 0} or less, the count of available processors is used.
+	 */
+	@Value("${spring-data-eclipse-store.query.parallel.parallelism:0}")
+	protected int queryParallelism;
+	
+	/**
+	 * Maximum duration of a derived query or a {@code @Query} method in milliseconds. Queries never time out if it is
+	 * {@code 0} or less. Can be overridden per method with
+	 * {@link software.xdev.spring.data.eclipse.store.repository.QueryLimits}.
+	 */
+	@Value("${spring-data-eclipse-store.query.timeout-millis:0}")
+	protected long queryTimeoutMillis;
+	
+	/**
+	 * Maximum count of entities that a derived query or a {@code @Query} method may scan. Not limited if it is
+	 * {@code 0} or less. Can be overridden per method with
+	 * {@link software.xdev.spring.data.eclipse.store.repository.QueryLimits}.
+	 */
+	@Value("${spring-data-eclipse-store.query.max-scanned-entities:0}")
+	protected long queryMaxScannedEntities;
+	
+	/**
+	 * Whether the executions of all query methods are recorded in the {@link QueryStatistics}.
+	 */
+	@Value("${spring-data-eclipse-store.query.statistics.enabled:false}")
+	protected boolean queryStatisticsEnabled;
+	
+	/**
+	 * Queries that take longer than this many milliseconds are logged as slow queries. Disabled if it is {@code 0} or
+	 * less.
+	 */
+	@Value("${spring-data-eclipse-store.query.statistics.slow-query-millis:0}")
+	protected long querySlowQueryMillis;
+	
+	/**
+	 * Whether the entities of {@code @Query} methods are kept in a long-lived collection with the declared
+	 * {@link software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexed} indexes. If disabled, the entities
+	 * are collected for every query.
+	 */
+	@Value("${spring-data-eclipse-store.query.hsql.indexed-collection.enabled:false}")
+	protected boolean queryHSqlIndexedCollectionEnabled;
+	
+	/**
+	 * Maximum count of loaded entities of a single lazy entity type. Not limited if it is {@code 0} or less.
+	 */
+	@Value("${spring-data-eclipse-store.lazy.eviction.max-loaded-entities-per-type:0}")
+	protected long lazyEvictionMaxLoadedEntitiesPerType;
+	
+	/**
+	 * Maximum count of loaded entities of all lazy entity types. Not limited if it is {@code 0} or less.
+	 */
+	@Value("${spring-data-eclipse-store.lazy.eviction.max-loaded-entities:0}")
+	protected long lazyEvictionMaxLoadedEntities;
+	
+	/**
+	 * Milliseconds between two evictions of loaded lazy entities.
+	 */
+	@Value("${spring-data-eclipse-store.lazy.eviction.interval-millis:1000}")
+	protected long lazyEvictionIntervalMillis;
+	
 	@SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 	@Lazy
 	@Autowired
@@ -128,6 +200,48 @@ public abstract class EclipseStoreClientConfiguration implements EclipseStoreSto
 		return this.getStoreProvider().createStorageFoundation(this.getEclipseStoreProperties());
 	}
 	
+	/**
+	 * Creates the settings for queries that are executed in parallel. Can be overridden to e.g. use
+	 * {@link QueryParallelism#disabled()}.
+	 */
+	public QueryParallelism createQueryParallelism()
+	{
+		return new QueryParallelism(this.queryParallelThreshold, this.queryParallelism);
+	}
+	
+	/**
+	 * Creates the global limits of queries. Can be overridden to e.g. use {@link QueryBudget#unlimited()}.
+	 */
+	public QueryBudget createQueryBudget()
+	{
+		return new QueryBudget(this.queryTimeoutMillis, this.queryMaxScannedEntities);
+	}
+	
+	/**
+	 * Creates the statistics of all query methods. Can be overridden to e.g. use {@link QueryStatistics#disabled()}.
+	 */
+	public QueryStatistics createQueryStatistics()
+	{
+		return new QueryStatistics(this.queryStatisticsEnabled, this.querySlowQueryMillis);
+	}
+	
+	public boolean isQueryHSqlIndexedCollectionEnabled()
+	{
+		return this.queryHSqlIndexedCollectionEnabled;
+	}
+	
+	/**
+	 * Creates the policy that clears loaded entities of lazy repositories. Can be overridden to e.g. pass a
+	 * {@link org.eclipse.serializer.reference.Lazy.ClearingEvaluator} that keeps some entities in memory.
+	 */
+	public LazyEvictionPolicy createLazyEvictionPolicy()
+	{
+		return new LazyEvictionPolicy(
+			this.lazyEvictionMaxLoadedEntitiesPerType,
+			this.lazyEvictionMaxLoadedEntities,
+			this.lazyEvictionIntervalMillis);
+	}
+	
 	public EclipseStoreStorage getStorageInstance()
 	{
 		if(this.storageInstance == null)
@@ -210,7 +324,7 @@ public abstract class EclipseStoreClientConfiguration implements EclipseStoreSto
 			this.storageInstance.stop();
 		}
 	}
-
+	
 	@Bean
 	public Validator getValidator()
 	{
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Marks a field of an entity that is often filtered in scans to be additionally held in a column of
+ * {@link EntityColumns}.
+ * <p>
+ * The values of all entities are copied into a primitive array ({@code long[]} for integral numbers, {@code double[]}
+ * for floating point numbers and dictionary codes in an {@code int[]} for enums and strings). Ranges and equality on
+ * these fields in derived queries are checked in a loop over the array, before any entity is read. Only the entities
+ * that match all these conditions are checked against the other conditions of the query.
+ * </p>
+ * <p>
+ * Unlike {@link Indexed} a column does not find a few entities faster, but makes checking many entities cheaper. It
+ * pays off for fields with few distinct values or for broad ranges over many entities.
+ * </p>
+ * <p>
+ * The columns are held in memory only and are rebuilt when the storage starts. They are not available for lazy
+ * repositories.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface Columnar
+{
+}
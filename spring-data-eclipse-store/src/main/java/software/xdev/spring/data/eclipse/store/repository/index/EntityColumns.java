@@ -0,0 +1,511 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.util.ClassUtils;
+
+import software.xdev.spring.data.eclipse.store.exceptions.DataTypeNotSupportedException;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.support.AnnotatedFieldFinder;
+import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+
+
+/**
+ * Holds the values of the {@link Columnar} fields of all entities of one type in primitive arrays. Every entity has
+ * a row and the value of each field is stored at the position of this row in the array of the field. Ranges on these
+ * fields are checked in a loop over the arrays which produces a {@link BitSet} of matching rows, before any entity is
+ * read.
+ * <p>
+ * A removed entity is replaced by the entity in the last row, so that the rows stay without gaps.
+ * </p>
+ * <p>
+ * {@code null} values are the smallest values, just like in the {@link GenericObjectComparer}.
+ * </p>
+ * <p>
+ * These columns are <b>not thread safe</b>. They must only be changed within the write lock and only be read within
+ * the read lock of the storage.
+ * </p>
+ *
+ * @param <T> type of the entities
+ */
+public class EntityColumns<T>
+{
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private final Map<String, Column<T>> columnsByFieldName = new LinkedHashMap<>();
+	private final IdentityHashMap<T, Integer> rowsByEntity = new IdentityHashMap<>();
+	private Object[] entities = new Object[INITIAL_CAPACITY];
+	private int size;
+	
+	public EntityColumns(final Collection<ReflectedField<T, ?>> fields)
+	{
+		fields.forEach(field -> this.columnsByFieldName.put(field.getName(), createColumn(field)));
+	}
+	
+	public static <T> EntityColumns<T> create(final Class<T> domainClass)
+	{
+		final List<Field> columnarFields =
+			AnnotatedFieldFinder.findAnnotatedFields(domainClass, List.of(Columnar.class));
+		return new EntityColumns<>(columnarFields.stream().<ReflectedField<T, ?>>map(ReflectedField::new).toList());
+	}
+	
+	private static <T> Column<T> createColumn(final ReflectedField<T, ?> field)
+	{
+		final Class<?> valueType = ClassUtils.resolvePrimitiveIfNecessary(field.getType());
+		if(valueType == Long.class || valueType == Integer.class || valueType == Short.class
+			|| valueType == Byte.class)
+		{
+			return new LongColumn<>(field, valueType, INITIAL_CAPACITY);
+		}
+		if(valueType == Double.class || valueType == Float.class)
+		{
+			return new DoubleColumn<>(field, valueType, INITIAL_CAPACITY);
+		}
+		if(valueType.isEnum() || valueType == String.class || valueType == Boolean.class)
+		{
+			return new DictionaryColumn<>(field, valueType, INITIAL_CAPACITY);
+		}
+		throw new DataTypeNotSupportedException(String.format(
+			"Field %s can not be stored in a column because type %s is not a number, enum, string or boolean.",
+			field.getName(),
+			valueType.getSimpleName()));
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.columnsByFieldName.isEmpty();
+	}
+	
+	/**
+	 * @return the count of entities (rows) in the columns.
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Adds a new entity or updates the values of an already contained entity.
+	 */
+	public void put(final T entity)
+	{
+		if(this.isEmpty())
+		{
+			return;
+		}
+		Integer row = this.rowsByEntity.get(entity);
+		if(row == null)
+		{
+			row = this.size;
+			if(row == this.entities.length)
+			{
+				final int newCapacity = this.entities.length * 2;
+				this.entities = Arrays.copyOf(this.entities, newCapacity);
+				this.columnsByFieldName.values().forEach(column -> column.grow(newCapacity));
+			}
+			this.entities[row] = entity;
+			this.rowsByEntity.put(entity, row);
+			this.size++;
+		}
+		for(final Column<T> column : this.columnsByFieldName.values())
+		{
+			column.set(row, entity);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	public void remove(final T entity)
+	{
+		final Integer row = this.rowsByEntity.remove(entity);
+		if(row == null)
+		{
+			return;
+		}
+		final int lastRow = --this.size;
+		if(row != lastRow)
+		{
+			final T movedEntity = (T)this.entities[lastRow];
+			this.entities[row] = movedEntity;
+			this.rowsByEntity.put(movedEntity, row);
+			this.columnsByFieldName.values().forEach(column -> column.move(lastRow, row));
+		}
+		this.entities[lastRow] = null;
+		this.columnsByFieldName.values().forEach(column -> column.clear(lastRow));
+	}
+	
+	public void clear()
+	{
+		this.rowsByEntity.clear();
+		this.entities = new Object[INITIAL_CAPACITY];
+		this.size = 0;
+		this.columnsByFieldName.values().forEach(column -> column.reset(INITIAL_CAPACITY));
+	}
+	
+	/**
+	 * @return {@code true} if the field of the range is stored in a column and the bounds of the range can be
+	 * compared with its values.
+	 */
+	public boolean supports(final IndexRange range)
+	{
+		final Column<T> column = this.columnsByFieldName.get(range.fieldName());
+		return column != null
+			&& (range.lower() == null || column.valueType.isInstance(range.lower()))
+			&& (range.upper() == null || column.valueType.isInstance(range.upper()));
+	}
+	
+	/**
+	 * @param ranges that all matching entities must lie in. Ranges that are not {@link #supports(IndexRange)
+	 *               supported} are ignored.
+	 * @return the rows of all entities that lie within all supported ranges.
+	 */
+	public BitSet filter(final List<IndexRange> ranges)
+	{
+		final BitSet rows = new BitSet(this.size);
+		rows.set(0, this.size);
+		for(final IndexRange range : ranges)
+		{
+			if(this.supports(range))
+			{
+				rows.and(this.columnsByFieldName.get(range.fieldName()).filter(range, this.size));
+			}
+		}
+		return rows;
+	}
+	
+	/**
+	 * Streams the entities of the given rows in the order of the rows.
+	 * <p>
+	 * The entities are read from the rows immediately, so that the stream still returns the filtered entities if it
+	 * is consumed after a row has been moved by {@link #remove(Object)}. Rows beyond the current {@link #size()} are
+	 * ignored.
+	 * </p>
+	 */
+	@SuppressWarnings("unchecked")
+	public Stream<T> stream(final BitSet rows)
+	{
+		final Object[] currentEntities = this.entities;
+		final BitSet currentRows = rows.get(0, this.size);
+		final Object[] selectedEntities = new Object[currentRows.cardinality()];
+		int index = 0;
+		for(int row = currentRows.nextSetBit(0); row >= 0; row = currentRows.nextSetBit(row + 1))
+		{
+			selectedEntities[index++] = currentEntities[row];
+		}
+		return Arrays.stream(selectedEntities).map(entity -> (T)entity);
+	}
+	
+	/**
+	 * Values of a single field of all rows.
+	 */
+	private abstract static class Column<T>
+	{
+		protected final ReflectedField<T, ?> field;
+		protected final Class<?> valueType;
+		protected final boolean isPrimitive;
+		protected final BitSet nullRows = new BitSet();
+		
+		protected Column(final ReflectedField<T, ?> field, final Class<?> valueType)
+		{
+			this.field = field;
+			this.valueType = valueType;
+			this.isPrimitive = field.getType().isPrimitive();
+		}
+		
+		protected abstract void set(int row, T entity);
+		
+		protected abstract void move(int fromRow, int toRow);
+		
+		protected void clear(final int row)
+		{
+			this.nullRows.clear(row);
+		}
+		
+		protected abstract void grow(int capacity);
+		
+		protected void reset(final int capacity)
+		{
+			this.nullRows.clear();
+		}
+		
+		/**
+		 * @return the rows, whose values lie within the range.
+		 */
+		protected abstract BitSet filter(IndexRange range, int size);
+		
+		/**
+		 * Null is the smallest value, so it only lies within ranges without lower bound.
+		 */
+		protected void applyNullRows(final IndexRange range, final BitSet matchingRows)
+		{
+			if(range.lower() == null)
+			{
+				matchingRows.or(this.nullRows);
+			}
+			else
+			{
+				matchingRows.andNot(this.nullRows);
+			}
+		}
+	}
+	
+	/**
+	 * Integral numbers in a {@code long[]}.
+	 */
+	private static final class LongColumn<T> extends Column<T>
+	{
+		private long[] values;
+		
+		private LongColumn(final ReflectedField<T, ?> field, final Class<?> valueType, final int capacity)
+		{
+			super(field, valueType);
+			this.values = new long[capacity];
+		}
+		
+		@Override
+		protected void set(final int row, final T entity)
+		{
+			if(this.isPrimitive)
+			{
+				this.values[row] = this.field.readLong(entity);
+				return;
+			}
+			final Number value = (Number)this.field.readValue(entity);
+			this.nullRows.set(row, value == null);
+			this.values[row] = value == null ? 0 : value.longValue();
+		}
+		
+		@Override
+		protected void move(final int fromRow, final int toRow)
+		{
+			this.values[toRow] = this.values[fromRow];
+			this.nullRows.set(toRow, this.nullRows.get(fromRow));
+		}
+		
+		@Override
+		protected void grow(final int capacity)
+		{
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+		
+		@Override
+		protected void reset(final int capacity)
+		{
+			super.reset(capacity);
+			this.values = new long[capacity];
+		}
+		
+		@Override
+		protected BitSet filter(final IndexRange range, final int size)
+		{
+			final long lower = range.lower() == null ? Long.MIN_VALUE : ((Number)range.lower()).longValue();
+			final boolean lowerInclusive = range.lower() == null || range.lowerInclusive();
+			final long upper = range.upper() == null ? Long.MAX_VALUE : ((Number)range.upper()).longValue();
+			final boolean upperInclusive = range.upper() == null || range.upperInclusive();
+			final long[] currentValues = this.values;
+			final BitSet matchingRows = new BitSet(size);
+			for(int row = 0; row < size; row++)
+			{
+				final long value = currentValues[row];
+				if((lowerInclusive ? value >= lower : value > lower)
+					&& (upperInclusive ? value <= upper : value < upper))
+				{
+					matchingRows.set(row);
+				}
+			}
+			this.applyNullRows(range, matchingRows);
+			return matchingRows;
+		}
+	}
+	
+	/**
+	 * Floating point numbers in a {@code double[]}. The values are compared like {@link Double#compare(double,
+	 * double)}, so {@code NaN} is the greatest value.
+	 */
+	private static final class DoubleColumn<T> extends Column<T>
+	{
+		private double[] values;
+		
+		private DoubleColumn(final ReflectedField<T, ?> field, final Class<?> valueType, final int capacity)
+		{
+			super(field, valueType);
+			this.values = new double[capacity];
+		}
+		
+		@Override
+		protected void set(final int row, final T entity)
+		{
+			if(this.isPrimitive)
+			{
+				this.values[row] = this.field.readDouble(entity);
+				return;
+			}
+			final Number value = (Number)this.field.readValue(entity);
+			this.nullRows.set(row, value == null);
+			this.values[row] = value == null ? 0 : value.doubleValue();
+		}
+		
+		@Override
+		protected void move(final int fromRow, final int toRow)
+		{
+			this.values[toRow] = this.values[fromRow];
+			this.nullRows.set(toRow, this.nullRows.get(fromRow));
+		}
+		
+		@Override
+		protected void grow(final int capacity)
+		{
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+		
+		@Override
+		protected void reset(final int capacity)
+		{
+			super.reset(capacity);
+			this.values = new double[capacity];
+		}
+		
+		@Override
+		protected BitSet filter(final IndexRange range, final int size)
+		{
+			final boolean hasLower = range.lower() != null;
+			final double lower = hasLower ? ((Number)range.lower()).doubleValue() : 0;
+			final int lowerLimit = range.lowerInclusive() ? 0 : 1;
+			final boolean hasUpper = range.upper() != null;
+			final double upper = hasUpper ? ((Number)range.upper()).doubleValue() : 0;
+			final int upperLimit = range.upperInclusive() ? 0 : -1;
+			final double[] currentValues = this.values;
+			final BitSet matchingRows = new BitSet(size);
+			for(int row = 0; row < size; row++)
+			{
+				final double value = currentValues[row];
+				if((!hasLower || Double.compare(value, lower) >= lowerLimit)
+					&& (!hasUpper || Double.compare(value, upper) <= upperLimit))
+				{
+					matchingRows.set(row);
+				}
+			}
+			this.applyNullRows(range, matchingRows);
+			return matchingRows;
+		}
+	}
+	
+	/**
+	 * Enums, strings and booleans as codes of a dictionary in an {@code int[]}. Fields like these usually have few
+	 * distinct values, so each range is only checked once per distinct value instead of once per row.
+	 * <p>
+	 * Values are not removed from the dictionary until the columns are {@link EntityColumns#clear() cleared}.
+	 * </p>
+	 */
+	private static final class DictionaryColumn<T> extends Column<T>
+	{
+		private static final int NULL_CODE = 0;
+		
+		private int[] codes;
+		private final Map<Object, Integer> codesByValue = new HashMap<>();
+		private final List<Object> valuesByCode = new ArrayList<>();
+		
+		private DictionaryColumn(final ReflectedField<T, ?> field, final Class<?> valueType, final int capacity)
+		{
+			super(field, valueType);
+			this.reset(capacity);
+		}
+		
+		@Override
+		protected void set(final int row, final T entity)
+		{
+			final Object value = this.field.readValue(entity);
+			this.codes[row] = value == null
+				? NULL_CODE
+				: this.codesByValue.computeIfAbsent(value, newValue -> {
+					this.valuesByCode.add(newValue);
+					return this.valuesByCode.size() - 1;
+				});
+		}
+		
+		@Override
+		protected void move(final int fromRow, final int toRow)
+		{
+			this.codes[toRow] = this.codes[fromRow];
+		}
+		
+		@Override
+		protected void grow(final int capacity)
+		{
+			this.codes = Arrays.copyOf(this.codes, capacity);
+		}
+		
+		@Override
+		protected void reset(final int capacity)
+		{
+			super.reset(capacity);
+			this.codes = new int[capacity];
+			this.codesByValue.clear();
+			this.valuesByCode.clear();
+			this.valuesByCode.add(null);
+		}
+		
+		@Override
+		protected BitSet filter(final IndexRange range, final int size)
+		{
+			final boolean[] matchingCodes = new boolean[this.valuesByCode.size()];
+			matchingCodes[NULL_CODE] = range.lower() == null;
+			for(int code = NULL_CODE + 1; code < matchingCodes.length; code++)
+			{
+				matchingCodes[code] = isWithin(this.valuesByCode.get(code), range);
+			}
+			final int[] currentCodes = this.codes;
+			final BitSet matchingRows = new BitSet(size);
+			for(int row = 0; row < size; row++)
+			{
+				if(matchingCodes[currentCodes[row]])
+				{
+					matchingRows.set(row);
+				}
+			}
+			return matchingRows;
+		}
+		
+		private static boolean isWithin(final Object value, final IndexRange range)
+		{
+			if(range.lower() != null)
+			{
+				final int comparison = GenericObjectComparer.compare(value, range.lower());
+				if(comparison < 0 || comparison == 0 && !range.lowerInclusive())
+				{
+					return false;
+				}
+			}
+			if(range.upper() != null)
+			{
+				final int comparison = GenericObjectComparer.compare(value, range.upper());
+				return comparison < 0 || comparison == 0 && range.upperInclusive();
+			}
+			return true;
+		}
+	}
+}
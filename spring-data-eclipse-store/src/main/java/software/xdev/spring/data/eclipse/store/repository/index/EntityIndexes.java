@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.core.PropertyPath;
+
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedPropertyPath;
+import software.xdev.spring.data.eclipse.store.repository.query.antlr.HSqlIndexedCollection;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
+import software.xdev.spring.data.eclipse.store.repository.support.AnnotatedFieldFinder;
+
+
+/**
+ * All {@link SortedIndex}es of a single entity type. The indexes are created for every field that is annotated with
+ * {@link Indexed} or for the {@link Indexed#paths()} of the field.
+ * <p>
+ * Fields that are annotated with {@link Columnar} are additionally held in the {@link EntityColumns} of the type.
+ * </p>
+ * <p>
+ * Additionally holds the {@link HSqlIndexedCollection} of the entity type, if HSQL queries were executed on it.
+ * </p>
+ *
+ * @param <T> type of the indexed entities
+ */
+public class EntityIndexes<T>
+{
+	/**
+	 * Ranges with more candidates are considered equally unselective, so that broad ranges are not counted
+	 * completely.
+	 */
+	static final long MAX_COUNTED_CANDIDATES = 1_024;
+	
+	private final Class<T> domainClass;
+	private final Map<String, SortedIndex<T>> indexesByFieldName = new LinkedHashMap<>();
+	private final EntityColumns<T> columns;
+	@Nullable
+	private HSqlIndexedCollection<T> hSqlCollection;
+	
+	public EntityIndexes(final Class<T> domainClass, final Collection<SortedIndex<T>> indexes)
+	{
+		this(domainClass, indexes, new EntityColumns<>(List.of()));
+	}
+	
+	public EntityIndexes(
+		final Class<T> domainClass,
+		final Collection<SortedIndex<T>> indexes,
+		final EntityColumns<T> columns)
+	{
+		this.domainClass = domainClass;
+		indexes.forEach(index -> this.indexesByFieldName.put(index.getFieldName(), index));
+		this.columns = columns;
+	}
+	
+	public static <T> EntityIndexes<T> create(final Class<T> domainClass)
+	{
+		return new EntityIndexes<>(
+			domainClass,
+			findIndexedFields(domainClass).map(SortedIndex::new).toList(),
+			EntityColumns.create(domainClass)
+		);
+	}
+	
+	/**
+	 * @return the fields that are annotated with {@link Indexed} or the {@link Indexed#paths()} of these fields.
+	 */
+	static <T> Stream<ReflectedField<T, ?>> findIndexedFields(final Class<T> domainClass)
+	{
+		return AnnotatedFieldFinder.findAnnotatedFields(domainClass, List.of(Indexed.class))
+			.stream()
+			.flatMap(field -> findIndexedPaths(domainClass, field));
+	}
+	
+	private static <T> Stream<ReflectedField<T, ?>> findIndexedPaths(final Class<T> domainClass, final Field field)
+	{
+		final String[] paths = field.getAnnotation(Indexed.class).paths();
+		if(paths.length == 0)
+		{
+			return Stream.of(new ReflectedField<>(field));
+		}
+		return Arrays.stream(paths).map(path -> ReflectedPropertyPath.create(
+			domainClass,
+			PropertyPath.from(field.getName() + "." + path, domainClass)));
+	}
+	
+	public Class<T> getDomainClass()
+	{
+		return this.domainClass;
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.indexesByFieldName.isEmpty() && this.columns.isEmpty();
+	}
+	
+	public Optional<SortedIndex<T>> getIndex(final String fieldName)
+	{
+		return Optional.ofNullable(this.indexesByFieldName.get(fieldName));
+	}
+	
+	/**
+	 * Adds a new entity or updates the keys of an already indexed entity.
+	 */
+	public void put(final T entity)
+	{
+		this.indexesByFieldName.values().forEach(index -> index.put(entity));
+		this.columns.put(entity);
+		if(this.hSqlCollection != null)
+		{
+			this.hSqlCollection.put(entity);
+		}
+	}
+	
+	public void remove(final T entity)
+	{
+		this.indexesByFieldName.values().forEach(index -> index.remove(entity));
+		this.columns.remove(entity);
+		if(this.hSqlCollection != null)
+		{
+			this.hSqlCollection.remove(entity);
+		}
+	}
+	
+	public void clear()
+	{
+		this.indexesByFieldName.values().forEach(SortedIndex::clear);
+		this.columns.clear();
+		if(this.hSqlCollection != null)
+		{
+			this.hSqlCollection.clear();
+		}
+	}
+	
+	public void rebuild(final Iterable<T> entities)
+	{
+		this.clear();
+		entities.forEach(this::put);
+	}
+	
+	/**
+	 * Finds the candidates for a query through the most selective range that can be answered by an index. The
+	 * selectivity of the ranges is estimated by counting the entities within them (see
+	 * {@link SortedIndex#countUpTo(IndexRange, long)}).
+	 * <p>
+	 * If no range is narrower than {@link #MAX_COUNTED_CANDIDATES} and some ranges are on {@link Columnar} fields,
+	 * the candidates are the entities that lie within all of these ranges in the {@link EntityColumns}. Otherwise the
+	 * first range with an index is used.
+	 * </p>
+	 *
+	 * @param ranges that all matching entities must lie in
+	 * @return all entities that lie within the range of one index or {@link Optional#empty()} if no index can be used.
+	 * The returned entities must still be checked against the complete criteria.
+	 */
+	public Optional<Stream<T>> streamCandidates(final List<IndexRange> ranges)
+	{
+		final List<IndexRange> mergedRanges = IndexRange.mergeByField(ranges);
+		final List<IndexRange> answerableRanges = mergedRanges
+			.stream()
+			.filter(range -> canAnswer(this.indexesByFieldName.get(range.fieldName()), range))
+			.toList();
+		final List<IndexRange> columnarRanges = mergedRanges.stream().filter(this::canFilterColumn).toList();
+		if(answerableRanges.isEmpty() && columnarRanges.isEmpty())
+		{
+			return Optional.empty();
+		}
+		IndexRange selectedRange = null;
+		if(answerableRanges.size() == 1 && columnarRanges.isEmpty())
+		{
+			selectedRange = answerableRanges.get(0);
+		}
+		else
+		{
+			long selectedCount = MAX_COUNTED_CANDIDATES;
+			for(final IndexRange range : answerableRanges)
+			{
+				final long count = this.indexesByFieldName.get(range.fieldName()).countUpTo(range, selectedCount);
+				if(count < selectedCount)
+				{
+					selectedRange = range;
+					selectedCount = count;
+				}
+			}
+		}
+		if(selectedRange == null && columnarRanges.isEmpty())
+		{
+			selectedRange = answerableRanges.get(0);
+		}
+		if(selectedRange == null)
+		{
+			if(QueryExecutionStatistics.isRecording())
+			{
+				QueryExecutionStatistics.recordPlan(String.format(
+					"columns of %s on %s",
+					this.domainClass.getSimpleName(),
+					columnarRanges.stream().map(IndexRange::fieldName).toList()));
+			}
+			return Optional.of(this.columns.stream(this.columns.filter(columnarRanges)));
+		}
+		if(QueryExecutionStatistics.isRecording())
+		{
+			QueryExecutionStatistics.recordPlan(String.format(
+				"index on %s.%s",
+				this.domainClass.getSimpleName(),
+				selectedRange.fieldName()));
+		}
+		return Optional.of(this.indexesByFieldName.get(selectedRange.fieldName()).stream(selectedRange, false));
+	}
+	
+	/**
+	 * @return {@code true} if {@link #streamCandidates(List)} finds the candidates through an index or the columns.
+	 */
+	public boolean hasCandidateIndex(final List<IndexRange> ranges)
+	{
+		return IndexRange.mergeByField(ranges)
+			.stream()
+			.anyMatch(range -> canAnswer(this.indexesByFieldName.get(range.fieldName()), range)
+				|| this.canFilterColumn(range));
+	}
+	
+	private boolean canFilterColumn(final IndexRange range)
+	{
+		return !range.isUnbounded() && this.columns.supports(range);
+	}
+	
+	private static boolean canAnswer(@Nullable final SortedIndex<?> index, final IndexRange range)
+	{
+		return index != null && !range.isUnbounded() && index.supports(range);
+	}
+	
+	/**
+	 * Returns the collection for HSQL queries. It is created with the first call, since most entity types are never
+	 * queried with HSQL.
+	 * <p>
+	 * Must be called within the read or write lock of the storage.
+	 * </p>
+	 *
+	 * @param currentEntities all entities that are currently stored. Only used if the collection is created.
+	 */
+	public synchronized HSqlIndexedCollection<T> getHSqlCollection(final Supplier<Stream<T>> currentEntities)
+	{
+		if(this.hSqlCollection == null)
+		{
+			final HSqlIndexedCollection<T> newCollection = new HSqlIndexedCollection<>(this.domainClass, true);
+			currentEntities.get().forEach(newCollection::put);
+			this.hSqlCollection = newCollection;
+		}
+		return this.hSqlCollection;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import software.xdev.spring.data.eclipse.store.repository.Query;
+
+
+/**
+ * Types of indexes that can be kept for {@link Query @Query} methods through {@link HSqlIndexed}.
+ */
+public enum HSqlIndexType
+{
+	/**
+	 * Answers equality ({@code =}) and {@code IN} predicates.
+	 */
+	HASH,
+	/**
+	 * Answers equality and range ({@code <}, {@code <=}, {@code >}, {@code >=}, {@code BETWEEN}) predicates. The field
+	 * must be {@link Comparable}.
+	 */
+	NAVIGABLE,
+	/**
+	 * Answers equality and {@code LIKE 'prefix%'} predicates. The field must be a {@link CharSequence}.
+	 */
+	RADIX_TREE,
+	/**
+	 * Answers equality and {@code LIKE '%suffix'} predicates. The field must be a {@link CharSequence}.
+	 */
+	REVERSED_RADIX_TREE,
+	/**
+	 * Answers equality and {@code LIKE '%infix%'} predicates. The field must be a {@link CharSequence}.
+	 */
+	SUFFIX_TREE
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import software.xdev.spring.data.eclipse.store.repository.Query;
+
+
+/**
+ * Marks a field of an entity to be indexed for {@link Query @Query} methods.
+ * <p>
+ * The entities of a repository with {@code @Query} methods are kept in a single in-memory collection which is
+ * updated with every save and delete. Predicates on fields with this annotation are answered by the declared
+ * indexes instead of checking every entity. Fields that are annotated with {@link Indexed} additionally get a
+ * {@link HSqlIndexType#NAVIGABLE} index.
+ * </p>
+ * <p>
+ * Only fields of immutable types (e.g. {@link String}, numbers, enums or {@code java.time} types) can be indexed,
+ * because the indexes hold the values at the time the entity was saved.
+ * </p>
+ * <p>
+ * The indexes are held in memory only and are built with the first query. They are not available for lazy
+ * repositories.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface HSqlIndexed
+{
+	HSqlIndexType[] value() default HSqlIndexType.HASH;
+}
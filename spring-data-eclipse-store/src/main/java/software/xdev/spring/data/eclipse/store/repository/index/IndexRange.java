@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import jakarta.annotation.Nullable;
+
+import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+
+
+/**
+ * Range of values a field must lie in. A bound that is {@code null} is unbounded.
+ * <p>
+ * Since {@code null} is the smallest value in the ordering of the {@link GenericObjectComparer}, a range without a
+ * lower bound also contains {@code null}.
+ * </p>
+ *
+ * @param fieldName      name of the field the range applies to
+ * @param lower          lower bound or {@code null} if unbounded
+ * @param lowerInclusive whether the lower bound is part of the range
+ * @param upper          upper bound or {@code null} if unbounded
+ * @param upperInclusive whether the upper bound is part of the range
+ */
+public record IndexRange(
+	String fieldName,
+	@Nullable Object lower,
+	boolean lowerInclusive,
+	@Nullable Object upper,
+	boolean upperInclusive)
+{
+	public IndexRange
+	{
+		Objects.requireNonNull(fieldName);
+	}
+	
+	public static IndexRange unbounded(final String fieldName)
+	{
+		return new IndexRange(fieldName, null, false, null, false);
+	}
+	
+	public static IndexRange equalTo(final String fieldName, final Object value)
+	{
+		return new IndexRange(fieldName, Objects.requireNonNull(value), true, value, true);
+	}
+	
+	public static IndexRange greaterThan(final String fieldName, final Object value, final boolean inclusive)
+	{
+		return new IndexRange(fieldName, Objects.requireNonNull(value), inclusive, null, false);
+	}
+	
+	public static IndexRange lessThan(final String fieldName, final Object value, final boolean inclusive)
+	{
+		return new IndexRange(fieldName, null, false, Objects.requireNonNull(value), inclusive);
+	}
+	
+	public static IndexRange between(final String fieldName, final Object minValue, final Object maxValue)
+	{
+		return new IndexRange(
+			fieldName,
+			Objects.requireNonNull(minValue),
+			true,
+			Objects.requireNonNull(maxValue),
+			true);
+	}
+	
+	public boolean isUnbounded()
+	{
+		return this.lower == null && this.upper == null;
+	}
+	
+	/**
+	 * @return {@code true} if the range can not contain any value.
+	 */
+	public boolean isEmpty()
+	{
+		if(this.lower == null || this.upper == null)
+		{
+			return false;
+		}
+		final int comparison = GenericObjectComparer.compare(this.lower, this.upper);
+		return comparison > 0 || comparison == 0 && !(this.lowerInclusive && this.upperInclusive);
+	}
+	
+	/**
+	 * Combines all ranges of the same field to a single range, so that e.g. {@code age > 18 AND age < 30} can be
+	 * answered with a single seek. Bounds of different types are not combined; the first one is kept instead.
+	 *
+	 * @return one range per field in the order in which the fields first appear.
+	 */
+	public static List<IndexRange> mergeByField(final List<IndexRange> ranges)
+	{
+		final Map<String, IndexRange> rangesByField = new LinkedHashMap<>();
+		for(final IndexRange range : ranges)
+		{
+			rangesByField.merge(range.fieldName(), range, IndexRange::intersect);
+		}
+		return new ArrayList<>(rangesByField.values());
+	}
+	
+	private IndexRange intersect(final IndexRange other)
+	{
+		Object newLower = this.lower;
+		boolean newLowerInclusive = this.lowerInclusive;
+		if(isMoreRestrictive(other.lower, this.lower, true))
+		{
+			newLower = other.lower;
+			newLowerInclusive = other.lowerInclusive;
+		}
+		else if(isSameBound(other.lower, this.lower))
+		{
+			newLowerInclusive = this.lowerInclusive && other.lowerInclusive;
+		}
+		
+		Object newUpper = this.upper;
+		boolean newUpperInclusive = this.upperInclusive;
+		if(isMoreRestrictive(other.upper, this.upper, false))
+		{
+			newUpper = other.upper;
+			newUpperInclusive = other.upperInclusive;
+		}
+		else if(isSameBound(other.upper, this.upper))
+		{
+			newUpperInclusive = this.upperInclusive && other.upperInclusive;
+		}
+		return new IndexRange(this.fieldName, newLower, newLowerInclusive, newUpper, newUpperInclusive);
+	}
+	
+	private static boolean isMoreRestrictive(
+		@Nullable final Object candidate,
+		@Nullable final Object current,
+		final boolean isLowerBound)
+	{
+		if(candidate == null)
+		{
+			return false;
+		}
+		if(current == null)
+		{
+			return true;
+		}
+		if(candidate.getClass() != current.getClass())
+		{
+			return false;
+		}
+		final int comparison = GenericObjectComparer.compare(candidate, current);
+		return isLowerBound ? comparison > 0 : comparison < 0;
+	}
+	
+	private static boolean isSameBound(@Nullable final Object candidate, @Nullable final Object current)
+	{
+		return candidate != null
+			&& current != null
+			&& candidate.getClass() == current.getClass()
+			&& GenericObjectComparer.compare(candidate, current) == 0;
+	}
+}
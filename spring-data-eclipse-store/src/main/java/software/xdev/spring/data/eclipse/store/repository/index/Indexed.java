@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Marks a field of an entity to be kept in a {@link SortedIndex}.
+ * <p>
+ * Derived queries with range predicates ({@code GreaterThan}, {@code LessThan}, {@code Between}, {@code After},
+ * {@code Before}, ...) or equality on an indexed field only visit the matching entities instead of scanning all
+ * entities. Queries that are ordered by an indexed field (e.g. {@code findTop20ByCreatedAtAfterOrderByCreatedAtDesc})
+ * read the entities in index order and don't have to sort them.
+ * </p>
+ * <p>
+ * With {@link #paths()} nested properties of the annotated field are indexed instead of the field itself. So
+ * {@code @Indexed(paths = "city") Address address} answers {@code findByAddressCity} through an index.
+ * </p>
+ * <p>
+ * The type of the field must be {@link Comparable}. The index is held in memory only and is rebuilt when the storage
+ * starts. For lazy repositories the index is built with the first query that uses it and only holds the keys and
+ * the lazy references (see {@link LazyEntityIndexes}).
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface Indexed
+{
+	/**
+	 * Dotted paths of nested properties (relative to the annotated field) that are indexed instead of the field
+	 * itself. Paths through collections or maps can not be indexed.
+	 */
+	String[] paths() default {};
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.eclipse.serializer.reference.Lazy;
+
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
+
+
+/**
+ * The {@link SortedIndex}es of a single entity type of a lazy repository. Unlike the {@link EntityIndexes} the indexes
+ * hold the keys and the {@link Lazy} references of the entities, but not the entities themselves. So queries that are
+ * answered by an index only load the matching entities from the storage.
+ * <p>
+ * The indexes are built with the first query that can use them. Building them loads every entity once to read its
+ * keys, but the entities that were not loaded before are cleared again right afterward.
+ * </p>
+ * <p>
+ * Only fields that are annotated with {@link Indexed} are indexed. {@link Columnar} fields and HSQL queries are not
+ * supported for lazy entities.
+ * </p>
+ * <p>
+ * Since the indexes are built by the first query within the read lock of the storage, building and changing them is
+ * additionally synchronized on this object.
+ * </p>
+ *
+ * @param <T> type of the indexed entities
+ */
+public class LazyEntityIndexes<T>
+{
+	private final Class<T> domainClass;
+	private final Map<String, SortedIndex<Lazy<T>>> indexesByFieldName = new LinkedHashMap<>();
+	/**
+	 * References to all entities that are currently stored. Only read when the indexes are built.
+	 */
+	private final Iterable<Lazy<T>> currentReferences;
+	/**
+	 * Loads the entity of a reference that was found through an index.
+	 */
+	private final Function<Lazy<T>, T> loader;
+	/**
+	 * Only changed while holding the monitor of this object, just like the indexes themselves.
+	 */
+	private volatile boolean isBuilt;
+	
+	public LazyEntityIndexes(
+		final Class<T> domainClass,
+		final List<SortedIndex<Lazy<T>>> indexes,
+		final Iterable<Lazy<T>> currentReferences,
+		final Function<Lazy<T>, T> loader)
+	{
+		this.domainClass = domainClass;
+		indexes.forEach(index -> this.indexesByFieldName.put(index.getFieldName(), index));
+		this.currentReferences = currentReferences;
+		this.loader = loader;
+	}
+	
+	public static <T> LazyEntityIndexes<T> create(
+		final Class<T> domainClass,
+		final Iterable<Lazy<T>> currentReferences,
+		final Function<Lazy<T>, T> loader)
+	{
+		return new LazyEntityIndexes<>(
+			domainClass,
+			EntityIndexes.findIndexedFields(domainClass).map(SortedIndex::forLazyReferences).toList(),
+			currentReferences,
+			loader);
+	}
+	
+	public boolean isEmpty()
+	{
+		return this.indexesByFieldName.isEmpty();
+	}
+	
+	/**
+	 * Must be called within the read or write lock of the storage.
+	 */
+	public Optional<SortedIndex<Lazy<T>>> getIndex(final String fieldName)
+	{
+		final SortedIndex<Lazy<T>> index = this.indexesByFieldName.get(fieldName);
+		if(index == null)
+		{
+			return Optional.empty();
+		}
+		this.ensureBuilt();
+		return Optional.of(index);
+	}
+	
+	/**
+	 * Streams the entities within the range of an index in the order of the index (see
+	 * {@link SortedIndex#streamEntries(IndexRange, boolean)}). The entities are only loaded when the supplier of an
+	 * entry is called, so entries can be merged with the entries of other indexes without loading them.
+	 * <p>
+	 * Must be called within the read or write lock of the storage.
+	 * </p>
+	 *
+	 * @param range must be {@link SortedIndex#supports(IndexRange) supported} by the index of the field
+	 */
+	public Optional<Stream<Map.Entry<Object, Supplier<T>>>> streamOrderedEntries(
+		final String fieldName,
+		final IndexRange range,
+		final boolean descending)
+	{
+		return this.getIndex(fieldName).map(index -> index
+			.streamEntries(range, descending)
+			.map(entry -> new AbstractMap.SimpleImmutableEntry<>(
+				entry.getKey(),
+				() -> this.loader.apply(entry.getValue()))));
+	}
+	
+	/**
+	 * Adds a new reference or updates the keys of an already indexed reference. The referenced entity must be loaded.
+	 * Does nothing if the indexes are not built yet, since they are built from all references anyway.
+	 */
+	public synchronized void put(final Lazy<T> reference)
+	{
+		if(this.isBuilt)
+		{
+			this.indexesByFieldName.values().forEach(index -> index.put(reference));
+		}
+	}
+	
+	public synchronized void remove(final Lazy<T> reference)
+	{
+		if(this.isBuilt)
+		{
+			this.indexesByFieldName.values().forEach(index -> index.remove(reference));
+		}
+	}
+	
+	public synchronized void clear()
+	{
+		this.indexesByFieldName.values().forEach(SortedIndex::clear);
+	}
+	
+	private void ensureBuilt()
+	{
+		if(this.isBuilt)
+		{
+			return;
+		}
+		synchronized(this)
+		{
+			if(this.isBuilt)
+			{
+				return;
+			}
+			for(final Lazy<T> reference : this.currentReferences)
+			{
+				final boolean wasLoaded = reference.isLoaded();
+				this.indexesByFieldName.values().forEach(index -> index.put(reference));
+				if(!wasLoaded)
+				{
+					reference.clear();
+				}
+			}
+			this.isBuilt = true;
+		}
+	}
+	
+	/**
+	 * Finds the candidates for a query through the most selective range that can be answered by an index (see
+	 * {@link EntityIndexes#streamCandidates(List)}). The candidates are loaded when the returned stream is consumed.
+	 * <p>
+	 * Must be called within the read or write lock of the storage.
+	 * </p>
+	 *
+	 * @param ranges that all matching entities must lie in
+	 * @return all entities that lie within the range of one index or {@link Optional#empty()} if no index can be used.
+	 * The returned entities must still be checked against the complete criteria.
+	 */
+	public Optional<Stream<T>> streamCandidates(final List<IndexRange> ranges)
+	{
+		final List<IndexRange> answerableRanges = IndexRange.mergeByField(ranges)
+			.stream()
+			.filter(this::canAnswer)
+			.toList();
+		if(answerableRanges.isEmpty())
+		{
+			return Optional.empty();
+		}
+		this.ensureBuilt();
+		IndexRange selectedRange = answerableRanges.get(0);
+		if(answerableRanges.size() > 1)
+		{
+			long selectedCount = Long.MAX_VALUE;
+			for(final IndexRange range : answerableRanges)
+			{
+				final long count = this.indexesByFieldName.get(range.fieldName())
+					.countUpTo(range, Math.min(selectedCount, EntityIndexes.MAX_COUNTED_CANDIDATES));
+				if(count < selectedCount)
+				{
+					selectedRange = range;
+					selectedCount = count;
+				}
+			}
+		}
+		if(QueryExecutionStatistics.isRecording())
+		{
+			QueryExecutionStatistics.recordPlan(String.format(
+				"lazy index on %s.%s",
+				this.domainClass.getSimpleName(),
+				selectedRange.fieldName()));
+		}
+		return Optional.of(this.indexesByFieldName.get(selectedRange.fieldName())
+			.stream(selectedRange, false)
+			.map(this.loader));
+	}
+	
+	/**
+	 * @return {@code true} if {@link #streamCandidates(List)} finds the candidates through an index.
+	 */
+	public boolean hasCandidateIndex(final List<IndexRange> ranges)
+	{
+		return IndexRange.mergeByField(ranges).stream().anyMatch(this::canAnswer);
+	}
+	
+	private boolean canAnswer(final IndexRange range)
+	{
+		final SortedIndex<Lazy<T>> index = this.indexesByFieldName.get(range.fieldName());
+		return index != null && !range.isUnbounded() && index.supports(range);
+	}
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import jakarta.annotation.Nullable;
+
+import org.eclipse.serializer.reference.Lazy;
+import org.springframework.util.ClassUtils;
+
+import software.xdev.spring.data.eclipse.store.core.IdentitySet;
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+
+
+/**
+ * Keeps the entities of one type sorted by the value of a single field. With this index range predicates are
+ * answered by seeking to the first matching key and entities can be read in the order of the field without sorting
+ * them.
+ * <p>
+ * {@code null} values are the smallest values, just like in the {@link GenericObjectComparer}. They are first in
+ * ascending and last in descending order.
+ * </p>
+ * <p>
+ * This index is <b>not thread safe</b>. It must only be changed within the write lock and only be read within the
+ * read lock of the storage.
+ * </p>
+ *
+ * @param <T> type of the indexed entities
+ */
+public class SortedIndex<T>
+{
+	private final String fieldName;
+	private final Class<?> keyType;
+	private final Function<T, ?> keyReader;
+	private final TreeMap<Object, Bucket<T>> entitiesByKey = new TreeMap<>();
+	private final Bucket<T> entitiesWithNullKey = new Bucket<>();
+	/**
+	 * The key with which each entity was indexed. Since entities are changed in place, the current value of the field
+	 * may differ from the key the entity is stored with.
+	 */
+	private final IdentityHashMap<T, Object> keysByEntity = new IdentityHashMap<>();
+	
+	public SortedIndex(final ReflectedField<T, ?> field)
+	{
+		this(field, field::readValue);
+	}
+	
+	private SortedIndex(final ReflectedField<?, ?> field, final Function<T, ?> keyReader)
+	{
+		this.fieldName = field.getName();
+		this.keyReader = Objects.requireNonNull(keyReader);
+		if(field.isMultiValued())
+		{
+			throw new IllegalArgumentException(String.format(
+				"Path %s can not be indexed because it has multiple values.",
+				field.getName()));
+		}
+		this.keyType = ClassUtils.resolvePrimitiveIfNecessary(field.getType());
+		if(!Comparable.class.isAssignableFrom(this.keyType))
+		{
+			throw new NotComparableException(String.format(
+				"Field %s can not be indexed because type %s is not comparable.",
+				field.getName(),
+				this.keyType.getSimpleName()));
+		}
+	}
+	
+	/**
+	 * Creates an index of lazy references to entities. Only the keys and the references are held by the index, so the
+	 * entities can be cleared from memory. The key is read when a reference is put, so the referenced entity is
+	 * loaded at that moment.
+	 */
+	public static <T> SortedIndex<Lazy<T>> forLazyReferences(final ReflectedField<T, ?> field)
+	{
+		return new SortedIndex<>(field, lazyReference -> field.readValue(lazyReference.get()));
+	}
+	
+	public String getFieldName()
+	{
+		return this.fieldName;
+	}
+	
+	/**
+	 * Adds the entity to the index or moves it to its new key, if the field of the entity has changed since it was
+	 * indexed.
+	 */
+	public void put(final T entity)
+	{
+		final Object newKey = this.keyReader.apply(entity);
+		if(this.keysByEntity.containsKey(entity))
+		{
+			final Object oldKey = this.keysByEntity.get(entity);
+			if(Objects.equals(oldKey, newKey))
+			{
+				return;
+			}
+			this.removeFromBucket(oldKey, entity);
+		}
+		this.keysByEntity.put(entity, newKey);
+		if(newKey == null)
+		{
+			this.entitiesWithNullKey.add(entity);
+		}
+		else
+		{
+			this.entitiesByKey.computeIfAbsent(newKey, key -> new Bucket<>()).add(entity);
+		}
+	}
+	
+	public void remove(final T entity)
+	{
+		if(this.keysByEntity.containsKey(entity))
+		{
+			this.removeFromBucket(this.keysByEntity.remove(entity), entity);
+		}
+	}
+	
+	private void removeFromBucket(@Nullable final Object key, final T entity)
+	{
+		if(key == null)
+		{
+			this.entitiesWithNullKey.remove(entity);
+			return;
+		}
+		final Bucket<T> bucket = this.entitiesByKey.get(key);
+		if(bucket != null)
+		{
+			bucket.remove(entity);
+			if(bucket.isEmpty())
+			{
+				this.entitiesByKey.remove(key);
+			}
+		}
+	}
+	
+	public void clear()
+	{
+		this.entitiesByKey.clear();
+		this.entitiesWithNullKey.clear();
+		this.keysByEntity.clear();
+	}
+	
+	/**
+	 * @return {@code true} if the bounds of the range can be compared with the keys of this index.
+	 */
+	public boolean supports(final IndexRange range)
+	{
+		return this.getFieldName().equals(range.fieldName())
+			&& (range.lower() == null || this.keyType.isInstance(range.lower()))
+			&& (range.upper() == null || this.keyType.isInstance(range.upper()));
+	}
+	
+	/**
+	 * @return the key with which the entity is currently indexed.
+	 */
+	@Nullable
+	public Object getKey(final T entity)
+	{
+		return this.keysByEntity.get(entity);
+	}
+	
+	/**
+	 * Counts the entities within the given range to estimate how selective the range is. Counting stops as soon as
+	 * the limit is exceeded, so that broad ranges are not counted completely.
+	 *
+	 * @param range must be {@link #supports(IndexRange) supported} by this index
+	 * @return the count of entities within the range or a value greater than the limit.
+	 */
+	public long countUpTo(final IndexRange range, final long limit)
+	{
+		if(range.isEmpty())
+		{
+			return 0;
+		}
+		long count = range.lower() == null ? this.entitiesWithNullKey.size() : 0;
+		for(final Bucket<T> bucket : this.bucketsWithin(range).values())
+		{
+			if(count > limit)
+			{
+				break;
+			}
+			count += bucket.size();
+		}
+		return count;
+	}
+	
+	/**
+	 * Streams all entities that lie within the given range in the order of the index.
+	 *
+	 * @param range      must be {@link #supports(IndexRange) supported} by this index
+	 * @param descending if {@code true} the entities are streamed from the highest to the lowest key
+	 */
+	public Stream<T> stream(final IndexRange range, final boolean descending)
+	{
+		return this.streamEntries(range, descending).map(Map.Entry::getValue);
+	}
+	
+	/**
+	 * Streams all entities that lie within the given range together with their key in the order of the index. The
+	 * entries of multiple indexes can be merged with {@link #mergeEntries(List, boolean)}.
+	 *
+	 * @param range      must be {@link #supports(IndexRange) supported} by this index
+	 * @param descending if {@code true} the entities are streamed from the highest to the lowest key
+	 */
+	public Stream<Map.Entry<Object, T>> streamEntries(final IndexRange range, final boolean descending)
+	{
+		if(range.isEmpty())
+		{
+			return Stream.empty();
+		}
+		NavigableMap<Object, Bucket<T>> matchingEntries = this.bucketsWithin(range);
+		if(descending)
+		{
+			matchingEntries = matchingEntries.descendingMap();
+		}
+		final Stream<Map.Entry<Object, T>> entitiesWithKey = matchingEntries
+			.entrySet()
+			.stream()
+			.flatMap(entry -> entry.getValue().stream().map(entity -> entry(entry.getKey(), entity)));
+		
+		// Null is the smallest value, so it is only within ranges without lower bound.
+		if(range.lower() != null)
+		{
+			return entitiesWithKey;
+		}
+		final Stream<Map.Entry<Object, T>> entitiesWithoutKey =
+			this.entitiesWithNullKey.stream().map(entity -> entry(null, entity));
+		return descending
+			? Stream.concat(entitiesWithKey, entitiesWithoutKey)
+			: Stream.concat(entitiesWithoutKey, entitiesWithKey);
+	}
+	
+	private NavigableMap<Object, Bucket<T>> bucketsWithin(final IndexRange range)
+	{
+		NavigableMap<Object, Bucket<T>> matchingEntries = this.entitiesByKey;
+		if(range.lower() != null)
+		{
+			matchingEntries = matchingEntries.tailMap(range.lower(), range.lowerInclusive());
+		}
+		if(range.upper() != null)
+		{
+			matchingEntries = matchingEntries.headMap(range.upper(), range.upperInclusive());
+		}
+		return matchingEntries;
+	}
+	
+	private static <T> Map.Entry<Object, T> entry(@Nullable final Object key, final T entity)
+	{
+		return new AbstractMap.SimpleImmutableEntry<>(key, entity);
+	}
+	
+	/**
+	 * Streams the entities of multiple indexes over the same field (e.g. of a class and its subclasses) merged in the
+	 * order of the field.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Stream<T> streamMerged(
+		final List<? extends SortedIndex<? extends T>> indexes,
+		final IndexRange range,
+		final boolean descending)
+	{
+		if(indexes.size() == 1)
+		{
+			return (Stream<T>)indexes.get(0).stream(range, descending);
+		}
+		return mergeEntries(
+			indexes.stream().map(index -> index.streamEntries(range, descending)).toList(),
+			descending);
+	}
+	
+	/**
+	 * Merges the entries of multiple indexes over the same field (see {@link #streamEntries(IndexRange, boolean)}) in
+	 * the order of their keys.
+	 *
+	 * @param orderedEntries entries of each index in ascending or (if {@code descending}) in descending order
+	 * @return the values of the merged entries
+	 */
+	public static <T> Stream<T> mergeEntries(
+		final List<? extends Stream<? extends Map.Entry<Object, ? extends T>>> orderedEntries,
+		final boolean descending)
+	{
+		if(orderedEntries.size() == 1)
+		{
+			return orderedEntries.get(0).map(Map.Entry::getValue);
+		}
+		final Comparator<Object> keyComparator = descending
+			? (o1, o2) -> GenericObjectComparer.compare(o2, o1)
+			: GenericObjectComparer::compare;
+		final PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>(
+			orderedEntries.size(),
+			(c1, c2) -> keyComparator.compare(c1.current.getKey(), c2.current.getKey()));
+		for(final Stream<? extends Map.Entry<Object, ? extends T>> entries : orderedEntries)
+		{
+			final Cursor<T> cursor = new Cursor<>(entries.iterator());
+			if(cursor.advance())
+			{
+				cursors.add(cursor);
+			}
+		}
+		final Iterator<T> mergedIterator = new Iterator<>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return !cursors.isEmpty();
+			}
+			
+			@Override
+			public T next()
+			{
+				final Cursor<T> cursor = cursors.remove();
+				final T entity = cursor.current.getValue();
+				if(cursor.advance())
+				{
+					cursors.add(cursor);
+				}
+				return entity;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mergedIterator, Spliterator.ORDERED), false);
+	}
+	
+	private static final class Cursor<T>
+	{
+		private final Iterator<? extends Map.Entry<Object, ? extends T>> entries;
+		private Map.Entry<Object, ? extends T> current;
+		
+		private Cursor(final Iterator<? extends Map.Entry<Object, ? extends T>> entries)
+		{
+			this.entries = entries;
+		}
+		
+		private boolean advance()
+		{
+			if(this.entries.hasNext())
+			{
+				this.current = this.entries.next();
+				return true;
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Entities with the same key. Most keys (like timestamps) are unique, so a single entity is held without creating
+	 * a set for it.
+	 */
+	private static final class Bucket<T>
+	{
+		private T singleEntity;
+		private IdentitySet<T> entities;
+		
+		private void add(final T entity)
+		{
+			if(this.entities != null)
+			{
+				this.entities.add(entity);
+			}
+			else if(this.singleEntity == null || this.singleEntity == entity)
+			{
+				this.singleEntity = entity;
+			}
+			else
+			{
+				this.entities = new IdentitySet<>();
+				this.entities.add(this.singleEntity);
+				this.entities.add(entity);
+				this.singleEntity = null;
+			}
+		}
+		
+		private void remove(final T entity)
+		{
+			if(this.entities != null)
+			{
+				this.entities.remove(entity);
+			}
+			else if(this.singleEntity == entity)
+			{
+				this.singleEntity = null;
+			}
+		}
+		
+		private boolean isEmpty()
+		{
+			return this.entities == null ? this.singleEntity == null : this.entities.isEmpty();
+		}
+		
+		private int size()
+		{
+			if(this.entities != null)
+			{
+				return this.entities.size();
+			}
+			return this.singleEntity == null ? 0 : 1;
+		}
+		
+		private void clear()
+		{
+			this.singleEntity = null;
+			this.entities = null;
+		}
+		
+		private Stream<T> stream()
+		{
+			if(this.entities != null)
+			{
+				return this.entities.stream();
+			}
+			return this.singleEntity == null ? Stream.empty() : Stream.of(this.singleEntity);
+		}
+	}
+}
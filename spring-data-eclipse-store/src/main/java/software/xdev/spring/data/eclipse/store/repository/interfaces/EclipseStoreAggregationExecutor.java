@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.interfaces;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import software.xdev.spring.data.eclipse.store.repository.query.aggregation.EntityAggregation;
+
+
+/**
+ * Aggregates the stored entities (count, sum, average, minimum and maximum, optionally grouped by a property) without
+ * creating working copies of them.
+ */
+@SuppressWarnings("java:S119")
+@NoRepositoryBean
+public interface EclipseStoreAggregationExecutor<T, ID> extends Repository<T, ID>
+{
+	/**
+	 * @return aggregation over all stored entities.
+	 */
+	EntityAggregation<T> aggregate();
+	
+	/**
+	 * @param example that the aggregated entities must match (see
+	 *                {@link org.springframework.data.repository.query.QueryByExampleExecutor})
+	 * @return aggregation over all entities that match the example.
+	 */
+	<S extends T> EntityAggregation<T> aggregate(Example<S> example);
+}
@@ -24,6 +24,7 @@ public interface EclipseStoreRepository<T, ID>
 	extends
 	EclipseStoreListCrudRepository<T, ID>,
 	EclipseStoreListPagingAndSortingRepository<T, ID>,
-	EclipseStoreQueryByExampleExecutor<T>
+	EclipseStoreQueryByExampleExecutor<T>,
+	EclipseStoreAggregationExecutor<T, ID>
 {
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.interfaces;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import software.xdev.spring.data.eclipse.store.repository.query.specification.EclipseStoreSpecification;
+
+
+/**
+ * Executes {@link EclipseStoreSpecification}s. Can be added to any repository to query it with dynamic criteria.
+ */
+@SuppressWarnings("java:S119")
+@NoRepositoryBean
+public interface EclipseStoreSpecificationExecutor<T, ID> extends Repository<T, ID>
+{
+	/**
+	 * @return a working copy of any entity that matches the specification.
+	 */
+	Optional<T> findOne(EclipseStoreSpecification<T> specification);
+	
+	List<T> findAll(EclipseStoreSpecification<T> specification);
+	
+	List<T> findAll(EclipseStoreSpecification<T> specification, Sort sort);
+	
+	Page<T> findAll(EclipseStoreSpecification<T> specification, Pageable pageable);
+	
+	long count(EclipseStoreSpecification<T> specification);
+	
+	boolean exists(EclipseStoreSpecification<T> specification);
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.lazy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.Nullable;
+
+import org.eclipse.serializer.reference.Lazy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Decides which loaded entities of lazy repositories are cleared from memory and holds the thread that clears them
+ * periodically.
+ * <p>
+ * Without this policy a loaded entity stays in memory until the
+ * {@link org.eclipse.serializer.reference.LazyReferenceManager} of EclipseStore clears it after its timeout. With this
+ * policy the count of loaded entities is limited per entity type and in total. If a limit is exceeded, the least
+ * recently used entities (see {@link Lazy#lastTouched()}) are cleared first. A {@link Lazy.ClearingEvaluator} can
+ * keep single entities in memory, in which case the next ones are cleared instead.
+ * </p>
+ * <p>
+ * Only entities that are stored can be cleared. They are loaded from the storage again when they are accessed.
+ * </p>
+ */
+public class LazyEvictionPolicy implements AutoCloseable
+{
+	private static final Logger LOG = LoggerFactory.getLogger(LazyEvictionPolicy.class);
+	private static final LazyEvictionPolicy DISABLED = new LazyEvictionPolicy(0, 0, 0);
+	
+	private final long maxLoadedEntitiesPerType;
+	private final long maxLoadedEntities;
+	private final long intervalMillis;
+	private final Lazy.ClearingEvaluator clearingEvaluator;
+	private ScheduledExecutorService scheduler;
+	
+	/**
+	 * @param maxLoadedEntitiesPerType maximum count of loaded entities of a single entity type. If it is {@code 0} or
+	 *                                 less, the count is not limited.
+	 * @param maxLoadedEntities        maximum count of loaded entities of all entity types. If it is {@code 0} or less,
+	 *                                 the count is not limited.
+	 * @param intervalMillis           milliseconds between two evictions. If it is {@code 0} or less, entities are
+	 *                                 only evicted when the eviction is called explicitly.
+	 */
+	public LazyEvictionPolicy(
+		final long maxLoadedEntitiesPerType,
+		final long maxLoadedEntities,
+		final long intervalMillis)
+	{
+		this(maxLoadedEntitiesPerType, maxLoadedEntities, intervalMillis, lazyReference -> true);
+	}
+	
+	/**
+	 * @param clearingEvaluator decides if a single entity may be cleared. Entities that are kept are not counted as
+	 *                          evicted.
+	 */
+	public LazyEvictionPolicy(
+		final long maxLoadedEntitiesPerType,
+		final long maxLoadedEntities,
+		final long intervalMillis,
+		final Lazy.ClearingEvaluator clearingEvaluator)
+	{
+		this.maxLoadedEntitiesPerType = Math.max(maxLoadedEntitiesPerType, 0);
+		this.maxLoadedEntities = Math.max(maxLoadedEntities, 0);
+		this.intervalMillis = Math.max(intervalMillis, 0);
+		this.clearingEvaluator = clearingEvaluator;
+	}
+	
+	public static LazyEvictionPolicy disabled()
+	{
+		return DISABLED;
+	}
+	
+	public boolean isEnabled()
+	{
+		return this.maxLoadedEntitiesPerType > 0 || this.maxLoadedEntities > 0;
+	}
+	
+	/**
+	 * Clears the least recently used references that exceed the limits of this policy.
+	 * <p>
+	 * The time of the last access is read once before the references are ordered, since the references may be
+	 * accessed concurrently.
+	 * </p>
+	 *
+	 * @param loadedReferencesPerType stored references that are currently loaded, one collection per entity type
+	 * @return the count of cleared references
+	 */
+	public long evict(final Collection<? extends Collection<? extends Lazy<?>>> loadedReferencesPerType)
+	{
+		if(!this.isEnabled())
+		{
+			return 0;
+		}
+		final List<Candidate> remainingCandidates = new ArrayList<>();
+		long evictedCount = 0;
+		for(final Collection<? extends Lazy<?>> loadedReferences : loadedReferencesPerType)
+		{
+			final List<Candidate> candidates = toOrderedCandidates(loadedReferences);
+			final long exceedingCount = this.maxLoadedEntitiesPerType > 0
+				? candidates.size() - this.maxLoadedEntitiesPerType
+				: 0;
+			evictedCount += this.clear(candidates, exceedingCount, remainingCandidates);
+		}
+		if(this.maxLoadedEntities > 0 && remainingCandidates.size() > this.maxLoadedEntities)
+		{
+			remainingCandidates.sort(Comparator.comparingLong(Candidate::lastTouched));
+			evictedCount += this.clear(
+				remainingCandidates,
+				remainingCandidates.size() - this.maxLoadedEntities,
+				null);
+		}
+		return evictedCount;
+	}
+	
+	private static List<Candidate> toOrderedCandidates(final Collection<? extends Lazy<?>> references)
+	{
+		final List<Candidate> candidates = new ArrayList<>(references.size());
+		references.forEach(reference -> candidates.add(new Candidate(reference, reference.lastTouched())));
+		candidates.sort(Comparator.comparingLong(Candidate::lastTouched));
+		return candidates;
+	}
+	
+	/**
+	 * Clears the first references of the given candidates. References that can not be cleared are skipped, so that
+	 * the following ones are cleared instead.
+	 *
+	 * @param remainingCandidates receives the candidates that were not cleared. Can be {@code null}.
+	 */
+	private long clear(
+		final List<Candidate> orderedCandidates,
+		final long count,
+		@Nullable final List<Candidate> remainingCandidates)
+	{
+		long clearedCount = 0;
+		for(final Candidate candidate : orderedCandidates)
+		{
+			if(clearedCount < count && candidate.reference().clear(this.clearingEvaluator))
+			{
+				clearedCount++;
+			}
+			else if(remainingCandidates != null)
+			{
+				remainingCandidates.add(candidate);
+			}
+		}
+		return clearedCount;
+	}
+	
+	/**
+	 * Executes the given eviction periodically in its own thread, if this policy is enabled and has an interval.
+	 */
+	public synchronized void start(final Runnable eviction)
+	{
+		if(!this.isEnabled() || this.intervalMillis == 0 || this.scheduler != null)
+		{
+			return;
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "spring-data-eclipse-store-lazy-eviction");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.scheduleWithFixedDelay(
+			() -> {
+				try
+				{
+					eviction.run();
+				}
+				catch(final RuntimeException e)
+				{
+					LOG.warn("Could not evict lazy entities.", e);
+				}
+			},
+			this.intervalMillis,
+			this.intervalMillis,
+			TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops the periodic eviction. It is started again with {@link #start(Runnable)}.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if(this.scheduler != null)
+		{
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+	
+	private record Candidate(Lazy<?> reference, long lastTouched)
+	{
+	}
+}
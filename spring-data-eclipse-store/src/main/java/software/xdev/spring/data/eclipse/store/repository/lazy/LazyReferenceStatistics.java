@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.lazy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.serializer.reference.Lazy;
+
+
+/**
+ * Counts how often the entities of lazy repositories are accessed while they are in memory (hits) or must be loaded
+ * from the storage (loads), and how many of them are cleared by the {@link LazyEvictionPolicy} (evictions). A low hit
+ * ratio with many evictions means that the limits of the policy are too small for the accessed entities.
+ * <p>
+ * Is thread safe, since the entities are accessed by concurrent queries.
+ * </p>
+ */
+public class LazyReferenceStatistics
+{
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder loadCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	
+	/**
+	 * Gets the entity of the reference and counts whether it had to be loaded.
+	 */
+	public <T> T get(final Lazy<T> reference)
+	{
+		if(reference.isLoaded())
+		{
+			this.hitCount.increment();
+		}
+		else
+		{
+			this.loadCount.increment();
+		}
+		return reference.get();
+	}
+	
+	public void recordEvictions(final long count)
+	{
+		this.evictionCount.add(count);
+	}
+	
+	public long getHitCount()
+	{
+		return this.hitCount.sum();
+	}
+	
+	public long getLoadCount()
+	{
+		return this.loadCount.sum();
+	}
+	
+	public long getEvictionCount()
+	{
+		return this.evictionCount.sum();
+	}
+	
+	/**
+	 * @return the share of accesses that did not load the entity or {@code 0} if no entity was accessed yet.
+	 */
+	public double getHitRatio()
+	{
+		final long hits = this.getHitCount();
+		final long accesses = hits + this.getLoadCount();
+		return accesses == 0 ? 0 : (double)hits / accesses;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format(
+			"%d hits, %d loads, %d evictions",
+			this.getHitCount(),
+			this.getLoadCount(),
+			this.getEvictionCount());
+	}
+}
@@ -23,6 +23,7 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
 import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.ParameterAccessor;
 import org.springframework.data.repository.query.parser.AbstractQueryCreator;
@@ -51,6 +52,7 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 	private final TypeInformation<?> typeInformation;
 	private final Class<T> domainClass;
 	private final WorkingCopier<T> copier;
+	private final Limit limit;
 	
 	public EclipseStoreQueryCreator(
 		final Class<T> domainClass,
@@ -63,6 +65,7 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 		this.domainClass = Objects.requireNonNull(domainClass);
 		this.typeInformation = Objects.requireNonNull(typeInformation);
 		this.copier = Objects.requireNonNull(copier);
+		this.limit = tree.getResultLimit();
 	}
 	
 	@Override
@@ -71,7 +74,7 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 	{
 		Objects.requireNonNull(part);
 		Objects.requireNonNull(iterator);
-		return this.from(part, new CriteriaSingleNode<>(this.getDeclaredField(part)), iterator);
+		return from(part, new CriteriaSingleNode<>(getDeclaredField(this.domainClass, part)), iterator);
 	}
 	
 	@Override
@@ -88,7 +91,7 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 			return this.create(part, iterator);
 		}
 		
-		return this.from(part, base.and(this.getDeclaredField(part)), iterator);
+		return from(part, base.and(getDeclaredField(this.domainClass, part)), iterator);
 	}
 	
 	@Override
@@ -113,13 +116,19 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 				this.typeInformation,
 				this.copier,
 				Criteria.createNoCriteria(),
-				sort);
+				sort,
+				this.limit);
 		}
-		return QueryExecutorCreator.createQuery(this.typeInformation, this.copier, criteria, sort);
+		return QueryExecutorCreator.createQuery(this.typeInformation, this.copier, criteria, sort, this.limit);
 	}
 	
+	/**
+	 * Adds the condition of the part to the criteria and binds the needed parameters.
+	 *
+	 * @param parameters that are bound to the condition. Only the parameters for this part are consumed.
+	 */
 	@SuppressWarnings("PMD.CyclomaticComplexity")
-	private AbstractCriteriaNode<T> from(
+	static <T> AbstractCriteriaNode<T> from(
 		final Part part,
 		final AbstractCriteriaNode<T> criteria,
 		@Nullable final Iterator<Object> parameters)
@@ -164,11 +173,11 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 			}
 			case NOT_IN ->
 			{
-				return criteria.nin(this.asStreamable(Objects.requireNonNull(parameters).next()));
+				return criteria.nin(asStreamable(Objects.requireNonNull(parameters).next()));
 			}
 			case IN ->
 			{
-				return criteria.in(this.asStreamable(Objects.requireNonNull(parameters).next()));
+				return criteria.in(asStreamable(Objects.requireNonNull(parameters).next()));
 			}
 			case LIKE ->
 			{
@@ -208,14 +217,14 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 			}
 			case SIMPLE_PROPERTY ->
 			{
-				if(this.isSimpleComparisonPossible(part))
+				if(isSimpleComparisonPossible(part))
 				{
 					return criteria.is(Objects.requireNonNull(parameters).next());
 				}
 			}
 			case NEGATING_SIMPLE_PROPERTY ->
 			{
-				if(this.isSimpleComparisonPossible(part))
+				if(isSimpleComparisonPossible(part))
 				{
 					return criteria.ne(Objects.requireNonNull(parameters).next());
 				}
@@ -225,7 +234,7 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 		throw new IllegalArgumentException("Unsupported keyword");
 	}
 	
-	private Streamable<?> asStreamable(final Object value)
+	private static Streamable<?> asStreamable(final Object value)
 	{
 		
 		if(value instanceof final Collection<?> collection)
@@ -239,19 +248,22 @@ public class EclipseStoreQueryCreator<T> extends AbstractQueryCreator<QueryExecu
 		return Streamable.of(value);
 	}
 	
-	private boolean isSimpleComparisonPossible(final Part part)
+	private static boolean isSimpleComparisonPossible(final Part part)
 	{
 		return switch(part.shouldIgnoreCase())
 		{
 			case NEVER -> true;
-			case WHEN_POSSIBLE -> part.getProperty().getType() != String.class;
+			case WHEN_POSSIBLE -> part.getProperty().getLeafType() != String.class;
 			case ALWAYS -> false;
 		};
 	}
 	
-	private ReflectedField<T, ?> getDeclaredField(final Part part)
+	/**
+	 * @return the field of the part. Nested properties (e.g. {@code findByAddressCity}) are resolved to a
+	 * {@link ReflectedPropertyPath}.
+	 */
+	static <T> ReflectedField<T, ?> getDeclaredField(final Class<T> domainClass, final Part part)
 	{
-		final String fieldName = part.getProperty().getSegment();
-		return ReflectedField.createReflectedField(this.domainClass, fieldName);
+		return ReflectedPropertyPath.create(domainClass, part.getProperty());
 	}
 }
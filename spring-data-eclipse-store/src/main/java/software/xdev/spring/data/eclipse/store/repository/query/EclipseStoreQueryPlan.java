@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.ParameterAccessor;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.AbstractCriteriaNode;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.CriteriaSingleNode;
+import software.xdev.spring.data.eclipse.store.repository.query.executors.QueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.executors.QueryExecutorCreator;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * A derived query that is compiled once per repository method. The {@link PartTree} is walked, the fields of all
+ * parts are resolved and the {@link QueryExecutor} is chosen when the plan is created. Executing the query then only
+ * binds the parameters to new criteria.
+ * <p>
+ * Builds the same criteria as the {@link EclipseStoreQueryCreator}.
+ * </p>
+ *
+ * @param <T> of entities that are queried
+ */
+public class EclipseStoreQueryPlan<T>
+{
+	/**
+	 * The parts that are combined with AND within the inner list and with OR between the outer lists.
+	 */
+	private final List<List<PlannedPart<T>>> orParts = new ArrayList<>();
+	private final Sort staticSort;
+	private final BiFunction<Criteria<T>, Sort, QueryExecutor<T>> executorFactory;
+	
+	public EclipseStoreQueryPlan(
+		final Class<T> domainClass,
+		final TypeInformation<?> typeInformation,
+		final WorkingCopier<T> copier,
+		final PartTree tree)
+	{
+		this(domainClass, typeInformation, copier, tree, null);
+	}
+	
+	/**
+	 * @param copyLock if set, its read lock is acquired while an entity of a stream result is copied
+	 */
+	public EclipseStoreQueryPlan(
+		final Class<T> domainClass,
+		final TypeInformation<?> typeInformation,
+		final WorkingCopier<T> copier,
+		final PartTree tree,
+		@Nullable final ReadWriteLock copyLock)
+	{
+		Objects.requireNonNull(domainClass);
+		for(final PartTree.OrPart orPart : tree)
+		{
+			final List<PlannedPart<T>> andParts = new ArrayList<>();
+			for(final Part part : orPart)
+			{
+				andParts.add(new PlannedPart<>(part, EclipseStoreQueryCreator.getDeclaredField(domainClass, part)));
+			}
+			if(andParts.isEmpty())
+			{
+				throw new IllegalStateException(String.format("No part found in PartTree %s", tree));
+			}
+			this.orParts.add(andParts);
+		}
+		this.staticSort = tree.getSort();
+		this.executorFactory = QueryExecutorCreator.createQueryFactory(
+			Objects.requireNonNull(typeInformation),
+			Objects.requireNonNull(copier),
+			tree.getResultLimit(),
+			copyLock);
+	}
+	
+	/**
+	 * Creates the executor for a single execution of the query.
+	 *
+	 * @param parameters of the execution. The bindable parameters are bound to the criteria and the dynamic sort is
+	 *                   added to the sort of the method name.
+	 */
+	public QueryExecutor<T> bind(final ParameterAccessor parameters)
+	{
+		return this.bind(parameters, QueryBudget.unlimited());
+	}
+	
+	/**
+	 * Creates the executor for a single execution of the query, which is aborted if it exceeds the given budget.
+	 *
+	 * @param parameters of the execution. The bindable parameters are bound to the criteria and the dynamic sort is
+	 *                   added to the sort of the method name.
+	 * @param budget     limits of the execution. The tracking of the budget starts with this call.
+	 */
+	public QueryExecutor<T> bind(final ParameterAccessor parameters, final QueryBudget budget)
+	{
+		final Iterator<Object> values = parameters.iterator();
+		AbstractCriteriaNode<T> criteria = null;
+		for(final List<PlannedPart<T>> andParts : this.orParts)
+		{
+			AbstractCriteriaNode<T> andCriteria = null;
+			for(final PlannedPart<T> plannedPart : andParts)
+			{
+				final AbstractCriteriaNode<T> base = andCriteria == null
+					? new CriteriaSingleNode<>(plannedPart.field())
+					: andCriteria.and(plannedPart.field());
+				andCriteria = EclipseStoreQueryCreator.from(plannedPart.part(), base, values);
+			}
+			criteria = criteria == null ? andCriteria : criteria.orOperator(andCriteria);
+		}
+		return this.executorFactory.apply(
+			budget.track(criteria == null ? Criteria.createNoCriteria() : criteria),
+			this.staticSort.and(parameters.getSort()));
+	}
+	
+	private record PlannedPart<T>(Part part, ReflectedField<T, ?> field)
+	{
+	}
+}
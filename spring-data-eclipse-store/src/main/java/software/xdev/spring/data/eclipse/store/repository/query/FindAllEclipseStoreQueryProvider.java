@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import jakarta.annotation.Nonnull;
 
 import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.query.QueryMethod;
 import org.springframework.data.repository.query.RepositoryQuery;
 
@@ -76,10 +77,18 @@ public class FindAllEclipseStoreQueryProvider<T> implements RepositoryQuery
 	@Nonnull
 	public Object execute(@Nonnull final Object[] values)
 	{
-		return
-			QueryExecutorCreator
-				.createQuery(this.typeInformation, this.copier, Criteria.createNoCriteria(), null)
-				.execute(this.domainClass, this.entityListProvider.getEntityProvider(this.domainClass), values);
+		final QueryExecutor<T> executor = QueryExecutorCreator.createQuery(
+			this.typeInformation,
+			this.copier,
+			Criteria.createNoCriteria(),
+			null,
+			Limit.unlimited(),
+			this.entityListProvider.getReadWriteLock());
+		return this.entityListProvider.getReadWriteLock().read(
+			() -> executor.execute(
+				this.domainClass,
+				this.entityListProvider.getEntityProvider(this.domainClass),
+				values));
 	}
 	
 	@Override
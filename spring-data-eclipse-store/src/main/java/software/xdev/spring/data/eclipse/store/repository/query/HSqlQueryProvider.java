@@ -21,14 +21,16 @@ import org.springframework.data.repository.query.QueryMethod;
 import org.springframework.data.repository.query.RepositoryQuery;
 
 import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
 import software.xdev.spring.data.eclipse.store.repository.query.antlr.HSqlQueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryMethodStatistics;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 
 
 public class HSqlQueryProvider<T> implements RepositoryQuery
 {
 	private final HSqlQueryExecutor<T> executor;
-	private final String sqlValue;
 	private final QueryMethod queryMethod;
 	
 	public HSqlQueryProvider(
@@ -38,20 +40,49 @@ public class HSqlQueryProvider<T> implements RepositoryQuery
 		final EntityListProvider entityListProvider,
 		final WorkingCopier<T> copier
 	)
+	{
+		this(
+			sqlValue,
+			queryMethod,
+			domainClass,
+			entityListProvider,
+			copier,
+			QueryBudget.unlimited(),
+			QueryStatistics.disabled().forMethod(queryMethod.getName()),
+			false);
+	}
+	
+	/**
+	 * @param useIndexedCollection whether the long-lived collection of the entity type is used (see
+	 *                             {@link HSqlQueryExecutor})
+	 */
+	public HSqlQueryProvider(
+		final String sqlValue,
+		final QueryMethod queryMethod,
+		final Class<T> domainClass,
+		final EntityListProvider entityListProvider,
+		final WorkingCopier<T> copier,
+		final QueryBudget budget,
+		final QueryMethodStatistics statistics,
+		final boolean useIndexedCollection
+	)
 	{
 		this.queryMethod = queryMethod;
 		this.executor = new HSqlQueryExecutor<>(
+			Objects.requireNonNull(sqlValue),
 			Objects.requireNonNull(domainClass),
 			Objects.requireNonNull(entityListProvider),
-			copier
+			copier,
+			budget,
+			statistics,
+			useIndexedCollection
 		);
-		this.sqlValue = sqlValue;
 	}
 	
 	@Override
 	public Object execute(final Object[] parameters)
 	{
-		return this.executor.execute(this.sqlValue, parameters);
+		return this.executor.execute(parameters);
 	}
 	
 	@Override
@@ -17,6 +17,7 @@ package software.xdev.spring.data.eclipse.store.repository.query;
 
 import java.lang.reflect.Field;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 import jakarta.annotation.Nonnull;
 
@@ -25,8 +26,8 @@ import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
 
 
 /**
- * Simple wrapper for a field to make it easily readable. If the fields is not accessible, it is made accessible with
- * the {@link AccessHelper#readFieldVariable(Field, Object)}.
+ * Simple wrapper for a field to make it easily readable. The field is made accessible once when the wrapper is
+ * created. If that is not possible, it is read with the {@link AccessHelper#readFieldVariable(Field, Object)}.
  *
  * @param <T> Input
  * @param <E> Value
@@ -34,10 +35,12 @@ import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
 public class ReflectedField<T, E>
 {
 	private final Field field;
+	private final boolean isAccessible;
 	
 	public ReflectedField(final Field field)
 	{
 		this.field = Objects.requireNonNull(field);
+		this.isAccessible = field.trySetAccessible();
 	}
 	
 	public static <T, E> ReflectedField<T, E> createReflectedField(final Class<T> domainClass, final String fieldName)
@@ -55,6 +58,46 @@ public class ReflectedField<T, E>
 		}
 	}
 	
+	public String getName()
+	{
+		return this.field.getName();
+	}
+	
+	public Class<?> getType()
+	{
+		return this.field.getType();
+	}
+	
+	Field getField()
+	{
+		return this.field;
+	}
+	
+	/**
+	 * @return {@code true} if the value is read through nested objects (see {@link ReflectedPropertyPath}).
+	 */
+	public boolean isNested()
+	{
+		return false;
+	}
+	
+	/**
+	 * @return {@code true} if objects can have multiple values for this field (see {@link ReflectedPropertyPath}).
+	 */
+	public boolean isMultiValued()
+	{
+		return false;
+	}
+	
+	/**
+	 * Checks the value of the given object with the predicate. If the object has multiple values (see
+	 * {@link #isMultiValued()}), it is enough if one of them matches.
+	 */
+	public boolean anyValueMatches(@Nonnull final T object, final Predicate<Object> predicate)
+	{
+		return predicate.test(this.readValue(object));
+	}
+	
 	/**
 	 * Reads the field of the given object. If the fields is not accessible, it is made accessible with the
 	 * {@link AccessHelper#readFieldVariable(Field, Object)}.
@@ -65,6 +108,78 @@ public class ReflectedField<T, E>
 	@SuppressWarnings("unchecked")
 	public E readValue(@Nonnull final T object)
 	{
-		return (E)AccessHelper.readFieldVariable(Objects.requireNonNull(this.field), Objects.requireNonNull(object));
+		Objects.requireNonNull(object);
+		if(!this.isAccessible)
+		{
+			return (E)AccessHelper.readFieldVariable(this.field, object);
+		}
+		try
+		{
+			return (E)this.field.get(object);
+		}
+		catch(final IllegalAccessException | IllegalArgumentException e)
+		{
+			throw new FieldAccessReflectionException(this.field, e);
+		}
+	}
+	
+	/**
+	 * Reads a field of type {@code int} without boxing its value.
+	 */
+	public int readInt(@Nonnull final T object)
+	{
+		Objects.requireNonNull(object);
+		if(!this.isAccessible)
+		{
+			return (int)AccessHelper.readFieldVariable(this.field, object);
+		}
+		try
+		{
+			return this.field.getInt(object);
+		}
+		catch(final IllegalAccessException | IllegalArgumentException e)
+		{
+			throw new FieldAccessReflectionException(this.field, e);
+		}
+	}
+	
+	/**
+	 * Reads a field of type {@code long} without boxing its value.
+	 */
+	public long readLong(@Nonnull final T object)
+	{
+		Objects.requireNonNull(object);
+		if(!this.isAccessible)
+		{
+			return (long)AccessHelper.readFieldVariable(this.field, object);
+		}
+		try
+		{
+			return this.field.getLong(object);
+		}
+		catch(final IllegalAccessException | IllegalArgumentException e)
+		{
+			throw new FieldAccessReflectionException(this.field, e);
+		}
+	}
+	
+	/**
+	 * Reads a field of type {@code double} without boxing its value.
+	 */
+	public double readDouble(@Nonnull final T object)
+	{
+		Objects.requireNonNull(object);
+		if(!this.isAccessible)
+		{
+			return (double)AccessHelper.readFieldVariable(this.field, object);
+		}
+		try
+		{
+			return this.field.getDouble(object);
+		}
+		catch(final IllegalAccessException | IllegalArgumentException e)
+		{
+			throw new FieldAccessReflectionException(this.field, e);
+		}
 	}
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.core.PropertyPath;
+
+import software.xdev.spring.data.eclipse.store.exceptions.FieldAccessReflectionException;
+import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+
+
+/**
+ * A {@link PropertyPath} through nested objects (e.g. {@code address.city}) that is resolved to its fields once. The
+ * name of the path is the dotted path.
+ * <p>
+ * Reading is null-safe: if an object on the path is {@code null}, the value of the path is {@code null}. Collections,
+ * arrays and maps (their values) on the path have multiple values. {@link #anyValueMatches(Object, Predicate)} is
+ * fulfilled if any of these values matches, like a join in a relational database.
+ * </p>
+ *
+ * @param <T> Input
+ * @param <E> Value
+ */
+public class ReflectedPropertyPath<T, E> extends ReflectedField<T, E>
+{
+	private final String path;
+	private final List<Segment> segments;
+	private final boolean isMultiValued;
+	
+	private ReflectedPropertyPath(final String path, final List<Segment> segments)
+	{
+		super(segments.get(segments.size() - 1).field().getField());
+		this.path = path;
+		this.segments = segments;
+		this.isMultiValued = segments.stream().anyMatch(Segment::isMultiValued);
+	}
+	
+	/**
+	 * @return a {@link ReflectedPropertyPath} for nested paths or a simple {@link ReflectedField} if the path only
+	 * consists of a single field.
+	 */
+	public static <T> ReflectedField<T, ?> create(final Class<T> domainClass, final PropertyPath propertyPath)
+	{
+		if(!propertyPath.hasNext())
+		{
+			return ReflectedField.createReflectedField(domainClass, propertyPath.getSegment());
+		}
+		final List<Segment> segments = new ArrayList<>();
+		Class<?> ownerType = domainClass;
+		for(final PropertyPath segment : propertyPath)
+		{
+			segments.add(new Segment(
+				createSegmentField(ownerType, segment.getSegment()),
+				segment.isCollection() || segment.getTypeInformation().isMap()));
+			// The actual type is the element type of collections and the value type of maps.
+			ownerType = segment.getTypeInformation().getRequiredActualType().getType();
+		}
+		return new ReflectedPropertyPath<>(propertyPath.toDotPath(), segments);
+	}
+	
+	private static ReflectedField<Object, Object> createSegmentField(final Class<?> ownerType, final String fieldName)
+	{
+		try
+		{
+			return new ReflectedField<>(AccessHelper.getInheritedPrivateField(ownerType, fieldName));
+		}
+		catch(final NoSuchFieldException e)
+		{
+			throw new FieldAccessReflectionException(String.format(
+				"Field %s in class %s was not found!",
+				fieldName,
+				ownerType.getSimpleName()), e);
+		}
+	}
+	
+	@Override
+	public String getName()
+	{
+		return this.path;
+	}
+	
+	@Override
+	public boolean isNested()
+	{
+		return true;
+	}
+	
+	@Override
+	public boolean isMultiValued()
+	{
+		return this.isMultiValued;
+	}
+	
+	/**
+	 * Reads the value at the end of the path.
+	 *
+	 * @return {@code null} if the value or any object on the path is {@code null}.
+	 * @throws IllegalStateException if the path has multiple values
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E readValue(@Nonnull final T object)
+	{
+		Objects.requireNonNull(object);
+		if(this.isMultiValued)
+		{
+			throw new IllegalStateException(String.format("Path %s has multiple values", this.path));
+		}
+		Object current = object;
+		for(final Segment segment : this.segments)
+		{
+			if(current == null)
+			{
+				return null;
+			}
+			current = segment.field().readValue(current);
+		}
+		return (E)current;
+	}
+	
+	@Override
+	public int readInt(@Nonnull final T object)
+	{
+		return (int)Objects.requireNonNull(this.readValue(object));
+	}
+	
+	@Override
+	public long readLong(@Nonnull final T object)
+	{
+		return (long)Objects.requireNonNull(this.readValue(object));
+	}
+	
+	@Override
+	public double readDouble(@Nonnull final T object)
+	{
+		return (double)Objects.requireNonNull(this.readValue(object));
+	}
+	
+	@Override
+	public boolean anyValueMatches(@Nonnull final T object, final Predicate<Object> predicate)
+	{
+		return this.anyValueMatches(Objects.requireNonNull(object), 0, predicate);
+	}
+	
+	private boolean anyValueMatches(
+		@Nullable final Object current,
+		final int segmentIndex,
+		final Predicate<Object> predicate)
+	{
+		if(current == null || segmentIndex == this.segments.size())
+		{
+			return predicate.test(current);
+		}
+		final Segment segment = this.segments.get(segmentIndex);
+		final Object value = segment.field().readValue(current);
+		if(!segment.isMultiValued() || value == null)
+		{
+			return this.anyValueMatches(value, segmentIndex + 1, predicate);
+		}
+		for(final Object element : elementsOf(value))
+		{
+			if(this.anyValueMatches(element, segmentIndex + 1, predicate))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static Iterable<?> elementsOf(final Object multipleValues)
+	{
+		if(multipleValues instanceof final Collection<?> collection)
+		{
+			return collection;
+		}
+		if(multipleValues instanceof final Map<?, ?> map)
+		{
+			return map.values();
+		}
+		if(multipleValues instanceof final Object[] array)
+		{
+			// May contain null elements
+			return Arrays.asList(array);
+		}
+		if(multipleValues.getClass().isArray())
+		{
+			// Primitive arrays are boxed element by element
+			final int length = Array.getLength(multipleValues);
+			final List<Object> elements = new ArrayList<>(length);
+			for(int i = 0; i < length; i++)
+			{
+				elements.add(Array.get(multipleValues, i));
+			}
+			return elements;
+		}
+		return List.of(multipleValues);
+	}
+	
+	private record Segment(ReflectedField<Object, Object> field, boolean isMultiValued)
+	{
+	}
+}
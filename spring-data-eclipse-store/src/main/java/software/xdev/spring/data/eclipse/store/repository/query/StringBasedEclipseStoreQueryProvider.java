@@ -16,82 +16,253 @@
 package software.xdev.spring.data.eclipse.store.repository.query;
 
 import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.core.PropertyPath;
 import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.query.ParameterAccessor;
 import org.springframework.data.repository.query.Parameters;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.QueryMethod;
 import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.data.repository.query.ReturnedType;
 import org.springframework.data.repository.query.parser.PartTree;
 
 import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.repository.CacheableQuery;
+import software.xdev.spring.data.eclipse.store.repository.QueryLimits;
+import software.xdev.spring.data.eclipse.store.repository.query.cache.QueryResultCache;
+import software.xdev.spring.data.eclipse.store.repository.query.cache.ReferenceWorkingCopier;
 import software.xdev.spring.data.eclipse.store.repository.query.executors.QueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.projection.ProjectingWorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryMethodStatistics;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 
 
 /**
  * Creates queries for specific entities and executes them through the
  * {@link QueryExecutor}.
+ * <p>
+ * If the method returns a projection, the projections are created straight from the stored entities (see
+ * {@link ProjectingWorkingCopier}). A plan is compiled for each (possibly dynamic) projection type.
+ * </p>
+ * <p>
+ * If the method is annotated with {@link CacheableQuery}, the query returns the original entities, which are kept
+ * in a {@link QueryResultCache} and copied for every execution.
+ * </p>
+ * <p>
+ * Every execution is limited by a {@link QueryBudget} (see {@link QueryLimits}) and recorded in the
+ * {@link QueryMethodStatistics} of the method.
+ * </p>
  *
  * @param <T> entity type to create query for
  */
 public class StringBasedEclipseStoreQueryProvider<T> implements RepositoryQuery
 {
 	private static final Logger LOG = LoggerFactory.getLogger(StringBasedEclipseStoreQueryProvider.class);
-	private final PartTree tree;
+	private final Map<Class<?>, EclipseStoreQueryPlan<T>> plansByReturnedType = new ConcurrentHashMap<>();
 	private final Parameters<?, ?> parameters;
 	private final EntityListProvider entityListProvider;
 	private final Class<T> domainClass;
+	private final QueryMethod queryMethod;
 	private final TypeInformation<?> typeInformation;
 	private final WorkingCopier<T> copier;
-	private final QueryMethod queryMethod;
+	private final ProjectionFactory projectionFactory;
+	private final PartTree tree;
+	@Nullable
+	private final QueryResultCache resultCache;
+	/**
+	 * Plan that returns the original entities for the {@link #resultCache}. Is {@code null} if the results are not
+	 * cached.
+	 */
+	@Nullable
+	private final EclipseStoreQueryPlan<T> referencePlan;
+	private final Map<Class<?>, WorkingCopier<T>> resultCopiersByReturnedType = new ConcurrentHashMap<>();
+	/**
+	 * Types of nested properties that are read by the query. If one of them is changed, cached results are outdated.
+	 */
+	private final Set<Class<?>> nestedTypes = new HashSet<>();
+	private final QueryBudget budget;
+	private final QueryMethodStatistics statistics;
+	
+	public StringBasedEclipseStoreQueryProvider(
+		final QueryMethod queryMethod,
+		final Method method,
+		final Class<T> domainClass,
+		final EntityListProvider entityListProvider,
+		final WorkingCopier<T> copier,
+		final ProjectionFactory projectionFactory)
+	{
+		this(queryMethod, method, domainClass, entityListProvider, copier, projectionFactory, null);
+	}
+	
+	/**
+	 * @param resultCache caches the results of the method. Can be {@code null} if the results are not cached.
+	 */
+	public StringBasedEclipseStoreQueryProvider(
+		final QueryMethod queryMethod,
+		final Method method,
+		final Class<T> domainClass,
+		final EntityListProvider entityListProvider,
+		final WorkingCopier<T> copier,
+		final ProjectionFactory projectionFactory,
+		@Nullable final QueryResultCache resultCache)
+	{
+		this(
+			queryMethod,
+			method,
+			domainClass,
+			entityListProvider,
+			copier,
+			projectionFactory,
+			resultCache,
+			QueryBudget.unlimited(),
+			QueryStatistics.disabled().forMethod(method.getName()));
+	}
 	
+	/**
+	 * @param resultCache caches the results of the method. Can be {@code null} if the results are not cached.
+	 * @param budget      limits every execution of the method
+	 * @param statistics  records every execution of the method
+	 */
 	public StringBasedEclipseStoreQueryProvider(
 		final QueryMethod queryMethod,
 		final Method method,
 		final Class<T> domainClass,
 		final EntityListProvider entityListProvider,
-		final WorkingCopier<T> copier)
+		final WorkingCopier<T> copier,
+		final ProjectionFactory projectionFactory,
+		@Nullable final QueryResultCache resultCache,
+		final QueryBudget budget,
+		final QueryMethodStatistics statistics)
 	{
+		this.budget = Objects.requireNonNull(budget);
+		this.statistics = Objects.requireNonNull(statistics);
 		Objects.requireNonNull(method);
 		this.queryMethod = queryMethod;
 		this.domainClass = Objects.requireNonNull(domainClass);
 		this.entityListProvider = Objects.requireNonNull(entityListProvider);
-		this.tree = new PartTree(method.getName(), domainClass);
 		this.typeInformation = TypeInformation.fromReturnTypeOf(method);
-		this.parameters = queryMethod.getParameters();
 		this.copier = Objects.requireNonNull(copier);
+		this.projectionFactory = Objects.requireNonNull(projectionFactory);
+		this.tree = new PartTree(method.getName(), domainClass);
+		this.parameters = queryMethod.getParameters();
+		
+		// The plan of the declared return type is created right away to detect invalid methods on startup.
+		final ReturnedType returnedType = queryMethod.getResultProcessor().getReturnedType();
+		this.plansByReturnedType.put(returnedType.getReturnedType(), this.createPlan(returnedType));
+		
+		if(resultCache != null && Stream.class.isAssignableFrom(this.typeInformation.getType()))
+		{
+			LOG.warn("Results of query {} are not cached, since streams can not be cached.", this.queryMethod);
+			this.resultCache = null;
+		}
+		else
+		{
+			this.resultCache = resultCache;
+		}
+		if(this.resultCache == null)
+		{
+			this.referencePlan = null;
+		}
+		else
+		{
+			this.referencePlan = new EclipseStoreQueryPlan<>(
+				domainClass,
+				this.typeInformation,
+				new ReferenceWorkingCopier<>(),
+				this.tree);
+			this.tree.getParts().forEach(part -> collectNestedTypes(part.getProperty(), this.nestedTypes));
+			this.tree.getSort().forEach(
+				order -> collectNestedTypes(PropertyPath.from(order.getProperty(), domainClass), this.nestedTypes));
+		}
+	}
+	
+	private static void collectNestedTypes(final PropertyPath path, final Set<Class<?>> nestedTypes)
+	{
+		PropertyPath segment = path;
+		while(segment.hasNext())
+		{
+			segment = segment.next();
+			addIfPossiblyEntity(segment.getOwningType().getType(), nestedTypes);
+		}
+		addIfPossiblyEntity(segment.getType(), nestedTypes);
+	}
+	
+	private static void addIfPossiblyEntity(final Class<?> type, final Set<Class<?>> nestedTypes)
+	{
+		if(!type.isPrimitive() && !type.isArray() && !type.getName().startsWith("java."))
+		{
+			nestedTypes.add(type);
+		}
+	}
+	
+	private EclipseStoreQueryPlan<T> createPlan(final ReturnedType returnedType)
+	{
+		return new EclipseStoreQueryPlan<>(
+			this.domainClass,
+			this.typeInformation,
+			ProjectingWorkingCopier.forReturnedType(this.copier, returnedType, this.projectionFactory),
+			this.tree,
+			this.entityListProvider.getReadWriteLock());
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * Creates a new {@link EclipseStoreQueryCreator} and executes it with given values.
+	 * Binds the given values to the {@link EclipseStoreQueryPlan} and executes it.
 	 * </p>
 	 *
 	 * @param values must not be {@literal null}.
-	 * @return queried entities/entity wrapped in the correct class depending on the {@link #typeInformation}
+	 * @return queried entities/entity wrapped in the correct class depending on the return type of the method
 	 */
 	@Override
 	@Nonnull
 	public Object execute(@Nonnull final Object[] values)
 	{
 		Objects.requireNonNull(values);
+		return this.statistics.record(() -> this.executeQuery(values));
+	}
+	
+	private Object executeQuery(final Object[] values)
+	{
 		final ParametersParameterAccessor accessor = new ParametersParameterAccessor(this.parameters, values);
-		final EclipseStoreQueryCreator<T> creator =
-			new EclipseStoreQueryCreator<>(this.domainClass, this.typeInformation, this.copier, this.tree, accessor);
+		final ReturnedType returnedType =
+			this.queryMethod.getResultProcessor().withDynamicProjection(accessor).getReturnedType();
+		if(this.resultCache != null)
+		{
+			return this.executeCached(this.resultCache, accessor, returnedType, values);
+		}
+		final QueryExecutor<T> executor = this.plansByReturnedType
+			.computeIfAbsent(returnedType.getReturnedType(), type -> this.createPlan(returnedType))
+			.bind(accessor, this.budget);
 		
 		if(LOG.isDebugEnabled())
 		{
 			LOG.debug("Executing query {}...", this.queryMethod);
 		}
-		final Object result = creator.createQuery()
-			.execute(this.domainClass, this.entityListProvider.getEntityProvider(this.domainClass), values);
+		// The entities and their indexes are read while they may be changed by other threads, so the query must be
+		// executed within the read lock of the storage.
+		final Object result = this.entityListProvider.getReadWriteLock().read(
+			() -> executor.execute(
+				this.domainClass,
+				this.entityListProvider.getEntityProvider(this.domainClass),
+				values));
 		if(LOG.isDebugEnabled())
 		{
 			LOG.debug("Done executing query {}.", this.queryMethod);
@@ -99,6 +270,54 @@ public class StringBasedEclipseStoreQueryProvider<T> implements RepositoryQuery
 		return result;
 	}
 	
+	private Object executeCached(
+		final QueryResultCache cache,
+		final ParameterAccessor accessor,
+		final ReturnedType returnedType,
+		final Object[] values)
+	{
+		final WorkingCopier<T> resultCopier = this.resultCopiersByReturnedType.computeIfAbsent(
+			returnedType.getReturnedType(),
+			type -> ProjectingWorkingCopier.forReturnedType(this.copier, returnedType, this.projectionFactory));
+		// The stamp, the query and the copies must all see the same state of the entities.
+		return this.entityListProvider.getReadWriteLock().read(() -> {
+			final EntityProvider<T, ?> entities = this.entityListProvider.getEntityProvider(this.domainClass);
+			final Object originalResult = cache.get(
+				values,
+				this.getLastModification(entities, accessor.getSort()),
+				() -> Objects.requireNonNull(this.referencePlan)
+					.bind(accessor, this.budget)
+					.execute(this.domainClass, entities, values));
+			return QueryResultCache.copyResult(originalResult, resultCopier);
+		});
+	}
+	
+	/**
+	 * @return the latest modification stamp of the queried entities and all entities of nested properties.
+	 */
+	private long getLastModification(@Nullable final EntityProvider<T, ?> entities, final Sort dynamicSort)
+	{
+		Set<Class<?>> typesToCheck = this.nestedTypes;
+		if(dynamicSort.isSorted())
+		{
+			typesToCheck = new HashSet<>(this.nestedTypes);
+			for(final Sort.Order order : dynamicSort)
+			{
+				collectNestedTypes(PropertyPath.from(order.getProperty(), this.domainClass), typesToCheck);
+			}
+		}
+		long lastModification = entities == null ? 0 : entities.getLastModification();
+		for(final Class<?> type : typesToCheck)
+		{
+			final EntityProvider<?, ?> nestedEntities = this.entityListProvider.getEntityProvider(type);
+			if(nestedEntities != null)
+			{
+				lastModification = Math.max(lastModification, nestedEntities.getLastModification());
+			}
+		}
+		return lastModification;
+	}
+	
 	@Override
 	@Nonnull
 	public QueryMethod getQueryMethod()
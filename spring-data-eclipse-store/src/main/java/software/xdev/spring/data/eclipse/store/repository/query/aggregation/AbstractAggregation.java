@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.aggregation;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import org.springframework.data.core.PropertyPath;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.StorageCommunicator;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedPropertyPath;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.DataTypeUtil;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Aggregates the stored entities directly within the read lock of the storage. No working copies of the entities are
+ * created; only the results are copied, if they are not immutable.
+ *
+ * @param <T> type of the aggregated entities
+ */
+abstract class AbstractAggregation<T>
+{
+	protected final Class<T> domainClass;
+	protected final Criteria<T> criteria;
+	protected final StorageCommunicator storage;
+	protected final WorkingCopier<T> copier;
+	
+	protected AbstractAggregation(
+		final Class<T> domainClass,
+		final Criteria<T> criteria,
+		final StorageCommunicator storage,
+		final WorkingCopier<T> copier)
+	{
+		this.domainClass = Objects.requireNonNull(domainClass);
+		this.criteria = Objects.requireNonNull(criteria);
+		this.storage = Objects.requireNonNull(storage);
+		this.copier = Objects.requireNonNull(copier);
+	}
+	
+	/**
+	 * Resolves a (possibly nested) property of the entities. Properties with multiple values (e.g. within
+	 * collections) can not be aggregated.
+	 */
+	protected ReflectedField<T, ?> resolve(final String property)
+	{
+		final ReflectedField<T, ?> field =
+			ReflectedPropertyPath.create(this.domainClass, PropertyPath.from(property, this.domainClass));
+		if(field.isMultiValued())
+		{
+			throw new IllegalArgumentException(String.format(
+				"Property %s can not be aggregated because it has multiple values.",
+				property));
+		}
+		return field;
+	}
+	
+	/**
+	 * Executes the given operation on the entities within the read lock of the storage.
+	 *
+	 * @param resultIfEmpty is returned if no entities of the domain class are stored
+	 */
+	protected <R> R execute(final Function<EntityProvider<T, ?>, R> operation, final R resultIfEmpty)
+	{
+		return this.storage.getReadWriteLock().read(() -> {
+			final EntityProvider<T, ?> entities = this.storage.getEntityProvider(this.domainClass);
+			return entities == null ? resultIfEmpty : operation.apply(entities);
+		});
+	}
+	
+	/**
+	 * Collects all entities that fulfill the criteria (in parallel, if many entities are scanned).
+	 */
+	protected <R> R collect(final Collector<T, ?, R> collector)
+	{
+		return this.execute(
+			entities -> entities.collect(this.criteria, collector),
+			Stream.<T>empty().collect(collector));
+	}
+	
+	/**
+	 * Values that are read from the stored entities must not be handed out, if they can be changed.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <V> V copyValue(final Object value)
+	{
+		if(value == null || DataTypeUtil.isImmutableValue(value))
+		{
+			return (V)value;
+		}
+		return (V)this.copier.onlyCreateCopy(value, false);
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.aggregation;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import org.springframework.util.ClassUtils;
+
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+
+
+/**
+ * Creates the {@link Collector}s that aggregate the values of a single property of the stored entities. {@code null}
+ * values are ignored. Primitive fields of the entity itself are read without boxing their values.
+ */
+final class AggregateFunctions
+{
+	private AggregateFunctions()
+	{
+	}
+	
+	/**
+	 * @return collector that sums up the values. The sum is a {@link Long} for integral types, a {@link Double} for
+	 * floating point types and a {@link BigDecimal} or {@link BigInteger} for these types.
+	 */
+	static <T> Collector<T, ?, Number> sum(final ReflectedField<T, ?> field)
+	{
+		final Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(field.getType());
+		if(type == Long.class || type == Integer.class || type == Short.class || type == Byte.class)
+		{
+			return Collectors.collectingAndThen(Collectors.summingLong(longReader(field)), Number.class::cast);
+		}
+		if(type == Double.class || type == Float.class)
+		{
+			return Collectors.collectingAndThen(Collectors.summingDouble(doubleReader(field)), Number.class::cast);
+		}
+		if(type == BigDecimal.class)
+		{
+			return Collectors.reducing(
+				BigDecimal.ZERO,
+				entity -> valueOrDefault(field.readValue(entity), BigDecimal.ZERO),
+				(sum, value) -> ((BigDecimal)sum).add((BigDecimal)value));
+		}
+		if(type == BigInteger.class)
+		{
+			return Collectors.reducing(
+				BigInteger.ZERO,
+				entity -> valueOrDefault(field.readValue(entity), BigInteger.ZERO),
+				(sum, value) -> ((BigInteger)sum).add((BigInteger)value));
+		}
+		throw notNumeric(field);
+	}
+	
+	/**
+	 * @return collector for the average of the values or {@link OptionalDouble#empty()} if there is no value.
+	 */
+	static <T> Collector<T, ?, OptionalDouble> average(final ReflectedField<T, ?> field)
+	{
+		if(!Number.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(field.getType())))
+		{
+			throw notNumeric(field);
+		}
+		if(isDirectPrimitive(field))
+		{
+			return Collector.of(
+				DoubleSummaryStatistics::new,
+				(statistics, entity) -> statistics.accept(field.readDouble(entity)),
+				AggregateFunctions::combine,
+				AggregateFunctions::averageOf);
+		}
+		return Collector.of(
+			DoubleSummaryStatistics::new,
+			(statistics, entity) -> {
+				final Object value = field.readValue(entity);
+				if(value != null)
+				{
+					statistics.accept(((Number)value).doubleValue());
+				}
+			},
+			AggregateFunctions::combine,
+			AggregateFunctions::averageOf);
+	}
+	
+	private static DoubleSummaryStatistics combine(
+		final DoubleSummaryStatistics statistics,
+		final DoubleSummaryStatistics other)
+	{
+		statistics.combine(other);
+		return statistics;
+	}
+	
+	private static OptionalDouble averageOf(final DoubleSummaryStatistics statistics)
+	{
+		return statistics.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(statistics.getAverage());
+	}
+	
+	/**
+	 * @param highest if {@code true} the maximum is collected, otherwise the minimum
+	 * @return collector for the lowest or highest value or {@link Optional#empty()} if there is no value.
+	 */
+	static <T> Collector<T, ?, Optional<Object>> extremum(final ReflectedField<T, ?> field, final boolean highest)
+	{
+		checkComparable(field);
+		return Collector.of(
+			() -> new Extremum(highest),
+			(extremum, entity) -> extremum.accept(field.readValue(entity)),
+			Extremum::combine,
+			extremum -> Optional.ofNullable(extremum.value));
+	}
+	
+	static void checkComparable(final ReflectedField<?, ?> field)
+	{
+		final Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(field.getType());
+		if(!Comparable.class.isAssignableFrom(type))
+		{
+			throw new NotComparableException(String.format(
+				"Property %s can not be aggregated because type %s is not comparable.",
+				field.getName(),
+				type.getSimpleName()));
+		}
+	}
+	
+	/**
+	 * Groups the entities by the value of the given field ({@code null} is a valid key) and aggregates every group
+	 * with the downstream collector.
+	 */
+	static <T, R> Collector<T, ?, Map<Object, R>> groupBy(
+		final ReflectedField<T, ?> keyField,
+		final Collector<T, ?, R> downstream)
+	{
+		return Collectors.collectingAndThen(
+			// Collectors#groupingBy does not allow null keys.
+			Collectors.groupingBy(entity -> Optional.ofNullable(keyField.readValue(entity)), downstream),
+			groups -> {
+				final Map<Object, R> result = new HashMap<>(groups.size() * 2);
+				groups.forEach((key, value) -> result.put(key.orElse(null), value));
+				return result;
+			});
+	}
+	
+	private static <T> ToLongFunction<T> longReader(final ReflectedField<T, ?> field)
+	{
+		if(isDirectPrimitive(field))
+		{
+			return field.getType() == long.class ? field::readLong : field::readInt;
+		}
+		return entity -> {
+			final Object value = field.readValue(entity);
+			return value == null ? 0 : ((Number)value).longValue();
+		};
+	}
+	
+	private static <T> ToDoubleFunction<T> doubleReader(final ReflectedField<T, ?> field)
+	{
+		if(isDirectPrimitive(field))
+		{
+			return field::readDouble;
+		}
+		return entity -> {
+			final Object value = field.readValue(entity);
+			return value == null ? 0 : ((Number)value).doubleValue();
+		};
+	}
+	
+	/**
+	 * Primitive fields of the entity itself can't be {@code null} and are read without boxing. Only {@code int},
+	 * {@code long} and {@code double} fields are read directly, since the reflection widens smaller types.
+	 */
+	private static boolean isDirectPrimitive(final ReflectedField<?, ?> field)
+	{
+		return !field.isNested() && field.getType().isPrimitive() && field.getType() != boolean.class
+			&& field.getType() != char.class;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <V> V valueOrDefault(final Object value, final V defaultValue)
+	{
+		return value == null ? defaultValue : (V)value;
+	}
+	
+	private static IllegalArgumentException notNumeric(final ReflectedField<?, ?> field)
+	{
+		return new IllegalArgumentException(String.format(
+			"Property %s can not be aggregated because type %s is not numeric.",
+			field.getName(),
+			field.getType().getSimpleName()));
+	}
+	
+	private static final class Extremum
+	{
+		private final boolean highest;
+		private Object value;
+		
+		private Extremum(final boolean highest)
+		{
+			this.highest = highest;
+		}
+		
+		private void accept(final Object candidate)
+		{
+			if(candidate == null)
+			{
+				return;
+			}
+			if(this.value == null)
+			{
+				this.value = candidate;
+				return;
+			}
+			final int comparison = GenericObjectComparer.compare(candidate, this.value);
+			if(this.highest ? comparison > 0 : comparison < 0)
+			{
+				this.value = candidate;
+			}
+		}
+		
+		private Extremum combine(final Extremum other)
+		{
+			this.accept(other.value);
+			return this;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.aggregation;
+
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.StorageCommunicator;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Aggregates all entities that fulfill a criteria to scalar results, e.g.
+ * {@code repository.aggregate(example).sum("amount")}. With {@link #groupBy(String)} the entities are aggregated
+ * per value of a property.
+ * <p>
+ * The aggregates are computed over the stored entities within the read lock, without creating working copies.
+ * Properties can be nested (e.g. {@code "address.city"}) and {@code null} values are ignored. Large sets of entities
+ * are aggregated in parallel (see {@link software.xdev.spring.data.eclipse.store.core.QueryParallelism}).
+ * </p>
+ *
+ * @param <T> type of the aggregated entities
+ */
+public class EntityAggregation<T> extends AbstractAggregation<T>
+{
+	public EntityAggregation(
+		final Class<T> domainClass,
+		final Criteria<T> criteria,
+		final StorageCommunicator storage,
+		final WorkingCopier<T> copier)
+	{
+		super(domainClass, criteria, storage, copier);
+	}
+	
+	/**
+	 * @return count of all matching entities. If all entities match, they are not scanned.
+	 */
+	public long count()
+	{
+		return this.execute(
+			entities -> this.criteria.acceptsAll() ? entities.size() : entities.count(this.criteria),
+			0L);
+	}
+	
+	/**
+	 * @return the sum of the values of a numeric property. Is a {@link Long} for integral types, a {@link Double} for
+	 * floating point types and a {@link java.math.BigDecimal} or {@link java.math.BigInteger} for these types.
+	 */
+	public Number sum(final String property)
+	{
+		return this.collect(AggregateFunctions.sum(this.resolve(property)));
+	}
+	
+	/**
+	 * @return the average of the values of a numeric property or {@link OptionalDouble#empty()} if there is no value.
+	 */
+	public OptionalDouble avg(final String property)
+	{
+		return this.collect(AggregateFunctions.average(this.resolve(property)));
+	}
+	
+	/**
+	 * @return the lowest value of a comparable property or {@link Optional#empty()} if there is no value.
+	 */
+	public <V> Optional<V> min(final String property)
+	{
+		return this.extremum(property, false);
+	}
+	
+	/**
+	 * @return the highest value of a comparable property or {@link Optional#empty()} if there is no value.
+	 */
+	public <V> Optional<V> max(final String property)
+	{
+		return this.extremum(property, true);
+	}
+	
+	private <V> Optional<V> extremum(final String property, final boolean highest)
+	{
+		final ReflectedField<T, ?> field = this.resolve(property);
+		AggregateFunctions.checkComparable(field);
+		return this.execute(
+			entities -> this.readExtremumFromIndex(entities, field, highest)
+				.orElseGet(() -> entities.collect(this.criteria, AggregateFunctions.extremum(field, highest)))
+				.map(this::copyValue),
+			Optional.empty());
+	}
+	
+	/**
+	 * If all entity types have an index on the property, the lowest or highest value is read at the start or end of
+	 * the index instead of scanning all entities.
+	 *
+	 * @return {@link Optional#empty()} if no index can be used, otherwise the (possibly empty) value.
+	 */
+	private Optional<Optional<Object>> readExtremumFromIndex(
+		final EntityProvider<T, ?> entities,
+		final ReflectedField<T, ?> field,
+		final boolean highest)
+	{
+		if(!this.criteria.acceptsAll())
+		{
+			return Optional.empty();
+		}
+		final Sort sort = Sort.by(highest ? Sort.Direction.DESC : Sort.Direction.ASC, field.getName());
+		return entities.streamOrderedByIndex(this.criteria, sort, true)
+			.map(orderedEntities -> firstValue(orderedEntities, field));
+	}
+	
+	private static <S> Optional<Object> firstValue(final Stream<? extends S> entities, final ReflectedField<S, ?> field)
+	{
+		return entities.<Object>map(field::readValue).filter(value -> value != null).findFirst();
+	}
+	
+	/**
+	 * Aggregates the entities per value of the given (possibly nested) property. {@code null} is a group as well.
+	 *
+	 * @param <K> type of the property
+	 */
+	public <K> GroupedEntityAggregation<T, K> groupBy(final String property)
+	{
+		return new GroupedEntityAggregation<>(
+			this.domainClass,
+			this.criteria,
+			this.storage,
+			this.copier,
+			this.resolve(property));
+	}
+}
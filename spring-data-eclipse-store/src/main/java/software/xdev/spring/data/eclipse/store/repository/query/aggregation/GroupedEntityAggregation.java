@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.aggregation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import software.xdev.spring.data.eclipse.store.repository.StorageCommunicator;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Aggregates all entities that fulfill a criteria per value of a property (see
+ * {@link EntityAggregation#groupBy(String)}). Every method returns a map from the value of the grouped property to
+ * the aggregate of its group.
+ * <p>
+ * Groups without any value for the aggregated property are left out of the results of {@link #avg(String)},
+ * {@link #min(String)} and {@link #max(String)}.
+ * </p>
+ *
+ * @param <T> type of the aggregated entities
+ * @param <K> type of the grouped property
+ */
+public class GroupedEntityAggregation<T, K> extends AbstractAggregation<T>
+{
+	private final ReflectedField<T, ?> keyField;
+	
+	public GroupedEntityAggregation(
+		final Class<T> domainClass,
+		final Criteria<T> criteria,
+		final StorageCommunicator storage,
+		final WorkingCopier<T> copier,
+		final ReflectedField<T, ?> keyField)
+	{
+		super(domainClass, criteria, storage, copier);
+		this.keyField = Objects.requireNonNull(keyField);
+	}
+	
+	public Map<K, Long> count()
+	{
+		return this.collectGroups(Collectors.counting());
+	}
+	
+	/**
+	 * @see EntityAggregation#sum(String)
+	 */
+	public Map<K, Number> sum(final String property)
+	{
+		return this.collectGroups(AggregateFunctions.sum(this.resolve(property)));
+	}
+	
+	public Map<K, Double> avg(final String property)
+	{
+		final Map<K, Double> result = new HashMap<>();
+		this.collectGroups(AggregateFunctions.average(this.resolve(property)))
+			.forEach((key, average) -> average.ifPresent(value -> result.put(key, value)));
+		return result;
+	}
+	
+	public <V> Map<K, V> min(final String property)
+	{
+		return this.extremum(property, false);
+	}
+	
+	public <V> Map<K, V> max(final String property)
+	{
+		return this.extremum(property, true);
+	}
+	
+	private <V> Map<K, V> extremum(final String property, final boolean highest)
+	{
+		final Collector<T, ?, Optional<Object>> collector =
+			AggregateFunctions.extremum(this.resolve(property), highest);
+		return this.execute(
+			entities -> {
+				final Map<K, V> result = new HashMap<>();
+				entities.collect(this.criteria, AggregateFunctions.groupBy(this.keyField, collector)).forEach(
+					(key, value) -> value.ifPresent(v -> result.put(this.copyValue(key), this.copyValue(v))));
+				return result;
+			},
+			Map.of());
+	}
+	
+	/**
+	 * Aggregates every group and copies the keys of the groups within the read lock.
+	 */
+	private <R> Map<K, R> collectGroups(final Collector<T, ?, R> downstream)
+	{
+		return this.execute(
+			entities -> {
+				final Map<K, R> result = new HashMap<>();
+				entities.collect(this.criteria, AggregateFunctions.groupBy(this.keyField, downstream))
+					.forEach((key, value) -> result.put(this.copyValue(key), value));
+				return result;
+			},
+			Map.of());
+	}
+}
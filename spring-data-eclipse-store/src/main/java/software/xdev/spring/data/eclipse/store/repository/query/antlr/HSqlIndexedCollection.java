@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.util.ClassUtils;
+
+import com.googlecode.cqengine.ConcurrentIndexedCollection;
+import com.googlecode.cqengine.IndexedCollection;
+import com.googlecode.cqengine.attribute.Attribute;
+import com.googlecode.cqengine.index.Index;
+import com.googlecode.cqengine.index.hash.HashIndex;
+import com.googlecode.cqengine.index.navigable.NavigableIndex;
+import com.googlecode.cqengine.index.radix.RadixTreeIndex;
+import com.googlecode.cqengine.index.radixreversed.ReversedRadixTreeIndex;
+import com.googlecode.cqengine.index.suffix.SuffixTreeIndex;
+import com.googlecode.cqengine.query.parser.common.ParseResult;
+import com.googlecode.cqengine.resultset.ResultSet;
+
+import software.xdev.spring.data.eclipse.store.exceptions.DataTypeNotSupportedException;
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+import software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexType;
+import software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexed;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.DataTypeUtil;
+
+
+/**
+ * Holds the entities of one type in a CQEngine {@link IndexedCollection} to execute HSQL queries on them. The
+ * collection is kept for the whole lifetime of the storage and updated with every stored or removed entity, so it
+ * does not have to be built for every query.
+ * <p>
+ * Fields that are annotated with {@link HSqlIndexed} or {@link Indexed} are indexed. Only fields of immutable types
+ * (see {@link DataTypeUtil#isImmutableType(Class)}) can be indexed, because the indexes hold the values of the
+ * fields at the time the entity was stored. {@link Indexed} fields of other types are not indexed in this collection.
+ * </p>
+ * <p>
+ * {@link #put(Object)}, {@link #remove(Object)} and {@link #clear()} must only be called within the write lock of the
+ * storage.
+ * </p>
+ *
+ * @param <T> type of the entities
+ */
+public class HSqlIndexedCollection<T>
+{
+	private final List<ReflectedField<T, ?>> indexedFields = new ArrayList<>();
+	private final IndexedCollection<HSqlRow<T>> rows = new ConcurrentIndexedCollection<>();
+	private final Map<T, HSqlRow<T>> rowsByEntity = new IdentityHashMap<>();
+	
+	/**
+	 * @param withIndexes if {@code false} the declared indexes are not created. This is useful for collections that
+	 *                    are only used for a single query.
+	 */
+	public HSqlIndexedCollection(final Class<T> domainClass, final boolean withIndexes)
+	{
+		if(withIndexes)
+		{
+			final Map<String, HSqlRowAttribute<T, ?>> attributes = createAttributes(domainClass);
+			for(final Field field : getSortedFields(domainClass))
+			{
+				final HSqlRowAttribute<T, ?> attribute = attributes.get(field.getName());
+				if(attribute.isIndexed())
+				{
+					this.indexedFields.add(new ReflectedField<>(field));
+					getIndexTypes(field).forEach(indexType -> this.rows.addIndex(createIndex(indexType, attribute)));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates the attributes of all fields of the domain class. Attributes of the same domain class are
+	 * interchangeable, so queries can be parsed with other attributes than the ones the collection is indexed with.
+	 */
+	public static <T> Map<String, HSqlRowAttribute<T, ?>> createAttributes(final Class<T> domainClass)
+	{
+		final Map<String, HSqlRowAttribute<T, ?>> attributes = new TreeMap<>();
+		int indexedPosition = 0;
+		for(final Field field : getSortedFields(domainClass))
+		{
+			final boolean isIndexed = !getIndexTypes(field).isEmpty();
+			attributes.put(
+				field.getName(),
+				new HSqlRowAttribute<>(new ReflectedField<>(field), isIndexed ? indexedPosition++ : -1));
+		}
+		return attributes;
+	}
+	
+	/**
+	 * The position of the values in the snapshot of a {@link HSqlRow} is the position of the field among the indexed
+	 * fields in this list.
+	 */
+	private static List<Field> getSortedFields(final Class<?> domainClass)
+	{
+		return List.copyOf(new TreeMap<>(AccessHelper.getInheritedPrivateFieldsByName(domainClass)).values());
+	}
+	
+	private static Set<HSqlIndexType> getIndexTypes(final Field field)
+	{
+		final Set<HSqlIndexType> indexTypes = EnumSet.noneOf(HSqlIndexType.class);
+		final HSqlIndexed hSqlIndexed = field.getAnnotation(HSqlIndexed.class);
+		if(hSqlIndexed != null)
+		{
+			indexTypes.addAll(Arrays.asList(hSqlIndexed.value()));
+		}
+		if(field.isAnnotationPresent(Indexed.class) && DataTypeUtil.isImmutableType(field.getType()))
+		{
+			indexTypes.add(HSqlIndexType.NAVIGABLE);
+		}
+		return indexTypes;
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T> Index<HSqlRow<T>> createIndex(
+		final HSqlIndexType indexType,
+		final HSqlRowAttribute<T, ?> attribute)
+	{
+		if(!DataTypeUtil.isImmutableType(attribute.getAttributeType()))
+		{
+			throw new DataTypeNotSupportedException(String.format(
+				"Field %s can not be indexed because type %s is mutable.",
+				attribute.getAttributeName(),
+				attribute.getAttributeType().getSimpleName()));
+		}
+		final Class<?> attributeType = ClassUtils.resolvePrimitiveIfNecessary(attribute.getAttributeType());
+		if(indexType == HSqlIndexType.NAVIGABLE && !Comparable.class.isAssignableFrom(attributeType))
+		{
+			throw new NotComparableException(String.format(
+				"Field %s can not be indexed because type %s is not comparable.",
+				attribute.getAttributeName(),
+				attributeType.getSimpleName()));
+		}
+		if(indexType != HSqlIndexType.HASH
+			&& indexType != HSqlIndexType.NAVIGABLE
+			&& !CharSequence.class.isAssignableFrom(attributeType))
+		{
+			throw new DataTypeNotSupportedException(String.format(
+				"Field %s can not be indexed with %s because type %s is not a CharSequence.",
+				attribute.getAttributeName(),
+				indexType,
+				attributeType.getSimpleName()));
+		}
+		final Attribute rawAttribute = attribute;
+		return switch(indexType)
+		{
+			case HASH -> HashIndex.onAttribute(rawAttribute);
+			case NAVIGABLE -> NavigableIndex.onAttribute(rawAttribute);
+			case RADIX_TREE -> RadixTreeIndex.onAttribute(rawAttribute);
+			case REVERSED_RADIX_TREE -> ReversedRadixTreeIndex.onAttribute(rawAttribute);
+			case SUFFIX_TREE -> SuffixTreeIndex.onAttribute(rawAttribute);
+		};
+	}
+	
+	/**
+	 * Adds a new entity or updates the row of an already contained entity, if its values have changed.
+	 */
+	public void put(final T entity)
+	{
+		final HSqlRow<T> newRow = this.createRow(entity);
+		final HSqlRow<T> oldRow = this.rowsByEntity.get(entity);
+		if(oldRow == null)
+		{
+			this.rows.add(newRow);
+			this.rowsByEntity.put(entity, newRow);
+		}
+		else if(!oldRow.hasSameValues(newRow))
+		{
+			this.rows.update(List.of(oldRow), List.of(newRow));
+			this.rowsByEntity.put(entity, newRow);
+		}
+	}
+	
+	private HSqlRow<T> createRow(final T entity)
+	{
+		if(this.indexedFields.isEmpty())
+		{
+			return new HSqlRow<>(entity, null);
+		}
+		final Object[] indexedValues = new Object[this.indexedFields.size()];
+		for(int position = 0; position < indexedValues.length; position++)
+		{
+			indexedValues[position] = this.indexedFields.get(position).readValue(entity);
+		}
+		return new HSqlRow<>(entity, indexedValues);
+	}
+	
+	public void remove(final T entity)
+	{
+		final HSqlRow<T> row = this.rowsByEntity.remove(entity);
+		if(row != null)
+		{
+			this.rows.remove(row);
+		}
+	}
+	
+	public void clear()
+	{
+		this.rows.clear();
+		this.rowsByEntity.clear();
+	}
+	
+	/**
+	 * @param parsedQuery must be parsed with attributes created by {@link #createAttributes(Class)} for the same
+	 *                    domain class.
+	 * @return all entities that match the query in the order of the query.
+	 */
+	public List<T> retrieve(final ParseResult<HSqlRow<T>> parsedQuery)
+	{
+		try(final ResultSet<HSqlRow<T>> resultSet =
+			this.rows.retrieve(parsedQuery.getQuery(), parsedQuery.getQueryOptions()))
+		{
+			final List<T> entities = new ArrayList<>();
+			resultSet.forEach(row -> entities.add(row.getEntity()));
+			return entities;
+		}
+	}
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.springframework.util.ClassUtils;
+
+import com.googlecode.cqengine.attribute.Attribute;
+import com.googlecode.cqengine.query.Query;
+import com.googlecode.cqengine.query.QueryFactory;
+import com.googlecode.cqengine.query.logical.And;
+import com.googlecode.cqengine.query.logical.Not;
+import com.googlecode.cqengine.query.logical.Or;
+import com.googlecode.cqengine.query.parser.common.ParseResult;
+import com.googlecode.cqengine.query.parser.sql.SQLParser;
+import com.googlecode.cqengine.query.simple.Between;
+import com.googlecode.cqengine.query.simple.Equal;
+import com.googlecode.cqengine.query.simple.GreaterThan;
+import com.googlecode.cqengine.query.simple.In;
+import com.googlecode.cqengine.query.simple.LessThan;
+import com.googlecode.cqengine.query.simple.StringContains;
+import com.googlecode.cqengine.query.simple.StringEndsWith;
+import com.googlecode.cqengine.query.simple.StringIsPrefixOf;
+import com.googlecode.cqengine.query.simple.StringStartsWith;
+
+
+/**
+ * A HSQL query that is parsed once and bound to the parameters of every call without changing the SQL string.
+ * <p>
+ * Every positional placeholder ({@code ?1}, {@code ?2}, ...) is replaced by a marker before the query is parsed. The
+ * parser keeps the markers as parameter slots in the values of the parsed query. On {@link #bind(Object[])} the
+ * slots are replaced by the parameters:
+ * </p>
+ * <ul>
+ *     <li>A value that consists only of a placeholder (e.g. {@code age > ?2} or {@code name = '?1'}) is bound to the
+ *     parameter itself. Parameters that are not of the type of the field are parsed from their string value.</li>
+ *     <li>A collection that is bound to a single value (e.g. {@code name IN ?1}) matches any of its elements.</li>
+ *     <li>Placeholders within a string (e.g. {@code name LIKE '%?1%'}) are replaced by the string value of the
+ *     parameter.</li>
+ * </ul>
+ *
+ * @param <T> type of the entities
+ */
+public final class HSqlPreparedQuery<T>
+{
+	/**
+	 * Encloses the index of a placeholder. A character of the private use area is not contained in regular queries.
+	 */
+	static final char MARKER = '\uE000';
+	private static final Pattern IN_KEYWORD = Pattern.compile("(?i).*\\bIN\\s*$", Pattern.DOTALL);
+	
+	private final ParameterParser<T> parser;
+	private final String sqlWithMarkers;
+	private final boolean hasParameters;
+	private volatile ParseResult<HSqlRow<T>> parsedQuery;
+	
+	private HSqlPreparedQuery(final Class<T> domainClass, final String sqlWithMarkers)
+	{
+		this.parser = new ParameterParser<>(domainClass);
+		this.sqlWithMarkers = sqlWithMarkers;
+		this.hasParameters = sqlWithMarkers.indexOf(MARKER) >= 0;
+	}
+	
+	/**
+	 * Creates a query that is already parsed. The values of the query may contain placeholders as strings with
+	 * {@link #MARKER}s or as {@link ParameterSlot}s.
+	 */
+	HSqlPreparedQuery(final Class<T> domainClass, final ParseResult<HSqlRow<T>> parsedQuery)
+	{
+		this(domainClass, String.valueOf(MARKER));
+		this.parsedQuery = parsedQuery;
+	}
+	
+	/**
+	 * The query is parsed with the first {@link #bind(Object[])}, so that invalid queries fail when they are called
+	 * and not when the repository is created.
+	 */
+	public static <T> HSqlPreparedQuery<T> prepare(final Class<T> domainClass, final String sqlValue)
+	{
+		return new HSqlPreparedQuery<>(domainClass, replacePlaceholders(sqlValue));
+	}
+	
+	/**
+	 * Replaces the placeholders outside of strings by string literals with markers, so that the parser accepts them
+	 * for fields of any type. {@code IN ?1} becomes a list with a single marker.
+	 */
+	static String replacePlaceholders(final String sqlValue)
+	{
+		final StringBuilder sqlWithMarkers = new StringBuilder(sqlValue.length() + 16);
+		boolean withinString = false;
+		int position = 0;
+		while(position < sqlValue.length())
+		{
+			final char character = sqlValue.charAt(position);
+			int end = position + 1;
+			while(character == '?' && end < sqlValue.length() && Character.isDigit(sqlValue.charAt(end)))
+			{
+				end++;
+			}
+			if(end == position + 1)
+			{
+				withinString ^= character == '\'';
+				sqlWithMarkers.append(character);
+			}
+			else
+			{
+				final String marker = MARKER + sqlValue.substring(position + 1, end) + MARKER;
+				if(withinString)
+				{
+					sqlWithMarkers.append(marker);
+				}
+				else if(IN_KEYWORD.matcher(sqlWithMarkers).matches())
+				{
+					sqlWithMarkers.append("('").append(marker).append("')");
+				}
+				else
+				{
+					sqlWithMarkers.append('\'').append(marker).append('\'');
+				}
+			}
+			position = end;
+		}
+		return sqlWithMarkers.toString();
+	}
+	
+	/**
+	 * @param parameters of the call in the order of their placeholders
+	 * @return the parsed query with the parameters as values.
+	 */
+	public ParseResult<HSqlRow<T>> bind(final Object[] parameters)
+	{
+		final ParseResult<HSqlRow<T>> parsed = this.getParsedQuery();
+		if(!this.hasParameters)
+		{
+			return parsed;
+		}
+		return new ParseResult<>(this.bindQuery(parsed.getQuery(), parameters), parsed.getQueryOptions());
+	}
+	
+	private ParseResult<HSqlRow<T>> getParsedQuery()
+	{
+		ParseResult<HSqlRow<T>> parsed = this.parsedQuery;
+		if(parsed == null)
+		{
+			synchronized(this)
+			{
+				parsed = this.parsedQuery;
+				if(parsed == null)
+				{
+					parsed = this.parser.parse(this.sqlWithMarkers);
+					this.parsedQuery = parsed;
+				}
+			}
+		}
+		return parsed;
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Query<HSqlRow<T>> bindQuery(final Query<HSqlRow<T>> query, final Object[] parameters)
+	{
+		if(query instanceof final And<HSqlRow<T>> and)
+		{
+			return new And<>(this.bindQueries(and.getChildQueries(), parameters));
+		}
+		if(query instanceof final Or<HSqlRow<T>> or)
+		{
+			return new Or<>(this.bindQueries(or.getChildQueries(), parameters));
+		}
+		if(query instanceof final Not<HSqlRow<T>> not)
+		{
+			return new Not<>(this.bindQuery(not.getNegatedQuery(), parameters));
+		}
+		if(query instanceof final Equal equal)
+		{
+			final Attribute attribute = equal.getAttribute();
+			final Object value = this.resolve(attribute, equal.getValue(), parameters);
+			return value instanceof final Collection<?> values
+				? QueryFactory.in(attribute, this.resolveAll(attribute, values, parameters))
+				: new Equal(attribute, value);
+		}
+		if(query instanceof final In in)
+		{
+			return QueryFactory.in(in.getAttribute(), this.resolveAll(in.getAttribute(), in.getValues(), parameters));
+		}
+		if(query instanceof final LessThan lessThan)
+		{
+			return new LessThan(
+				lessThan.getAttribute(),
+				(Comparable)this.resolve(lessThan.getAttribute(), lessThan.getValue(), parameters),
+				lessThan.isValueInclusive());
+		}
+		if(query instanceof final GreaterThan greaterThan)
+		{
+			return new GreaterThan(
+				greaterThan.getAttribute(),
+				(Comparable)this.resolve(greaterThan.getAttribute(), greaterThan.getValue(), parameters),
+				greaterThan.isValueInclusive());
+		}
+		if(query instanceof final Between between)
+		{
+			return new Between(
+				between.getAttribute(),
+				(Comparable)this.resolve(between.getAttribute(), between.getLowerValue(), parameters),
+				between.isLowerInclusive(),
+				(Comparable)this.resolve(between.getAttribute(), between.getUpperValue(), parameters),
+				between.isUpperInclusive());
+		}
+		if(query instanceof final StringStartsWith startsWith)
+		{
+			return new StringStartsWith(
+				startsWith.getAttribute(),
+				this.resolveString(startsWith.getValue(), parameters));
+		}
+		if(query instanceof final StringEndsWith endsWith)
+		{
+			return new StringEndsWith(endsWith.getAttribute(), this.resolveString(endsWith.getValue(), parameters));
+		}
+		if(query instanceof final StringContains contains)
+		{
+			return new StringContains(contains.getAttribute(), this.resolveString(contains.getValue(), parameters));
+		}
+		if(query instanceof final StringIsPrefixOf isPrefixOf)
+		{
+			return new StringIsPrefixOf(
+				isPrefixOf.getAttribute(),
+				this.resolveString(isPrefixOf.getValue(), parameters));
+		}
+		// Queries without values (e.g. IS NULL)
+		return query;
+	}
+	
+	private List<Query<HSqlRow<T>>> bindQueries(
+		final Collection<Query<HSqlRow<T>>> queries,
+		final Object[] parameters)
+	{
+		final List<Query<HSqlRow<T>>> boundQueries = new ArrayList<>(queries.size());
+		queries.forEach(query -> boundQueries.add(this.bindQuery(query, parameters)));
+		return boundQueries;
+	}
+	
+	private Set<Object> resolveAll(
+		final Attribute<HSqlRow<T>, ?> attribute,
+		final Collection<?> values,
+		final Object[] parameters)
+	{
+		final Set<Object> resolvedValues = new LinkedHashSet<>();
+		for(final Object value : values)
+		{
+			final Object resolvedValue = this.resolve(attribute, value, parameters);
+			if(resolvedValue instanceof final Collection<?> elements)
+			{
+				elements.forEach(element -> resolvedValues.add(this.convert(attribute, element)));
+			}
+			else
+			{
+				resolvedValues.add(resolvedValue);
+			}
+		}
+		return resolvedValues;
+	}
+	
+	/**
+	 * @return the value itself, if it contains no placeholder. A collection is returned unconverted, so that the
+	 * caller can match any of its elements.
+	 */
+	private Object resolve(final Attribute<HSqlRow<T>, ?> attribute, final Object value, final Object[] parameters)
+	{
+		final String template;
+		final int singleIndex;
+		if(value instanceof final ParameterSlot slot)
+		{
+			template = slot.text();
+			singleIndex = singleParameterIndex(slot.unquoted());
+		}
+		else if(value instanceof final String string && string.indexOf(MARKER) >= 0)
+		{
+			template = string;
+			singleIndex = singleParameterIndex(string);
+		}
+		else
+		{
+			return value;
+		}
+		if(singleIndex >= 0)
+		{
+			final Object parameter = parameter(parameters, singleIndex);
+			return parameter instanceof Collection<?> ? parameter : this.convert(attribute, parameter);
+		}
+		final String text = replaceMarkers(template, parameters);
+		return value instanceof String ? text : this.parser.parseValue(valueType(attribute), text);
+	}
+	
+	private Object convert(final Attribute<HSqlRow<T>, ?> attribute, final Object parameter)
+	{
+		final Class<?> valueType = valueType(attribute);
+		if(valueType.isInstance(parameter))
+		{
+			return parameter;
+		}
+		if(valueType == String.class)
+		{
+			return parameter.toString();
+		}
+		return this.parser.parseValue(valueType, parameter.toString());
+	}
+	
+	/**
+	 * @return the type of the attribute with primitive types boxed, since the parser has no value parsers for them.
+	 */
+	private static Class<?> valueType(final Attribute<?, ?> attribute)
+	{
+		return ClassUtils.resolvePrimitiveIfNecessary(attribute.getAttributeType());
+	}
+	
+	private String resolveString(final CharSequence value, final Object[] parameters)
+	{
+		return replaceMarkers(value.toString(), parameters);
+	}
+	
+	/**
+	 * @return the index of the placeholder, if the template consists of a single placeholder; otherwise {@code -1}.
+	 */
+	private static int singleParameterIndex(final String template)
+	{
+		if(template.length() < 3
+			|| template.charAt(0) != MARKER
+			|| template.indexOf(MARKER, 1) != template.length() - 1)
+		{
+			return -1;
+		}
+		return Integer.parseInt(template.substring(1, template.length() - 1)) - 1;
+	}
+	
+	private static String replaceMarkers(final String template, final Object[] parameters)
+	{
+		final StringBuilder text = new StringBuilder(template.length() + 16);
+		int position = 0;
+		int start = template.indexOf(MARKER);
+		while(start >= 0)
+		{
+			final int end = template.indexOf(MARKER, start + 1);
+			text.append(template, position, start);
+			text.append(parameter(parameters, Integer.parseInt(template.substring(start + 1, end)) - 1));
+			position = end + 1;
+			start = template.indexOf(MARKER, position);
+		}
+		return text.append(template, position, template.length()).toString();
+	}
+	
+	private static Object parameter(final Object[] parameters, final int index)
+	{
+		if(index < 0 || index >= parameters.length)
+		{
+			throw new IllegalArgumentException(String.format(
+				"Placeholder ?%d has no parameter; the query method has %d parameters.",
+				index + 1,
+				parameters.length));
+		}
+		if(parameters[index] == null)
+		{
+			throw new IllegalArgumentException(String.format(
+				"Parameter ?%d is null. Use IS NULL to query for null values.",
+				index + 1));
+		}
+		return parameters[index];
+	}
+	
+	/**
+	 * Value of a field that is not a string and contains placeholders. It is comparable, so that the parser accepts
+	 * it within range queries.
+	 *
+	 * @param text of the value as written in the query, including the quotes
+	 */
+	record ParameterSlot(String text) implements Comparable<ParameterSlot>
+	{
+		private String unquoted()
+		{
+			return this.text.length() > 1 && this.text.startsWith("'") && this.text.endsWith("'")
+				? this.text.substring(1, this.text.length() - 1)
+				: this.text;
+		}
+		
+		@Override
+		public int compareTo(final ParameterSlot other)
+		{
+			return this.text.compareTo(other.text);
+		}
+	}
+	
+	/**
+	 * Keeps placeholders as {@link ParameterSlot}s instead of parsing them as values of the fields.
+	 */
+	private static final class ParameterParser<T> extends SQLParser<HSqlRow<T>>
+	{
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private ParameterParser(final Class<T> domainClass)
+		{
+			super((Class)HSqlRow.class);
+			this.registerAttributes((Map)HSqlIndexedCollection.createAttributes(domainClass));
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public <A> A parseValue(final Attribute<HSqlRow<T>, A> attribute, final ParseTree parameter)
+		{
+			final String text = parameter.getText();
+			if(text.indexOf(MARKER) < 0 || attribute.getAttributeType() == String.class)
+			{
+				return (A)this.parseValue(valueType(attribute), text);
+			}
+			return (A)new ParameterSlot(text);
+		}
+	}
+}
@@ -15,93 +15,147 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.antlr;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
 
-import com.googlecode.cqengine.ConcurrentIndexedCollection;
-import com.googlecode.cqengine.IndexedCollection;
-import com.googlecode.cqengine.attribute.Attribute;
-import com.googlecode.cqengine.attribute.ReflectiveAttribute;
-import com.googlecode.cqengine.query.parser.sql.SQLParser;
-import com.googlecode.cqengine.resultset.ResultSet;
+import com.googlecode.cqengine.query.parser.common.ParseResult;
 
 import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
-import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryMethodStatistics;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 
 
+/**
+ * Executes a single HSQL query. The query is {@link HSqlPreparedQuery prepared} once and only bound to the parameters
+ * of every call.
+ * <p>
+ * Every execution is limited by a {@link QueryBudget} and recorded in the {@link QueryMethodStatistics} of the
+ * method. The rows that CQEngine reads while filtering count as scanned entities.
+ * </p>
+ *
+ * @param <T> type of the entities
+ */
 public class HSqlQueryExecutor<T>
 {
-	protected static final DateTimeFormatter LOCAL_DATE_REPLACE_DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-	
-	private final SQLParser<T> parser;
+	private final HSqlPreparedQuery<T> preparedQuery;
 	private final EntityListProvider entityListProvider;
 	private final Class<T> domainClass;
 	private final WorkingCopier<T> copier;
+	private final QueryBudget budget;
+	private final QueryMethodStatistics statistics;
+	private final boolean useIndexedCollection;
 	
 	public HSqlQueryExecutor(
+		final String sqlValue,
 		final Class<T> domainClass,
 		final EntityListProvider entityListProvider,
 		final WorkingCopier<T> copier)
 	{
+		this(
+			sqlValue,
+			domainClass,
+			entityListProvider,
+			copier,
+			QueryBudget.unlimited(),
+			QueryStatistics.disabled().forMethod(sqlValue),
+			false);
+	}
+	
+	/**
+	 * @param useIndexedCollection if {@code true} the long-lived {@link HSqlIndexedCollection} of the entity type is
+	 *                             used, if possible. Otherwise, the entities are collected for every query.
+	 */
+	public HSqlQueryExecutor(
+		final String sqlValue,
+		final Class<T> domainClass,
+		final EntityListProvider entityListProvider,
+		final WorkingCopier<T> copier,
+		final QueryBudget budget,
+		final QueryMethodStatistics statistics,
+		final boolean useIndexedCollection)
+	{
+		this.useIndexedCollection = useIndexedCollection;
+		this.budget = Objects.requireNonNull(budget);
+		this.statistics = Objects.requireNonNull(statistics);
 		this.domainClass = domainClass;
-		this.parser = SQLParser.forPojoWithAttributes(domainClass, this.createAttributes(domainClass));
+		this.preparedQuery = HSqlPreparedQuery.prepare(domainClass, sqlValue);
 		this.entityListProvider = entityListProvider;
 		this.copier = copier;
 	}
 	
-	public List<T> execute(final String sqlValue, final Object[] parameters)
+	public List<T> execute(final Object[] parameters)
 	{
-		final IndexedCollection<T> entities = new ConcurrentIndexedCollection<>();
-		entities.addAll(this.entityListProvider.getEntityProvider(this.domainClass).toCollection());
-		final String sqlStringWithReplacedValues = this.replacePlaceholders(sqlValue, parameters);
-		final ResultSet<T> retrieve = this.parser.retrieve(entities, sqlStringWithReplacedValues);
-		final List<T> results = retrieve.stream().toList();
-		return this.copier.copy(results);
+		return this.statistics.record(() -> {
+			final ParseResult<HSqlRow<T>> parsedQuery = this.track(this.preparedQuery.bind(parameters));
+			return this.entityListProvider.getReadWriteLock().read(
+				() -> this.copy(this.retrieve(parsedQuery))
+			);
+		});
+	}
+	
+	private ParseResult<HSqlRow<T>> track(final ParseResult<HSqlRow<T>> parsedQuery)
+	{
+		final QueryExecutionStatistics executionStatistics = QueryExecutionStatistics.current();
+		if(!this.budget.isLimited() && executionStatistics == null)
+		{
+			return parsedQuery;
+		}
+		return new ParseResult<>(
+			parsedQuery.getQuery(),
+			HSqlScanTracker.addTo(
+				parsedQuery.getQueryOptions(),
+				this.budget.isLimited() ? this.budget.start() : null,
+				executionStatistics));
+	}
+	
+	private List<T> retrieve(final ParseResult<HSqlRow<T>> parsedQuery)
+	{
+		final EntityProvider<T, Object> entityProvider = this.entityListProvider.getEntityProvider(this.domainClass);
+		final Optional<HSqlIndexedCollection<T>> indexedCollection = this.useIndexedCollection
+			? entityProvider.getHSqlCollection(this.domainClass)
+			: Optional.empty();
+		final HSqlIndexedCollection<T> entities = indexedCollection
+			.map(collection -> {
+				QueryExecutionStatistics.recordPlan("HSQL collection of " + this.domainClass.getSimpleName());
+				return collection;
+			})
+			.orElseGet(() -> this.collectEntities(entityProvider));
+		final List<T> result = entities.retrieve(parsedQuery);
+		final QueryExecutionStatistics executionStatistics = QueryExecutionStatistics.current();
+		if(executionStatistics != null)
+		{
+			executionStatistics.recordMatched(result.size());
+		}
+		return result;
 	}
 	
-	private String replacePlaceholders(final String sqlValue, final Object[] parameters)
+	private List<T> copy(final List<T> entities)
 	{
-		String stringWithReplacedValues = sqlValue;
-		// Replace positional placeholders with actual parameter values
-		for(int i = 0; i < parameters.length; i++)
+		if(!QueryExecutionStatistics.isRecording())
 		{
-			final String placeholder = "\\?" + (i + 1);
-			String value = parameters[i].toString();
-			if(parameters[i] instanceof final Collection<?> collection)
-			{
-				value =
-					collection.stream()
-						.map(o -> "'" + o.toString() + "'")
-						.collect(Collectors.joining(", ", "(", ")"));
-			}
-			if(parameters[i] instanceof final LocalDate localDate)
-			{
-				value = localDate.format(LOCAL_DATE_REPLACE_DTF);
-			}
-			stringWithReplacedValues = stringWithReplacedValues.replaceAll(placeholder, value);
+			return this.copier.copy(entities);
 		}
-		return stringWithReplacedValues;
+		final long copyStart = System.nanoTime();
+		final List<T> copies = this.copier.copy(entities);
+		QueryExecutionStatistics.recordCopy(copies.size(), System.nanoTime() - copyStart);
+		return copies;
 	}
 	
-	private <O> Map<String, ? extends Attribute<O, ?>> createAttributes(final Class<O> domainClass)
+	/**
+	 * Entities of subclasses and lazy entities have no long-lived collection and must be collected for every query.
+	 * This is also the case if the long-lived collection is disabled.
+	 */
+	private HSqlIndexedCollection<T> collectEntities(final EntityProvider<T, Object> entityProvider)
 	{
-		final Map<String, Attribute<O, ?>> attributes = new TreeMap<>();
-		AccessHelper.getInheritedPrivateFieldsByName(domainClass).forEach(
-			(fieldName, field) -> attributes.put(
-				fieldName,
-				new ReflectiveAttribute<>(
-					domainClass,
-					field.getType(),
-					fieldName
-				)
-			)
-		);
-		return attributes;
+		QueryExecutionStatistics.recordPlan("HSQL collection of " + this.domainClass.getSimpleName()
+			+ " collected for this query");
+		final HSqlIndexedCollection<T> entities = new HSqlIndexedCollection<>(this.domainClass, false);
+		entityProvider.stream().forEach(entities::put);
+		return entities;
 	}
 }
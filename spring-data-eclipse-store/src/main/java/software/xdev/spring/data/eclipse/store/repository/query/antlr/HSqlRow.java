@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import java.util.Arrays;
+
+import jakarta.annotation.Nullable;
+
+
+/**
+ * Entry of an entity in a {@link HSqlIndexedCollection}.
+ * <p>
+ * The values of the indexed fields are read when the entity is stored, so that the indexes of the collection can be
+ * updated correctly even if the entity is changed in place. Only immutable values can be indexed, so these snapshots
+ * can not be changed through the entity. All other fields are read from the entity itself. Rows are compared by
+ * identity, since different entities may have the same values.
+ * </p>
+ *
+ * @param <T> type of the entity
+ */
+public final class HSqlRow<T>
+{
+	private final T entity;
+	@Nullable
+	private final Object[] indexedValues;
+	
+	/**
+	 * @param indexedValues snapshot of the values of the indexed fields or {@code null} if the collection has no
+	 *                      indexes.
+	 */
+	HSqlRow(final T entity, @Nullable final Object[] indexedValues)
+	{
+		this.entity = entity;
+		this.indexedValues = indexedValues;
+	}
+	
+	public T getEntity()
+	{
+		return this.entity;
+	}
+	
+	boolean hasIndexedValues()
+	{
+		return this.indexedValues != null;
+	}
+	
+	@Nullable
+	Object getIndexedValue(final int position)
+	{
+		return this.indexedValues[position];
+	}
+	
+	boolean hasSameValues(final HSqlRow<T> other)
+	{
+		return Arrays.equals(this.indexedValues, other.indexedValues);
+	}
+}
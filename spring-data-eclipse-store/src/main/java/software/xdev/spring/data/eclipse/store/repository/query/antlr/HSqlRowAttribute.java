@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import com.googlecode.cqengine.attribute.SimpleNullableAttribute;
+import com.googlecode.cqengine.query.option.QueryOptions;
+
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+
+
+/**
+ * Reads the value of a single field of the entity of a {@link HSqlRow}. Indexed fields are read from the snapshot of
+ * the row instead.
+ *
+ * @param <T> type of the entity
+ * @param <A> type of the field
+ */
+public class HSqlRowAttribute<T, A> extends SimpleNullableAttribute<HSqlRow<T>, A>
+{
+	private final ReflectedField<T, A> field;
+	private final int indexedPosition;
+	
+	/**
+	 * @param indexedPosition position of the value in the snapshot of the {@link HSqlRow} or {@code -1} if the field
+	 *                        is not indexed.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public HSqlRowAttribute(final ReflectedField<T, A> field, final int indexedPosition)
+	{
+		super((Class)HSqlRow.class, (Class<A>)field.getType(), field.getName());
+		this.field = field;
+		this.indexedPosition = indexedPosition;
+	}
+	
+	boolean isIndexed()
+	{
+		return this.indexedPosition >= 0;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public A getValue(final HSqlRow<T> row, final QueryOptions queryOptions)
+	{
+		HSqlScanTracker.rowRead(row, queryOptions);
+		if(this.isIndexed() && row.hasIndexedValues())
+		{
+			return (A)row.getIndexedValue(this.indexedPosition);
+		}
+		return this.field.readValue(row.getEntity());
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import java.util.HashMap;
+
+import jakarta.annotation.Nullable;
+
+import com.googlecode.cqengine.query.option.QueryOptions;
+
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
+
+
+/**
+ * Reports the rows that CQEngine reads while filtering to the {@link QueryBudget.Tracker} and the
+ * {@link QueryExecutionStatistics} of a query. It is passed to the {@link HSqlRowAttribute}s through the
+ * {@link QueryOptions} of a single execution.
+ * <p>
+ * CQEngine reads all attributes of a row before it continues with the next row, so a row is counted once if several
+ * of its attributes are read. Rows that are found through an index are not read and not counted.
+ * </p>
+ */
+final class HSqlScanTracker
+{
+	@Nullable
+	private final QueryBudget.Tracker budgetTracker;
+	@Nullable
+	private final QueryExecutionStatistics statistics;
+	private HSqlRow<?> lastRow;
+	
+	private HSqlScanTracker(
+		@Nullable final QueryBudget.Tracker budgetTracker,
+		@Nullable final QueryExecutionStatistics statistics)
+	{
+		this.budgetTracker = budgetTracker;
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * @return options with the same content as the given options and a new tracker. The given options are not
+	 * changed, since they are shared by all executions of a query.
+	 */
+	static QueryOptions addTo(
+		final QueryOptions queryOptions,
+		@Nullable final QueryBudget.Tracker budgetTracker,
+		@Nullable final QueryExecutionStatistics statistics)
+	{
+		final QueryOptions trackedOptions = new QueryOptions(new HashMap<>(queryOptions.getOptions()));
+		trackedOptions.put(HSqlScanTracker.class, new HSqlScanTracker(budgetTracker, statistics));
+		return trackedOptions;
+	}
+	
+	static void rowRead(final HSqlRow<?> row, final QueryOptions queryOptions)
+	{
+		final HSqlScanTracker scanTracker = queryOptions.get(HSqlScanTracker.class);
+		if(scanTracker != null && scanTracker.lastRow != row)
+		{
+			scanTracker.lastRow = row;
+			if(scanTracker.budgetTracker != null)
+			{
+				scanTracker.budgetTracker.scanned();
+			}
+			if(scanTracker.statistics != null)
+			{
+				scanTracker.statistics.recordScanned();
+			}
+		}
+	}
+}
@@ -17,13 +17,20 @@ package software.xdev.spring.data.eclipse.store.repository.query.by.example;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.repository.query.ReturnedType;
 
 import software.xdev.spring.data.eclipse.store.repository.StorageCommunicator;
 import software.xdev.spring.data.eclipse.store.repository.query.criteria.CriteriaByExample;
@@ -31,74 +38,163 @@ import software.xdev.spring.data.eclipse.store.repository.query.executors.CountQ
 import software.xdev.spring.data.eclipse.store.repository.query.executors.ExistsQueryExecutor;
 import software.xdev.spring.data.eclipse.store.repository.query.executors.ListQueryExecutor;
 import software.xdev.spring.data.eclipse.store.repository.query.executors.PageableQueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.executors.ScrollQueryExecutor;
 import software.xdev.spring.data.eclipse.store.repository.query.executors.SingleQueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.executors.StreamQueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.projection.ProjectingWorkingCopier;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 
 
 /**
  * Needed to support {@link QueryByExampleExecutor}.
+ * <p>
+ * Results of {@link #as(Class)} are projections that are created straight from the stored entities (see
+ * {@link ProjectingWorkingCopier}). {@link #project(Collection)} restricts the properties that are read for such
+ * projections. For results of the entity type, it is only a hint, since entities are always copied completely.
+ * </p>
+ *
+ * @param <T> type of the queried entities
+ * @param <R> type of the results
  */
-public class EclipseStoreFetchableFluentQuery<T, S extends T> implements FluentQuery.FetchableFluentQuery<S>
+public class EclipseStoreFetchableFluentQuery<T, R> implements FluentQuery.FetchableFluentQuery<R>
 {
+	private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+	
 	private final WorkingCopier<T> copier;
-	private final Example<S> example;
+	private final Example<T> example;
 	private final Class<T> domainClass;
 	private final StorageCommunicator storage;
 	private final Sort sort;
+	private final Limit limit;
+	private final Class<R> resultType;
+	private final Collection<String> properties;
+	/**
+	 * Creates the results from the found entities. Either working copies or projections.
+	 */
+	private final WorkingCopier<T> resultCopier;
 	
+	@SuppressWarnings("unchecked")
 	public EclipseStoreFetchableFluentQuery(
 		final WorkingCopier<T> copier,
-		final Example<S> example,
+		final Example<? extends R> example,
 		final Class<T> domainClass,
 		final StorageCommunicator storage,
 		final Sort sort
 	)
+	{
+		this(
+			copier,
+			(Example<T>)example,
+			domainClass,
+			storage,
+			sort,
+			Limit.unlimited(),
+			(Class<R>)example.getProbeType(),
+			List.of());
+	}
+	
+	private EclipseStoreFetchableFluentQuery(
+		final WorkingCopier<T> copier,
+		final Example<T> example,
+		final Class<T> domainClass,
+		final StorageCommunicator storage,
+		final Sort sort,
+		final Limit limit,
+		final Class<R> resultType,
+		final Collection<String> properties
+	)
 	{
 		this.copier = copier;
 		this.example = example;
 		this.domainClass = domainClass;
 		this.storage = storage;
 		this.sort = sort;
+		this.limit = limit;
+		this.resultType = Objects.requireNonNull(resultType);
+		this.properties = List.copyOf(properties);
+		this.resultCopier = domainClass.isAssignableFrom(resultType)
+			? copier
+			: ProjectingWorkingCopier.forReturnedType(
+				copier,
+				ReturnedType.of(resultType, domainClass, PROJECTION_FACTORY),
+				PROJECTION_FACTORY,
+				this.properties);
 	}
 	
 	@Override
-	public FetchableFluentQuery<S> sortBy(final Sort sort)
+	public FetchableFluentQuery<R> sortBy(final Sort sort)
 	{
 		return new EclipseStoreFetchableFluentQuery<>(
 			this.copier,
 			this.example,
 			this.domainClass,
 			this.storage,
-			sort
+			sort,
+			this.limit,
+			this.resultType,
+			this.properties
 		);
 	}
 	
 	@Override
-	public <R> FetchableFluentQuery<R> as(final Class<R> resultType)
+	public FetchableFluentQuery<R> limit(final int limit)
 	{
-		throw new UnsupportedOperationException("The method as() is not yet supported");
+		return new EclipseStoreFetchableFluentQuery<>(
+			this.copier,
+			this.example,
+			this.domainClass,
+			this.storage,
+			this.sort,
+			Limit.of(limit),
+			this.resultType,
+			this.properties
+		);
 	}
 	
 	@Override
-	public FetchableFluentQuery<S> project(final Collection<String> properties)
+	public <P> FetchableFluentQuery<P> as(final Class<P> resultType)
 	{
-		throw new UnsupportedOperationException("The method project() is not yet supported");
+		return new EclipseStoreFetchableFluentQuery<>(
+			this.copier,
+			this.example,
+			this.domainClass,
+			this.storage,
+			this.sort,
+			this.limit,
+			resultType,
+			this.properties
+		);
 	}
 	
 	@Override
-	public S oneValue()
+	public FetchableFluentQuery<R> project(final Collection<String> properties)
+	{
+		return new EclipseStoreFetchableFluentQuery<>(
+			this.copier,
+			this.example,
+			this.domainClass,
+			this.storage,
+			this.sort,
+			this.limit,
+			this.resultType,
+			properties
+		);
+	}
+	
+	@Override
+	public R oneValue()
 	{
 		return this.firstValue();
 	}
 	
 	@Override
-	public S firstValue()
+	public R firstValue()
 	{
 		final SingleQueryExecutor<T> query =
-			new SingleQueryExecutor<>(this.copier, new CriteriaByExample<>((Example<T>)this.example), this.sort);
+			new SingleQueryExecutor<>(this.resultCopier, new CriteriaByExample<>(this.example), this.sort);
 		return this.storage.getReadWriteLock().read(
 			() ->
-				(S)query.execute(
+				(R)query.execute(
 					this.domainClass,
 					this.storage.getEntityProvider(this.domainClass),
 					new Object[]{this.sort})
@@ -106,12 +202,12 @@ public class EclipseStoreFetchableFluentQuery<T, S extends T> implements FluentQ
 	}
 	
 	@Override
-	public List<S> all()
+	public List<R> all()
 	{
 		final ListQueryExecutor<T> query =
-			new ListQueryExecutor<>(this.copier, new CriteriaByExample<>(this.example));
+			new ListQueryExecutor<>(this.resultCopier, new CriteriaByExample<>(this.example), null, this.limit);
 		return this.storage.getReadWriteLock().read(
-			() -> (List<S>)query.execute(
+			() -> (List<R>)query.execute(
 				this.domainClass,
 				this.storage.getEntityProvider(this.domainClass),
 				new Object[]{
@@ -120,23 +216,53 @@ public class EclipseStoreFetchableFluentQuery<T, S extends T> implements FluentQ
 	}
 	
 	@Override
-	public Page<S> page(final Pageable pageable)
+	public Page<R> page(final Pageable pageable)
 	{
 		final PageableQueryExecutor<T> pageableQuery =
-			new PageableQueryExecutor<>(this.copier, new CriteriaByExample<>(this.example), this.sort);
+			new PageableQueryExecutor<>(this.resultCopier, new CriteriaByExample<>(this.example), this.sort);
 		return this.storage.getReadWriteLock().read(
 			() ->
-				(Page<S>)pageableQuery.execute(
+				(Page<R>)pageableQuery.execute(
 					this.domainClass,
 					this.storage.getEntityProvider(this.domainClass),
 					new Object[]{pageable, this.sort})
 		);
 	}
 	
+	/**
+	 * Scrolls through the entities with the sort and limit of this query. The limit is the size of the window.
+	 */
 	@Override
-	public Stream<S> stream()
+	public Window<R> scroll(final ScrollPosition scrollPosition)
 	{
-		return this.all().stream();
+		final ScrollQueryExecutor<T> query = new ScrollQueryExecutor<>(
+			this.resultCopier,
+			new CriteriaByExample<>(this.example),
+			this.sort,
+			this.limit);
+		return this.storage.getReadWriteLock().read(
+			() -> (Window<R>)query.execute(
+				this.domainClass,
+				this.storage.getEntityProvider(this.domainClass),
+				new Object[]{scrollPosition})
+		);
+	}
+	
+	@Override
+	public Stream<R> stream()
+	{
+		final StreamQueryExecutor<T> query = new StreamQueryExecutor<>(
+			this.resultCopier,
+			new CriteriaByExample<>(this.example),
+			null,
+			this.limit,
+			this.storage.getReadWriteLock());
+		return this.storage.getReadWriteLock().read(
+			() -> (Stream<R>)query.execute(
+				this.domainClass,
+				this.storage.getEntityProvider(this.domainClass),
+				new Object[]{this.sort})
+		);
 	}
 	
 	@Override
@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.cache;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Window;
+
+import software.xdev.spring.data.eclipse.store.repository.CacheableQuery;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Caches the results of a single query method that is annotated with {@link CacheableQuery}. A result is cached per
+ * combination of parameters and holds the <b>original</b> entities, which must be copied with
+ * {@link #copyResult(Object, WorkingCopier)} before they are handed out.
+ * <p>
+ * Every result is stored with the modification stamp of the queried entity types (see
+ * {@link software.xdev.spring.data.eclipse.store.core.EntityProvider#getLastModification()}). If the stamp has
+ * changed since, the result is outdated and the query is executed again. If more than {@link #getMaxSize()} results
+ * are cached, the least recently used result is evicted.
+ * </p>
+ */
+public class QueryResultCache
+{
+	private final String name;
+	private final int maxSize;
+	private final Map<CacheKey, CachedResult> resultsByKey;
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	
+	public QueryResultCache(final String name, final int maxSize)
+	{
+		if(maxSize < 1)
+		{
+			throw new IllegalArgumentException(String.format(
+				"Max size of query result cache %s must be positive but is %d.",
+				name,
+				maxSize));
+		}
+		this.name = Objects.requireNonNull(name);
+		this.maxSize = maxSize;
+		this.resultsByKey = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<CacheKey, CachedResult> eldest)
+			{
+				final boolean isFull = this.size() > QueryResultCache.this.maxSize;
+				if(isFull)
+				{
+					QueryResultCache.this.evictionCount.increment();
+				}
+				return isFull;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cached result of the given parameters, if it is still up to date. Otherwise, the query is executed
+	 * and its result is cached.
+	 * <p>
+	 * Must be called within the read lock of the storage, so that the stamp matches the queried entities.
+	 * </p>
+	 *
+	 * @param parameters        of the execution
+	 * @param modificationStamp current modification stamp of all entity types that are read by the query
+	 * @param query             executes the query and returns the original entities
+	 * @return the original entities, which must be copied before they are handed out
+	 */
+	@Nullable
+	public Object get(final Object[] parameters, final long modificationStamp, final Supplier<Object> query)
+	{
+		final CacheKey key = CacheKey.of(parameters);
+		synchronized(this.resultsByKey)
+		{
+			final CachedResult cachedResult = this.resultsByKey.get(key);
+			if(cachedResult != null && cachedResult.modificationStamp() == modificationStamp)
+			{
+				this.hitCount.increment();
+				return cachedResult.result();
+			}
+		}
+		this.missCount.increment();
+		final Object result = query.get();
+		synchronized(this.resultsByKey)
+		{
+			this.resultsByKey.put(key, new CachedResult(modificationStamp, result));
+		}
+		return result;
+	}
+	
+	/**
+	 * Copies the original entities of a result in the same way as the
+	 * {@link software.xdev.spring.data.eclipse.store.repository.query.executors.QueryExecutor}s do.
+	 *
+	 * @param originalResult single entity, {@link Optional}, {@link Collection}, {@link Page} or {@link Window} of
+	 *                       original entities
+	 * @param copier         that creates the working copies (or projections)
+	 * @return the result with copies instead of the original entities
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public static <T> Object copyResult(@Nullable final Object originalResult, final WorkingCopier<T> copier)
+	{
+		if(originalResult == null)
+		{
+			return null;
+		}
+		if(originalResult instanceof final Optional<?> optional)
+		{
+			return optional.map(entity -> copier.copy((T)entity));
+		}
+		if(originalResult instanceof final Page<?> page)
+		{
+			return page.map(entity -> copier.copy((T)entity));
+		}
+		if(originalResult instanceof final Window<?> window)
+		{
+			return window.map(entity -> copier.copy((T)entity));
+		}
+		if(originalResult instanceof final Collection<?> collection)
+		{
+			return collection.stream().map(entity -> copier.copy((T)entity)).toList();
+		}
+		return copier.copy((T)originalResult);
+	}
+	
+	public void clear()
+	{
+		synchronized(this.resultsByKey)
+		{
+			this.resultsByKey.clear();
+		}
+	}
+	
+	/**
+	 * @return the name of the cached query method
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+	
+	public int getMaxSize()
+	{
+		return this.maxSize;
+	}
+	
+	public int getSize()
+	{
+		synchronized(this.resultsByKey)
+		{
+			return this.resultsByKey.size();
+		}
+	}
+	
+	/**
+	 * @return how often an up-to-date result was found in the cache
+	 */
+	public long getHitCount()
+	{
+		return this.hitCount.sum();
+	}
+	
+	/**
+	 * @return how often the query had to be executed, because no up-to-date result was cached
+	 */
+	public long getMissCount()
+	{
+		return this.missCount.sum();
+	}
+	
+	/**
+	 * @return how many results were removed because the cache was full
+	 */
+	public long getEvictionCount()
+	{
+		return this.evictionCount.sum();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format(
+			"QueryResultCache{name=%s, size=%d/%d, hits=%d, misses=%d, evictions=%d}",
+			this.name,
+			this.getSize(),
+			this.maxSize,
+			this.getHitCount(),
+			this.getMissCount(),
+			this.getEvictionCount());
+	}
+	
+	private record CachedResult(long modificationStamp, @Nullable Object result)
+	{
+	}
+	
+	/**
+	 * Compares the parameters by their content, so that e.g. arrays with the same elements are the same key.
+	 * <p>
+	 * Collections and arrays are copied deeply when the key is created, so that the key does not change if the
+	 * caller modifies a parameter after the execution.
+	 * </p>
+	 */
+	private record CacheKey(Object[] parameters)
+	{
+		static CacheKey of(final Object[] parameters)
+		{
+			return new CacheKey((Object[])copyValue(parameters));
+		}
+		
+		@Nullable
+		private static Object copyValue(@Nullable final Object value)
+		{
+			if(value instanceof final Set<?> set)
+			{
+				final Set<Object> copy = new LinkedHashSet<>();
+				set.forEach(element -> copy.add(copyValue(element)));
+				return Collections.unmodifiableSet(copy);
+			}
+			if(value instanceof final Collection<?> collection)
+			{
+				final List<Object> copy = new ArrayList<>(collection.size());
+				collection.forEach(element -> copy.add(copyValue(element)));
+				return Collections.unmodifiableList(copy);
+			}
+			if(value instanceof final Object[] array)
+			{
+				final Object[] copy = new Object[array.length];
+				for(int i = 0; i < array.length; i++)
+				{
+					copy[i] = copyValue(array[i]);
+				}
+				return copy;
+			}
+			if(value != null && value.getClass().isArray())
+			{
+				// Primitive arrays only contain immutable values
+				final int length = Array.getLength(value);
+				final Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+				System.arraycopy(value, 0, copy, 0, length);
+				return copy;
+			}
+			return value;
+		}
+		
+		@Override
+		public boolean equals(final Object o)
+		{
+			return o instanceof final CacheKey other && Arrays.deepEquals(this.parameters, other.parameters);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Arrays.deepHashCode(this.parameters);
+		}
+		
+		@Override
+		public String toString()
+		{
+			return Arrays.deepToString(this.parameters);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.cache;
+
+import java.util.Collection;
+
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopierResult;
+
+
+/**
+ * Hands out the stored entities themselves instead of working copies. With this copier the
+ * {@link software.xdev.spring.data.eclipse.store.repository.query.executors.QueryExecutor}s return the original
+ * references, which are kept in the {@link QueryResultCache} and copied whenever they are handed out.
+ * <p>
+ * The references must never leave the library, since changes on them would bypass the storage.
+ * </p>
+ *
+ * @param <T> type of the entities
+ */
+public class ReferenceWorkingCopier<T> implements WorkingCopier<T>
+{
+	@Override
+	public T copy(final T objectToCopy)
+	{
+		return objectToCopy;
+	}
+	
+	@Override
+	public <L extends Collection<T>> L copy(final L objectCollectionToCopy)
+	{
+		return objectCollectionToCopy;
+	}
+	
+	@Override
+	public WorkingCopierResult<T> mergeBack(final T workingCopy)
+	{
+		throw new UnsupportedOperationException("Original entities can not be merged back");
+	}
+	
+	@Override
+	public <E> E onlyCreateCopy(final E objectToCopy, final boolean invertRegistry)
+	{
+		throw new UnsupportedOperationException("Original entities are not copied");
+	}
+	
+	@Override
+	public T getOriginal(final T workingCopy)
+	{
+		return workingCopy;
+	}
+	
+	@Override
+	public void deregister(final T workingCopy)
+	{
+		// Original entities are never registered.
+	}
+}
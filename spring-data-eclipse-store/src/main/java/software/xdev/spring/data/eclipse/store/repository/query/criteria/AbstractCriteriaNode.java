@@ -15,15 +15,18 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.criteria;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import org.springframework.data.util.Streamable;
 import org.springframework.lang.Nullable;
 
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
 import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
-import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
 
 
 /**
@@ -35,6 +38,7 @@ public abstract class AbstractCriteriaNode<T> implements Criteria<T>
 {
 	private final ReflectedField<T, ?> field;
 	final LinkedHashSet<Predicate<T>> predicates = new LinkedHashSet<>();
+	final List<IndexRange> indexRanges = new ArrayList<>();
 	
 	protected AbstractCriteriaNode(@Nullable final ReflectedField<T, ?> field)
 	{
@@ -48,60 +52,86 @@ public abstract class AbstractCriteriaNode<T> implements Criteria<T>
 			Objects.requireNonNull(field));
 	}
 	
+	/**
+	 * Combines this criteria with another complete criteria. The index ranges of both criteria are kept, so that the
+	 * most selective of them can be answered by an index.
+	 */
+	public AbstractCriteriaNode<T> andOperator(final AbstractCriteriaNode<T> criteria)
+	{
+		Objects.requireNonNull(criteria);
+		final CriteriaAndNode<T> andNode = new CriteriaAndNode<>(this, null);
+		andNode.predicates.add(criteria::evaluate);
+		andNode.indexRanges.addAll(criteria.getIndexRanges());
+		return andNode;
+	}
+	
 	public AbstractCriteriaNode<T> orOperator(final AbstractCriteriaNode<T> criteria)
 	{
 		Objects.requireNonNull(criteria);
 		return new CriteriaOrNode<>(this, criteria);
 	}
 	
+	/**
+	 * Checks the value of the field with the given predicate. For fields with multiple values (like paths through
+	 * collections), any of the values must match.
+	 */
+	private Predicate<T> anyValueMatches(final Predicate<Object> valuePredicate)
+	{
+		final ReflectedField<T, ?> requiredField = Objects.requireNonNull(this.field);
+		return entity -> requiredField.anyValueMatches(entity, valuePredicate);
+	}
+	
+	@Override
+	public List<IndexRange> getIndexRanges()
+	{
+		return this.indexRanges;
+	}
+	
 	public AbstractCriteriaNode<T> is(@Nullable final Object value)
 	{
-		this.predicates.add(entity -> {
-			final Object fieldValue = Objects.requireNonNull(this.field).readValue(entity);
-			return Objects.equals(fieldValue, value);
-		});
+		if(value != null)
+		{
+			this.indexRanges.add(IndexRange.equalTo(Objects.requireNonNull(this.field).getName(), value));
+		}
+		this.predicates.add(this.anyValueMatches(fieldValue -> Objects.equals(fieldValue, value)));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> ne(@Nullable final Object value)
 	{
-		this.predicates.add(entity -> {
-			final Object fieldValue = Objects.requireNonNull(this.field).readValue(entity);
-			return !Objects.equals(fieldValue, value);
-		});
+		this.predicates.add(this.anyValueMatches(fieldValue -> !Objects.equals(fieldValue, value)));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> lt(final Object value)
 	{
 		Objects.requireNonNull(value);
-		this.predicates.add(entity ->
-			GenericObjectComparer.isLessThan(Objects.requireNonNull(this.field).readValue(entity), value)
-		);
+		this.indexRanges.add(IndexRange.lessThan(Objects.requireNonNull(this.field).getName(), value, false));
+		this.predicates.add(PredicateCompiler.compare(this.field, value, comparison -> comparison < 0));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> lte(final Object value)
 	{
 		Objects.requireNonNull(value);
-		this.predicates.add(entity -> GenericObjectComparer.isLessOrEqualTo(Objects.requireNonNull(this.field)
-			.readValue(entity), value));
+		this.indexRanges.add(IndexRange.lessThan(Objects.requireNonNull(this.field).getName(), value, true));
+		this.predicates.add(PredicateCompiler.compare(this.field, value, comparison -> comparison <= 0));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> gt(final Object value)
 	{
 		Objects.requireNonNull(value);
-		this.predicates.add(entity -> GenericObjectComparer.isGreaterThan(Objects.requireNonNull(this.field)
-			.readValue(entity), value));
+		this.indexRanges.add(IndexRange.greaterThan(Objects.requireNonNull(this.field).getName(), value, false));
+		this.predicates.add(PredicateCompiler.compare(this.field, value, comparison -> comparison > 0));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> gte(final Object value)
 	{
 		Objects.requireNonNull(value);
-		this.predicates.add(entity -> GenericObjectComparer.isGreaterOrEqualTo(Objects.requireNonNull(this.field)
-			.readValue(entity), value));
+		this.indexRanges.add(IndexRange.greaterThan(Objects.requireNonNull(this.field).getName(), value, true));
+		this.predicates.add(PredicateCompiler.compare(this.field, value, comparison -> comparison >= 0));
 		return this;
 	}
 	
@@ -109,66 +139,51 @@ public abstract class AbstractCriteriaNode<T> implements Criteria<T>
 	{
 		Objects.requireNonNull(minValue);
 		Objects.requireNonNull(maxValue);
-		this.predicates.add(entity -> {
-			final Object value = Objects.requireNonNull(this.field).readValue(entity);
-			return GenericObjectComparer.isLessOrEqualTo(value, maxValue)
-				&& GenericObjectComparer.isGreaterOrEqualTo(value, minValue);
-		});
+		this.indexRanges.add(IndexRange.between(Objects.requireNonNull(this.field).getName(), minValue, maxValue));
+		this.predicates.add(
+			PredicateCompiler.compare(this.field, maxValue, comparison -> comparison <= 0)
+				.and(PredicateCompiler.compare(this.field, minValue, comparison -> comparison >= 0)));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> in(final Streamable<?> values)
 	{
-		this.predicates.add(entity -> {
-			if(values == null)
-			{
-				return false;
-			}
-			return values.toSet().contains(Objects.requireNonNull(this.field).readValue(entity));
-		});
+		if(values == null)
+		{
+			this.predicates.add(entity -> false);
+			return this;
+		}
+		// The set is only created once and not for every entity.
+		final Set<?> valueSet = values.toSet();
+		this.predicates.add(this.anyValueMatches(valueSet::contains));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> nin(final Streamable<?> values)
 	{
-		this.predicates.add(entity -> {
-			if(values == null)
-			{
-				return true;
-			}
-			return !values.toSet().contains(Objects.requireNonNull(this.field).readValue(entity));
-		});
+		if(values == null)
+		{
+			this.predicates.add(entity -> true);
+			return this;
+		}
+		final Set<?> valueSet = values.toSet();
+		this.predicates.add(this.anyValueMatches(fieldValue -> !valueSet.contains(fieldValue)));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> exists(final boolean value)
 	{
-		this.predicates.add(entity -> value == (Objects.requireNonNull(this.field).readValue(entity) != null));
+		this.predicates.add(this.anyValueMatches(fieldValue -> value == (fieldValue != null)));
 		return this;
 	}
 	
 	public AbstractCriteriaNode<T> like(final String like, final boolean doIgnoreCase)
 	{
-		final String completeRegex = sqlLikeStringToRegex(like, doIgnoreCase);
-		this.predicates.add(entity -> {
-			final String fieldValue = (String)Objects.requireNonNull(this.field).readValue(entity);
-			if(fieldValue == null)
-			{
-				return false;
-			}
-			return (doIgnoreCase ? fieldValue.toUpperCase() : fieldValue).matches(completeRegex);
-		});
+		final Predicate<String> matcher = PredicateCompiler.like(like, doIgnoreCase);
+		this.predicates.add(this.anyValueMatches(fieldValue -> fieldValue != null && matcher.test((String)fieldValue)));
 		return this;
 	}
 	
-	private static String sqlLikeStringToRegex(final String like, final boolean doIgnoreCase)
-	{
-		String regex = doIgnoreCase ? like.toUpperCase() : like;
-		regex = regex.replace(".", "\\.");
-		regex = regex.replace("_", ".");
-		return regex.replace("%", ".*");
-	}
-	
 	public AbstractCriteriaNode<T> startWith(final String startString, final boolean doIgnoreCase)
 	{
 		return this.like(startString + "%", doIgnoreCase);
@@ -186,15 +201,9 @@ public abstract class AbstractCriteriaNode<T> implements Criteria<T>
 	
 	public AbstractCriteriaNode<T> notLike(final String notLikeString, final boolean doIgnoreCase)
 	{
-		final String completeRegex = sqlLikeStringToRegex(notLikeString, doIgnoreCase);
-		this.predicates.add(entity -> {
-			final String fieldValue = (String)Objects.requireNonNull(this.field).readValue(entity);
-			if(fieldValue == null)
-			{
-				return false;
-			}
-			return !(doIgnoreCase ? fieldValue.toUpperCase() : fieldValue).matches(completeRegex);
-		});
+		final Predicate<String> matcher = PredicateCompiler.like(notLikeString, doIgnoreCase);
+		this.predicates.add(this.anyValueMatches(
+			fieldValue -> fieldValue != null && !matcher.test((String)fieldValue)));
 		return this;
 	}
 	
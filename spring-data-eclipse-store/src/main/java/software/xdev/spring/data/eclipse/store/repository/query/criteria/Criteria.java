@@ -15,8 +15,13 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.criteria;
 
+import java.util.List;
+
 import org.springframework.lang.Nullable;
 
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+
+
 /**
  * Criteria to apply to an entity and check if the criteria is fulfilled or not.
  *
@@ -30,7 +35,20 @@ public interface Criteria<T>
 	 */
 	static <T> Criteria<T> createNoCriteria()
 	{
-		return object -> true;
+		return new Criteria<>()
+		{
+			@Override
+			public boolean evaluate(@Nullable final T object)
+			{
+				return true;
+			}
+			
+			@Override
+			public boolean acceptsAll()
+			{
+				return true;
+			}
+		};
 	}
 	
 	/**
@@ -40,4 +58,24 @@ public interface Criteria<T>
 	 * @return {@code true} if the object is within the criteria, {@code false} if not.
 	 */
 	boolean evaluate(@Nullable final T object);
+	
+	/**
+	 * Ranges that every entity must lie in to fulfill the criteria. These are used to find the candidates of a query
+	 * through an {@link software.xdev.spring.data.eclipse.store.repository.index.Indexed index}. The candidates are
+	 * then still checked with {@link #evaluate(Object)}.
+	 *
+	 * @return ranges of the conjunctive predicates of this criteria. Is empty if no such range is known.
+	 */
+	default List<IndexRange> getIndexRanges()
+	{
+		return List.of();
+	}
+	
+	/**
+	 * @return {@code true} if this criteria is known to be fulfilled by every entity without evaluating it.
+	 */
+	default boolean acceptsAll()
+	{
+		return false;
+	}
 }
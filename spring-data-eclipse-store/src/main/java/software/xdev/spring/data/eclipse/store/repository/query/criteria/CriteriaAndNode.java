@@ -15,10 +15,13 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.criteria;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.springframework.lang.Nullable;
 
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
 import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
 
 
@@ -55,4 +58,18 @@ public class CriteriaAndNode<T> extends AbstractCriteriaNode<T>
 		}
 		return this.childCriteria.evaluate(object);
 	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Contains the ranges of it's own {@link #predicates} and of it's {@link #childCriteria}.
+	 * </p>
+	 */
+	@Override
+	public List<IndexRange> getIndexRanges()
+	{
+		final List<IndexRange> allRanges = new ArrayList<>(this.indexRanges);
+		allRanges.addAll(this.childCriteria.getIndexRanges());
+		return allRanges;
+	}
 }
@@ -16,50 +16,81 @@
 package software.xdev.spring.data.eclipse.store.repository.query.criteria;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.WeakHashMap;
-import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
+import org.springframework.data.core.PropertyPath;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.repository.query.QueryByExampleExecutor;
 
 import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
 import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedPropertyPath;
 
 
 /**
  * Creates a criteria from {@link Example}s. Needed to implement {@link QueryByExampleExecutor}.
+ * <p>
+ * The example is compiled once: for every property the field is resolved, the value of the probe is read and
+ * transformed and the string matcher is prepared (e.g. lower case strings or a compiled regex). Properties without a
+ * value in the probe match every entity and are left out. Evaluating an entity then only reads and compares the
+ * remaining fields.
+ * </p>
  */
 public class CriteriaByExample<T, S extends T> implements Criteria<T>
 {
-	private static final Map<String, Pattern> REGEX_EXAMPLE_CACHE = Collections.synchronizedMap(new WeakHashMap<>());
 	private final Predicate<T> predicate;
+	private final boolean acceptsAll;
+	private final List<IndexRange> indexRanges = new ArrayList<>();
 	
+	@SuppressWarnings("unchecked")
 	public CriteriaByExample(final Example<S> example)
 	{
-		if(example.getMatcher().isAllMatching())
+		final boolean isAllMatching = example.getMatcher().isAllMatching();
+		final List<Predicate<T>> propertyPredicates = new ArrayList<>();
+		boolean anyPropertyMatchesAll = false;
+		for(final ExampleMatcher.PropertySpecifier specifier : getDefinedOrDefaultSpecifiers(example))
+		{
+			final ReflectedField<T, Object> field =
+				(ReflectedField<T, Object>)createField((Class<T>)example.getProbeType(), specifier.getPath());
+			final Optional<Object> probeValue =
+				specifier.getPropertyValueTransformer().apply(Optional.ofNullable(field.readValue(example.getProbe())));
+			if(probeValue.isEmpty())
+			{
+				anyPropertyMatchesAll = true;
+				continue;
+			}
+			final ExampleMatcher.StringMatcher stringMatcher = specifier.getStringMatcher() == null
+				? example.getMatcher().getDefaultStringMatcher()
+				: specifier.getStringMatcher();
+			propertyPredicates.add(createPropertyPredicate(field, specifier, stringMatcher, probeValue.get()));
+			if(isAllMatching)
+			{
+				this.addIndexRange(field, specifier, stringMatcher, probeValue.get());
+			}
+		}
+		
+		if(isAllMatching)
 		{
-			this.predicate = entity -> this.getDefinedOrDefaultSpecifiers(example)
-				.stream()
-				.allMatch(this.createPredicateForSpecifier(example, entity));
+			this.acceptsAll = propertyPredicates.isEmpty();
+			this.predicate = combine(propertyPredicates, true);
 		}
 		else
 		{
-			this.predicate = entity -> this.getDefinedOrDefaultSpecifiers(example)
-				.stream()
-				.anyMatch(this.createPredicateForSpecifier(example, entity));
+			this.acceptsAll = anyPropertyMatchesAll;
+			this.predicate = this.acceptsAll ? entity -> true : combine(propertyPredicates, false);
 		}
 	}
 	
-	private Collection<ExampleMatcher.PropertySpecifier> getDefinedOrDefaultSpecifiers(final Example<S> example)
+	private static Collection<ExampleMatcher.PropertySpecifier> getDefinedOrDefaultSpecifiers(final Example<?> example)
 	{
 		final Collection<ExampleMatcher.PropertySpecifier> specifiers =
 			example.getMatcher().getPropertySpecifiers().getSpecifiers();
@@ -78,97 +109,160 @@ public class CriteriaByExample<T, S extends T> implements Criteria<T>
 		return matcher.getPropertySpecifiers().getSpecifiers();
 	}
 	
-	@Override
-	public boolean evaluate(final T object)
+	private static <T> ReflectedField<T, ?> createField(final Class<T> probeType, final String path)
 	{
-		return this.predicate.test(object);
+		return path.contains(".")
+			? ReflectedPropertyPath.create(probeType, PropertyPath.from(path, probeType))
+			: ReflectedField.createReflectedField(probeType, path);
 	}
 	
-	@SuppressWarnings("unchecked")
-	private <E> Predicate<ExampleMatcher.PropertySpecifier> createPredicateForSpecifier(
-		final Example<S> example,
-		final E entity)
+	private static <T> Predicate<T> combine(final List<Predicate<T>> predicates, final boolean isAllMatching)
 	{
-		return specifier ->
+		if(predicates.size() == 1)
 		{
-			final ReflectedField<E, Object> reflectedField =
-				(ReflectedField<E, Object>)ReflectedField.createReflectedField(
-					example.getProbeType(),
-					specifier.getPath());
-			
-			final Object exampleValue = reflectedField.readValue((E)example.getProbe());
-			final Optional<Object> transformedExampledValue =
-				specifier.getPropertyValueTransformer().apply(Optional.ofNullable(exampleValue));
-			
-			if(transformedExampledValue.isEmpty())
-			{
+			return predicates.get(0);
+		}
+		if(isAllMatching)
+		{
+			return entity -> {
+				for(final Predicate<T> propertyPredicate : predicates)
+				{
+					if(!propertyPredicate.test(entity))
+					{
+						return false;
+					}
+				}
 				return true;
+			};
+		}
+		return entity -> {
+			for(final Predicate<T> propertyPredicate : predicates)
+			{
+				if(propertyPredicate.test(entity))
+				{
+					return true;
+				}
 			}
-			
-			final Object value = reflectedField.readValue(entity);
-			final Optional<Object> transformedValue =
-				specifier.getPropertyValueTransformer().apply(Optional.ofNullable(value));
-			
-			final ExampleMatcher.StringMatcher setOrDefaultMatcher = specifier.getStringMatcher() == null
-				? example.getMatcher().getDefaultStringMatcher()
-				: specifier.getStringMatcher();
-			
-			return this.createPredicateForStringMatcher(
-				specifier,
-				setOrDefaultMatcher,
-				transformedExampledValue.get(),
-				transformedValue.orElse(null));
+			return false;
 		};
 	}
 	
-	private boolean createPredicateForStringMatcher(
+	@Override
+	public boolean evaluate(final T object)
+	{
+		return this.predicate.test(object);
+	}
+	
+	@Override
+	public boolean acceptsAll()
+	{
+		return this.acceptsAll;
+	}
+	
+	@Override
+	public List<IndexRange> getIndexRanges()
+	{
+		return this.indexRanges;
+	}
+	
+	/**
+	 * Exact matches of untransformed values can be answered by an index.
+	 */
+	private void addIndexRange(
+		final ReflectedField<T, Object> field,
+		final ExampleMatcher.PropertySpecifier specifier,
+		final ExampleMatcher.StringMatcher stringMatcher,
+		final Object probeValue)
+	{
+		if(isExact(stringMatcher)
+			&& !isIgnoreCase(specifier)
+			&& !field.isMultiValued()
+			&& specifier.getPropertyValueTransformer() == ExampleMatcher.NoOpPropertyValueTransformer.INSTANCE)
+		{
+			this.indexRanges.add(IndexRange.equalTo(field.getName(), probeValue));
+		}
+	}
+	
+	/**
+	 * @param probeValue the transformed value of the probe. Never {@code null}.
+	 */
+	private static <T> Predicate<T> createPropertyPredicate(
+		final ReflectedField<T, Object> field,
 		final ExampleMatcher.PropertySpecifier specifier,
-		final ExampleMatcher.StringMatcher setOrDefaultMatcher,
-		final Object transformedExampledValue, // Never null
-		final Object transformedValue) // Nullable
+		final ExampleMatcher.StringMatcher stringMatcher,
+		final Object probeValue)
 	{
-		// Check exact matches
-		if(ExampleMatcher.StringMatcher.DEFAULT.equals(setOrDefaultMatcher)
-			|| ExampleMatcher.StringMatcher.EXACT.equals(setOrDefaultMatcher))
+		final boolean ignoreCase = isIgnoreCase(specifier);
+		final ExampleMatcher.PropertyValueTransformer transformer = specifier.getPropertyValueTransformer();
+		final boolean transformsValues = transformer != ExampleMatcher.NoOpPropertyValueTransformer.INSTANCE;
+		
+		final Predicate<Object> valuePredicate;
+		if(isExact(stringMatcher))
 		{
-			if(transformedExampledValue instanceof String)
+			if(probeValue instanceof String)
+			{
+				final String probeString = valueToString(probeValue, ignoreCase);
+				valuePredicate = value -> probeString.equals(valueToString(value, ignoreCase));
+			}
+			else
 			{
-				return Objects.equals(
-					this.valueToString(transformedExampledValue, specifier),
-					this.valueToString(transformedValue, specifier));
+				valuePredicate = value -> probeValue.equals(value);
 			}
-			return Objects.equals(transformedExampledValue, transformedValue);
+		}
+		else
+		{
+			final String probeString = valueToString(probeValue, ignoreCase);
+			final Predicate<String> stringPredicate = createStringPredicate(stringMatcher, probeString);
+			valuePredicate = value -> {
+				final String valueString = valueToString(value, ignoreCase);
+				return valueString != null && stringPredicate.test(valueString);
+			};
 		}
 		
-		// Check comparisons
-		final BiPredicate<String, String> compareFunc = switch(setOrDefaultMatcher)
+		if(!transformsValues)
 		{
-			case STARTING -> String::startsWith;
-			case ENDING -> String::endsWith;
-			case CONTAINING -> String::contains;
-			case REGEX -> (v, example) -> REGEX_EXAMPLE_CACHE.computeIfAbsent(example, Pattern::compile)
-				.matcher(v)
-				.find();
-			default -> null;
+			return entity -> field.anyValueMatches(entity, valuePredicate);
+		}
+		return entity -> field.anyValueMatches(
+			entity,
+			value -> valuePredicate.test(transformer.apply(Optional.ofNullable(value)).orElse(null)));
+	}
+	
+	private static Predicate<String> createStringPredicate(
+		final ExampleMatcher.StringMatcher stringMatcher,
+		final String probeString)
+	{
+		return switch(stringMatcher)
+		{
+			case STARTING -> value -> value.startsWith(probeString);
+			case ENDING -> value -> value.endsWith(probeString);
+			case CONTAINING -> value -> value.contains(probeString);
+			case REGEX ->
+			{
+				final Pattern pattern = Pattern.compile(probeString);
+				yield value -> pattern.matcher(value).find();
+			}
+			default -> value -> false;
 		};
-		
-		return compareFunc != null
-			&& Optional.ofNullable(this.valueToString(transformedValue, specifier))
-			.map(v -> compareFunc.test(v, this.valueToString(transformedExampledValue, specifier)))
-			.orElse(false);
 	}
 	
-	private String valueToString(
-		final Object value,
-		final ExampleMatcher.PropertySpecifier specifier)
+	private static boolean isExact(final ExampleMatcher.StringMatcher stringMatcher)
+	{
+		return ExampleMatcher.StringMatcher.DEFAULT.equals(stringMatcher)
+			|| ExampleMatcher.StringMatcher.EXACT.equals(stringMatcher);
+	}
+	
+	private static boolean isIgnoreCase(final ExampleMatcher.PropertySpecifier specifier)
+	{
+		return Boolean.TRUE.equals(specifier.getIgnoreCase());
+	}
+	
+	private static String valueToString(final Object value, final boolean ignoreCase)
 	{
 		if(value == null)
 		{
 			return null;
 		}
-		
-		return (specifier != null && Boolean.TRUE.equals(specifier.getIgnoreCase()))
-			? value.toString().toLowerCase(Locale.ROOT)
-			: value.toString();
+		return ignoreCase ? value.toString().toLowerCase(Locale.ROOT) : value.toString();
 	}
 }
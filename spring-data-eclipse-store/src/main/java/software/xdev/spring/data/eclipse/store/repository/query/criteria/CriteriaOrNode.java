@@ -15,8 +15,12 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.criteria;
 
+import java.util.List;
+
 import org.springframework.lang.Nullable;
 
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+
 
 /**
  * {@inheritDoc}
@@ -53,4 +57,16 @@ public class CriteriaOrNode<T> extends AbstractCriteriaNode<T>
 		}
 		return this.rightCriteria.evaluate(object);
 	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Is always empty, since an entity only has to fulfill one side of the disjunction.
+	 * </p>
+	 */
+	@Override
+	public List<IndexRange> getIndexRanges()
+	{
+		return List.of();
+	}
 }
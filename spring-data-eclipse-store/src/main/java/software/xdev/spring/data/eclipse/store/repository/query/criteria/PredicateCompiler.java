@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.criteria;
+
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+
+
+/**
+ * Creates the predicates of the {@link AbstractCriteriaNode}s. Everything that only depends on the values of the
+ * query (like patterns or the type of comparison) is prepared once, so that evaluating an entity does as little as
+ * possible.
+ */
+final class PredicateCompiler
+{
+	/**
+	 * Characters that have a special meaning in a regex. The {@code .} is not included, since it is escaped in
+	 * {@link #sqlLikeStringToRegex(String)}.
+	 */
+	private static final String SPECIAL_LIKE_CHARACTERS = "%_\\^$|?*+()[]{}";
+	
+	private PredicateCompiler()
+	{
+	}
+	
+	/**
+	 * Compares the value of the field with the given value. Primitive {@code int}, {@code long} and {@code double}
+	 * fields are compared without boxing their values. Nested paths are compared through
+	 * {@link ReflectedField#anyValueMatches(Object, Predicate)}.
+	 *
+	 * @param comparisonResult checks the result of comparing the value of the field with the given value
+	 */
+	static <T> Predicate<T> compare(
+		final ReflectedField<T, ?> field,
+		final Object value,
+		final IntPredicate comparisonResult)
+	{
+		Objects.requireNonNull(field);
+		Objects.requireNonNull(value);
+		if(field.isNested())
+		{
+			return entity -> field.anyValueMatches(
+				entity,
+				fieldValue -> comparisonResult.test(GenericObjectComparer.compare(fieldValue, value)));
+		}
+		if(field.getType() == int.class && value instanceof final Integer intValue)
+		{
+			final int bound = intValue;
+			return entity -> comparisonResult.test(Integer.compare(field.readInt(entity), bound));
+		}
+		if(field.getType() == long.class && value instanceof final Long longValue)
+		{
+			final long bound = longValue;
+			return entity -> comparisonResult.test(Long.compare(field.readLong(entity), bound));
+		}
+		if(field.getType() == double.class && value instanceof final Double doubleValue)
+		{
+			final double bound = doubleValue;
+			return entity -> comparisonResult.test(Double.compare(field.readDouble(entity), bound));
+		}
+		return entity -> comparisonResult.test(GenericObjectComparer.compare(field.readValue(entity), value));
+	}
+	
+	/**
+	 * Creates a matcher for a SQL like string. Like strings that are only a literal with a leading and/or trailing
+	 * {@code %} (e.g. from {@code StartingWith}, {@code EndingWith} or {@code Containing}) are matched without a regex.
+	 * All other like strings are compiled to a {@link Pattern} once.
+	 *
+	 * @param like         the SQL like string with {@code %} and {@code _} as wildcards
+	 * @param doIgnoreCase if the case should be ignored while matching
+	 * @return a predicate that checks if a non-null string matches the like string
+	 */
+	static Predicate<String> like(final String like, final boolean doIgnoreCase)
+	{
+		final String comparedLike = doIgnoreCase ? like.toUpperCase() : like;
+		int begin = 0;
+		int end = comparedLike.length();
+		if(begin < end && comparedLike.charAt(begin) == '%')
+		{
+			begin++;
+		}
+		if(begin < end && comparedLike.charAt(end - 1) == '%')
+		{
+			end--;
+		}
+		final String literal = comparedLike.substring(begin, end);
+		if(!isLiteral(literal))
+		{
+			final Pattern pattern = Pattern.compile(sqlLikeStringToRegex(comparedLike));
+			return value -> pattern.matcher(doIgnoreCase ? value.toUpperCase() : value).matches();
+		}
+		final boolean anyPrefix = begin > 0;
+		final boolean anySuffix = end < comparedLike.length();
+		final Predicate<String> literalMatcher;
+		if(anyPrefix && anySuffix)
+		{
+			literalMatcher = value -> value.contains(literal);
+		}
+		else if(anyPrefix)
+		{
+			literalMatcher = value -> value.endsWith(literal);
+		}
+		else if(anySuffix)
+		{
+			literalMatcher = value -> value.startsWith(literal);
+		}
+		else
+		{
+			literalMatcher = literal::equals;
+		}
+		// Values are upper-cased just like for the pattern, so that all like strings ignore the case in the same way.
+		return doIgnoreCase
+			? value -> literalMatcher.test(value.toUpperCase())
+			: literalMatcher;
+	}
+	
+	private static boolean isLiteral(final String like)
+	{
+		for(int i = 0; i < like.length(); i++)
+		{
+			if(SPECIAL_LIKE_CHARACTERS.indexOf(like.charAt(i)) >= 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static String sqlLikeStringToRegex(final String like)
+	{
+		String regex = like;
+		regex = regex.replace(".", "\\.");
+		regex = regex.replace("_", ".");
+		return regex.replace("%", ".*");
+	}
+}
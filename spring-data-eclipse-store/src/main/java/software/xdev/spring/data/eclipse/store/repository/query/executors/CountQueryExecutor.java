@@ -16,7 +16,6 @@
 package software.xdev.spring.data.eclipse.store.repository.query.executors;
 
 import java.util.Objects;
-import java.util.stream.Stream;
 
 import jakarta.annotation.Nullable;
 
@@ -50,11 +49,7 @@ public class CountQueryExecutor<T> implements QueryExecutor<T>
 	{
 		Objects.requireNonNull(entities);
 		
-		final Stream<? extends T> entityStream = entities
-			.stream()
-			.filter(this.criteria::evaluate);
-		
-		final long result = entityStream.count();
+		final long result = entities.count(this.criteria);
 		
 		if(LOG.isTraceEnabled())
 		{
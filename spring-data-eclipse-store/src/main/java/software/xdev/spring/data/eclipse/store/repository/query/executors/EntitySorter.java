@@ -15,17 +15,28 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.executors;
 
-import java.lang.reflect.Field;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.springframework.data.domain.Sort;
 
-import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
-import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
-import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
 
 
+/**
+ * Sorts entities by all {@link Sort.Order}s of a {@link Sort}. The sort keys of each entity are read once before
+ * sorting, so comparing two entities does not read their fields again.
+ */
 public final class EntitySorter
 {
 	private EntitySorter()
@@ -37,40 +48,135 @@ public final class EntitySorter
 		final Sort sort,
 		final Stream<? extends T> entityStream)
 	{
-		if(sort != null)
+		final SortKeys<T> sortKeys = SortKeys.create(clazz, sort);
+		if(sortKeys == null)
 		{
-			for(final Sort.Order order : sort)
-			{
-				try
-				{
-					final Field fieldForOrder =
-						AccessHelper.getInheritedPrivateField(clazz, order.getProperty());
-					final Comparator<? super T> comparator =
-						EntitySorter.getComparator(fieldForOrder, order.getDirection());
-					return entityStream.sorted(comparator);
-				}
-				catch(final NoSuchFieldException e)
-				{
-					throw new NotComparableException(
-						"Could not sort entities by property " + order.getProperty(), e);
-				}
-			}
+			return entityStream;
+		}
+		final List<SortKeys.Entry<T>> entries = new ArrayList<>();
+		entityStream.forEachOrdered(entity -> entries.add(sortKeys.createEntry(entity, entries.size())));
+		final long sortStart = System.nanoTime();
+		entries.sort(sortKeys.entryComparator());
+		QueryExecutionStatistics.recordSort(entries.size(), System.nanoTime() - sortStart);
+		return entries.stream().map(SortKeys.Entry::entity);
+	}
+	
+	/**
+	 * Sorts the entities, but only keeps the first ones. This needs much less memory and time than sorting all
+	 * entities, if only a few of many entities are needed (e.g. for a page or a {@code findTop20By...} query).
+	 *
+	 * @param maxCount count of the first entities to keep
+	 * @return the first entities in sort order and the count of all entities in the stream
+	 */
+	static <T> TopEntities<T> collectTopEntities(
+		final Class<T> clazz,
+		final Sort sort,
+		final Stream<? extends T> entityStream,
+		final int maxCount)
+	{
+		final TopEntities<T> topEntities =
+			new TopEntities<>(Objects.requireNonNull(SortKeys.create(clazz, sort)), maxCount);
+		entityStream.forEachOrdered(topEntities::add);
+		if(QueryExecutionStatistics.isRecording())
+		{
+			QueryExecutionStatistics.recordPlan(String.format("top %d of sorted entities", maxCount));
+			QueryExecutionStatistics.recordSort(topEntities.getCount(), 0);
 		}
-		return entityStream;
+		return topEntities;
 	}
 	
-	private static <T> Comparator<? super T> getComparator(final Field fieldForOrder, final Sort.Direction direction)
+	/**
+	 * Streams the entities in the order of an index of the first sorted field (see
+	 * {@link EntityProvider#streamOrderedByIndex(Criteria, Sort, boolean)}). Entities with the same key in the first
+	 * field are sorted by the other orders of the sort, so only these small runs of entities are sorted.
+	 *
+	 * @return the sorted entities or {@link Optional#empty()} if the entities can't be read in order from an index.
+	 */
+	static <T> Optional<Stream<? extends T>> streamOrderedByIndex(
+		final EntityProvider<T, ?> entities,
+		final Criteria<T> criteria,
+		final Class<T> clazz,
+		final Sort sort,
+		final boolean isLimited)
 	{
-		return (e1, e2) -> {
-			final int result = GenericObjectComparer.compare(
-				AccessHelper.readFieldVariable(fieldForOrder, e1),
-				AccessHelper.readFieldVariable(fieldForOrder, e2)
-			);
-			if(direction.isDescending())
+		final Optional<Stream<? extends T>> entitiesOrderedByIndex =
+			entities.streamOrderedByIndex(criteria, sort, isLimited);
+		if(entitiesOrderedByIndex.isEmpty() || sort.toList().size() == 1)
+		{
+			return entitiesOrderedByIndex;
+		}
+		final RunSortingIterator<T> sortedEntities = new RunSortingIterator<>(
+			Objects.requireNonNull(SortKeys.create(clazz, sort)),
+			entitiesOrderedByIndex.get().iterator());
+		return Optional.of(StreamSupport.stream(
+			Spliterators.spliteratorUnknownSize(sortedEntities, Spliterator.ORDERED),
+			false));
+	}
+	
+	/**
+	 * Sorts the runs of entities that have the same key in the first order. The entities must already be ordered by
+	 * the first order.
+	 */
+	private static final class RunSortingIterator<T> implements Iterator<T>
+	{
+		private final SortKeys<T> sortKeys;
+		private final Iterator<? extends T> entities;
+		private final List<SortKeys.Entry<T>> run = new ArrayList<>();
+		private int nextIndexInRun;
+		private SortKeys.Entry<T> firstOfNextRun;
+		private long position;
+		
+		private RunSortingIterator(final SortKeys<T> sortKeys, final Iterator<? extends T> entities)
+		{
+			this.sortKeys = sortKeys;
+			this.entities = entities;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			if(this.nextIndexInRun >= this.run.size())
+			{
+				this.readNextRun();
+			}
+			return this.nextIndexInRun < this.run.size();
+		}
+		
+		@Override
+		public T next()
+		{
+			if(!this.hasNext())
 			{
-				return result * -1;
+				throw new NoSuchElementException();
 			}
-			return result;
-		};
+			return this.run.get(this.nextIndexInRun++).entity();
+		}
+		
+		private void readNextRun()
+		{
+			this.run.clear();
+			this.nextIndexInRun = 0;
+			if(this.firstOfNextRun == null && this.entities.hasNext())
+			{
+				this.firstOfNextRun = this.sortKeys.createEntry(this.entities.next(), this.position++);
+			}
+			if(this.firstOfNextRun == null)
+			{
+				return;
+			}
+			this.run.add(this.firstOfNextRun);
+			this.firstOfNextRun = null;
+			while(this.entities.hasNext())
+			{
+				final SortKeys.Entry<T> entry = this.sortKeys.createEntry(this.entities.next(), this.position++);
+				if(!this.sortKeys.hasEqualFirstKey(this.run.get(0), entry))
+				{
+					this.firstOfNextRun = entry;
+					break;
+				}
+				this.run.add(entry);
+			}
+			this.run.sort(this.sortKeys.entryComparator());
+		}
 	}
 }
@@ -16,8 +16,6 @@
 package software.xdev.spring.data.eclipse.store.repository.query.executors;
 
 import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Stream;
 
 import jakarta.annotation.Nullable;
 
@@ -59,19 +57,15 @@ public class ExistsQueryExecutor<T> implements QueryExecutor<T>
 		{
 			return false;
 		}
-		final Stream<? extends T> entityStream = entities
-			.stream()
-			.filter(this.criteria::evaluate);
-		
-		final Optional<? extends T> result = entityStream.findAny();
+		final boolean result = entities.anyMatch(this.criteria);
 		if(LOG.isDebugEnabled())
 		{
 			LOG.debug(
 				"Query for class {} found an entity: {}",
 				clazz.getSimpleName(),
-				result.isPresent()
+				result
 			);
 		}
-		return result.isPresent();
+		return result;
 	}
 }
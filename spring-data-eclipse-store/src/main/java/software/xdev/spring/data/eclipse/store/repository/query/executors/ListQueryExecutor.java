@@ -20,6 +20,7 @@ import java.util.Objects;
 
 import jakarta.annotation.Nullable;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
@@ -47,6 +48,15 @@ public class ListQueryExecutor<T> implements QueryExecutor<T>
 		this.querier = new PageableSortableCollectionQuerier<>(copier, criteria, sort);
 	}
 	
+	public ListQueryExecutor(
+		final WorkingCopier<T> copier,
+		final Criteria<T> criteria,
+		final Sort sort,
+		final Limit limit)
+	{
+		this.querier = new PageableSortableCollectionQuerier<>(copier, criteria, sort, limit);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 *
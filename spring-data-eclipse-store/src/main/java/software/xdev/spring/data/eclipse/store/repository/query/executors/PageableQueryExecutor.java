@@ -19,6 +19,7 @@ import java.util.Objects;
 
 import jakarta.annotation.Nullable;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -42,7 +43,16 @@ public class PageableQueryExecutor<T> implements QueryExecutor<T>
 	
 	public PageableQueryExecutor(final WorkingCopier<T> copier, final Criteria<T> criteria, final Sort sort)
 	{
-		this.querier = new PageableSortableCollectionQuerier<>(copier, criteria, sort);
+		this(copier, criteria, sort, Limit.unlimited());
+	}
+	
+	public PageableQueryExecutor(
+		final WorkingCopier<T> copier,
+		final Criteria<T> criteria,
+		final Sort sort,
+		final Limit limit)
+	{
+		this.querier = new PageableSortableCollectionQuerier<>(copier, criteria, sort, limit);
 		this.countQueryExecutor = new CountQueryExecutor<>(criteria);
 	}
 	
@@ -64,8 +74,11 @@ public class PageableQueryExecutor<T> implements QueryExecutor<T>
 		{
 			if(values[values.length - 1] instanceof final Pageable pageable)
 			{
-				final Long total = this.countQueryExecutor.execute(clazz, entities, null);
-				return new PageImpl<>(this.querier.getEntities(entities, pageable, clazz), pageable, total);
+				return this.querier.getPage(
+					entities,
+					pageable,
+					clazz,
+					() -> this.countQueryExecutor.execute(clazz, entities, null));
 			}
 			if(values[values.length - 1] instanceof final Sort sort)
 			{
@@ -15,9 +15,13 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.query.executors;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.LongSupplier;
 import java.util.stream.Stream;
 
 import jakarta.annotation.Nonnull;
@@ -25,11 +29,15 @@ import jakarta.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import software.xdev.spring.data.eclipse.store.core.EntityProvider;
 import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryExecutionStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 
 
@@ -42,6 +50,7 @@ public class PageableSortableCollectionQuerier<T>
 	private final Criteria<T> criteria;
 	private final WorkingCopier<T> copier;
 	private final Optional<Sort> staticSort;
+	private final Limit limit;
 	
 	public PageableSortableCollectionQuerier(final WorkingCopier<T> copier, final Criteria<T> criteria)
 	{
@@ -51,10 +60,22 @@ public class PageableSortableCollectionQuerier<T>
 	public PageableSortableCollectionQuerier(
 		final WorkingCopier<T> copier, final Criteria<T> criteria,
 		final Sort sort)
+	{
+		this(copier, criteria, sort, Limit.unlimited());
+	}
+	
+	/**
+	 * @param limit the static limit that is possibly defined through the method name (e.g. {@code findTop20By...})
+	 */
+	public PageableSortableCollectionQuerier(
+		final WorkingCopier<T> copier, final Criteria<T> criteria,
+		final Sort sort,
+		final Limit limit)
 	{
 		this.criteria = Objects.requireNonNull(criteria);
 		this.copier = Objects.requireNonNull(copier);
 		this.staticSort = Optional.ofNullable(sort);
+		this.limit = Objects.requireNonNull(limit);
 	}
 	
 	protected List<T> getEntities(
@@ -62,23 +83,170 @@ public class PageableSortableCollectionQuerier<T>
 		@Nullable final Pageable pageable,
 		@Nullable final Class<T> clazz,
 		@Nullable final Sort sort)
+	{
+		return this.copyEntities(this.findEntities(entities, pageable, clazz, sort));
+	}
+	
+	/**
+	 * Finds the same entities as {@link #getEntities(EntityProvider, Pageable, Class, Sort)}, but doesn't copy them.
+	 * The returned entities are the originals in the storage and must not be changed.
+	 */
+	protected List<T> getEntityReferences(
+		@Nonnull final EntityProvider<T, ?> entities,
+		@Nullable final Pageable pageable,
+		@Nullable final Class<T> clazz,
+		@Nullable final Sort sort)
+	{
+		final List<T> result = new ArrayList<>();
+		this.findEntities(entities, pageable, clazz, sort).forEachOrdered(result::add);
+		return result;
+	}
+	
+	private Stream<? extends T> findEntities(
+		@Nonnull final EntityProvider<T, ?> entities,
+		@Nullable final Pageable pageable,
+		@Nullable final Class<T> clazz,
+		@Nullable final Sort sort)
 	{
 		Objects.requireNonNull(entities);
 		
-		Stream<? extends T> entityStream = entities
-			.stream()
-			.filter(this.criteria::evaluate);
-		
 		final Sort sortToUse = this.staticSort.orElse(sort);
-		if(sortToUse != null)
+		final Stream<? extends T> entityStream;
+		if(this.isSorted(sortToUse))
+		{
+			entityStream = this.sortedEntityStream(entities, clazz, sortToUse, pageable);
+		}
+		else if(this.getNeededCount(pageable).isPresent())
 		{
-			entityStream = EntitySorter.sortEntitiesStream(clazz, sortToUse, entityStream);
+			entityStream = entities.stream(this.criteria);
 		}
+		else
+		{
+			entityStream = entities.streamAll(this.criteria);
+		}
+		return this.limitEntityStream(pageable, entityStream);
+	}
+	
+	/**
+	 * Queries the entities of a page and counts all matching entities. If the entities can't be read in order from an
+	 * index, all matching entities are only read once for both.
+	 *
+	 * @param countAllEntities counts all matching entities if they must be counted separately
+	 */
+	protected Page<T> getPage(
+		@Nonnull final EntityProvider<T, ?> entities,
+		@Nonnull final Pageable pageable,
+		@Nullable final Class<T> clazz,
+		@Nonnull final LongSupplier countAllEntities)
+	{
+		Objects.requireNonNull(entities);
+		Objects.requireNonNull(countAllEntities);
 		
-		entityStream = this.pageEntityStream(pageable, entityStream);
+		final Sort sortToUse = this.staticSort.orElse(pageable.getSort());
+		final OptionalInt neededCount = this.getNeededCount(pageable);
+		if(neededCount.isEmpty())
+		{
+			return new PageImpl<>(this.getEntities(entities, pageable, clazz), pageable, countAllEntities.getAsLong());
+		}
+		
+		if(!this.isSorted(sortToUse))
+		{
+			final List<T> pageEntities = new ArrayList<>();
+			long count = 0;
+			final Iterator<? extends T> iterator = entities.streamAll(this.criteria).iterator();
+			while(iterator.hasNext())
+			{
+				final T entity = iterator.next();
+				if(count >= pageable.getOffset() && count < neededCount.getAsInt())
+				{
+					pageEntities.add(entity);
+				}
+				count++;
+			}
+			return new PageImpl<>(this.copyEntities(pageEntities.stream()), pageable, count);
+		}
 		
-		final List<T> result = this.copyEntities(entityStream);
+		final Optional<Stream<? extends T>> entitiesOrderedByIndex =
+			EntitySorter.streamOrderedByIndex(entities, this.criteria, clazz, sortToUse, true);
+		if(entitiesOrderedByIndex.isPresent())
+		{
+			final List<T> pageEntities =
+				this.copyEntities(this.limitEntityStream(pageable, entitiesOrderedByIndex.get()));
+			return new PageImpl<>(pageEntities, pageable, countAllEntities.getAsLong());
+		}
 		
+		final TopEntities<T> topEntities = EntitySorter.collectTopEntities(
+			clazz,
+			sortToUse,
+			entities.streamAll(this.criteria),
+			neededCount.getAsInt());
+		final List<T> pageEntities =
+			this.copyEntities(this.limitEntityStream(pageable, topEntities.toSortedList().stream()));
+		return new PageImpl<>(pageEntities, pageable, topEntities.getCount());
+	}
+	
+	private boolean isSorted(@Nullable final Sort sort)
+	{
+		return sort != null && sort.isSorted();
+	}
+	
+	/**
+	 * @return the count of entities that must be sorted to get the page with the limit, or {@link OptionalInt#empty()}
+	 * if all entities are needed.
+	 */
+	private OptionalInt getNeededCount(@Nullable final Pageable pageable)
+	{
+		final long neededCount;
+		if(pageable != null && pageable.isPaged())
+		{
+			final long pageSize = this.limit.isLimited()
+				? Math.min(pageable.getPageSize(), this.limit.max())
+				: pageable.getPageSize();
+			neededCount = pageable.getOffset() + pageSize;
+		}
+		else if(this.limit.isLimited())
+		{
+			neededCount = this.limit.max();
+		}
+		else
+		{
+			return OptionalInt.empty();
+		}
+		return neededCount > Integer.MAX_VALUE ? OptionalInt.empty() : OptionalInt.of((int)neededCount);
+	}
+	
+	/**
+	 * Uses an index of the sorted field if possible. Then only the entities that are actually returned must be read.
+	 * Otherwise, only the first entities are sorted, if not all entities are needed.
+	 */
+	private Stream<? extends T> sortedEntityStream(
+		final EntityProvider<T, ?> entities,
+		final Class<T> clazz,
+		final Sort sort,
+		@Nullable final Pageable pageable)
+	{
+		final OptionalInt neededCount = this.getNeededCount(pageable);
+		final Optional<Stream<? extends T>> entitiesOrderedByIndex =
+			EntitySorter.streamOrderedByIndex(entities, this.criteria, clazz, sort, neededCount.isPresent());
+		if(entitiesOrderedByIndex.isPresent())
+		{
+			return entitiesOrderedByIndex.get();
+		}
+		if(neededCount.isPresent())
+		{
+			return EntitySorter
+				.collectTopEntities(clazz, sort, entities.streamAll(this.criteria), neededCount.getAsInt())
+				.toSortedList()
+				.stream();
+		}
+		return EntitySorter.sortEntitiesStream(clazz, sort, entities.streamAll(this.criteria));
+	}
+	
+	private List<T> copyEntities(final Stream<? extends T> filteredEntityStream)
+	{
+		final List<T> result = filteredEntityStream
+			.map(QueryExecutionStatistics.isRecording() ? this::copyTimed : this.copier::copy)
+			.toList();
 		if(LOG.isTraceEnabled())
 		{
 			LOG.trace("Found {} entries.", result.size());
@@ -86,23 +254,37 @@ public class PageableSortableCollectionQuerier<T>
 		return result;
 	}
 	
-	private List<T> copyEntities(final Stream<? extends T> filteredEntityStream)
+	/**
+	 * Copies the entity and records the time for copying it. Since copying is interleaved with filtering, the time is
+	 * measured for every single entity.
+	 */
+	private T copyTimed(final T entity)
 	{
-		return filteredEntityStream
-			.map(this.copier::copy)
-			.toList();
+		final long copyStart = System.nanoTime();
+		final T copy = this.copier.copy(entity);
+		QueryExecutionStatistics.recordCopy(1, System.nanoTime() - copyStart);
+		return copy;
 	}
 	
-	private Stream<? extends T> pageEntityStream(final Pageable pageable, final Stream<? extends T> entityStream)
+	/**
+	 * Applies the page and the static limit to the stream.
+	 */
+	private Stream<? extends T> limitEntityStream(
+		@Nullable final Pageable pageable,
+		final Stream<? extends T> entityStream)
 	{
+		Stream<? extends T> limitedStream = entityStream;
 		if(pageable != null && pageable.isPaged())
 		{
-			final long skipCount = pageable.getOffset();
-			return entityStream
-				.skip(skipCount)
+			limitedStream = limitedStream
+				.skip(pageable.getOffset())
 				.limit(pageable.getPageSize());
 		}
-		return entityStream;
+		if(this.limit.isLimited())
+		{
+			limitedStream = limitedStream.limit(this.limit.max());
+		}
+		return limitedStream;
 	}
 	
 	protected List<T> getEntities(
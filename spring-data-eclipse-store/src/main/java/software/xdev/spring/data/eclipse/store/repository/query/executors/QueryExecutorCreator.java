@@ -16,14 +16,21 @@
 package software.xdev.spring.data.eclipse.store.repository.query.executors;
 
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import jakarta.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 
 
@@ -43,6 +50,7 @@ public final class QueryExecutorCreator
 	 * @param criteria        to query for entities with specific criteria. Only if the criteria matches, entities are
 	 *                        selected.
 	 * @param sort            the static sort that is possibly defined through the method name
+	 * @param limit           the static limit that is possibly defined through the method name
 	 * @param <T>             Entity-Type to query
 	 * @return the correct Query-Executor according to the given parameters
 	 */
@@ -50,8 +58,76 @@ public final class QueryExecutorCreator
 		final TypeInformation<?> typeInformation,
 		final WorkingCopier<T> copier,
 		final Criteria<T> criteria,
-		final Sort sort)
+		final Sort sort,
+		final Limit limit)
 	{
+		return createQuery(typeInformation, copier, criteria, sort, limit, null);
+	}
+	
+	/**
+	 * Creates and returns Query-Executor.
+	 *
+	 * @param copyLock if set, its read lock is acquired while an entity of a stream is copied (see
+	 *                 {@link StreamQueryExecutor})
+	 */
+	public static <T> QueryExecutor<T> createQuery(
+		final TypeInformation<?> typeInformation,
+		final WorkingCopier<T> copier,
+		final Criteria<T> criteria,
+		final Sort sort,
+		final Limit limit,
+		@Nullable final ReadWriteLock copyLock)
+	{
+		return createQueryFactory(typeInformation, copier, limit, copyLock).apply(criteria, sort);
+	}
+	
+	/**
+	 * Chooses the Query-Executor once for a query method. The returned factory creates the chosen executor with the
+	 * criteria and sort of a single execution.
+	 *
+	 * @param typeInformation about the query to create.
+	 * @param copier          that creates working copies of the found entities
+	 * @param limit           the static limit that is possibly defined through the method name
+	 * @param <T>             Entity-Type to query
+	 * @return factory for the correct Query-Executor according to the given parameters
+	 */
+	public static <T> BiFunction<Criteria<T>, Sort, QueryExecutor<T>> createQueryFactory(
+		final TypeInformation<?> typeInformation,
+		final WorkingCopier<T> copier,
+		final Limit limit)
+	{
+		return createQueryFactory(typeInformation, copier, limit, null);
+	}
+	
+	/**
+	 * Chooses the Query-Executor once for a query method.
+	 *
+	 * @param copyLock if set, its read lock is acquired while an entity of a stream is copied (see
+	 *                 {@link StreamQueryExecutor}). Streams are consumed after the query is executed, so the
+	 *                 entities must be protected from concurrent changes while they are copied.
+	 */
+	public static <T> BiFunction<Criteria<T>, Sort, QueryExecutor<T>> createQueryFactory(
+		final TypeInformation<?> typeInformation,
+		final WorkingCopier<T> copier,
+		final Limit limit,
+		@Nullable final ReadWriteLock copyLock)
+	{
+		if(typeInformation.getType().equals(Window.class))
+		{
+			if(LOG.isDebugEnabled())
+			{
+				LOG.debug("Create ScrollQuery");
+			}
+			return (criteria, sort) -> new ScrollQueryExecutor<>(copier, criteria, sort, limit);
+		}
+		if(Stream.class.isAssignableFrom(typeInformation.getType()))
+		{
+			if(LOG.isDebugEnabled())
+			{
+				LOG.debug("Create StreamQuery");
+			}
+			return (criteria, sort) -> new StreamQueryExecutor<>(copier, criteria, sort, limit, copyLock);
+		}
 		if(typeInformation.isCollectionLike())
 		{
 			if(typeInformation.getType().equals(Page.class))
@@ -60,13 +136,13 @@ public final class QueryExecutorCreator
 				{
 					LOG.debug("Create PageableQuery");
 				}
-				return new PageableQueryExecutor<>(copier, criteria, sort);
+				return (criteria, sort) -> new PageableQueryExecutor<>(copier, criteria, sort, limit);
 			}
 			if(LOG.isDebugEnabled())
 			{
 				LOG.debug("Create ListQuery");
 			}
-			return new ListQueryExecutor<>(copier, criteria, sort);
+			return (criteria, sort) -> new ListQueryExecutor<>(copier, criteria, sort, limit);
 		}
 		if(typeInformation.getType().equals(Optional.class))
 		{
@@ -74,12 +150,12 @@ public final class QueryExecutorCreator
 			{
 				LOG.debug("Create SingleOptionalQuery");
 			}
-			return new SingleOptionalQueryExecutor<>(copier, criteria, sort);
+			return (criteria, sort) -> new SingleOptionalQueryExecutor<>(copier, criteria, sort);
 		}
 		if(LOG.isDebugEnabled())
 		{
 			LOG.debug("Create SingleQuery");
 		}
-		return new SingleQueryExecutor<>(copier, criteria, sort);
+		return (criteria, sort) -> new SingleQueryExecutor<>(copier, criteria, sort);
 	}
 }
@@ -0,0 +1,352 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.util.ClassUtils;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.support.AnnotatedFieldFinder;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Queries a {@link Window} of entities starting at a {@link ScrollPosition}.
+ * <p>
+ * With a {@link KeysetScrollPosition} the window starts after the sort keys of the last entity of the previous window.
+ * The id field is added to the sort, so that the keys of each entity are unique. If the first sorted field has an
+ * {@link software.xdev.spring.data.eclipse.store.repository.index.Indexed index}, the index is read from the keys on.
+ * Reading a window then costs the same regardless of how far the window is scrolled.
+ * </p>
+ * <p>
+ * With an {@link OffsetScrollPosition} the entities before the offset are skipped.
+ * </p>
+ * <p>
+ * The size of the window is the static limit of the method name (e.g. {@code findFirst10By...}) or a {@link Limit}
+ * parameter. Without a limit the window contains all remaining entities.
+ * </p>
+ *
+ * @param <T> Entity-Type to query
+ */
+public class ScrollQueryExecutor<T> implements QueryExecutor<T>
+{
+	private final WorkingCopier<T> copier;
+	private final Criteria<T> criteria;
+	private final Sort sort;
+	private final Limit limit;
+	
+	public ScrollQueryExecutor(
+		final WorkingCopier<T> copier,
+		final Criteria<T> criteria,
+		@Nullable final Sort sort,
+		final Limit limit)
+	{
+		this.copier = Objects.requireNonNull(copier);
+		this.criteria = Objects.requireNonNull(criteria);
+		this.sort = sort == null ? Sort.unsorted() : sort;
+		this.limit = Objects.requireNonNull(limit);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @param values may contain the {@link ScrollPosition} and a {@link Limit}. If no position is given, the first
+	 *               window is returned.
+	 * @return the window of found/sorted entities
+	 */
+	@Override
+	public Window<T> execute(
+		final Class<T> clazz,
+		@Nullable final EntityProvider<T, ?> entities,
+		@Nullable final Object[] values)
+	{
+		Objects.requireNonNull(clazz);
+		final ScrollPosition position = findValue(values, ScrollPosition.class).orElseGet(ScrollPosition::offset);
+		final Limit windowLimit = this.getWindowLimit(findValue(values, Limit.class));
+		if(entities == null || entities.isEmpty())
+		{
+			return Window.from(List.of(), OffsetScrollPosition.positionFunction(0));
+		}
+		if(position instanceof final KeysetScrollPosition keysetPosition)
+		{
+			return this.scrollByKeyset(clazz, entities, keysetPosition, windowLimit);
+		}
+		if(position instanceof final OffsetScrollPosition offsetPosition)
+		{
+			return this.scrollByOffset(clazz, entities, offsetPosition, windowLimit);
+		}
+		throw new IllegalArgumentException(String.format(
+			"Scroll position of type %s is not supported",
+			position.getClass().getSimpleName()));
+	}
+	
+	private Window<T> scrollByOffset(
+		final Class<T> clazz,
+		final EntityProvider<T, ?> entities,
+		final OffsetScrollPosition position,
+		final Limit windowLimit)
+	{
+		// The position points at the last entity of the previous window.
+		final long firstIndex = position.isInitial() ? 0 : position.getOffset() + 1;
+		final Limit neededLimit = windowLimit.isLimited()
+			? limitOf(firstIndex + windowLimit.max() + 1)
+			: Limit.unlimited();
+		final List<T> references = new PageableSortableCollectionQuerier<>(
+			this.copier,
+			this.criteria,
+			this.sort,
+			neededLimit).getEntityReferences(entities, null, clazz, null);
+		final List<T> referencesAfterOffset = firstIndex >= references.size()
+			? List.of()
+			: references.subList((int)firstIndex, references.size());
+		
+		final boolean hasNext = isLargerThanWindow(referencesAfterOffset, windowLimit);
+		final List<T> windowReferences = limitToWindow(referencesAfterOffset, windowLimit);
+		return Window.from(this.copy(windowReferences), OffsetScrollPosition.positionFunction(firstIndex), hasNext);
+	}
+	
+	private Window<T> scrollByKeyset(
+		final Class<T> clazz,
+		final EntityProvider<T, ?> entities,
+		final KeysetScrollPosition position,
+		final Limit windowLimit)
+	{
+		final Sort keysetSort = this.createKeysetSort(clazz);
+		if(keysetSort.isUnsorted())
+		{
+			throw new IllegalArgumentException(
+				"Scrolling by keyset needs a sort or an id field in " + clazz.getSimpleName());
+		}
+		final SortKeys<T> sortKeys = Objects.requireNonNull(SortKeys.create(clazz, keysetSort));
+		final List<Sort.Order> orders = keysetSort.toList();
+		
+		Criteria<T> keysetCriteria = this.criteria;
+		if(!position.isInitial())
+		{
+			final Object[] positionKeys = new Object[orders.size()];
+			for(int i = 0; i < positionKeys.length; i++)
+			{
+				positionKeys[i] = getKey(position, orders.get(i).getProperty());
+			}
+			keysetCriteria = new KeysetCriteria<>(
+				this.criteria,
+				sortKeys,
+				positionKeys,
+				position.scrollsForward(),
+				createRangeOfFirstKey(orders.get(0), positionKeys[0], position.scrollsForward()));
+		}
+		
+		final List<T> references = new PageableSortableCollectionQuerier<>(
+			this.copier,
+			keysetCriteria,
+			position.scrollsForward() ? keysetSort : reverse(keysetSort),
+			windowLimit.isLimited() ? limitOf(windowLimit.max() + 1L) : Limit.unlimited()
+		).getEntityReferences(entities, null, clazz, null);
+		
+		final boolean hasNext = isLargerThanWindow(references, windowLimit);
+		final List<T> windowReferences = new ArrayList<>(limitToWindow(references, windowLimit));
+		if(position.scrollsBackward())
+		{
+			Collections.reverse(windowReferences);
+		}
+		// The positions are read right away, since the entities may change after the query.
+		final List<ScrollPosition> positions = windowReferences
+			.stream()
+			.map(entity -> (ScrollPosition)ScrollPosition.of(
+				toKeyMap(orders, sortKeys.readKeys(entity)),
+				position.getDirection()))
+			.toList();
+		final IntFunction<ScrollPosition> positionFunction = positions::get;
+		return Window.from(this.copy(windowReferences), positionFunction, hasNext);
+	}
+	
+	/**
+	 * Adds the id field to the sort, so that the keys of every entity are unique.
+	 */
+	private Sort createKeysetSort(final Class<T> clazz)
+	{
+		final Optional<Field> idField = AnnotatedFieldFinder.findIdField(clazz);
+		if(idField.isPresent()
+			&& this.sort.getOrderFor(idField.get().getName()) == null
+			&& Comparable.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(idField.get().getType())))
+		{
+			return this.sort.and(Sort.by(idField.get().getName()));
+		}
+		return this.sort;
+	}
+	
+	private Limit getWindowLimit(final Optional<Limit> limitParameter)
+	{
+		if(limitParameter.isEmpty() || limitParameter.get().isUnlimited())
+		{
+			return this.limit;
+		}
+		if(this.limit.isUnlimited())
+		{
+			return limitParameter.get();
+		}
+		return Limit.of(Math.min(this.limit.max(), limitParameter.get().max()));
+	}
+	
+	private List<T> copy(final List<T> references)
+	{
+		return references.stream().map(this.copier::copy).toList();
+	}
+	
+	private static Limit limitOf(final long max)
+	{
+		return max > Integer.MAX_VALUE ? Limit.unlimited() : Limit.of((int)max);
+	}
+	
+	private static boolean isLargerThanWindow(final List<?> references, final Limit windowLimit)
+	{
+		return windowLimit.isLimited() && references.size() > windowLimit.max();
+	}
+	
+	private static <T> List<T> limitToWindow(final List<T> references, final Limit windowLimit)
+	{
+		return isLargerThanWindow(references, windowLimit) ? references.subList(0, windowLimit.max()) : references;
+	}
+	
+	private static <V> Optional<V> findValue(@Nullable final Object[] values, final Class<V> type)
+	{
+		if(values != null)
+		{
+			for(final Object value : values)
+			{
+				if(type.isInstance(value))
+				{
+					return Optional.of(type.cast(value));
+				}
+			}
+		}
+		return Optional.empty();
+	}
+	
+	@Nullable
+	private static Object getKey(final KeysetScrollPosition position, final String property)
+	{
+		if(!position.getKeys().containsKey(property))
+		{
+			throw new IllegalArgumentException(String.format(
+				"Keyset scroll position does not contain a key for property %s",
+				property));
+		}
+		return position.getKeys().get(property);
+	}
+	
+	private static Map<String, Object> toKeyMap(final List<Sort.Order> orders, final Object[] keys)
+	{
+		final Map<String, Object> keyMap = new LinkedHashMap<>();
+		for(int i = 0; i < keys.length; i++)
+		{
+			keyMap.put(orders.get(i).getProperty(), keys[i]);
+		}
+		return keyMap;
+	}
+	
+	/**
+	 * Creates the range that contains all entities after the key in the first order. The range is only created, if
+	 * it matches the order of an index.
+	 */
+	@Nullable
+	private static IndexRange createRangeOfFirstKey(
+		final Sort.Order order,
+		@Nullable final Object key,
+		final boolean forward)
+	{
+		if(key == null || order.isIgnoreCase() || order.getNullHandling() != Sort.NullHandling.NATIVE)
+		{
+			return null;
+		}
+		return order.isAscending() == forward
+			? IndexRange.greaterThan(order.getProperty(), key, true)
+			: IndexRange.lessThan(order.getProperty(), key, true);
+	}
+	
+	private static Sort reverse(final Sort sort)
+	{
+		return Sort.by(sort
+			.stream()
+			.map(order -> order
+				.with(order.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC)
+				.with(reverse(order.getNullHandling())))
+			.toList());
+	}
+	
+	private static Sort.NullHandling reverse(final Sort.NullHandling nullHandling)
+	{
+		return switch(nullHandling)
+		{
+			case NULLS_FIRST -> Sort.NullHandling.NULLS_LAST;
+			case NULLS_LAST -> Sort.NullHandling.NULLS_FIRST;
+			case NATIVE -> Sort.NullHandling.NATIVE;
+		};
+	}
+	
+	/**
+	 * Only accepts the entities that are sorted after (or before, if scrolling backward) the keys of a position.
+	 */
+	private record KeysetCriteria<T>(
+		Criteria<T> criteria,
+		SortKeys<T> sortKeys,
+		Object[] positionKeys,
+		boolean forward,
+		@Nullable IndexRange rangeOfFirstKey) implements Criteria<T>
+	{
+		@Override
+		public boolean evaluate(@Nullable final T object)
+		{
+			if(object == null || !this.criteria.evaluate(object))
+			{
+				return false;
+			}
+			final int comparison = this.sortKeys.compareKeys(this.sortKeys.readKeys(object), this.positionKeys);
+			return this.forward ? comparison > 0 : comparison < 0;
+		}
+		
+		@Override
+		public List<IndexRange> getIndexRanges()
+		{
+			if(this.rangeOfFirstKey == null)
+			{
+				return this.criteria.getIndexRanges();
+			}
+			final List<IndexRange> ranges = new ArrayList<>(this.criteria.getIndexRanges());
+			ranges.add(this.rangeOfFirstKey);
+			return ranges;
+		}
+	}
+}
@@ -65,17 +65,24 @@ public class SingleOptionalQueryExecutor<T> implements QueryExecutor<T>
 		{
 			return Optional.empty();
 		}
-		Stream<? extends T> entityStream = entities
-			.stream()
-			.filter(this.criteria::evaluate)
-			.map(this.copier::copy);
-		
-		if(this.staticSort.isPresent())
+		final Stream<? extends T> entityStream;
+		if(this.staticSort.isPresent() && this.staticSort.get().isSorted())
+		{
+			entityStream = EntitySorter
+				.streamOrderedByIndex(entities, this.criteria, clazz, this.staticSort.get(), true)
+				// Only the first entity is needed, so the entities are not sorted completely.
+				.orElseGet(() -> EntitySorter
+					.collectTopEntities(clazz, this.staticSort.get(), entities.stream(this.criteria), 1)
+					.toSortedList()
+					.stream());
+		}
+		else
 		{
-			entityStream = EntitySorter.sortEntitiesStream(clazz, this.staticSort.get(), entityStream);
+			entityStream = entities.stream(this.criteria);
 		}
 		
-		final Optional<? extends T> result = entityStream.findFirst();
+		// Only the found entity is copied.
+		final Optional<? extends T> result = entityStream.findFirst().map(this.copier::copy);
 		if(LOG.isDebugEnabled())
 		{
 			LOG.debug(
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.core.PropertyPath;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ClassUtils;
+
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedPropertyPath;
+import software.xdev.spring.data.eclipse.store.util.GenericObjectComparer;
+
+
+/**
+ * The keys of all {@link Sort.Order}s of a sort. The keys of an entity are read once into an {@link Entry}, so that
+ * comparing entities does not have to read their fields again.
+ *
+ * @param <T> type of the sorted entities
+ */
+final class SortKeys<T>
+{
+	private final List<ReflectedField<T, ?>> fields = new ArrayList<>();
+	private final List<Comparator<Object>> keyComparators = new ArrayList<>();
+	private final Comparator<Entry<T>> entryComparator;
+	
+	private SortKeys(final Class<T> clazz, final Sort sort)
+	{
+		for(final Sort.Order order : sort)
+		{
+			final ReflectedField<T, ?> field = getField(clazz, order.getProperty());
+			this.fields.add(field);
+			this.keyComparators.add(createKeyComparator(field.getType(), order));
+		}
+		// Equal entities keep the order in which they were read.
+		this.entryComparator = (e1, e2) -> {
+			final int result = this.compareKeys(e1.keys(), e2.keys());
+			return result != 0 ? result : Long.compare(e1.position(), e2.position());
+		};
+	}
+	
+	/**
+	 * @return the keys of the sort or {@code null} if the sort has no orders.
+	 */
+	@Nullable
+	static <T> SortKeys<T> create(final Class<T> clazz, @Nullable final Sort sort)
+	{
+		if(sort == null || sort.isUnsorted())
+		{
+			return null;
+		}
+		return new SortKeys<>(clazz, sort);
+	}
+	
+	private static <T> ReflectedField<T, ?> getField(final Class<T> clazz, final String property)
+	{
+		if(property.contains("."))
+		{
+			final ReflectedField<T, ?> path = ReflectedPropertyPath.create(clazz, PropertyPath.from(property, clazz));
+			if(path.isMultiValued())
+			{
+				throw new NotComparableException("Could not sort entities by path with multiple values " + property);
+			}
+			return path;
+		}
+		try
+		{
+			final Field field = AccessHelper.getInheritedPrivateField(clazz, property);
+			return new ReflectedField<>(field);
+		}
+		catch(final NoSuchFieldException e)
+		{
+			throw new NotComparableException("Could not sort entities by property " + property, e);
+		}
+	}
+	
+	/**
+	 * Creates a comparator that already includes the direction, the null handling and the case sensitivity of the
+	 * order. Keys of comparable types are compared directly without checking their types for every comparison.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Comparator<Object> createKeyComparator(final Class<?> keyType, final Sort.Order order)
+	{
+		final Comparator<Object> nonNullComparator;
+		if(order.isIgnoreCase() && keyType == String.class)
+		{
+			nonNullComparator = (k1, k2) -> String.CASE_INSENSITIVE_ORDER.compare((String)k1, (String)k2);
+		}
+		else if(Comparable.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(keyType)))
+		{
+			nonNullComparator = (k1, k2) -> ((Comparable)k1).compareTo(k2);
+		}
+		else
+		{
+			nonNullComparator = GenericObjectComparer::compare;
+		}
+		final Comparator<Object> directedComparator =
+			order.isDescending() ? nonNullComparator.reversed() : nonNullComparator;
+		return switch(order.getNullHandling())
+		{
+			case NULLS_FIRST -> Comparator.nullsFirst(directedComparator);
+			case NULLS_LAST -> Comparator.nullsLast(directedComparator);
+			// null is the smallest value, just like in the GenericObjectComparer.
+			case NATIVE -> order.isDescending()
+				? Comparator.nullsLast(directedComparator)
+				: Comparator.nullsFirst(directedComparator);
+		};
+	}
+	
+	/**
+	 * Reads all keys of the entity.
+	 *
+	 * @param position of the entity in the sorted stream
+	 */
+	Entry<T> createEntry(final T entity, final long position)
+	{
+		return new Entry<>(entity, this.readKeys(entity), position);
+	}
+	
+	/**
+	 * @return the keys of the entity in the order of the sort.
+	 */
+	Object[] readKeys(final T entity)
+	{
+		final Object[] keys = new Object[this.fields.size()];
+		for(int i = 0; i < keys.length; i++)
+		{
+			keys[i] = this.fields.get(i).readValue(entity);
+		}
+		return keys;
+	}
+	
+	/**
+	 * Compares the keys by all orders of the sort.
+	 */
+	int compareKeys(final Object[] keys1, final Object[] keys2)
+	{
+		for(int i = 0; i < keys1.length; i++)
+		{
+			final int result = this.keyComparators.get(i).compare(keys1[i], keys2[i]);
+			if(result != 0)
+			{
+				return result;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return {@code true} if the entries have the same key for the first order of the sort.
+	 */
+	boolean hasEqualFirstKey(final Entry<T> entry1, final Entry<T> entry2)
+	{
+		return this.keyComparators.get(0).compare(entry1.keys()[0], entry2.keys()[0]) == 0;
+	}
+	
+	/**
+	 * Compares the entries by all orders of the sort. Entries with equal keys are ordered by their position.
+	 */
+	Comparator<Entry<T>> entryComparator()
+	{
+		return this.entryComparator;
+	}
+	
+	record Entry<T>(T entity, Object[] keys, long position)
+	{
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import jakarta.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Queries entities and returns the result as a stream. Each entity is copied only when the consumer pulls it from the
+ * stream, so a large result never has to be held as working copies at once.
+ * <p>
+ * While executing, only the references to the found entities are collected as a snapshot. The stream is therefore not
+ * affected by changes of the storage and doesn't hold any lock while it is consumed. The snapshot is released when
+ * the stream is closed.
+ * </p>
+ *
+ * @param <T> Entity-Type to query
+ */
+public class StreamQueryExecutor<T> implements QueryExecutor<T>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(StreamQueryExecutor.class);
+	private final PageableSortableCollectionQuerier<T> querier;
+	private final WorkingCopier<T> copier;
+	@Nullable
+	private final ReadWriteLock copyLock;
+	
+	public StreamQueryExecutor(
+		final WorkingCopier<T> copier,
+		final Criteria<T> criteria,
+		final Sort sort,
+		final Limit limit)
+	{
+		this(copier, criteria, sort, limit, null);
+	}
+	
+	/**
+	 * @param copyLock if set, its read lock is acquired while copying a single entity, so that the entity is not copied
+	 *                 while it is changed.
+	 */
+	public StreamQueryExecutor(
+		final WorkingCopier<T> copier,
+		final Criteria<T> criteria,
+		final Sort sort,
+		final Limit limit,
+		@Nullable final ReadWriteLock copyLock)
+	{
+		this.querier = new PageableSortableCollectionQuerier<>(copier, criteria, sort, limit);
+		this.copier = Objects.requireNonNull(copier);
+		this.copyLock = copyLock;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @return a stream of the found/sorted/paged entities that are copied while the stream is consumed
+	 */
+	@Override
+	public Stream<T> execute(
+		final Class<T> clazz,
+		@Nullable final EntityProvider<T, ?> entities,
+		@Nullable final Object[] values)
+	{
+		Objects.requireNonNull(clazz);
+		if(entities == null || entities.isEmpty())
+		{
+			return Stream.empty();
+		}
+		Pageable pageable = null;
+		Sort sort = null;
+		if(values != null && values.length > 0)
+		{
+			if(values[values.length - 1] instanceof final Pageable pageableValue)
+			{
+				pageable = pageableValue;
+				sort = pageableValue.getSort();
+			}
+			else if(values[values.length - 1] instanceof final Sort sortValue)
+			{
+				sort = sortValue;
+			}
+		}
+		final List<T> snapshot = this.querier.getEntityReferences(entities, pageable, clazz, sort);
+		if(LOG.isTraceEnabled())
+		{
+			LOG.trace("Found {} entries to stream.", snapshot.size());
+		}
+		return snapshot
+			.stream()
+			.map(this::copy)
+			.onClose(snapshot::clear);
+	}
+	
+	private T copy(final T entity)
+	{
+		if(this.copyLock == null)
+		{
+			return this.copier.copy(entity);
+		}
+		return this.copyLock.read(() -> this.copier.copy(entity));
+	}
+}
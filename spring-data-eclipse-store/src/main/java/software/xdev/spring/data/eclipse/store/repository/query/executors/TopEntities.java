@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+
+/**
+ * Keeps the first entities of a sort order while entities are added, without sorting all of them. The entities are
+ * held in a bounded heap, so at most {@code maxCount} entities are held at a time and adding an entity takes
+ * {@code O(log maxCount)}.
+ * <p>
+ * Equal entities keep the order in which they were added, just like with {@link java.util.stream.Stream#sorted()}.
+ * </p>
+ *
+ * @param <T> type of the entities
+ */
+final class TopEntities<T>
+{
+	private final SortKeys<T> sortKeys;
+	private final int maxCount;
+	/**
+	 * The head of the heap is the greatest of the kept entities, so it is the one that is replaced first.
+	 */
+	private final PriorityQueue<SortKeys.Entry<T>> heap;
+	private long count;
+	
+	TopEntities(final SortKeys<T> sortKeys, final int maxCount)
+	{
+		this.sortKeys = Objects.requireNonNull(sortKeys);
+		this.maxCount = maxCount;
+		this.heap = new PriorityQueue<>(Math.min(maxCount, 1024) + 1, sortKeys.entryComparator().reversed());
+	}
+	
+	void add(final T entity)
+	{
+		final SortKeys.Entry<T> entry = this.sortKeys.createEntry(entity, this.count++);
+		if(this.heap.size() < this.maxCount)
+		{
+			this.heap.add(entry);
+		}
+		else if(this.maxCount > 0 && this.sortKeys.entryComparator().compare(entry, this.heap.element()) < 0)
+		{
+			this.heap.remove();
+			this.heap.add(entry);
+		}
+	}
+	
+	/**
+	 * @return the count of all added entities, not only of the kept ones.
+	 */
+	long getCount()
+	{
+		return this.count;
+	}
+	
+	/**
+	 * @return the kept entities in sort order.
+	 */
+	List<T> toSortedList()
+	{
+		final List<SortKeys.Entry<T>> entries = new ArrayList<>(this.heap);
+		entries.sort(this.sortKeys.entryComparator());
+		return entries.stream().map(SortKeys.Entry::entity).toList();
+	}
+}
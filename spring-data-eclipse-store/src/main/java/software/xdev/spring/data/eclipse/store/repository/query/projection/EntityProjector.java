@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.projection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.PreferredConstructorDiscoverer;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.query.ReturnedType;
+
+import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.DataTypeUtil;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+
+
+/**
+ * Creates projections of stored entities. Only the fields that the projection needs are read from the original
+ * entity, so no working copy of the whole entity is created.
+ * <p>
+ * Supported are closed interface projections and DTOs that receive the properties through their constructor. Values
+ * of immutable types (like {@link String}, numbers or dates) are passed on as they are. All other values are copied,
+ * so that changes to the projection never reach the stored entity. Open interface projections (with {@code @Value}
+ * expressions) need the whole entity and are therefore created from a working copy.
+ * </p>
+ *
+ * @param <T> type of the projected entities
+ */
+public final class EntityProjector<T>
+{
+	private final Function<T, Object> projection;
+	
+	private EntityProjector(final Function<T, Object> projection)
+	{
+		this.projection = projection;
+	}
+	
+	/**
+	 * @param returnedType type that the query returns
+	 * @param copier       that copies values of mutable types
+	 * @param factory      that creates interface projections
+	 * @param properties   the only properties that are read. All other properties of the projection are
+	 *                     {@code null}. If empty, all properties of the projection are read.
+	 * @return the projector or {@link Optional#empty()} if the returned type is not a projection of the domain type.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Optional<EntityProjector<T>> create(
+		final ReturnedType returnedType,
+		final WorkingCopier<T> copier,
+		final ProjectionFactory factory,
+		final Collection<String> properties)
+	{
+		Objects.requireNonNull(copier);
+		Objects.requireNonNull(factory);
+		if(!returnedType.isProjecting())
+		{
+			return Optional.empty();
+		}
+		final Class<T> domainClass = (Class<T>)returnedType.getDomainType();
+		final Class<?> projectionType = returnedType.getReturnedType();
+		final Map<String, Field> fieldsByName = AccessHelper.getInheritedPrivateFieldsByName(domainClass);
+		final Set<String> readProperties = toFieldNames(properties, fieldsByName, domainClass);
+		
+		if(returnedType.isInterfaceProjection())
+		{
+			if(!returnedType.needsCustomConstruction()
+				|| !fieldsByName.keySet().containsAll(returnedType.getInputProperties()))
+			{
+				// Open projections may evaluate expressions on the whole entity.
+				return Optional.of(new EntityProjector<>(
+					entity -> factory.createProjection(projectionType, copier.copy(entity))));
+			}
+			final List<ProjectedProperty<T>> projectedProperties =
+				createProjectedProperties(returnedType, fieldsByName, readProperties);
+			return Optional.of(new EntityProjector<>(entity -> {
+				final Map<String, Object> values = new HashMap<>();
+				projectedProperties.forEach(property -> values.put(property.name(), property.read(entity, copier)));
+				return factory.createProjection(projectionType, values);
+			}));
+		}
+		
+		final PreferredConstructor<?, ?> preferredConstructor = PreferredConstructorDiscoverer.discover(projectionType);
+		if(preferredConstructor == null || !returnedType.hasInputProperties())
+		{
+			throw new IllegalArgumentException(String.format(
+				"Projection %s needs a constructor with the properties of %s as parameters",
+				projectionType.getSimpleName(),
+				domainClass.getSimpleName()));
+		}
+		for(final String inputProperty : returnedType.getInputProperties())
+		{
+			if(!fieldsByName.containsKey(inputProperty))
+			{
+				throw new IllegalArgumentException(String.format(
+					"Parameter %s of the projection %s is not a field of %s",
+					inputProperty,
+					projectionType.getSimpleName(),
+					domainClass.getSimpleName()));
+			}
+		}
+		final Constructor<?> constructor = preferredConstructor.getConstructor();
+		final List<ProjectedProperty<T>> constructorArguments =
+			createProjectedProperties(returnedType, fieldsByName, readProperties);
+		return Optional.of(new EntityProjector<>(entity -> BeanUtils.instantiateClass(
+			constructor,
+			constructorArguments.stream().map(argument -> argument.read(entity, copier)).toArray())));
+	}
+	
+	/**
+	 * @return the names of the fields that the given properties (or property paths) start with.
+	 */
+	private static Set<String> toFieldNames(
+		final Collection<String> properties,
+		final Map<String, Field> fieldsByName,
+		final Class<?> domainClass)
+	{
+		final Set<String> fieldNames = properties
+			.stream()
+			.map(property -> property.contains(".") ? property.substring(0, property.indexOf('.')) : property)
+			.collect(Collectors.toSet());
+		for(final String fieldName : fieldNames)
+		{
+			if(!fieldsByName.containsKey(fieldName))
+			{
+				throw new IllegalArgumentException(String.format(
+					"Property %s is not a field of %s",
+					fieldName,
+					domainClass.getSimpleName()));
+			}
+		}
+		return fieldNames;
+	}
+	
+	private static <T> List<ProjectedProperty<T>> createProjectedProperties(
+		final ReturnedType returnedType,
+		final Map<String, Field> fieldsByName,
+		final Set<String> readProperties)
+	{
+		return returnedType.getInputProperties()
+			.stream()
+			.map(name -> new ProjectedProperty<T>(
+				name,
+				readProperties.isEmpty() || readProperties.contains(name)
+					? new ReflectedField<>(fieldsByName.get(name))
+					: null))
+			.toList();
+	}
+	
+	/**
+	 * @param entity the original entity in the storage. It is not changed.
+	 * @return the projection of the entity.
+	 */
+	public Object project(final T entity)
+	{
+		return this.projection.apply(Objects.requireNonNull(entity));
+	}
+	
+	/**
+	 * @param field is {@code null} if the property is not read
+	 */
+	private record ProjectedProperty<T>(String name, @Nullable ReflectedField<T, ?> field)
+	{
+		@Nullable
+		private Object read(final T entity, final WorkingCopier<T> copier)
+		{
+			if(this.field == null)
+			{
+				return null;
+			}
+			final Object value = this.field.readValue(entity);
+			return value == null || DataTypeUtil.isImmutableValue(value) ? value : copier.onlyCreateCopy(value, false);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.projection;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.query.ReturnedType;
+
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopierResult;
+
+
+/**
+ * Hands out projections instead of working copies, so that every
+ * {@link software.xdev.spring.data.eclipse.store.repository.query.executors.QueryExecutor} can return projections.
+ * The executors only pass the created objects on, so the projections are returned in place of the entities.
+ * <p>
+ * Projections are not registered as working copies and can therefore not be merged back.
+ * </p>
+ *
+ * @param <T> type of the projected entities
+ */
+public class ProjectingWorkingCopier<T> implements WorkingCopier<T>
+{
+	private final WorkingCopier<T> copier;
+	private final EntityProjector<T> projector;
+	
+	public ProjectingWorkingCopier(final WorkingCopier<T> copier, final EntityProjector<T> projector)
+	{
+		this.copier = Objects.requireNonNull(copier);
+		this.projector = Objects.requireNonNull(projector);
+	}
+	
+	/**
+	 * @return a {@link ProjectingWorkingCopier} if the returned type is a projection, otherwise the given copier.
+	 */
+	public static <T> WorkingCopier<T> forReturnedType(
+		final WorkingCopier<T> copier,
+		final ReturnedType returnedType,
+		final ProjectionFactory factory)
+	{
+		return forReturnedType(copier, returnedType, factory, List.of());
+	}
+	
+	/**
+	 * @param properties the only properties that are read (see
+	 *                   {@link EntityProjector#create(ReturnedType, WorkingCopier, ProjectionFactory, Collection)})
+	 * @return a {@link ProjectingWorkingCopier} if the returned type is a projection, otherwise the given copier.
+	 */
+	public static <T> WorkingCopier<T> forReturnedType(
+		final WorkingCopier<T> copier,
+		final ReturnedType returnedType,
+		final ProjectionFactory factory,
+		final Collection<String> properties)
+	{
+		return EntityProjector.create(returnedType, copier, factory, properties)
+			.<WorkingCopier<T>>map(projector -> new ProjectingWorkingCopier<>(copier, projector))
+			.orElse(copier);
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public T copy(final T objectToCopy)
+	{
+		return (T)this.projector.project(objectToCopy);
+	}
+	
+	@Override
+	public <L extends Collection<T>> L copy(final L objectCollectionToCopy)
+	{
+		throw new UnsupportedOperationException("Collections of entities are not projected");
+	}
+	
+	@Override
+	public WorkingCopierResult<T> mergeBack(final T workingCopy)
+	{
+		throw new UnsupportedOperationException("Projections can not be merged back");
+	}
+	
+	@Override
+	public <E> E onlyCreateCopy(final E objectToCopy, final boolean invertRegistry)
+	{
+		return this.copier.onlyCreateCopy(objectToCopy, invertRegistry);
+	}
+	
+	@Override
+	public T getOriginal(final T workingCopy)
+	{
+		throw new UnsupportedOperationException("Projections have no original entity");
+	}
+	
+	@Override
+	public void deregister(final T workingCopy)
+	{
+		// Projections are never registered.
+	}
+}
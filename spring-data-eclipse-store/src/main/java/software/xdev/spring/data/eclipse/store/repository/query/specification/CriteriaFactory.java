@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.specification;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import jakarta.annotation.Nullable;
+
+import org.springframework.data.core.PropertyPath;
+
+import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedPropertyPath;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.AbstractCriteriaNode;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.CriteriaSingleNode;
+
+
+/**
+ * Creates the criteria of {@link EclipseStoreSpecification}s for a single entity type.
+ *
+ * @param <T> type of the queried entities
+ */
+public class CriteriaFactory<T>
+{
+	private final Class<T> domainClass;
+	@Nullable
+	private final EntityListProvider entityListProvider;
+	
+	public CriteriaFactory(final Class<T> domainClass)
+	{
+		this(domainClass, null);
+	}
+	
+	/**
+	 * @param entityListProvider provides the entities of other types for
+	 *                           {@link EclipseStoreSpecification#existsIn(String, Class, String,
+	 *                           EclipseStoreSpecification) joins}. The criteria must be created within the read lock
+	 *                           of this provider.
+	 */
+	public CriteriaFactory(final Class<T> domainClass, @Nullable final EntityListProvider entityListProvider)
+	{
+		this.domainClass = Objects.requireNonNull(domainClass);
+		this.entityListProvider = entityListProvider;
+	}
+	
+	/**
+	 * @param property the (possibly nested) property to check, e.g. {@code "address.city"}
+	 * @return new criteria on which the conditions of the property are set, e.g. {@code where("age").gte(18)}
+	 */
+	public AbstractCriteriaNode<T> where(final String property)
+	{
+		return new CriteriaSingleNode<>(this.property(property));
+	}
+	
+	/**
+	 * @return new criteria that matches every entity.
+	 */
+	public AbstractCriteriaNode<T> all()
+	{
+		return new CriteriaSingleNode<>();
+	}
+	
+	/**
+	 * @param property the (possibly nested) property, e.g. to check another property of the same criteria with
+	 *                 {@link AbstractCriteriaNode#and(ReflectedField)}
+	 */
+	public ReflectedField<T, ?> property(final String property)
+	{
+		return ReflectedPropertyPath.create(this.domainClass, PropertyPath.from(property, this.domainClass));
+	}
+	
+	/**
+	 * Collects the values of a property of all stored entities of another type that match the specification. This is
+	 * the build side of a hash join: the entities are neither copied nor kept, only the values of the property.
+	 *
+	 * @param domainClass   the other entity type
+	 * @param property      the (possibly nested) property of the other type, e.g. {@code "id"}
+	 * @param specification that the entities of the other type must match
+	 * @return all values of the property except {@code null}.
+	 */
+	public <F> Set<Object> collectValues(
+		final Class<F> domainClass,
+		final String property,
+		final EclipseStoreSpecification<F> specification)
+	{
+		if(this.entityListProvider == null)
+		{
+			throw new IllegalStateException(String.format(
+				"Entities of %s can not be joined without an entity list provider.",
+				domainClass.getSimpleName()));
+		}
+		final CriteriaFactory<F> factory = new CriteriaFactory<>(domainClass, this.entityListProvider);
+		final ReflectedField<F, ?> field = factory.property(property);
+		final EntityProvider<F, Object> entityProvider = this.entityListProvider.getEntityProvider(domainClass);
+		if(entityProvider == null)
+		{
+			throw new IllegalArgumentException(String.format(
+				"Entities of %s can not be joined, because they are not managed by any repository.",
+				domainClass.getSimpleName()));
+		}
+		final Set<Object> values = new HashSet<>();
+		entityProvider.stream(specification.toCriteria(factory)).forEach(
+			entity -> field.anyValueMatches(entity, value -> {
+				if(value != null)
+				{
+					values.add(value);
+				}
+				// No value matches, so that all values of multi-valued properties are visited.
+				return false;
+			}));
+		return values;
+	}
+	
+	public Class<T> getDomainClass()
+	{
+		return this.domainClass;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.specification;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import org.springframework.data.util.Streamable;
+
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.AbstractCriteriaNode;
+
+
+/**
+ * Programmatic criteria for dynamic queries, e.g. from search screens, that can't be expressed as a derived query
+ * method. Specifications are combined with {@link #and(EclipseStoreSpecification)} and
+ * {@link #or(EclipseStoreSpecification)}:
+ * <pre>{@code
+ * EclipseStoreSpecification<Order> spec = EclipseStoreSpecification.<Order>where("status", c -> c.is(OPEN))
+ *     .and(EclipseStoreSpecification.where("total", c -> c.gte(100)))
+ *     .or(EclipseStoreSpecification.where("customer.city", c -> c.like("Re%", true)));
+ * }</pre>
+ * <p>
+ * Ranges and equality on {@link software.xdev.spring.data.eclipse.store.repository.index.Indexed indexed} properties
+ * are answered by the index of the most selective condition. All other conditions are checked on the found
+ * candidates only.
+ * </p>
+ *
+ * @param <T> type of the queried entities
+ * @see software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreSpecificationExecutor
+ */
+@FunctionalInterface
+public interface EclipseStoreSpecification<T>
+{
+	/**
+	 * Creates the criteria of this specification.
+	 *
+	 * @param factory resolves the properties of the entities
+	 */
+	AbstractCriteriaNode<T> toCriteria(CriteriaFactory<T> factory);
+	
+	/**
+	 * @param property  the (possibly nested) property to check, e.g. {@code "address.city"}
+	 * @param condition applies the conditions to the criteria of the property, e.g. {@code c -> c.between(1, 10)}
+	 */
+	static <T> EclipseStoreSpecification<T> where(
+		final String property,
+		final UnaryOperator<AbstractCriteriaNode<T>> condition)
+	{
+		Objects.requireNonNull(property);
+		Objects.requireNonNull(condition);
+		return factory -> condition.apply(factory.where(property));
+	}
+	
+	/**
+	 * Joins the entities with the stored entities of another type, e.g. all orders of customers in a city:
+	 * <pre>{@code
+	 * EclipseStoreSpecification.<Order, Customer>existsIn(
+	 *     "customerId", Customer.class, "id", EclipseStoreSpecification.where("city", c -> c.is("Regensburg")));
+	 * }</pre>
+	 * <p>
+	 * The values of the other type are collected once per query in a hash set. The entities of the other type are
+	 * not copied.
+	 * </p>
+	 *
+	 * @param property         the (possibly nested) property of the queried entities
+	 * @param foreignClass     the other entity type
+	 * @param foreignProperty  the property of the other type that must be equal to {@code property}
+	 * @param foreignCondition that the entities of the other type must match
+	 * @return a specification that matches every entity, for which a matching entity of the other type exists.
+	 */
+	static <T, F> EclipseStoreSpecification<T> existsIn(
+		final String property,
+		final Class<F> foreignClass,
+		final String foreignProperty,
+		final EclipseStoreSpecification<F> foreignCondition)
+	{
+		Objects.requireNonNull(property);
+		Objects.requireNonNull(foreignClass);
+		Objects.requireNonNull(foreignProperty);
+		Objects.requireNonNull(foreignCondition);
+		return factory -> {
+			final Set<Object> values = factory.collectValues(foreignClass, foreignProperty, foreignCondition);
+			// A single value can be found through an index.
+			return values.size() == 1
+				? factory.where(property).is(values.iterator().next())
+				: factory.where(property).in(Streamable.of(values));
+		};
+	}
+	
+	/**
+	 * Like {@link #existsIn(String, Class, String, EclipseStoreSpecification)} for all entities of the other type.
+	 */
+	static <T, F> EclipseStoreSpecification<T> existsIn(
+		final String property,
+		final Class<F> foreignClass,
+		final String foreignProperty)
+	{
+		return existsIn(property, foreignClass, foreignProperty, CriteriaFactory::all);
+	}
+	
+	default EclipseStoreSpecification<T> and(final EclipseStoreSpecification<T> other)
+	{
+		Objects.requireNonNull(other);
+		return factory -> this.toCriteria(factory).andOperator(other.toCriteria(factory));
+	}
+	
+	default EclipseStoreSpecification<T> or(final EclipseStoreSpecification<T> other)
+	{
+		Objects.requireNonNull(other);
+		return factory -> this.toCriteria(factory).orOperator(other.toCriteria(factory));
+	}
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.statistics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.Nullable;
+
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+
+
+/**
+ * Statistics of a single execution of a query: the plan that was chosen, the count of entities in every step and the
+ * time that was spent in every phase.
+ * <p>
+ * While a query is executed, its statistics are bound to the executing thread, so that the steps of the query (e.g.
+ * the {@link software.xdev.spring.data.eclipse.store.core.EntityProvider} or the copier) can report to them without
+ * passing them along. If no statistics are bound to the thread, reporting does nothing.
+ * </p>
+ * <p>
+ * The filter time also contains reading the entities and applying the page, since these steps are interleaved with
+ * filtering. Sorting is only timed separately if all matching entities are sorted at once.
+ * </p>
+ */
+public class QueryExecutionStatistics
+{
+	private static final ThreadLocal<QueryExecutionStatistics> CURRENT = new ThreadLocal<>();
+	private static final ThreadLocal<List<QueryExecutionStatistics>> EXPLAINED = new ThreadLocal<>();
+	
+	private final String queryName;
+	@Nullable
+	private final QueryExecutionStatistics enclosingExecution;
+	private final long startNanos = System.nanoTime();
+	private final List<String> plan = new ArrayList<>();
+	private final LongAdder scannedCount = new LongAdder();
+	private final LongAdder matchedCount = new LongAdder();
+	private boolean parallel;
+	private long sortedCount;
+	private long copiedCount;
+	private long sortNanos;
+	private long copyNanos;
+	private long totalNanos;
+	
+	private QueryExecutionStatistics(
+		final String queryName,
+		@Nullable final QueryExecutionStatistics enclosingExecution)
+	{
+		this.queryName = queryName;
+		this.enclosingExecution = enclosingExecution;
+	}
+	
+	/**
+	 * Starts recording an execution of a query on the current thread.
+	 */
+	static QueryExecutionStatistics start(final String queryName)
+	{
+		final QueryExecutionStatistics execution = new QueryExecutionStatistics(queryName, CURRENT.get());
+		CURRENT.set(execution);
+		return execution;
+	}
+	
+	/**
+	 * Stops recording this execution and unbinds it from the current thread.
+	 */
+	void finish()
+	{
+		this.totalNanos = System.nanoTime() - this.startNanos;
+		if(this.enclosingExecution == null)
+		{
+			CURRENT.remove();
+		}
+		else
+		{
+			CURRENT.set(this.enclosingExecution);
+		}
+		final List<QueryExecutionStatistics> explained = EXPLAINED.get();
+		if(explained != null)
+		{
+			explained.add(this);
+		}
+	}
+	
+	/**
+	 * Executes the given queries and records the statistics of every query that is executed on the current thread,
+	 * even if statistics are not enabled for the storage.
+	 *
+	 * @return the statistics of the executed queries in the order in which they finished
+	 */
+	public static List<QueryExecutionStatistics> explain(final Runnable queries)
+	{
+		final List<QueryExecutionStatistics> enclosingExplained = EXPLAINED.get();
+		final List<QueryExecutionStatistics> explained = new ArrayList<>();
+		EXPLAINED.set(explained);
+		try
+		{
+			queries.run();
+		}
+		finally
+		{
+			if(enclosingExplained == null)
+			{
+				EXPLAINED.remove();
+			}
+			else
+			{
+				enclosingExplained.addAll(explained);
+				EXPLAINED.set(enclosingExplained);
+			}
+		}
+		return explained;
+	}
+	
+	static boolean isExplaining()
+	{
+		return EXPLAINED.get() != null;
+	}
+	
+	/**
+	 * @return the statistics of the query that is currently executed on this thread or {@code null} if no statistics
+	 * are recorded.
+	 */
+	@Nullable
+	public static QueryExecutionStatistics current()
+	{
+		return CURRENT.get();
+	}
+	
+	public static boolean isRecording()
+	{
+		return CURRENT.get() != null;
+	}
+	
+	/**
+	 * @return criteria that counts the scanned and matched entities for the query that is currently executed on this
+	 * thread. The entities are also counted if the criteria is evaluated by other threads. Returns the given criteria
+	 * if no statistics are recorded.
+	 */
+	public static <T> Criteria<T> track(final Criteria<T> criteria)
+	{
+		final QueryExecutionStatistics execution = CURRENT.get();
+		if(execution == null)
+		{
+			return criteria;
+		}
+		return new Criteria<>()
+		{
+			@Override
+			public boolean evaluate(@Nullable final T object)
+			{
+				execution.scannedCount.increment();
+				final boolean matches = criteria.evaluate(object);
+				if(matches)
+				{
+					execution.matchedCount.increment();
+				}
+				return matches;
+			}
+			
+			@Override
+			public List<IndexRange> getIndexRanges()
+			{
+				return criteria.getIndexRanges();
+			}
+			
+			@Override
+			public boolean acceptsAll()
+			{
+				return criteria.acceptsAll();
+			}
+		};
+	}
+	
+	/**
+	 * Adds a step of the plan (e.g. which index is read) to the query that is currently executed on this thread.
+	 */
+	public static void recordPlan(final String step)
+	{
+		final QueryExecutionStatistics execution = CURRENT.get();
+		if(execution != null)
+		{
+			execution.plan.add(step);
+		}
+	}
+	
+	public static void recordParallel()
+	{
+		final QueryExecutionStatistics execution = CURRENT.get();
+		if(execution != null)
+		{
+			execution.parallel = true;
+		}
+	}
+	
+	/**
+	 * Counts entities that are scanned and matched without evaluating a {@link Criteria} (e.g. by CQEngine).
+	 */
+	public void recordScanned()
+	{
+		this.scannedCount.increment();
+	}
+	
+	public void recordMatched(final long count)
+	{
+		this.matchedCount.add(count);
+	}
+	
+	/**
+	 * @param nanos time that was spent only for sorting. Is {@code 0} if sorting is interleaved with filtering.
+	 */
+	public static void recordSort(final long count, final long nanos)
+	{
+		final QueryExecutionStatistics execution = CURRENT.get();
+		if(execution != null)
+		{
+			execution.sortedCount += count;
+			execution.sortNanos += nanos;
+		}
+	}
+	
+	public static void recordCopy(final long count, final long nanos)
+	{
+		final QueryExecutionStatistics execution = CURRENT.get();
+		if(execution != null)
+		{
+			execution.copiedCount += count;
+			execution.copyNanos += nanos;
+		}
+	}
+	
+	public String getQueryName()
+	{
+		return this.queryName;
+	}
+	
+	/**
+	 * @return the steps of the plan in the order in which they were chosen (e.g. {@code index on Person.age} or
+	 * {@code full scan of 1000 entities}).
+	 */
+	public List<String> getPlan()
+	{
+		return List.copyOf(this.plan);
+	}
+	
+	public boolean isParallel()
+	{
+		return this.parallel;
+	}
+	
+	public long getScannedCount()
+	{
+		return this.scannedCount.sum();
+	}
+	
+	public long getMatchedCount()
+	{
+		return this.matchedCount.sum();
+	}
+	
+	public long getSortedCount()
+	{
+		return this.sortedCount;
+	}
+	
+	public long getCopiedCount()
+	{
+		return this.copiedCount;
+	}
+	
+	/**
+	 * @return the time for reading, filtering and paging the entities.
+	 */
+	public Duration getFilterTime()
+	{
+		return Duration.ofNanos(Math.max(0, this.totalNanos - this.sortNanos - this.copyNanos));
+	}
+	
+	public Duration getSortTime()
+	{
+		return Duration.ofNanos(this.sortNanos);
+	}
+	
+	public Duration getCopyTime()
+	{
+		return Duration.ofNanos(this.copyNanos);
+	}
+	
+	public Duration getTotalTime()
+	{
+		return Duration.ofNanos(this.totalNanos);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format(
+			Locale.ROOT,
+			"%s: plan=%s, parallel=%s, scanned=%d, matched=%d, sorted=%d, copied=%d, "
+				+ "filter=%.3f ms, sort=%.3f ms, copy=%.3f ms, total=%.3f ms",
+			this.queryName,
+			this.plan,
+			this.parallel,
+			this.getScannedCount(),
+			this.getMatchedCount(),
+			this.sortedCount,
+			this.copiedCount,
+			toMillis(this.getFilterTime()),
+			toMillis(this.getSortTime()),
+			toMillis(this.getCopyTime()),
+			toMillis(this.getTotalTime()));
+	}
+	
+	private static double toMillis(final Duration duration)
+	{
+		return duration.toNanos() / 1_000_000.0;
+	}
+}
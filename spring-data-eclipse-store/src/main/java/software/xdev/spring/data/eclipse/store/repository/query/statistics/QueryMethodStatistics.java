@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.statistics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import jakarta.annotation.Nullable;
+
+
+/**
+ * Statistics of all executions of a single query method (e.g. {@code PersonRepository.findByLastName}), which are
+ * recorded with {@link #record(Supplier)}.
+ * <p>
+ * Executions are only recorded if the {@link QueryStatistics} of the storage are enabled, a slow query log is
+ * configured, debug logging is enabled or the executions are {@link QueryExecutionStatistics#explain(Runnable)
+ * explained}. Otherwise, recording does nothing.
+ * </p>
+ */
+public class QueryMethodStatistics
+{
+	private final QueryStatistics queryStatistics;
+	private final String name;
+	private final LongAdder executionCount = new LongAdder();
+	private final LongAdder slowExecutionCount = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder scannedCount = new LongAdder();
+	private final LongAdder matchedCount = new LongAdder();
+	private final LongAdder copiedCount = new LongAdder();
+	@Nullable
+	private volatile QueryExecutionStatistics lastExecution;
+	
+	QueryMethodStatistics(final QueryStatistics queryStatistics, final String name)
+	{
+		this.queryStatistics = Objects.requireNonNull(queryStatistics);
+		this.name = Objects.requireNonNull(name);
+	}
+	
+	/**
+	 * Executes the query and records its statistics, if statistics are recorded.
+	 */
+	public <R> R record(final Supplier<R> query)
+	{
+		if(!this.queryStatistics.shouldRecord())
+		{
+			return query.get();
+		}
+		final QueryExecutionStatistics execution = QueryExecutionStatistics.start(this.name);
+		try
+		{
+			return query.get();
+		}
+		finally
+		{
+			execution.finish();
+			this.add(execution);
+			this.queryStatistics.log(this, execution);
+		}
+	}
+	
+	private void add(final QueryExecutionStatistics execution)
+	{
+		final long nanos = execution.getTotalTime().toNanos();
+		this.executionCount.increment();
+		this.totalNanos.add(nanos);
+		this.maxNanos.accumulate(nanos);
+		this.scannedCount.add(execution.getScannedCount());
+		this.matchedCount.add(execution.getMatchedCount());
+		this.copiedCount.add(execution.getCopiedCount());
+		this.lastExecution = execution;
+	}
+	
+	void addSlowExecution()
+	{
+		this.slowExecutionCount.increment();
+	}
+	
+	public String getName()
+	{
+		return this.name;
+	}
+	
+	public long getExecutionCount()
+	{
+		return this.executionCount.sum();
+	}
+	
+	/**
+	 * @return the count of executions that took longer than the threshold of the slow query log.
+	 */
+	public long getSlowExecutionCount()
+	{
+		return this.slowExecutionCount.sum();
+	}
+	
+	public Duration getTotalTime()
+	{
+		return Duration.ofNanos(this.totalNanos.sum());
+	}
+	
+	public Duration getMaxTime()
+	{
+		return Duration.ofNanos(this.maxNanos.get());
+	}
+	
+	public Duration getAverageTime()
+	{
+		final long count = this.getExecutionCount();
+		return count == 0 ? Duration.ZERO : Duration.ofNanos(this.totalNanos.sum() / count);
+	}
+	
+	public long getScannedCount()
+	{
+		return this.scannedCount.sum();
+	}
+	
+	public long getMatchedCount()
+	{
+		return this.matchedCount.sum();
+	}
+	
+	public long getCopiedCount()
+	{
+		return this.copiedCount.sum();
+	}
+	
+	/**
+	 * @return the statistics of the latest recorded execution or {@code null} if no execution was recorded yet.
+	 */
+	@Nullable
+	public QueryExecutionStatistics getLastExecution()
+	{
+		return this.lastExecution;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format(
+			"%s: executions=%d, slow=%d, total=%d ms, max=%d ms, scanned=%d, matched=%d, copied=%d",
+			this.name,
+			this.getExecutionCount(),
+			this.getSlowExecutionCount(),
+			this.getTotalTime().toMillis(),
+			this.getMaxTime().toMillis(),
+			this.getScannedCount(),
+			this.getMatchedCount(),
+			this.getCopiedCount());
+	}
+}
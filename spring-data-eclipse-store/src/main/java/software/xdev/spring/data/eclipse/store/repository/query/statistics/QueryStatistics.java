@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.statistics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Holds the {@link QueryMethodStatistics} of all query methods of a storage and logs executed queries.
+ * <p>
+ * If debug logging is enabled for this class, the {@link QueryExecutionStatistics} of every query are logged. Queries
+ * that take at least {@code slowQueryMillis} are logged as warning, so that slow repository methods can be found
+ * without enabling debug logging.
+ * </p>
+ */
+public class QueryStatistics
+{
+	private static final Logger LOG = LoggerFactory.getLogger(QueryStatistics.class);
+	
+	private final boolean enabled;
+	private final long slowQueryMillis;
+	private final Map<String, QueryMethodStatistics> methodStatistics = new ConcurrentHashMap<>();
+	
+	/**
+	 * @param enabled         if {@code true} the statistics of all queries are recorded. Otherwise, they are only
+	 *                        recorded to log them or if they are explained.
+	 * @param slowQueryMillis duration of a query in milliseconds from which it is logged as slow query. If it is
+	 *                        {@code 0} or less, slow queries are not logged.
+	 */
+	public QueryStatistics(final boolean enabled, final long slowQueryMillis)
+	{
+		this.enabled = enabled;
+		this.slowQueryMillis = slowQueryMillis;
+	}
+	
+	public static QueryStatistics disabled()
+	{
+		return new QueryStatistics(false, 0);
+	}
+	
+	/**
+	 * @param name of the query method, e.g. {@code PersonRepository.findByLastName}
+	 * @return the statistics of the method. They are created with the first call for this name.
+	 */
+	public QueryMethodStatistics forMethod(final String name)
+	{
+		return this.methodStatistics.computeIfAbsent(name, methodName -> new QueryMethodStatistics(this, methodName));
+	}
+	
+	/**
+	 * @return the statistics of all methods sorted by their total time, starting with the longest.
+	 */
+	public List<QueryMethodStatistics> getMethodStatistics()
+	{
+		return this.methodStatistics
+			.values()
+			.stream()
+			.sorted(Comparator.comparing(QueryMethodStatistics::getTotalTime).reversed())
+			.toList();
+	}
+	
+	boolean shouldRecord()
+	{
+		return this.enabled
+			|| this.slowQueryMillis > 0
+			|| LOG.isDebugEnabled()
+			|| QueryExecutionStatistics.isExplaining();
+	}
+	
+	void log(final QueryMethodStatistics method, final QueryExecutionStatistics execution)
+	{
+		if(this.slowQueryMillis > 0 && execution.getTotalTime().toMillis() >= this.slowQueryMillis)
+		{
+			method.addSlowExecution();
+			LOG.warn("Slow query {}", execution);
+		}
+		else if(LOG.isDebugEnabled())
+		{
+			LOG.debug("Executed query {}", execution);
+		}
+	}
+}
@@ -18,6 +18,9 @@ package software.xdev.spring.data.eclipse.store.repository.root.v2_4;
 import java.util.Collection;
 import java.util.stream.Stream;
 
+import jakarta.annotation.Nullable;
+
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
 import software.xdev.spring.data.eclipse.store.repository.support.id.IdGetter;
 
 
@@ -33,6 +36,21 @@ public interface EntityData<T, ID>
 	 */
 	void setIdGetter(final IdGetter<T, ID> idGetter);
 	
+	/**
+	 * Sets the indexes of the entities and builds them with the currently stored entities. The indexes are kept up to
+	 * date with every entity that is added, changed or removed.
+	 * <p>
+	 * Accepts {@code null} if no field is indexed
+	 * </p>
+	 */
+	void setIndexes(@Nullable final EntityIndexes<T> indexes);
+	
+	/**
+	 * @return the indexes of the entities or {@code null} if the entities are not indexed.
+	 */
+	@Nullable
+	EntityIndexes<T> getIndexes();
+	
 	Stream<T> getEntitiesAsStream();
 	
 	boolean containsEntity(final T entity);
@@ -52,4 +70,14 @@ public interface EntityData<T, ID>
 	Collection<Object> removeAllEntitiesAndReturnObjectsToStore();
 	
 	T getEntityById(ID id);
+	
+	/**
+	 * Returns the stamp of the last modification of the entities. The stamp is changed by every call to
+	 * {@link #ensureEntityAndReturnObjectsToStore(Object)}, {@link #removeEntityAndReturnObjectsToStore(Object)} and
+	 * {@link #removeAllEntitiesAndReturnObjectsToStore()} and is strictly increasing across all entity types.
+	 * <p>
+	 * The stamp is not persisted.
+	 * </p>
+	 */
+	long getLastModification();
 }
@@ -15,16 +15,26 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.root.v2_4;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
+import jakarta.annotation.Nullable;
+
 import org.eclipse.serializer.reference.Lazy;
-import org.eclipse.serializer.reference.Referencing;
+import org.eclipse.serializer.reference.Swizzling;
 
 import software.xdev.spring.data.eclipse.store.core.IdentitySet;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.LazyEntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.lazy.LazyReferenceStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.id.IdGetter;
 
 
@@ -47,6 +57,44 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 	
 	private transient IdGetter<T, ID> idGetter;
 	
+	@Nullable
+	private transient LazyEntityIndexes<T> indexes;
+	@Nullable
+	private transient LazyReferenceStatistics statistics;
+	
+	@Nullable
+	private transient ToLongFunction<Object> objectIdLookup;
+	/**
+	 * References of entities without id by the object id of their entity. Entities without id can only be found by
+	 * their identity. Comparing the identity of every reference would load all entities, so the object id of the
+	 * entity is looked up in the storage and the reference is found through this index instead.
+	 * <p>
+	 * Is {@code null} until it is needed for the first time and is not persisted.
+	 * </p>
+	 */
+	@Nullable
+	private transient Map<Long, Lazy<T>> entitiesByObjectId;
+	/**
+	 * References that were not stored yet, when they were added to {@link #entitiesByObjectId}. They don't have an
+	 * object id, but they are still loaded, since references are only cleared after they are stored.
+	 */
+	@Nullable
+	private transient List<Lazy<T>> unstoredEntities;
+	
+	/**
+	 * References that were loaded through this entity data or added to it, so that the loaded references are found
+	 * without going through all references. References that are cleared in the meantime (e.g. by the
+	 * {@link org.eclipse.serializer.reference.LazyReferenceManager}) are only removed by
+	 * {@link #getLoadedReferences()}.
+	 * <p>
+	 * Is created when it is needed for the first time and is not persisted.
+	 * </p>
+	 */
+	@Nullable
+	private transient volatile Set<Lazy<T>> trackedReferences;
+	
+	private transient long lastModification = ModificationSequence.next();
+	
 	public LazyEntityData()
 	{
 		this.entities = new IdentitySet<>();
@@ -64,10 +112,133 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 		this.ensureEntitiesAndEntitiesByIdAreTheSameSize();
 	}
 	
+	/**
+	 * Lazy entities are not held in {@link EntityIndexes}, because they would keep every entity in memory. Instead
+	 * the indexed fields of the domain class are held in {@link LazyEntityIndexes}, which only reference the entities
+	 * lazily.
+	 */
+	@Override
+	public void setIndexes(@Nullable final EntityIndexes<T> indexes)
+	{
+		final LazyEntityIndexes<T> lazyIndexes =
+			indexes == null ? null : LazyEntityIndexes.create(indexes.getDomainClass(), this.entities, this::load);
+		this.indexes = lazyIndexes == null || lazyIndexes.isEmpty() ? null : lazyIndexes;
+	}
+	
+	@Override
+	@Nullable
+	public EntityIndexes<T> getIndexes()
+	{
+		return null;
+	}
+	
+	/**
+	 * @return the indexes of the entities or {@code null} if the entities are not indexed.
+	 */
+	@Nullable
+	public LazyEntityIndexes<T> getLazyIndexes()
+	{
+		return this.indexes;
+	}
+	
+	/**
+	 * Sets the lookup of the object id that an entity is stored with. It returns {@link Swizzling#notFoundId()} for
+	 * entities that were never stored or loaded.
+	 * <p>
+	 * Accepts {@code null} if the entities are not stored.
+	 * </p>
+	 */
+	public void setObjectIdLookup(@Nullable final ToLongFunction<Object> objectIdLookup)
+	{
+		this.objectIdLookup = objectIdLookup;
+		this.entitiesByObjectId = null;
+		this.unstoredEntities = null;
+	}
+	
+	/**
+	 * Sets the statistics in which the accesses to the entities are counted.
+	 * <p>
+	 * Accepts {@code null} if the accesses are not counted.
+	 * </p>
+	 */
+	public void setLazyReferenceStatistics(@Nullable final LazyReferenceStatistics statistics)
+	{
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * Only goes through the references that were loaded since the last call and removes the ones that are not loaded
+	 * anymore. Can be called concurrently to reading the entities.
+	 *
+	 * @return the references to stored entities that are currently loaded and could be cleared from memory.
+	 */
+	public List<Lazy<T>> getLoadedReferences()
+	{
+		final Set<Lazy<T>> references = this.ensureTrackedReferences();
+		final List<Lazy<T>> loadedReferences = new ArrayList<>();
+		for(final Iterator<Lazy<T>> iterator = references.iterator(); iterator.hasNext(); )
+		{
+			final Lazy<T> lazyEntity = iterator.next();
+			if(!lazyEntity.isLoaded())
+			{
+				iterator.remove();
+				// Keeps the reference if it was loaded again before it was removed from the tracked references.
+				if(!lazyEntity.isLoaded())
+				{
+					continue;
+				}
+				references.add(lazyEntity);
+			}
+			if(lazyEntity.isStored())
+			{
+				loadedReferences.add(lazyEntity);
+			}
+		}
+		return loadedReferences;
+	}
+	
+	private T load(final Lazy<T> lazyEntity)
+	{
+		final T entity = this.statistics == null ? lazyEntity.get() : this.statistics.get(lazyEntity);
+		final Set<Lazy<T>> references = this.ensureTrackedReferences();
+		// Checked first, because adding an already contained reference locks the map.
+		if(!references.contains(lazyEntity))
+		{
+			references.add(lazyEntity);
+		}
+		return entity;
+	}
+	
+	private Set<Lazy<T>> ensureTrackedReferences()
+	{
+		Set<Lazy<T>> references = this.trackedReferences;
+		if(references == null)
+		{
+			synchronized(this)
+			{
+				if(this.trackedReferences == null)
+				{
+					this.trackedReferences = ConcurrentHashMap.newKeySet();
+				}
+				references = this.trackedReferences;
+			}
+		}
+		return references;
+	}
+	
+	private void untrack(@Nullable final Lazy<T> lazyEntity)
+	{
+		final Set<Lazy<T>> references = this.trackedReferences;
+		if(lazyEntity != null && references != null)
+		{
+			references.remove(lazyEntity);
+		}
+	}
+	
 	@Override
 	public Stream<T> getEntitiesAsStream()
 	{
-		return this.entities.stream().map(Referencing::get);
+		return this.entities.stream().map(this::load);
 	}
 	
 	@Override
@@ -75,24 +246,95 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 	{
 		if(this.idGetter == null)
 		{
-			return this.entities
-				.stream()
-				.anyMatch(lazyEntity -> lazyEntity.get() == entity);
+			return this.findLazyEntity(entity) != null;
 		}
 		else
 		{
 			final ID id = this.idGetter.getId(entity);
 			final Lazy<T> existingEntity = this.entitiesById.get(id);
-			return existingEntity != null && existingEntity.get() == entity;
+			return existingEntity != null && this.load(existingEntity) == entity;
 		}
 	}
 	
+	/**
+	 * Finds the reference of an entity without id. If the object ids of the entities can be looked up, no other
+	 * entity is loaded.
+	 */
+	@Nullable
+	private Lazy<T> findLazyEntity(final T entity)
+	{
+		if(this.objectIdLookup == null)
+		{
+			return this.entities
+				.stream()
+				.filter(lazyEntity -> this.load(lazyEntity) == entity)
+				.findAny()
+				.orElse(null);
+		}
+		final Map<Long, Lazy<T>> indexedEntities = this.ensureEntitiesByObjectId();
+		for(final Iterator<Lazy<T>> iterator = this.unstoredEntities.iterator(); iterator.hasNext(); )
+		{
+			final Lazy<T> unstoredEntity = iterator.next();
+			if(unstoredEntity.isStored())
+			{
+				indexedEntities.put(objectIdOf(unstoredEntity), unstoredEntity);
+				iterator.remove();
+			}
+			else if(unstoredEntity.peek() == entity)
+			{
+				return unstoredEntity;
+			}
+		}
+		final long objectId = this.objectIdLookup.applyAsLong(entity);
+		return objectId == Swizzling.notFoundId() ? null : indexedEntities.get(objectId);
+	}
+	
+	private Map<Long, Lazy<T>> ensureEntitiesByObjectId()
+	{
+		if(this.entitiesByObjectId == null)
+		{
+			this.entitiesByObjectId = new HashMap<>();
+			this.unstoredEntities = new ArrayList<>();
+			this.entities.forEach(this::addToObjectIdIndex);
+		}
+		return this.entitiesByObjectId;
+	}
+	
+	private void addToObjectIdIndex(final Lazy<T> lazyEntity)
+	{
+		if(lazyEntity.isStored())
+		{
+			this.entitiesByObjectId.put(objectIdOf(lazyEntity), lazyEntity);
+		}
+		else
+		{
+			this.unstoredEntities.add(lazyEntity);
+		}
+	}
+	
+	private void removeFromObjectIdIndex(final Lazy<T> lazyEntity)
+	{
+		if(this.entitiesByObjectId != null)
+		{
+			this.entitiesByObjectId.remove(objectIdOf(lazyEntity));
+			this.unstoredEntities.remove(lazyEntity);
+		}
+	}
+	
+	/**
+	 * @return the object id of the referenced entity without loading it. Must only be called for stored references.
+	 */
+	private static long objectIdOf(final Lazy<?> lazyEntity)
+	{
+		return lazyEntity instanceof final Lazy.Default<?> defaultLazy ? defaultLazy.objectId() : Swizzling.nullId();
+	}
+	
 	private void ensureEntitiesAndEntitiesByIdAreTheSameSize()
 	{
 		if(this.idGetter != null && this.entities.size() != this.entitiesById.size())
 		{
 			this.entitiesById.clear();
-			this.entities.forEach(entity -> this.entitiesById.put(this.idGetter.getId(entity.get()), entity));
+			this.entities.forEach(entity -> this.entitiesById.put(this.idGetter.getId(this.load(entity)), entity));
 		}
 		if(this.idGetter == null)
 		{
@@ -110,7 +352,7 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 	public T getEntityById(final ID id)
 	{
 		final Lazy<T> lazyEntity = this.entitiesById.get(id);
-		return lazyEntity == null ? null : lazyEntity.get();
+		return lazyEntity == null ? null : this.load(lazyEntity);
 	}
 	
 	@Override
@@ -128,28 +370,52 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 	@Override
 	public Collection<Object> ensureEntityAndReturnObjectsToStore(final T entityToStore)
 	{
+		this.lastModification = ModificationSequence.next();
 		Collection<Object> listToSave = List.of();
-		if(this.idGetter == null && !this.containsEntity(entityToStore))
+		Lazy<T> lazyEntity;
+		if(this.idGetter == null)
 		{
-			// Does not create a SpringDataEclipseStore.Lazy Instance, but a EclipseStore.Lazy because this is
-			// outside the scope of the SpringDataEclipseStore.Lazy. No conversion is taking place.
-			this.entities.add(Lazy.Reference(entityToStore));
-			listToSave = this.getObjectsToStore();
+			lazyEntity = this.findLazyEntity(entityToStore);
+			if(lazyEntity == null)
+			{
+				// Does not create a SpringDataEclipseStore.Lazy Instance, but a EclipseStore.Lazy because this is
+				// outside the scope of the SpringDataEclipseStore.Lazy. No conversion is taking place.
+				lazyEntity = Lazy.Reference(entityToStore);
+				this.entities.add(lazyEntity);
+				this.ensureTrackedReferences().add(lazyEntity);
+				if(this.entitiesByObjectId != null)
+				{
+					this.unstoredEntities.add(lazyEntity);
+				}
+				listToSave = this.getObjectsToStore();
+			}
 		}
-		if(this.idGetter != null)
+		else
 		{
 			final Lazy<T> existingEntity = this.entitiesById.get(this.idGetter.getId(entityToStore));
-			if(existingEntity == null || existingEntity.get() != entityToStore)
+			lazyEntity = existingEntity;
+			if(existingEntity == null || this.load(existingEntity) != entityToStore)
 			{
 				this.entities.remove(existingEntity);
+				this.untrack(existingEntity);
+				if(existingEntity != null)
+				{
+					this.removeFromIndexes(existingEntity);
+				}
 				// Does not create a SpringDataEclipseStore.Lazy Instance, but a EclipseStore.Lazy because this is
 				// outside the scope of the SpringDataEclipseStore.Lazy. No conversion is taking place.
-				final Lazy<T> newLazyInstance = Lazy.Reference(entityToStore);
-				this.entities.add(newLazyInstance);
-				this.entitiesById.put(this.idGetter.getId(entityToStore), newLazyInstance);
+				lazyEntity = Lazy.Reference(entityToStore);
+				this.entities.add(lazyEntity);
+				this.ensureTrackedReferences().add(lazyEntity);
+				this.entitiesById.put(this.idGetter.getId(entityToStore), lazyEntity);
 				listToSave = this.getObjectsToStore();
 			}
 		}
+		if(this.indexes != null)
+		{
+			// Also updates the index if the stored entity has changed.
+			this.indexes.put(lazyEntity);
+		}
 		return listToSave;
 	}
 	
@@ -162,29 +428,54 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 	@Override
 	public Collection<Object> removeEntityAndReturnObjectsToStore(final T entityToRemove)
 	{
+		this.lastModification = ModificationSequence.next();
 		if(this.idGetter == null)
 		{
-			this.entities
-				.stream()
-				.filter(entity -> entity.get() == entityToRemove)
-				.findAny()
-				.ifPresent(this.entities::remove);
+			final Lazy<T> lazyReference = this.findLazyEntity(entityToRemove);
+			if(lazyReference != null)
+			{
+				this.entities.remove(lazyReference);
+				this.untrack(lazyReference);
+				this.removeFromObjectIdIndex(lazyReference);
+				this.removeFromIndexes(lazyReference);
+			}
 		}
 		else
 		{
 			final ID id = this.idGetter.getId(entityToRemove);
 			final Lazy<T> lazyReference = this.entitiesById.get(id);
 			this.entities.remove(lazyReference);
+			this.untrack(lazyReference);
 			this.entitiesById.remove(id);
+			if(lazyReference != null)
+			{
+				this.removeFromIndexes(lazyReference);
+			}
 		}
 		return this.getObjectsToStore();
 	}
 	
+	private void removeFromIndexes(final Lazy<T> lazyReference)
+	{
+		if(this.indexes != null)
+		{
+			this.indexes.remove(lazyReference);
+		}
+	}
+	
 	@Override
 	public Collection<Object> removeAllEntitiesAndReturnObjectsToStore()
 	{
+		this.lastModification = ModificationSequence.next();
 		this.entities.clear();
 		this.entitiesById.clear();
+		this.entitiesByObjectId = null;
+		this.unstoredEntities = null;
+		this.trackedReferences = null;
+		if(this.indexes != null)
+		{
+			this.indexes.clear();
+		}
 		return this.getObjectsToStore();
 	}
 	
@@ -192,4 +483,10 @@ public class LazyEntityData<T, ID> implements EntityData<T, ID>
 	{
 		return this.entitiesById;
 	}
+	
+	@Override
+	public long getLastModification()
+	{
+		return this.lastModification;
+	}
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.root.v2_4;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Hands out the modification stamps of the {@link EntityData}. The stamps are strictly increasing across all entity
+ * types, so a stamp is never handed out twice - not even after all data was cleared and new {@link EntityData} were
+ * created.
+ */
+final class ModificationSequence
+{
+	private static final AtomicLong LAST_STAMP = new AtomicLong();
+	
+	private ModificationSequence()
+	{
+	}
+	
+	static long next()
+	{
+		return LAST_STAMP.incrementAndGet();
+	}
+}
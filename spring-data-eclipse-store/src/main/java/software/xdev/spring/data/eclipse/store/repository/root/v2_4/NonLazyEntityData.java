@@ -20,7 +20,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Stream;
 
+import jakarta.annotation.Nullable;
+
 import software.xdev.spring.data.eclipse.store.core.IdentitySet;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
 import software.xdev.spring.data.eclipse.store.repository.support.id.IdGetter;
 
 
@@ -43,6 +46,10 @@ public class NonLazyEntityData<T, ID> implements EntityData<T, ID>
 	
 	private transient IdGetter<T, ID> idGetter;
 	
+	private transient long lastModification = ModificationSequence.next();
+	
+	private transient EntityIndexes<T> indexes;
+	
 	public NonLazyEntityData()
 	{
 		this.entities = new IdentitySet<>();
@@ -60,6 +67,23 @@ public class NonLazyEntityData<T, ID> implements EntityData<T, ID>
 		this.ensureEntitiesAndEntitiesByIdAreTheSameSize();
 	}
 	
+	@Override
+	public void setIndexes(@Nullable final EntityIndexes<T> indexes)
+	{
+		this.indexes = indexes;
+		if(this.indexes != null)
+		{
+			this.indexes.rebuild(this.entities);
+		}
+	}
+	
+	@Override
+	@Nullable
+	public EntityIndexes<T> getIndexes()
+	{
+		return this.indexes;
+	}
+	
 	@Override
 	public Stream<T> getEntitiesAsStream()
 	{
@@ -115,6 +139,7 @@ public class NonLazyEntityData<T, ID> implements EntityData<T, ID>
 	@Override
 	public Collection<Object> ensureEntityAndReturnObjectsToStore(final T entityToStore)
 	{
+		this.lastModification = ModificationSequence.next();
 		Collection<Object> listToSave = List.of();
 		if(this.entities.add(entityToStore))
 		{
@@ -125,6 +150,11 @@ public class NonLazyEntityData<T, ID> implements EntityData<T, ID>
 			this.entitiesById.put(this.idGetter.getId(entityToStore), entityToStore);
 			listToSave = this.getObjectsToStore();
 		}
+		if(this.indexes != null)
+		{
+			// Also updates the index if the stored entity has changed.
+			this.indexes.put(entityToStore);
+		}
 		return listToSave;
 	}
 	
@@ -143,19 +173,35 @@ public class NonLazyEntityData<T, ID> implements EntityData<T, ID>
 	@Override
 	public Collection<Object> removeEntityAndReturnObjectsToStore(final T entityToRemove)
 	{
+		this.lastModification = ModificationSequence.next();
 		this.entities.remove(entityToRemove);
 		if(this.idGetter != null)
 		{
 			this.entitiesById.remove(this.idGetter.getId(entityToRemove));
 		}
+		if(this.indexes != null)
+		{
+			this.indexes.remove(entityToRemove);
+		}
 		return this.getObjectsToStore();
 	}
 	
 	@Override
 	public Collection<Object> removeAllEntitiesAndReturnObjectsToStore()
 	{
+		this.lastModification = ModificationSequence.next();
 		this.entities.clear();
 		this.entitiesById.clear();
+		if(this.indexes != null)
+		{
+			this.indexes.clear();
+		}
 		return this.getObjectsToStore();
 	}
+	
+	@Override
+	public long getLastModification()
+	{
+		return this.lastModification;
+	}
 }
@@ -15,6 +15,7 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.root.v2_4;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -50,6 +51,11 @@ public class RootDataV2_4
 		return this.entityLists.values().stream().map(EntityData::getEntityCount).reduce(0L, Long::sum);
 	}
 	
+	public Collection<EntityData<?, ?>> getAllEntityData()
+	{
+		return this.entityLists.values();
+	}
+	
 	public <T, ID> EntityData<T, ID> getEntityData(final Class<T> entityClass)
 	{
 		return this.getEntityData(this.getEntityName(entityClass));
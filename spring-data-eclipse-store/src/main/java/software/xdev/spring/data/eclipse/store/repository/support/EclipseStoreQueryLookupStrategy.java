@@ -18,6 +18,7 @@ package software.xdev.spring.data.eclipse.store.repository.support;
 import java.lang.reflect.Method;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 
 import org.eclipse.serializer.reference.Lazy;
 import org.springframework.data.projection.ProjectionFactory;
@@ -27,11 +28,16 @@ import org.springframework.data.repository.query.QueryLookupStrategy;
 import org.springframework.data.repository.query.QueryMethod;
 import org.springframework.data.repository.query.RepositoryQuery;
 
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.repository.CacheableQuery;
 import software.xdev.spring.data.eclipse.store.repository.EclipseStoreStorage;
 import software.xdev.spring.data.eclipse.store.repository.Query;
+import software.xdev.spring.data.eclipse.store.repository.QueryLimits;
 import software.xdev.spring.data.eclipse.store.repository.query.FindAllEclipseStoreQueryProvider;
 import software.xdev.spring.data.eclipse.store.repository.query.HSqlQueryProvider;
 import software.xdev.spring.data.eclipse.store.repository.query.StringBasedEclipseStoreQueryProvider;
+import software.xdev.spring.data.eclipse.store.repository.query.cache.QueryResultCache;
+import software.xdev.spring.data.eclipse.store.repository.query.statistics.QueryMethodStatistics;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopierCreator;
 
 
@@ -80,13 +86,15 @@ public class EclipseStoreQueryLookupStrategy implements QueryLookupStrategy
 			return this.createHSqlQueryProvider(
 				queryAnnotation.value(),
 				domainType,
-				queryMethod
+				queryMethod,
+				method
 			);
 		}
 		return this.createStringBasedEclipseStoreQueryProvider(
 			domainType,
 			queryMethod,
-			method
+			method,
+			factory
 		);
 	}
 	
@@ -108,7 +116,8 @@ public class EclipseStoreQueryLookupStrategy implements QueryLookupStrategy
 	private <T> RepositoryQuery createStringBasedEclipseStoreQueryProvider(
 		final Class<T> domainType,
 		final QueryMethod queryMethod,
-		final Method method
+		final Method method,
+		final ProjectionFactory factory
 	)
 	{
 		return new StringBasedEclipseStoreQueryProvider<>(
@@ -116,14 +125,45 @@ public class EclipseStoreQueryLookupStrategy implements QueryLookupStrategy
 			method,
 			domainType,
 			this.storage,
-			this.workingCopierCreator.createWorkingCopier(domainType, this.storage)
+			this.workingCopierCreator.createWorkingCopier(domainType, this.storage),
+			factory,
+			this.createQueryResultCache(method),
+			this.createQueryBudget(method),
+			this.createQueryMethodStatistics(method)
 		);
 	}
 	
+	private QueryBudget createQueryBudget(final Method method)
+	{
+		return this.storage.getQueryBudget().withLimits(method.getAnnotation(QueryLimits.class));
+	}
+	
+	private QueryMethodStatistics createQueryMethodStatistics(final Method method)
+	{
+		return this.storage.getQueryStatistics()
+			.forMethod(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+	}
+	
+	@Nullable
+	private QueryResultCache createQueryResultCache(final Method method)
+	{
+		final CacheableQuery cacheableQuery = method.getAnnotation(CacheableQuery.class);
+		if(cacheableQuery == null)
+		{
+			return null;
+		}
+		final QueryResultCache cache = new QueryResultCache(
+			method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+			cacheableQuery.maxSize());
+		this.storage.registerQueryResultCache(cache);
+		return cache;
+	}
+	
 	private <T> RepositoryQuery createHSqlQueryProvider(
 		final String sqlString,
 		final Class<T> domainType,
-		final QueryMethod queryMethod
+		final QueryMethod queryMethod,
+		final Method method
 	)
 	{
 		return new HSqlQueryProvider<>(
@@ -131,7 +171,10 @@ public class EclipseStoreQueryLookupStrategy implements QueryLookupStrategy
 			queryMethod,
 			domainType,
 			this.storage,
-			this.workingCopierCreator.createWorkingCopier(domainType, this.storage)
+			this.workingCopierCreator.createWorkingCopier(domainType, this.storage),
+			this.createQueryBudget(method),
+			this.createQueryMethodStatistics(method),
+			this.storage.isHSqlIndexedCollectionEnabled()
 		);
 	}
 }
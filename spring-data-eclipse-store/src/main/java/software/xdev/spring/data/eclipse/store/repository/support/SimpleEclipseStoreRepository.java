@@ -18,9 +18,11 @@ package software.xdev.spring.data.eclipse.store.repository.support;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,12 +38,15 @@ import org.springframework.data.repository.query.FluentQuery;
 
 import software.xdev.spring.data.eclipse.store.repository.StorageCommunicator;
 import software.xdev.spring.data.eclipse.store.repository.access.AccessHelper;
+import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreAggregationExecutor;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreCrudRepository;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreListCrudRepository;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreListPagingAndSortingRepository;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStorePagingAndSortingRepository;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreQueryByExampleExecutor;
 import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreRepository;
+import software.xdev.spring.data.eclipse.store.repository.interfaces.EclipseStoreSpecificationExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.aggregation.EntityAggregation;
 import software.xdev.spring.data.eclipse.store.repository.query.by.example.EclipseStoreFetchableFluentQuery;
 import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
 import software.xdev.spring.data.eclipse.store.repository.query.criteria.CriteriaByExample;
@@ -50,6 +55,8 @@ import software.xdev.spring.data.eclipse.store.repository.query.executors.Exists
 import software.xdev.spring.data.eclipse.store.repository.query.executors.ListQueryExecutor;
 import software.xdev.spring.data.eclipse.store.repository.query.executors.PageableQueryExecutor;
 import software.xdev.spring.data.eclipse.store.repository.query.executors.SingleOptionalQueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.query.specification.CriteriaFactory;
+import software.xdev.spring.data.eclipse.store.repository.query.specification.EclipseStoreSpecification;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopier;
 import software.xdev.spring.data.eclipse.store.repository.support.copier.working.WorkingCopierResult;
 import software.xdev.spring.data.eclipse.store.repository.support.id.IdManager;
@@ -65,7 +72,9 @@ public class SimpleEclipseStoreRepository<T, ID>
 	EclipseStoreListPagingAndSortingRepository<T, ID>,
 	EclipseStoreCrudRepository<T, ID>,
 	EclipseStoreListCrudRepository<T, ID>,
-	EclipseStoreQueryByExampleExecutor<T>
+	EclipseStoreQueryByExampleExecutor<T>,
+	EclipseStoreAggregationExecutor<T, ID>,
+	EclipseStoreSpecificationExecutor<T, ID>
 {
 	private static final Logger LOG = LoggerFactory.getLogger(SimpleEclipseStoreRepository.class);
 	private final StorageCommunicator storage;
@@ -263,8 +272,13 @@ public class SimpleEclipseStoreRepository<T, ID>
 	@Override
 	public void deleteAllById(final Iterable<? extends ID> ids)
 	{
-		this.storage.getReadWriteLock().write(
-			() -> ids.forEach(this::deleteById)
+		final List<ID> idsToDelete = new ArrayList<>();
+		ids.forEach(idsToDelete::add);
+		final EclipseStoreTransaction transaction = this.transactionManager.getTransaction();
+		transaction.addAction(() ->
+			this.storage.getReadWriteLock().write(
+				() -> this.storage.deleteAll(this.domainClass, this.idManager.findAllById(idsToDelete))
+			)
 		);
 	}
 	
@@ -317,10 +331,12 @@ public class SimpleEclipseStoreRepository<T, ID>
 	{
 		final SingleOptionalQueryExecutor<T> query =
 			new SingleOptionalQueryExecutor<>(this.copier, new CriteriaByExample<>((Example<T>)example), null);
-		return this.storage.getReadWriteLock().read(
-			() ->
-				(Optional<S>)query.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
-		);
+		return this.recordQuery(
+			"findOne(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() ->
+					(Optional<S>)query.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
 	}
 	
 	@Override
@@ -328,12 +344,14 @@ public class SimpleEclipseStoreRepository<T, ID>
 	{
 		final ListQueryExecutor<T> query =
 			new ListQueryExecutor<>(this.copier, new CriteriaByExample<>(example));
-		return this.storage.getReadWriteLock().read(
-			() -> (Iterable<S>)query.execute(
-				this.domainClass,
-				this.storage.getEntityProvider(this.domainClass),
-				null)
-		);
+		return this.recordQuery(
+			"findAll(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> (Iterable<S>)query.execute(
+					this.domainClass,
+					this.storage.getEntityProvider(this.domainClass),
+					null)
+			));
 	}
 	
 	@Override
@@ -341,13 +359,15 @@ public class SimpleEclipseStoreRepository<T, ID>
 	{
 		final ListQueryExecutor<T> query =
 			new ListQueryExecutor<>(this.copier, new CriteriaByExample<>(example));
-		return this.storage.getReadWriteLock().read(
-			() ->
-				(Iterable<S>)query.execute(
-					this.domainClass,
-					this.storage.getEntityProvider(this.domainClass),
-					new Object[]{sort})
-		);
+		return this.recordQuery(
+			"findAll(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() ->
+					(Iterable<S>)query.execute(
+						this.domainClass,
+						this.storage.getEntityProvider(this.domainClass),
+						new Object[]{sort})
+			));
 	}
 	
 	@Override
@@ -355,31 +375,37 @@ public class SimpleEclipseStoreRepository<T, ID>
 	{
 		final PageableQueryExecutor<T> pageableQuery =
 			new PageableQueryExecutor<>(this.copier, new CriteriaByExample<>(example), null);
-		return this.storage.getReadWriteLock().read(
-			() ->
-				(Page<S>)pageableQuery.execute(
-					this.domainClass,
-					this.storage.getEntityProvider(this.domainClass),
-					new Object[]{pageable})
-		);
+		return this.recordQuery(
+			"findAll(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() ->
+					(Page<S>)pageableQuery.execute(
+						this.domainClass,
+						this.storage.getEntityProvider(this.domainClass),
+						new Object[]{pageable})
+			));
 	}
 	
 	@Override
 	public <S extends T> long count(final Example<S> example)
 	{
 		final CountQueryExecutor<T> query = new CountQueryExecutor<>(new CriteriaByExample<>(example));
-		return this.storage.getReadWriteLock().read(
-			() -> query.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
-		);
+		return this.recordQuery(
+			"count(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> query.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
 	}
 	
 	@Override
 	public <S extends T> boolean exists(final Example<S> example)
 	{
 		final ExistsQueryExecutor<T> query = new ExistsQueryExecutor<>(new CriteriaByExample<>(example));
-		return this.storage.getReadWriteLock().read(
-			() -> query.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
-		);
+		return this.recordQuery(
+			"exists(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> query.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
 	}
 	
 	@Override
@@ -395,9 +421,119 @@ public class SimpleEclipseStoreRepository<T, ID>
 			null
 		);
 		
-		return this.storage.getReadWriteLock().read(
-			() -> queryFunction.apply(query)
-		);
+		return this.recordQuery(
+			"findBy(Example)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> queryFunction.apply(query)
+			));
+	}
+	
+	@Override
+	public EntityAggregation<T> aggregate()
+	{
+		return new EntityAggregation<>(this.domainClass, Criteria.createNoCriteria(), this.storage, this.copier);
+	}
+	
+	@Override
+	public <S extends T> EntityAggregation<T> aggregate(final Example<S> example)
+	{
+		return new EntityAggregation<>(this.domainClass, new CriteriaByExample<>(example), this.storage, this.copier);
+	}
+	
+	/**
+	 * Must be called within the read lock, since {@link EclipseStoreSpecification#existsIn joins} read the entities
+	 * of other types.
+	 */
+	private Criteria<T> toCriteria(final EclipseStoreSpecification<T> specification)
+	{
+		return specification.toCriteria(new CriteriaFactory<>(this.domainClass, this.storage));
+	}
+	
+	@Override
+	public Optional<T> findOne(final EclipseStoreSpecification<T> specification)
+	{
+		Objects.requireNonNull(specification);
+		return this.recordQuery(
+			"findOne(Specification)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> new SingleOptionalQueryExecutor<>(this.copier, this.toCriteria(specification), null)
+					.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
+	}
+	
+	@Override
+	public List<T> findAll(final EclipseStoreSpecification<T> specification)
+	{
+		Objects.requireNonNull(specification);
+		return this.recordQuery(
+			"findAll(Specification)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> new ListQueryExecutor<>(this.copier, this.toCriteria(specification))
+					.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
+	}
+	
+	@Override
+	public List<T> findAll(final EclipseStoreSpecification<T> specification, final Sort sort)
+	{
+		Objects.requireNonNull(specification);
+		return this.recordQuery(
+			"findAll(Specification)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> new ListQueryExecutor<>(this.copier, this.toCriteria(specification)).execute(
+					this.domainClass,
+					this.storage.getEntityProvider(this.domainClass),
+					new Object[]{sort})
+			));
+	}
+	
+	@Override
+	public Page<T> findAll(final EclipseStoreSpecification<T> specification, final Pageable pageable)
+	{
+		Objects.requireNonNull(specification);
+		return this.recordQuery(
+			"findAll(Specification)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> new PageableQueryExecutor<>(this.copier, this.toCriteria(specification), null).execute(
+					this.domainClass,
+					this.storage.getEntityProvider(this.domainClass),
+					new Object[]{pageable})
+			));
+	}
+	
+	@Override
+	public long count(final EclipseStoreSpecification<T> specification)
+	{
+		Objects.requireNonNull(specification);
+		return this.recordQuery(
+			"count(Specification)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> new CountQueryExecutor<>(this.toCriteria(specification))
+					.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
+	}
+	
+	@Override
+	public boolean exists(final EclipseStoreSpecification<T> specification)
+	{
+		Objects.requireNonNull(specification);
+		return this.recordQuery(
+			"exists(Specification)",
+			() -> this.storage.getReadWriteLock().read(
+				() -> new ExistsQueryExecutor<>(this.toCriteria(specification))
+					.execute(this.domainClass, this.storage.getEntityProvider(this.domainClass), null)
+			));
+	}
+	
+	/**
+	 * Records the execution of a query by example or specification in the statistics of the storage (see
+	 * {@link StorageCommunicator#getQueryStatistics()}).
+	 */
+	private <R> R recordQuery(final String methodName, final Supplier<R> query)
+	{
+		return this.storage.getQueryStatistics()
+			.forMethod(this.domainClass.getSimpleName() + "." + methodName)
+			.record(query);
 	}
 	
 	public boolean isLazy()
@@ -15,8 +15,19 @@
  */
 package software.xdev.spring.data.eclipse.store.repository.support.copier;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
 import jakarta.annotation.Nonnull;
 
@@ -37,6 +48,19 @@ public final class DataTypeUtil
 		Void.class,
 		String.class
 	);
+	private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+		BigDecimal.class,
+		BigInteger.class,
+		UUID.class,
+		Instant.class,
+		LocalDate.class,
+		LocalDateTime.class,
+		LocalTime.class,
+		OffsetDateTime.class,
+		ZonedDateTime.class,
+		Duration.class,
+		Period.class
+	);
 	
 	private DataTypeUtil()
 	{
@@ -70,4 +94,24 @@ public final class DataTypeUtil
 		}
 		return source.isPrimitive();
 	}
+	
+	/**
+	 * @return {@code true} if the value can not be changed and can therefore be handed out without copying it.
+	 */
+	public static boolean isImmutableValue(final Object value)
+	{
+		return value instanceof Enum<?>
+			|| isPrimitiveType(value.getClass())
+			|| IMMUTABLE_TYPES.contains(value.getClass());
+	}
+	
+	/**
+	 * @return {@code true} if all values of the type can not be changed.
+	 */
+	public static boolean isImmutableType(final Class<?> type)
+	{
+		return type.isEnum()
+			|| isPrimitiveType(type)
+			|| IMMUTABLE_TYPES.contains(type);
+	}
 }
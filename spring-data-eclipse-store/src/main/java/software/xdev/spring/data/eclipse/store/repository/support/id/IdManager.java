@@ -16,11 +16,11 @@
 package software.xdev.spring.data.eclipse.store.repository.support.id;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 
 import jakarta.annotation.Nonnull;
 
@@ -73,16 +73,35 @@ public class IdManager<T, ID> implements EntityGetterById<T, ID>, IdGetter<T, ID
 		);
 	}
 	
-	public List<T> findAllById(@Nonnull final Iterable<ID> idsToFind)
+	/**
+	 * Finds all entities with the given ids within a single read lock.
+	 *
+	 * @return the found entities in the order of the given ids. Ids without an entity are skipped.
+	 */
+	public List<T> findAllById(@Nonnull final Iterable<? extends ID> idsToFind)
 	{
 		this.ensureIdField();
-		
-		return StreamSupport
-			.stream(idsToFind.spliterator(), false)
-			.map(this::findById)
-			.filter(Optional::isPresent)
-			.map(Optional::get)
-			.toList();
+		final Collection<? extends ID> ids = toCollection(idsToFind);
+		if(ids.isEmpty())
+		{
+			return List.of();
+		}
+		return this.storage.getReadWriteLock().read(
+			() -> this.storage
+				.getEntityProvider(this.classWithId)
+				.findAllEntitiesWithIds(ids)
+		);
+	}
+	
+	private static <I> Collection<I> toCollection(final Iterable<I> iterable)
+	{
+		if(iterable instanceof final Collection<I> collection)
+		{
+			return collection;
+		}
+		final List<I> list = new ArrayList<>();
+		iterable.forEach(list::add);
+		return list;
 	}
 	
 	public IdSetter<T> getIdSetter()
@@ -52,10 +52,10 @@ public class SimpleRepositorySynchronizer implements RepositorySynchronizer
 					final Class<Object> objectInGraphClass = (Class<Object>)objectInGraph.getClass();
 					final EntityData<Object, Object> entityDataForCurrentObject =
 						this.root.getEntityData(objectInGraphClass);
+					// Entities that are already contained are ensured as well, so that their indexes get updated.
 					if(entityDataForCurrentObject != null
-						&& !entityDataForCurrentObject.containsEntity(objectInGraph))
+						&& !entityDataForCurrentObject.ensureEntityAndReturnObjectsToStore(objectInGraph).isEmpty())
 					{
-						entityDataForCurrentObject.ensureEntityAndReturnObjectsToStore(objectInGraph);
 						this.listsToStore.add(entityDataForCurrentObject);
 					}
 				}
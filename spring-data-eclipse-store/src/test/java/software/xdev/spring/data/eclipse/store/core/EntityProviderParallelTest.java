@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.core;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.spring.data.eclipse.store.helper.TestReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class EntityProviderParallelTest
+{
+	private static final int ENTITY_COUNT = 10_000;
+	
+	private QueryParallelism parallelism;
+	private EntityProvider<Item, Void> sequentialEntities;
+	private EntityProvider<Item, Void> parallelEntities;
+	private EntityData<Item, Void> entityData;
+	private final Set<String> evaluatingThreads = ConcurrentHashMap.newKeySet();
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.parallelism = new QueryParallelism(1_000, 4);
+		this.sequentialEntities = new EntityProvider<>();
+		this.parallelEntities = new EntityProvider<>(this.parallelism);
+		this.entityData = new NonLazyEntityData<>();
+		this.entityData.setIdGetter(null);
+		IntStream.range(0, ENTITY_COUNT)
+			.forEach(i -> this.entityData.ensureEntityAndReturnObjectsToStore(new Item(i)));
+		this.sequentialEntities.addEntityData(this.entityData);
+		this.parallelEntities.addEntityData(this.entityData);
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.parallelism.close();
+	}
+	
+	private Criteria<Item> isEven()
+	{
+		return item -> {
+			this.evaluatingThreads.add(Thread.currentThread().getName());
+			return item.value() % 2 == 0;
+		};
+	}
+	
+	@Test
+	void count_Parallel()
+	{
+		Assertions.assertEquals(ENTITY_COUNT / 2, this.parallelEntities.count(this.isEven()));
+		Assertions.assertTrue(this.evaluatingThreads.stream().anyMatch(name -> name.startsWith(
+			"spring-data-eclipse-store-query-")));
+	}
+	
+	@Test
+	void anyMatch_Parallel()
+	{
+		Assertions.assertTrue(this.parallelEntities.anyMatch(item -> item.value() == ENTITY_COUNT - 1));
+		Assertions.assertFalse(this.parallelEntities.anyMatch(item -> item.value() == ENTITY_COUNT));
+	}
+	
+	@Test
+	void streamAll_KeepsEncounterOrder()
+	{
+		final List<? extends Item> expected = this.sequentialEntities.stream(this.isEven()).toList();
+		final List<? extends Item> actual = this.parallelEntities.streamAll(this.isEven()).toList();
+		Assertions.assertEquals(expected, actual);
+	}
+	
+	@Test
+	void count_WithinReadLock()
+	{
+		final TestReadWriteLock lock = new TestReadWriteLock();
+		try(final QueryParallelism lockedParallelism = new QueryParallelism(1_000, 4).withinReadLockOf(lock))
+		{
+			final EntityProvider<Item, Void> entities = new EntityProvider<>(lockedParallelism);
+			entities.addEntityData(this.entityData);
+			final Set<Integer> readLockCounts = ConcurrentHashMap.newKeySet();
+			
+			final long count = entities.count(item -> {
+				readLockCounts.add(lock.getReadLockCount());
+				return item.value() % 2 == 0;
+			});
+			
+			Assertions.assertEquals(ENTITY_COUNT / 2, count);
+			Assertions.assertEquals(Set.of(1), readLockCounts);
+			Assertions.assertEquals(0, lock.getReadLockCount());
+		}
+	}
+	
+	@Test
+	void count_BelowThreshold_Sequential()
+	{
+		try(final QueryParallelism highThreshold = new QueryParallelism(ENTITY_COUNT + 1, 4))
+		{
+			final EntityProvider<Item, Void> entities = new EntityProvider<>(highThreshold);
+			entities.addEntityData(this.entityData);
+			Assertions.assertEquals(ENTITY_COUNT / 2, entities.count(this.isEven()));
+		}
+		Assertions.assertEquals(Set.of(Thread.currentThread().getName()), this.evaluatingThreads);
+	}
+	
+	@Test
+	void count_NoCriteria_Sequential()
+	{
+		Assertions.assertEquals(ENTITY_COUNT, this.parallelEntities.count(Criteria.createNoCriteria()));
+	}
+	
+	@Test
+	void count_ExceptionInCriteria()
+	{
+		final Criteria<Item> failing = item -> {
+			throw new IllegalStateException("Failing criteria");
+		};
+		Assertions.assertThrows(IllegalStateException.class, () -> this.parallelEntities.count(failing));
+	}
+	
+	@Test
+	void findAllEntitiesWithIds_Parallel()
+	{
+		final EntityData<Item, Integer> entityDataWithIds = new NonLazyEntityData<>();
+		entityDataWithIds.setIdGetter(Item::value);
+		IntStream.range(0, ENTITY_COUNT)
+			.forEach(i -> entityDataWithIds.ensureEntityAndReturnObjectsToStore(new Item(i)));
+		final EntityProvider<Item, Integer> entities = new EntityProvider<>(this.parallelism);
+		entities.addEntityData(entityDataWithIds);
+		final List<Integer> ids = IntStream.range(-10, ENTITY_COUNT).map(i -> ENTITY_COUNT - 1 - i).boxed().toList();
+		
+		final List<Item> found = entities.findAllEntitiesWithIds(ids);
+		
+		Assertions.assertEquals(ENTITY_COUNT, found.size());
+		Assertions.assertEquals(new Item(ENTITY_COUNT - 1), found.get(0));
+		Assertions.assertEquals(new Item(0), found.get(ENTITY_COUNT - 1));
+	}
+	
+	private record Item(int value)
+	{
+	}
+	
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.core;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.spring.data.eclipse.store.exceptions.QueryBudgetExceededException;
+import software.xdev.spring.data.eclipse.store.exceptions.QueryTimeoutException;
+import software.xdev.spring.data.eclipse.store.repository.QueryLimits;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class QueryBudgetTest
+{
+	private static final int ENTITY_COUNT = 10_000;
+	
+	private QueryParallelism parallelism;
+	private EntityProvider<Item, Void> sequentialEntities;
+	private EntityProvider<Item, Void> parallelEntities;
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.parallelism = new QueryParallelism(1_000, 4);
+		this.sequentialEntities = new EntityProvider<>();
+		this.parallelEntities = new EntityProvider<>(this.parallelism);
+		final EntityData<Item, Void> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(null);
+		entityData.setIndexes(EntityIndexes.create(Item.class));
+		IntStream.range(0, ENTITY_COUNT).forEach(i -> entityData.ensureEntityAndReturnObjectsToStore(new Item(i)));
+		this.sequentialEntities.addEntityData(entityData);
+		this.parallelEntities.addEntityData(entityData);
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.parallelism.close();
+	}
+	
+	private static Criteria<Item> isEven()
+	{
+		return item -> item.value % 2 == 0;
+	}
+	
+	@Test
+	void track_UnlimitedReturnsSameCriteria()
+	{
+		final Criteria<Item> criteria = isEven();
+		Assertions.assertSame(criteria, QueryBudget.unlimited().track(criteria));
+		Assertions.assertSame(criteria, new QueryBudget(-1, 0).track(criteria));
+	}
+	
+	@Test
+	void track_WithinBudget()
+	{
+		final Criteria<Item> criteria = new QueryBudget(60_000, ENTITY_COUNT).track(isEven());
+		Assertions.assertEquals(ENTITY_COUNT / 2, this.sequentialEntities.stream(criteria).count());
+	}
+	
+	@Test
+	void track_TooManyScannedEntities()
+	{
+		final Criteria<Item> criteria = new QueryBudget(0, ENTITY_COUNT - 1).track(isEven());
+		Assertions.assertThrows(
+			QueryBudgetExceededException.class,
+			() -> this.sequentialEntities.stream(criteria).toList());
+	}
+	
+	@Test
+	void track_TooManyScannedEntitiesInParallel()
+	{
+		final Criteria<Item> criteria = new QueryBudget(0, 100).track(isEven());
+		Assertions.assertThrows(QueryBudgetExceededException.class, () -> this.parallelEntities.count(criteria));
+	}
+	
+	@Test
+	void track_EntitiesOfIndexAreNotScannedCompletely()
+	{
+		final QueryBudget.Tracker tracker = new QueryBudget(0, 10).start();
+		final Criteria<Item> criteria = tracker.track(new Criteria<>()
+		{
+			@Override
+			public boolean evaluate(final Item item)
+			{
+				return item.value < 5;
+			}
+			
+			@Override
+			public List<IndexRange> getIndexRanges()
+			{
+				return List.of(IndexRange.lessThan("value", 5, false));
+			}
+		});
+		Assertions.assertEquals(5, this.sequentialEntities.stream(criteria).count());
+		Assertions.assertEquals(5, tracker.getScannedCount());
+	}
+	
+	@Test
+	void scanned_Timeout() throws InterruptedException
+	{
+		final QueryBudget.Tracker tracker = new QueryBudget(1, 0).start();
+		Thread.sleep(10);
+		for(int i = 1; i < QueryBudget.TIMEOUT_CHECK_INTERVAL; i++)
+		{
+			tracker.scanned();
+		}
+		Assertions.assertThrows(QueryTimeoutException.class, tracker::scanned);
+	}
+	
+	@Test
+	void withLimits_OverridesDefinedLimits() throws NoSuchMethodException
+	{
+		final QueryBudget global = new QueryBudget(1_000, 500);
+		
+		final QueryBudget onlyTimeout = global.withLimits(getLimits("onlyTimeout"));
+		Assertions.assertEquals(50, onlyTimeout.getTimeoutMillis());
+		Assertions.assertEquals(500, onlyTimeout.getMaxScannedEntities());
+		
+		final QueryBudget unlimited = global.withLimits(getLimits("unlimited"));
+		Assertions.assertFalse(unlimited.isLimited());
+		
+		Assertions.assertSame(global, global.withLimits(null));
+	}
+	
+	private static QueryLimits getLimits(final String methodName) throws NoSuchMethodException
+	{
+		return LimitedQueries.class.getDeclaredMethod(methodName).getAnnotation(QueryLimits.class);
+	}
+	
+	private interface LimitedQueries
+	{
+		@QueryLimits(timeoutMillis = 50)
+		void onlyTimeout();
+		
+		@QueryLimits(timeoutMillis = 0, maxScannedEntities = 0)
+		void unlimited();
+	}
+	
+	private static class Item
+	{
+		@Indexed
+		private final int value;
+		
+		Item(final int value)
+		{
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.helper;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ValueOperation;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.VoidOperation;
+
+
+/**
+ * Read-write lock whose state can be checked by tests.
+ */
+public class TestReadWriteLock implements ReadWriteLock
+{
+	private final ReentrantReadWriteLock mutex = new ReentrantReadWriteLock();
+	
+	/**
+	 * @return the count of read locks that are held by all threads.
+	 */
+	public int getReadLockCount()
+	{
+		return this.mutex.getReadLockCount();
+	}
+	
+	@Override
+	public <T> T read(final ValueOperation<T> operation)
+	{
+		this.mutex.readLock().lock();
+		try
+		{
+			return operation.execute();
+		}
+		finally
+		{
+			this.mutex.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public void read(final VoidOperation operation)
+	{
+		this.read(() -> {
+			operation.execute();
+			return null;
+		});
+	}
+	
+	@Override
+	public <T> T write(final ValueOperation<T> operation)
+	{
+		this.mutex.writeLock().lock();
+		try
+		{
+			return operation.execute();
+		}
+		finally
+		{
+			this.mutex.writeLock().unlock();
+		}
+	}
+	
+	@Override
+	public void write(final VoidOperation operation)
+	{
+		this.write(() -> {
+			operation.execute();
+			return null;
+		});
+	}
+}
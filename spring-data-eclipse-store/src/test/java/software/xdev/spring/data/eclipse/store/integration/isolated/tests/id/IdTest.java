@@ -229,6 +229,27 @@ class IdTest
 		);
 	}
 	
+	@Test
+	void deleteAllByIdWithAutoIdInteger(@Autowired final CustomerWithIdIntegerRepository customerRepository)
+	{
+		customerRepository.save(new CustomerWithIdInteger(TestData.FIRST_NAME, TestData.LAST_NAME));
+		final CustomerWithIdInteger customer2 =
+			new CustomerWithIdInteger(TestData.FIRST_NAME_ALTERNATIVE, TestData.LAST_NAME_ALTERNATIVE);
+		customerRepository.save(customer2);
+		customerRepository.save(new CustomerWithIdInteger(TestData.FIRST_NAME, TestData.LAST_NAME_ALTERNATIVE));
+		
+		customerRepository.deleteAllById(List.of(1, 3, 4));
+		
+		TestUtil.doBeforeAndAfterRestartOfDatastore(
+			this.configuration,
+			() -> {
+				final List<CustomerWithIdInteger> loadedCustomers =
+					TestUtil.iterableToList(customerRepository.findAll());
+				Assertions.assertEquals(List.of(customer2), loadedCustomers);
+			}
+		);
+	}
+	
 	@Test
 	void createMultipleWithAutoIdIntegerSingleFinds(
 		@Autowired final CustomerWithIdIntegerRepository customerRepository
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.integration.isolated.tests.query.hsql.indexed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+import software.xdev.spring.data.eclipse.store.integration.isolated.IsolatedTestAnnotations;
+
+
+/**
+ * Tests the long-lived collection of {@code @Query} methods, which is updated with every save and delete.
+ */
+@IsolatedTestAnnotations
+@Disabled("A replacement for cqengine must be found!")
+@ContextConfiguration(classes = {HsqlIndexedCollectionTestConfiguration.class})
+class HsqlIndexedCollectionTest
+{
+	@Autowired
+	private IndexedEntityRepository repository;
+	
+	@Test
+	void saveQueryUpdateQueryDelete()
+	{
+		this.repository.saveAll(List.of(new IndexedEntity("John", 30), new IndexedEntity("Jane", 20)));
+		assertEquals(List.of("John"), names(this.repository.findByName("John")));
+		assertEquals(List.of("John"), names(this.repository.findByAgeGreaterThan(25)));
+		
+		final IndexedEntity john = this.repository.findByName("John").get(0);
+		john.setName("Johnny");
+		john.setAge(18);
+		john.getNicknames().add("JJ");
+		this.repository.save(john);
+		assertEquals(List.of(), this.repository.findByName("John"));
+		assertEquals(List.of("Johnny"), names(this.repository.findByName("Johnny")));
+		assertEquals(List.of(), this.repository.findByAgeGreaterThan(25));
+		assertEquals(List.of("JJ"), this.repository.findByName("Johnny").get(0).getNicknames());
+		
+		this.repository.delete(john);
+		assertEquals(List.of(), this.repository.findByName("Johnny"));
+		assertEquals(List.of("Jane"), names(this.repository.findByAgeGreaterThan(10)));
+	}
+	
+	private static List<String> names(final List<IndexedEntity> entities)
+	{
+		return entities.stream().map(IndexedEntity::getName).sorted().toList();
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.integration.isolated.tests.query.hsql.indexed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+
+import software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexType;
+import software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexed;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+
+
+public class IndexedEntity
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+	
+	@HSqlIndexed({HSqlIndexType.HASH, HSqlIndexType.RADIX_TREE})
+	private String name;
+	
+	@Indexed
+	private Integer age;
+	
+	private final List<String> nicknames = new ArrayList<>();
+	
+	public IndexedEntity()
+	{
+	}
+	
+	public IndexedEntity(final String name, final int age)
+	{
+		this.name = name;
+		this.age = age;
+	}
+	
+	public Long getId()
+	{
+		return this.id;
+	}
+	
+	public String getName()
+	{
+		return this.name;
+	}
+	
+	public void setName(final String name)
+	{
+		this.name = name;
+	}
+	
+	public int getAge()
+	{
+		return this.age;
+	}
+	
+	public void setAge(final int age)
+	{
+		this.age = age;
+	}
+	
+	public List<String> getNicknames()
+	{
+		return this.nicknames;
+	}
+}
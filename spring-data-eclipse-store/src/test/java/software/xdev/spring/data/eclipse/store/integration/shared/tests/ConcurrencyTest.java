@@ -202,4 +202,37 @@ class ConcurrencyTest
 		
 		assertTrue(latch.await(5, TimeUnit.SECONDS));
 	}
+	
+	/**
+	 * Here should be tested if derived queries find the existing customers while other customers are saved and
+	 * deleted.
+	 */
+	@Test
+	void testQueryWhileChangingConcurrently() throws InterruptedException
+	{
+		this.repository.saveAll(this.testCustomers);
+		final ExecutorService service = Executors.newFixedThreadPool(10);
+		final CountDownLatch latch = new CountDownLatch(this.testCustomers.size() * 2);
+		this.testCustomers.forEach(
+			customer ->
+			{
+				service.execute(() ->
+					{
+						final Customer copy = this.repository.save(new Customer(customer.getFirstName() + " copy", ""));
+						this.repository.delete(copy);
+						latch.countDown();
+					}
+				);
+				service.execute(() ->
+					{
+						final Optional<Customer> existingCustomer =
+							this.repository.findByFirstName(customer.getFirstName());
+						assertTrue(existingCustomer.isPresent());
+						latch.countDown();
+					}
+				);
+			}
+		);
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+	}
 }
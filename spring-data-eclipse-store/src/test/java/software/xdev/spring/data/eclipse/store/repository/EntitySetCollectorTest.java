@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings({"checkstyle:MethodName", "unchecked"})
+class EntitySetCollectorTest
+{
+	private final Map<Class<?>, EntityData<?, Integer>> entityDataByClass = Map.of(
+		Animal.class, createEntityData(),
+		Dog.class, createEntityData(),
+		Puppy.class, createEntityData(),
+		Cat.class, createEntityData());
+	private EntitySetCollector collector;
+	
+	private static EntityData<?, Integer> createEntityData()
+	{
+		final NonLazyEntityData<Animal, Integer> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(Animal::getId);
+		return entityData;
+	}
+	
+	@BeforeEach
+	void setUp()
+	{
+		final Set<Class<?>> entityClasses =
+			new LinkedHashSet<>(List.of(Animal.class, Dog.class, Puppy.class, Cat.class));
+		this.collector = new EntitySetCollector(
+			(Function<Class<Object>, EntityData<Object, Integer>>)clazz ->
+				(EntityData<Object, Integer>)this.entityDataByClass.get(clazz),
+			entityClasses);
+		this.store(new Dog(1));
+		this.store(new Puppy(2));
+		this.store(new Puppy(3));
+		this.store(new Cat(4));
+	}
+	
+	private void store(final Animal animal)
+	{
+		((EntityData<Animal, Integer>)this.entityDataByClass.get(animal.getClass()))
+			.ensureEntityAndReturnObjectsToStore(animal);
+	}
+	
+	@Test
+	void getRelatedIdentitySets_ContainsSubtypes()
+	{
+		Assertions.assertEquals(4, this.collector.getRelatedIdentitySets(Animal.class).size());
+		Assertions.assertEquals(3, this.collector.getRelatedIdentitySets(Dog.class).size());
+		Assertions.assertEquals(2, this.collector.getRelatedIdentitySets(Puppy.class).size());
+		Assertions.assertEquals(1, this.collector.getRelatedIdentitySets(Cat.class).size());
+	}
+	
+	@Test
+	void count_AllEntitiesOfHierarchy()
+	{
+		final EntityProvider<Animal, Integer> animals = this.collector.getRelatedIdentitySets(Animal.class);
+		Assertions.assertEquals(4, animals.count(Criteria.createNoCriteria()));
+		Assertions.assertTrue(animals.anyMatch(Criteria.createNoCriteria()));
+		Assertions.assertFalse(animals.isEmpty());
+		
+		((EntityData<Cat, Integer>)this.entityDataByClass.get(Cat.class)).removeAllEntitiesAndReturnObjectsToStore();
+		final EntityProvider<Cat, Integer> cats = this.collector.getRelatedIdentitySets(Cat.class);
+		Assertions.assertTrue(cats.isEmpty());
+		Assertions.assertFalse(cats.anyMatch(Criteria.createNoCriteria()));
+		Assertions.assertEquals(3, animals.size());
+	}
+	
+	@Test
+	void findAnyEntityWithId_FindsSubtypes()
+	{
+		final EntityProvider<Animal, Integer> animals = this.collector.getRelatedIdentitySets(Animal.class);
+		Assertions.assertInstanceOf(Puppy.class, animals.findAnyEntityWithId(3).orElseThrow());
+		Assertions.assertInstanceOf(Cat.class, animals.findAnyEntityWithId(4).orElseThrow());
+		Assertions.assertTrue(animals.findAnyEntityWithId(5).isEmpty());
+		
+		final EntityProvider<Dog, Integer> dogs = this.collector.getRelatedIdentitySets(Dog.class);
+		Assertions.assertTrue(dogs.findAnyEntityWithId(4).isEmpty());
+		Assertions.assertEquals(
+			List.of(1, 2, 3),
+			dogs.findAllEntitiesWithIds(List.of(1, 2, 3, 4)).stream().map(Animal::getId).toList());
+	}
+	
+	private static class Animal
+	{
+		private final int id;
+		
+		Animal(final int id)
+		{
+			this.id = id;
+		}
+		
+		int getId()
+		{
+			return this.id;
+		}
+	}
+	
+	private static class Dog extends Animal
+	{
+		Dog(final int id)
+		{
+			super(id);
+		}
+	}
+	
+	private static class Puppy extends Dog
+	{
+		Puppy(final int id)
+		{
+			super(id);
+		}
+	}
+	
+	private static class Cat extends Animal
+	{
+		Cat(final int id)
+		{
+			super(id);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.spring.data.eclipse.store.exceptions.DataTypeNotSupportedException;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class EntityColumnsTest
+{
+	private EntityColumns<Reading> columns;
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.columns = EntityColumns.create(Reading.class);
+		this.columns.put(new Reading(1, 20.5, Unit.CELSIUS, "Regensburg", null));
+		this.columns.put(new Reading(2, 68.0, Unit.FAHRENHEIT, "Boston", 3L));
+		this.columns.put(new Reading(3, 293.0, Unit.KELVIN, null, 7L));
+		this.columns.put(new Reading(4, Double.NaN, Unit.CELSIUS, "Berlin", 5L));
+	}
+	
+	@Test
+	void create_UnsupportedType()
+	{
+		Assertions.assertThrows(DataTypeNotSupportedException.class, () -> EntityColumns.create(Invalid.class));
+	}
+	
+	@Test
+	void filter_LongColumn()
+	{
+		Assertions.assertEquals(List.of(2, 3), this.filter(IndexRange.between("sensor", 2, 3)));
+		Assertions.assertEquals(List.of(3, 4), this.filter(IndexRange.greaterThan("sensor", 2, false)));
+		Assertions.assertEquals(List.of(1), this.filter(IndexRange.lessThan("sensor", 1, true)));
+	}
+	
+	@Test
+	void filter_NullableLongColumn()
+	{
+		Assertions.assertEquals(List.of(1, 2), this.filter(IndexRange.lessThan("batch", 5L, false)));
+		Assertions.assertEquals(List.of(4), this.filter(IndexRange.equalTo("batch", 5L)));
+	}
+	
+	@Test
+	void filter_DoubleColumn()
+	{
+		Assertions.assertEquals(List.of(2, 3, 4), this.filter(IndexRange.greaterThan("value", 20.5, false)));
+		Assertions.assertEquals(List.of(1, 2), this.filter(IndexRange.lessThan("value", 100.0, true)));
+	}
+	
+	@Test
+	void filter_DictionaryColumn()
+	{
+		Assertions.assertEquals(List.of(1, 4), this.filter(IndexRange.equalTo("unit", Unit.CELSIUS)));
+		Assertions.assertEquals(List.of(2, 3), this.filter(IndexRange.greaterThan("unit", Unit.CELSIUS, false)));
+		Assertions.assertEquals(List.of(2, 3, 4), this.filter(IndexRange.lessThan("city", "Brest", false)));
+	}
+	
+	@Test
+	void filter_MultipleRanges()
+	{
+		Assertions.assertEquals(
+			List.of(4),
+			this.filter(IndexRange.equalTo("unit", Unit.CELSIUS), IndexRange.greaterThan("sensor", 1, false)));
+	}
+	
+	@Test
+	void filter_UnsupportedRangeIgnored()
+	{
+		Assertions.assertFalse(this.columns.supports(IndexRange.equalTo("sensor", "1")));
+		Assertions.assertEquals(List.of(1, 2, 3, 4), this.filter(IndexRange.equalTo("sensor", "1")));
+	}
+	
+	@Test
+	void put_ChangedEntity()
+	{
+		final Reading reading = new Reading(5, 10.0, Unit.KELVIN, "Wien", 1L);
+		this.columns.put(reading);
+		reading.unit = Unit.CELSIUS;
+		this.columns.put(reading);
+		
+		Assertions.assertEquals(5, this.columns.size());
+		Assertions.assertEquals(List.of(1, 4, 5), this.filter(IndexRange.equalTo("unit", Unit.CELSIUS)));
+	}
+	
+	@Test
+	void remove_LastRowMovedIntoGap()
+	{
+		final Reading reading = new Reading(5, 10.0, Unit.KELVIN, "Wien", null);
+		this.columns.put(reading);
+		this.columns.remove(reading);
+		this.columns.remove(this.columns.stream(this.columns.filter(List.of(IndexRange.equalTo("sensor", 1))))
+			.findFirst()
+			.orElseThrow());
+		
+		Assertions.assertEquals(3, this.columns.size());
+		Assertions.assertEquals(List.of(2, 3, 4), this.filter());
+		Assertions.assertEquals(List.of(2), this.filter(IndexRange.lessThan("batch", 5L, false)));
+	}
+	
+	@Test
+	void stream_NotChangedByLaterRemove()
+	{
+		final Stream<Reading> readings = this.columns.stream(
+			this.columns.filter(List.of(IndexRange.lessThan("sensor", 2, true))));
+		this.columns.remove(this.columns.stream(this.columns.filter(List.of(IndexRange.equalTo("sensor", 1))))
+			.findFirst()
+			.orElseThrow());
+		
+		Assertions.assertEquals(List.of(1, 2), readings.map(Reading::sensor).toList());
+		Assertions.assertEquals(List.of(2, 3, 4), this.filter());
+	}
+	
+	@Test
+	void stream_RowsBeyondSizeIgnored()
+	{
+		final BitSet rows = this.columns.filter(List.of());
+		this.columns.remove(this.columns.stream(this.columns.filter(List.of(IndexRange.equalTo("sensor", 4))))
+			.findFirst()
+			.orElseThrow());
+		
+		Assertions.assertEquals(List.of(1, 2, 3), this.columns.stream(rows).map(Reading::sensor).toList());
+	}
+	
+	@Test
+	void put_GrowsBeyondInitialCapacity()
+	{
+		for(int sensor = 5; sensor <= 100; sensor++)
+		{
+			this.columns.put(new Reading(sensor, sensor, Unit.KELVIN, "Wien", (long)sensor));
+		}
+		Assertions.assertEquals(100, this.columns.size());
+		Assertions.assertEquals(List.of(99, 100), this.filter(IndexRange.greaterThan("batch", 98L, false)));
+	}
+	
+	@Test
+	void streamCandidates_BroadRangesThroughColumns()
+	{
+		final EntityIndexes<Reading> indexes = EntityIndexes.create(Reading.class);
+		for(int sensor = 1; sensor <= 2_000; sensor++)
+		{
+			indexes.put(new Reading(sensor, sensor, sensor % 2 == 0 ? Unit.KELVIN : Unit.CELSIUS, "Wien", 1L));
+		}
+		final List<IndexRange> ranges = List.of(
+			IndexRange.greaterThan("sensor", 10, false),
+			IndexRange.equalTo("unit", Unit.CELSIUS),
+			IndexRange.lessThan("value", 20.0, false));
+		
+		Assertions.assertTrue(indexes.hasCandidateIndex(ranges));
+		Assertions.assertEquals(
+			List.of(11, 13, 15, 17, 19),
+			indexes.streamCandidates(ranges).orElseThrow().map(Reading::sensor).sorted().toList());
+	}
+	
+	private List<Integer> filter(final IndexRange... ranges)
+	{
+		return this.columns.stream(this.columns.filter(List.of(ranges))).map(Reading::sensor).sorted().toList();
+	}
+	
+	private enum Unit
+	{
+		CELSIUS,
+		FAHRENHEIT,
+		KELVIN
+	}
+	
+	
+	private static class Reading
+	{
+		@Indexed
+		@Columnar
+		private final int sensor;
+		@Columnar
+		private final double value;
+		@Columnar
+		private Unit unit;
+		@Columnar
+		private final String city;
+		@Columnar
+		private final Long batch;
+		
+		Reading(final int sensor, final double value, final Unit unit, final String city, final Long batch)
+		{
+			this.sensor = sensor;
+			this.value = value;
+			this.unit = unit;
+			this.city = city;
+			this.batch = batch;
+		}
+		
+		int sensor()
+		{
+			return this.sensor;
+		}
+	}
+	
+	
+	private static class Invalid
+	{
+		@Columnar
+		private List<String> values;
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.index;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.CriteriaSingleNode;
+import software.xdev.spring.data.eclipse.store.repository.query.executors.ListQueryExecutor;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class SortedIndexTest
+{
+	private static final ReflectedField<Order, Integer> NUMBER_FIELD =
+		ReflectedField.createReflectedField(Order.class, "number");
+	
+	@Test
+	void create_IndexedFields()
+	{
+		final EntityIndexes<Order> indexes = EntityIndexes.create(Order.class);
+		Assertions.assertTrue(indexes.getIndex("number").isPresent());
+		Assertions.assertTrue(indexes.getIndex("text").isEmpty());
+	}
+	
+	@Test
+	void create_NotComparableField()
+	{
+		Assertions.assertThrows(NotComparableException.class, () -> EntityIndexes.create(Incomparable.class));
+	}
+	
+	@Test
+	void stream_Range()
+	{
+		final EntityProvider<Order, Void> entities = createProvider(
+			new Order(1, "a"),
+			new Order(5, "b"),
+			new Order(null, "c"),
+			new Order(9, "d"));
+		
+		Assertions.assertEquals(
+			List.of("b"),
+			texts(entities.stream(new CriteriaSingleNode<>(NUMBER_FIELD).gt(1).lt(9))));
+		Assertions.assertEquals(
+			List.of("b", "d"),
+			texts(entities.stream(new CriteriaSingleNode<>(NUMBER_FIELD).gte(5))));
+		// Null is smaller than every other value
+		Assertions.assertEquals(
+			List.of("a", "c"),
+			texts(entities.stream(new CriteriaSingleNode<>(NUMBER_FIELD).lt(5))));
+		Assertions.assertEquals(
+			List.of(),
+			texts(entities.stream(new CriteriaSingleNode<>(NUMBER_FIELD).gt(5).lt(5))));
+	}
+	
+	@Test
+	void stream_RangeWithDifferentType_FallsBackToScan()
+	{
+		final EntityProvider<Order, Void> entities = createProvider(new Order(1, "a"), new Order(5, "b"));
+		Assertions.assertThrows(
+			ClassCastException.class,
+			() -> entities.stream(new CriteriaSingleNode<>(NUMBER_FIELD).gt(1L)).toList());
+	}
+	
+	@Test
+	void streamOrderedByIndex_Descending()
+	{
+		final EntityProvider<Order, Void> entities = createProvider(
+			new Order(3, "c"),
+			new Order(null, "null"),
+			new Order(1, "a"),
+			new Order(2, "b"));
+		
+		Assertions.assertEquals(
+			List.of("c", "b", "a", "null"),
+			orderedTexts(entities.streamOrderedByIndex(
+				Criteria.createNoCriteria(),
+				Sort.by("number").descending(),
+				true).orElseThrow()));
+		Assertions.assertEquals(
+			List.of("null", "a", "b", "c"),
+			orderedTexts(entities.streamOrderedByIndex(Criteria.createNoCriteria(), Sort.by("number"), true)
+				.orElseThrow()));
+		Assertions.assertTrue(
+			entities.streamOrderedByIndex(Criteria.createNoCriteria(), Sort.by("text"), true).isEmpty());
+	}
+	
+	@Test
+	void streamOrderedByIndex_MultipleEntityData_Merged()
+	{
+		final EntityProvider<Order, Void> entities = createProvider(new Order(4, "d"), new Order(1, "a"));
+		entities.addEntityData(createEntityData(new Order(3, "c"), new Order(2, "b"), new Order(5, "e")));
+		
+		Assertions.assertEquals(
+			List.of("a", "b", "c", "d", "e"),
+			orderedTexts(entities.streamOrderedByIndex(Criteria.createNoCriteria(), Sort.by("number"), true)
+				.orElseThrow()));
+	}
+	
+	@Test
+	void execute_TopWithRangeAndOrder()
+	{
+		final EntityProvider<Order, Void> entities = createProvider(
+			new Order(1, "a"),
+			new Order(2, "b"),
+			new Order(3, "c"),
+			new Order(4, "d"),
+			new Order(5, "e"));
+		final ListQueryExecutor<Order> executor = new ListQueryExecutor<>(
+			new DummyWorkingCopier<>(),
+			new CriteriaSingleNode<>(NUMBER_FIELD).gt(1),
+			Sort.by("number").descending(),
+			Limit.of(2));
+		
+		Assertions.assertEquals(
+			List.of("e", "d"),
+			orderedTexts(executor.execute(Order.class, entities, null).stream()));
+	}
+	
+	@Test
+	void put_ChangedEntity_IsMoved()
+	{
+		final MutableOrder order = new MutableOrder(1);
+		final SortedIndex<MutableOrder> index =
+			new SortedIndex<>(ReflectedField.createReflectedField(MutableOrder.class, "number"));
+		index.put(order);
+		
+		order.number = 10;
+		index.put(order);
+		
+		Assertions.assertEquals(10, index.getKey(order));
+		Assertions.assertEquals(0, index.stream(IndexRange.lessThan("number", 5, true), false).count());
+		Assertions.assertEquals(1, index.stream(IndexRange.greaterThan("number", 5, true), false).count());
+		
+		index.remove(order);
+		Assertions.assertEquals(0, index.stream(IndexRange.unbounded("number"), false).count());
+	}
+	
+	@Test
+	void countUpTo_StopsAtLimit()
+	{
+		final SortedIndex<Order> index = new SortedIndex<>(NUMBER_FIELD);
+		IntStream.range(0, 100).forEach(number -> index.put(new Order(number % 10, "t" + number)));
+		index.put(new Order(null, "null"));
+		
+		Assertions.assertEquals(10, index.countUpTo(IndexRange.equalTo("number", 3), 1_000));
+		Assertions.assertEquals(21, index.countUpTo(IndexRange.lessThan("number", 2, false), 1_000));
+		Assertions.assertTrue(index.countUpTo(IndexRange.unbounded("number"), 15) > 15);
+		Assertions.assertEquals(0, index.countUpTo(IndexRange.between("number", 5, 4), 1_000));
+	}
+	
+	@Test
+	void streamCandidates_MostSelectiveRange()
+	{
+		final EntityIndexes<Ticket> indexes = EntityIndexes.create(Ticket.class);
+		IntStream.range(0, 100)
+			.forEach(priority -> indexes.put(new Ticket(priority, priority == 42 ? "closed" : "open")));
+		
+		final List<IndexRange> ranges = List.of(
+			IndexRange.greaterThan("priority", 0, true),
+			IndexRange.equalTo("status", "closed"));
+		Assertions.assertEquals(
+			List.of(new Ticket(42, "closed")),
+			indexes.streamCandidates(ranges).orElseThrow().toList());
+	}
+	
+	private static EntityProvider<Order, Void> createProvider(final Order... orders)
+	{
+		final EntityProvider<Order, Void> entities = new EntityProvider<>();
+		entities.addEntityData(createEntityData(orders));
+		return entities;
+	}
+	
+	private static NonLazyEntityData<Order, Void> createEntityData(final Order... orders)
+	{
+		final NonLazyEntityData<Order, Void> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(null);
+		entityData.setIndexes(EntityIndexes.create(Order.class));
+		for(final Order order : orders)
+		{
+			entityData.ensureEntityAndReturnObjectsToStore(order);
+		}
+		return entityData;
+	}
+	
+	private static List<String> texts(final Stream<? extends Order> orders)
+	{
+		return orders.map(Order::text).sorted().toList();
+	}
+	
+	private static List<String> orderedTexts(final Stream<? extends Order> orders)
+	{
+		return orders.map(Order::text).toList();
+	}
+	
+	private record Order(@Indexed Integer number, String text)
+	{
+	}
+	
+	private record Ticket(@Indexed Integer priority, @Indexed String status)
+	{
+	}
+	
+	private record Incomparable(@Indexed Object value)
+	{
+	}
+	
+	private static class MutableOrder
+	{
+		private Integer number;
+		
+		MutableOrder(final Integer number)
+		{
+			this.number = number;
+		}
+	}
+}
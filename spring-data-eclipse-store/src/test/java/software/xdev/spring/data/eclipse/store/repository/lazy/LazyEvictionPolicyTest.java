@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.lazy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.serializer.reference.Lazy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class LazyEvictionPolicyTest
+{
+	private long nextObjectId = 1;
+	
+	/**
+	 * Creates loaded references that look like they were stored. They are touched one after another, so that the
+	 * first reference is the least recently used one.
+	 */
+	private List<Lazy<String>> createLoadedReferences(final String prefix, final int count)
+		throws InterruptedException
+	{
+		final List<Lazy<String>> references = new ArrayList<>();
+		for(int i = 0; i < count; i++)
+		{
+			references.add(Lazy.New(prefix + i, this.nextObjectId++, objectId -> null));
+			Thread.sleep(2);
+		}
+		return references;
+	}
+	
+	private static List<Boolean> isLoaded(final List<Lazy<String>> references)
+	{
+		return references.stream().map(reference -> reference.isLoaded()).toList();
+	}
+	
+	@Test
+	void evict_MaxLoadedEntitiesPerType_ClearsLeastRecentlyUsed() throws InterruptedException
+	{
+		final List<Lazy<String>> customers = this.createLoadedReferences("customer", 5);
+		final List<Lazy<String>> orders = this.createLoadedReferences("order", 2);
+		
+		final LazyEvictionPolicy policy = new LazyEvictionPolicy(3, 0, 0);
+		
+		Assertions.assertEquals(2, policy.evict(List.of(customers, orders)));
+		Assertions.assertEquals(List.of(false, false, true, true, true), isLoaded(customers));
+		Assertions.assertEquals(List.of(true, true), isLoaded(orders));
+	}
+	
+	@Test
+	void evict_MaxLoadedEntities_ClearsLeastRecentlyUsedOfAllTypes() throws InterruptedException
+	{
+		final List<Lazy<String>> customers = this.createLoadedReferences("customer", 2);
+		final List<Lazy<String>> orders = this.createLoadedReferences("order", 3);
+		customers.get(0).get();
+		
+		final LazyEvictionPolicy policy = new LazyEvictionPolicy(0, 2, 0);
+		
+		Assertions.assertEquals(3, policy.evict(List.of(customers, orders)));
+		Assertions.assertEquals(List.of(true, false), isLoaded(customers));
+		Assertions.assertEquals(List.of(false, false, true), isLoaded(orders));
+	}
+	
+	@Test
+	void evict_ClearingEvaluatorKeepsEntity() throws InterruptedException
+	{
+		final List<Lazy<String>> customers = this.createLoadedReferences("customer", 4);
+		
+		final LazyEvictionPolicy policy = new LazyEvictionPolicy(
+			2,
+			0,
+			0,
+			lazyReference -> !"customer0".equals(lazyReference.peek()));
+		
+		Assertions.assertEquals(2, policy.evict(List.of(customers)));
+		Assertions.assertEquals(List.of(true, false, false, true), isLoaded(customers));
+	}
+	
+	@Test
+	void evict_Disabled() throws InterruptedException
+	{
+		final List<Lazy<String>> customers = this.createLoadedReferences("customer", 4);
+		
+		Assertions.assertFalse(LazyEvictionPolicy.disabled().isEnabled());
+		Assertions.assertEquals(0, LazyEvictionPolicy.disabled().evict(List.of(customers)));
+		Assertions.assertEquals(List.of(true, true, true, true), isLoaded(customers));
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.DefaultParameters;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.ParametersSource;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class EclipseStoreQueryPlanTest
+{
+	@Test
+	void bind_MultipleTimes() throws NoSuchMethodException
+	{
+		final Method method =
+			CustomerRepository.class.getMethod("findByIdLessThanOrFirstName", int.class, String.class, Sort.class);
+		final EclipseStoreQueryPlan<QueryCreatorUtil.Customer> plan = new EclipseStoreQueryPlan<>(
+			QueryCreatorUtil.Customer.class,
+			TypeInformation.fromReturnTypeOf(method),
+			new DummyWorkingCopier<>(),
+			new PartTree(method.getName(), QueryCreatorUtil.Customer.class));
+		
+		Assertions.assertEquals(List.of(2, 1), execute(plan, method, 3, "X", Sort.by(Sort.Direction.DESC, "id")));
+		Assertions.assertEquals(List.of(1, 4), execute(plan, method, 2, "C", Sort.by("id")));
+		Assertions.assertEquals(List.of(), execute(plan, method, 0, "X", Sort.unsorted()));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static List<Integer> execute(
+		final EclipseStoreQueryPlan<QueryCreatorUtil.Customer> plan,
+		final Method method,
+		final Object... values)
+	{
+		final DefaultParameters parameters =
+			new DefaultParameters(ParametersSource.of(
+				new DefaultRepositoryMetadata(method.getDeclaringClass()),
+				method));
+		final List<QueryCreatorUtil.Customer> customers =
+			(List<QueryCreatorUtil.Customer>)plan.bind(new ParametersParameterAccessor(parameters, values))
+				.execute(QueryCreatorUtil.Customer.class, QueryCreatorUtil.DATA_CUSTOMERS_DABC_ABCD, values);
+		return customers.stream().map(QueryCreatorUtil.Customer::id).toList();
+	}
+	
+	private interface CustomerRepository extends Repository<QueryCreatorUtil.Customer, Void>
+	{
+		List<QueryCreatorUtil.Customer> findByIdLessThanOrFirstName(
+			final int maxIdExcluding,
+			final String firstName,
+			final Sort sort);
+	}
+}
@@ -18,6 +18,7 @@ package software.xdev.spring.data.eclipse.store.repository.query;
 import java.lang.reflect.Method;
 import java.util.Collection;
 
+import org.junit.jupiter.api.Assertions;
 import org.springframework.data.core.TypeInformation;
 import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
 import org.springframework.data.repository.query.DefaultParameters;
@@ -79,7 +80,13 @@ public final class QueryCreatorUtil
 		final EclipseStoreQueryCreator<T> creator =
 			new EclipseStoreQueryCreator<>(domainClass, typeInformation, new DummyWorkingCopier<>(), tree, accessor);
 		
-		return (Collection<T>)creator.createQuery().execute(domainClass, entities, values);
+		final Collection<T> result = (Collection<T>)creator.createQuery().execute(domainClass, entities, values);
+		
+		// The compiled plan must always find the same entities as the creator.
+		final EclipseStoreQueryPlan<T> plan =
+			new EclipseStoreQueryPlan<>(domainClass, typeInformation, new DummyWorkingCopier<>(), tree);
+		Assertions.assertEquals(result, plan.bind(accessor).execute(domainClass, entities, values));
+		return result;
 	}
 	
 	public record Customer(int id, String firstName, String lastName, Incomparable incomparable, boolean enabled)
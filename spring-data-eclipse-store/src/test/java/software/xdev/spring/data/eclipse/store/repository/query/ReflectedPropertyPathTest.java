@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.core.PropertyPath;
+import org.springframework.data.core.TypeInformation;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.DefaultParameters;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.ParametersSource;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class ReflectedPropertyPathTest
+{
+	private static final Owner MICK =
+		new Owner("Mick", new Address("London"), List.of(new Pet("Rex"), new Pet("Tom")));
+	private static final Owner KEITH = new Owner("Keith", new Address("Dartford"), List.of(new Pet("Bo")));
+	private static final Owner RONNIE = new Owner("Ronnie", null, List.of());
+	
+	private static ReflectedField<Owner, ?> createPath(final String path)
+	{
+		return ReflectedPropertyPath.create(Owner.class, PropertyPath.from(path, Owner.class));
+	}
+	
+	private static ReflectedField<Keeper, ?> createKeeperPath(final String path)
+	{
+		return ReflectedPropertyPath.create(Keeper.class, PropertyPath.from(path, Keeper.class));
+	}
+	
+	@Test
+	void create_SingleField_NotNested()
+	{
+		Assertions.assertFalse(createPath("name").isNested());
+	}
+	
+	@Test
+	void readValue_NestedField()
+	{
+		final ReflectedField<Owner, ?> path = createPath("address.city");
+		
+		Assertions.assertEquals("address.city", path.getName());
+		Assertions.assertEquals(String.class, path.getType());
+		Assertions.assertEquals("London", path.readValue(MICK));
+	}
+	
+	@Test
+	void readValue_NullOnPath()
+	{
+		Assertions.assertNull(createPath("address.city").readValue(RONNIE));
+	}
+	
+	@Test
+	void readValue_MultipleValues()
+	{
+		final ReflectedField<Owner, ?> path = createPath("pets.name");
+		
+		Assertions.assertTrue(path.isMultiValued());
+		Assertions.assertThrows(IllegalStateException.class, () -> path.readValue(MICK));
+	}
+	
+	@Test
+	void anyValueMatches_MultipleValues()
+	{
+		final ReflectedField<Owner, ?> path = createPath("pets.name");
+		
+		Assertions.assertTrue(path.anyValueMatches(MICK, "Tom"::equals));
+		Assertions.assertFalse(path.anyValueMatches(KEITH, "Tom"::equals));
+		Assertions.assertFalse(path.anyValueMatches(RONNIE, value -> true));
+	}
+	
+	@Test
+	void anyValueMatches_ArrayWithNullElement()
+	{
+		final Keeper keeper = new Keeper(
+			new Pet[]{new Pet("Rex"), null},
+			new Stats(new int[0], new String[]{null, "old"}));
+		
+		Assertions.assertTrue(createKeeperPath("pets.name").anyValueMatches(keeper, "Rex"::equals));
+		Assertions.assertFalse(createKeeperPath("pets.name").anyValueMatches(keeper, "Tom"::equals));
+		Assertions.assertTrue(createKeeperPath("stats.tags").anyValueMatches(keeper, "old"::equals));
+	}
+	
+	@Test
+	void anyValueMatches_PrimitiveArrayLeaf()
+	{
+		final Keeper keeper = new Keeper(new Pet[0], new Stats(new int[]{3, 7}, new String[0]));
+		final ReflectedField<Keeper, ?> path = createKeeperPath("stats.scores");
+		
+		Assertions.assertTrue(path.isMultiValued());
+		Assertions.assertTrue(path.anyValueMatches(keeper, Integer.valueOf(7)::equals));
+		Assertions.assertFalse(path.anyValueMatches(keeper, Integer.valueOf(5)::equals));
+	}
+	
+	@Test
+	void query_NestedPathWithIndex()
+	{
+		final EntityIndexes<Owner> indexes = EntityIndexes.create(Owner.class);
+		Assertions.assertTrue(indexes.getIndex("address.city").isPresent());
+		
+		Assertions.assertEquals(List.of(KEITH), execute(indexes, "findByAddressCity", "Dartford"));
+		Assertions.assertEquals(List.of(RONNIE), execute(indexes, "findByAddressCityIsNull"));
+	}
+	
+	@Test
+	void query_PathThroughCollection()
+	{
+		Assertions.assertEquals(List.of(MICK), execute(null, "findByPetsNameStartingWith", "T"));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static List<Owner> execute(
+		final EntityIndexes<Owner> indexes,
+		final String methodName,
+		final Object... values)
+	{
+		final Method method = List.of(OwnerRepository.class.getMethods())
+			.stream()
+			.filter(m -> m.getName().equals(methodName))
+			.findFirst()
+			.orElseThrow();
+		final NonLazyEntityData<Owner, Void> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(null);
+		if(indexes != null)
+		{
+			entityData.setIndexes(indexes);
+		}
+		List.of(MICK, KEITH, RONNIE).forEach(entityData::ensureEntityAndReturnObjectsToStore);
+		final EntityProvider<Owner, Void> entities = new EntityProvider<>();
+		entities.addEntityData(entityData);
+		
+		final EclipseStoreQueryPlan<Owner> plan = new EclipseStoreQueryPlan<>(
+			Owner.class,
+			TypeInformation.fromReturnTypeOf(method),
+			new DummyWorkingCopier<>(),
+			new PartTree(method.getName(), Owner.class));
+		final DefaultParameters parameters = new DefaultParameters(ParametersSource.of(
+			new DefaultRepositoryMetadata(OwnerRepository.class),
+			method));
+		return (List<Owner>)plan.bind(new ParametersParameterAccessor(parameters, values))
+			.execute(Owner.class, entities, values);
+	}
+	
+	private interface OwnerRepository extends Repository<Owner, Void>
+	{
+		List<Owner> findByAddressCity(String city);
+		
+		List<Owner> findByAddressCityIsNull();
+		
+		List<Owner> findByPetsNameStartingWith(String prefix);
+	}
+	
+	private record Owner(String name, @Indexed(paths = "city") Address address, List<Pet> pets)
+	{
+	}
+	
+	private record Address(String city)
+	{
+	}
+	
+	private record Pet(String name)
+	{
+	}
+	
+	private record Keeper(Pet[] pets, Stats stats)
+	{
+	}
+	
+	private record Stats(int[] scores, String[] tags)
+	{
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.aggregation;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.core.PropertyPath;
+
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedPropertyPath;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class AggregateFunctionsTest
+{
+	private static final List<Order> ORDERS = List.of(
+		new Order("open", 2, 10L, 1.5, new BigDecimal("10.10"), new Customer("Berlin")),
+		new Order("open", 3, null, 2.5, new BigDecimal("0.90"), new Customer(null)),
+		new Order("done", 5, 7L, 4.0, null, null),
+		new Order(null, 1, 1L, 1.0, BigDecimal.ONE, new Customer("Aachen")));
+	
+	@Test
+	void sum_IntegralTypes()
+	{
+		Assertions.assertEquals(11L, ORDERS.stream().collect(AggregateFunctions.sum(field("quantity"))));
+		Assertions.assertEquals(18L, ORDERS.stream().collect(AggregateFunctions.sum(field("points"))));
+	}
+	
+	@Test
+	void sum_FloatingPointAndBigDecimal()
+	{
+		Assertions.assertEquals(9.0, ORDERS.stream().collect(AggregateFunctions.sum(field("weight"))));
+		Assertions.assertEquals(
+			new BigDecimal("12.00"),
+			ORDERS.stream().collect(AggregateFunctions.sum(field("amount"))));
+	}
+	
+	@Test
+	void sum_NotNumeric()
+	{
+		final ReflectedField<Order, ?> status = field("status");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AggregateFunctions.sum(status));
+	}
+	
+	@Test
+	void average_IgnoresNull()
+	{
+		Assertions.assertEquals(
+			OptionalDouble.of(6.0),
+			ORDERS.stream().collect(AggregateFunctions.average(field("points"))));
+		Assertions.assertEquals(
+			OptionalDouble.empty(),
+			ORDERS.stream().limit(0).collect(AggregateFunctions.average(field("quantity"))));
+	}
+	
+	@Test
+	void extremum_NestedProperty()
+	{
+		Assertions.assertEquals(
+			Optional.of("Aachen"),
+			ORDERS.stream().collect(AggregateFunctions.extremum(field("customer.city"), false)));
+		Assertions.assertEquals(
+			Optional.of("Berlin"),
+			ORDERS.stream().collect(AggregateFunctions.extremum(field("customer.city"), true)));
+	}
+	
+	@Test
+	void extremum_NotComparable()
+	{
+		final ReflectedField<Order, ?> customer = field("customer");
+		Assertions.assertThrows(NotComparableException.class, () -> AggregateFunctions.extremum(customer, true));
+	}
+	
+	@Test
+	void groupBy_NullIsGroup()
+	{
+		final Map<Object, Long> expected = new HashMap<>();
+		expected.put("open", 5L);
+		expected.put("done", 5L);
+		expected.put(null, 1L);
+		Assertions.assertEquals(
+			expected,
+			ORDERS.parallelStream()
+				.collect(AggregateFunctions.groupBy(field("status"), AggregateFunctions.sum(field("quantity")))));
+	}
+	
+	private static ReflectedField<Order, ?> field(final String property)
+	{
+		return ReflectedPropertyPath.create(Order.class, PropertyPath.from(property, Order.class));
+	}
+	
+	record Order(String status, int quantity, Long points, double weight, BigDecimal amount, Customer customer)
+	{
+	}
+	
+	
+	record Customer(String city)
+	{
+	}
+}
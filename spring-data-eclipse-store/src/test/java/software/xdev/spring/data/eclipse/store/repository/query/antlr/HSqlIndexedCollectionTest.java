@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.googlecode.cqengine.attribute.Attribute;
+import com.googlecode.cqengine.query.Query;
+import com.googlecode.cqengine.query.QueryFactory;
+import com.googlecode.cqengine.query.parser.common.ParseResult;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryBudget;
+import software.xdev.spring.data.eclipse.store.exceptions.DataTypeNotSupportedException;
+import software.xdev.spring.data.eclipse.store.exceptions.QueryBudgetExceededException;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexType;
+import software.xdev.spring.data.eclipse.store.repository.index.HSqlIndexed;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+/**
+ * The SQL parser of cqengine is currently not working (see HsqlTest), so the queries are created directly.
+ */
+@SuppressWarnings({"checkstyle:MethodName", "unchecked"})
+class HSqlIndexedCollectionTest
+{
+	private static final Map<String, HSqlRowAttribute<Customer, ?>> ATTRIBUTES =
+		HSqlIndexedCollection.createAttributes(Customer.class);
+	
+	private NonLazyEntityData<Customer, Void> entityData;
+	private EntityProvider<Customer, Void> entityProvider;
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.entityData = new NonLazyEntityData<>();
+		this.entityData.setIdGetter(null);
+		this.entityData.setIndexes(EntityIndexes.create(Customer.class));
+		this.entityData.ensureEntityAndReturnObjectsToStore(new Customer("Mick", "London", 80));
+		this.entityData.ensureEntityAndReturnObjectsToStore(new Customer("Keith", "London", 81));
+		this.entityData.ensureEntityAndReturnObjectsToStore(new Customer("Ronnie", "Hillingdon", 78));
+		
+		this.entityProvider = new EntityProvider<>();
+		this.entityProvider.addEntityData(this.entityData);
+	}
+	
+	@Test
+	void getHSqlCollection_SameCollectionForEveryQuery()
+	{
+		Assertions.assertSame(this.getCollection(), this.getCollection());
+	}
+	
+	@Test
+	void retrieve_IndexedFields()
+	{
+		Assertions.assertEquals(
+			List.of("Keith", "Mick"),
+			this.retrieve(QueryFactory.equal(attribute("city"), "London")));
+		Assertions.assertEquals(
+			List.of("Keith", "Mick"),
+			this.retrieve(QueryFactory.greaterThanOrEqualTo(attribute("age"), 80)));
+		Assertions.assertEquals(
+			List.of("Ronnie"),
+			this.retrieve(QueryFactory.startsWith(attribute("name"), "R")));
+	}
+	
+	@Test
+	void retrieve_ChangedEntity()
+	{
+		final Customer customer = new Customer("Charlie", "London", 80);
+		this.entityData.ensureEntityAndReturnObjectsToStore(customer);
+		Assertions.assertEquals(
+			List.of("Charlie", "Keith", "Mick"),
+			this.retrieve(QueryFactory.equal(attribute("city"), "London")));
+		
+		customer.city = "Wembley";
+		this.entityData.ensureEntityAndReturnObjectsToStore(customer);
+		Assertions.assertEquals(
+			List.of("Keith", "Mick"),
+			this.retrieve(QueryFactory.equal(attribute("city"), "London")));
+		Assertions.assertEquals(
+			List.of("Charlie"),
+			this.retrieve(QueryFactory.equal(attribute("city"), "Wembley")));
+		
+		this.entityData.removeEntityAndReturnObjectsToStore(customer);
+		Assertions.assertEquals(
+			List.of(),
+			this.retrieve(QueryFactory.equal(attribute("city"), "Wembley")));
+	}
+	
+	@Test
+	void retrieve_ScannedRowsAreTracked()
+	{
+		final ParseResult<HSqlRow<Customer>> query = new ParseResult<>(
+			QueryFactory.contains(attribute("city"), "don"),
+			QueryFactory.noQueryOptions());
+		
+		final QueryBudget.Tracker tracker = new QueryBudget(0, 3).start();
+		final List<Customer> customers = this.getCollection().retrieve(new ParseResult<>(
+			query.getQuery(),
+			HSqlScanTracker.addTo(query.getQueryOptions(), tracker, null)));
+		Assertions.assertEquals(3, customers.size());
+		Assertions.assertEquals(3, tracker.getScannedCount());
+		
+		final ParseResult<HSqlRow<Customer>> trackedQuery = new ParseResult<>(
+			query.getQuery(),
+			HSqlScanTracker.addTo(query.getQueryOptions(), new QueryBudget(0, 2).start(), null));
+		Assertions.assertThrows(
+			QueryBudgetExceededException.class,
+			() -> this.getCollection().retrieve(trackedQuery));
+	}
+	
+	@Test
+	void create_RadixTreeOnNonCharSequence()
+	{
+		Assertions.assertThrows(
+			DataTypeNotSupportedException.class,
+			() -> new HSqlIndexedCollection<>(InvalidIndex.class, true));
+	}
+	
+	@Test
+	void retrieve_NotIndexedFieldChangedInPlace()
+	{
+		final Customer customer = new Customer("Charlie", "London", 80);
+		this.entityData.ensureEntityAndReturnObjectsToStore(customer);
+		this.getCollection();
+		
+		customer.nicknames.add("Charlie Boy");
+		Assertions.assertEquals(
+			List.of("Charlie"),
+			this.retrieve(QueryFactory.equal(attribute("nicknames"), List.of("Charlie Boy"))));
+	}
+	
+	@Test
+	void create_IndexOnMutableType()
+	{
+		Assertions.assertThrows(
+			DataTypeNotSupportedException.class,
+			() -> new HSqlIndexedCollection<>(MutableIndex.class, true));
+	}
+	
+	@Test
+	void create_IndexedFieldOfMutableTypeIsNotIndexed()
+	{
+		Assertions.assertFalse(
+			HSqlIndexedCollection.createAttributes(IndexedMutableType.class).get("created").isIndexed());
+		Assertions.assertDoesNotThrow(() -> new HSqlIndexedCollection<>(IndexedMutableType.class, true));
+	}
+	
+	private HSqlIndexedCollection<Customer> getCollection()
+	{
+		return this.entityProvider.getHSqlCollection(Customer.class).orElseThrow();
+	}
+	
+	private List<String> retrieve(final Query<HSqlRow<Customer>> query)
+	{
+		return this.getCollection()
+			.retrieve(new ParseResult<>(query, QueryFactory.noQueryOptions()))
+			.stream()
+			.map(customer -> customer.name)
+			.sorted()
+			.toList();
+	}
+	
+	private static <A> Attribute<HSqlRow<Customer>, A> attribute(final String name)
+	{
+		return (Attribute<HSqlRow<Customer>, A>)ATTRIBUTES.get(name);
+	}
+	
+	private static class Customer
+	{
+		@HSqlIndexed(HSqlIndexType.RADIX_TREE)
+		private final String name;
+		@HSqlIndexed
+		private String city;
+		@Indexed
+		private final int age;
+		private final List<String> nicknames = new ArrayList<>();
+		
+		Customer(final String name, final String city, final int age)
+		{
+			this.name = name;
+			this.city = city;
+			this.age = age;
+		}
+	}
+	
+	private static class InvalidIndex
+	{
+		@HSqlIndexed(HSqlIndexType.RADIX_TREE)
+		private Integer value;
+	}
+	
+	private static class MutableIndex
+	{
+		@HSqlIndexed
+		private List<String> values;
+	}
+	
+	private static class IndexedMutableType
+	{
+		@Indexed
+		private Date created;
+	}
+}
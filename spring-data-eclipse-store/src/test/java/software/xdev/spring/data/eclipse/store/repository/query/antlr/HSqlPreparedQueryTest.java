@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.antlr;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.googlecode.cqengine.attribute.Attribute;
+import com.googlecode.cqengine.query.Query;
+import com.googlecode.cqengine.query.QueryFactory;
+import com.googlecode.cqengine.query.parser.common.ParseResult;
+
+
+/**
+ * The SQL parser of cqengine is currently not working (see HsqlTest), so the parsed queries are created directly.
+ */
+@SuppressWarnings({"checkstyle:MethodName", "unchecked", "rawtypes"})
+class HSqlPreparedQueryTest
+{
+	private static final Map<String, HSqlRowAttribute<Customer, ?>> ATTRIBUTES =
+		HSqlIndexedCollection.createAttributes(Customer.class);
+	
+	private HSqlIndexedCollection<Customer> collection;
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.collection = new HSqlIndexedCollection<>(Customer.class, true);
+		this.collection.put(new Customer("Mick", "London", 80, LocalDate.of(1943, 7, 26)));
+		this.collection.put(new Customer("Keith", "London", 81, LocalDate.of(1943, 12, 18)));
+		this.collection.put(new Customer("Ronnie", "Hillingdon", 78, LocalDate.of(1947, 6, 1)));
+	}
+	
+	@Test
+	void replacePlaceholders_MarksEveryPlaceholder()
+	{
+		final char m = HSqlPreparedQuery.MARKER;
+		Assertions.assertEquals(
+			"SELECT * FROM Customer WHERE name = '" + m + "1" + m + "' AND age > '" + m + "10" + m + "'",
+			HSqlPreparedQuery.replacePlaceholders("SELECT * FROM Customer WHERE name = '?1' AND age > ?10"));
+		Assertions.assertEquals(
+			"SELECT * FROM Customer WHERE name IN ('" + m + "1" + m + "') AND city LIKE '%" + m + "2" + m + "%'",
+			HSqlPreparedQuery.replacePlaceholders("SELECT * FROM Customer WHERE name IN ?1 AND city LIKE '%?2%'"));
+	}
+	
+	@Test
+	void bind_WithoutParameters_SameQuery()
+	{
+		final ParseResult<HSqlRow<Customer>> parsedQuery =
+			new ParseResult<>(QueryFactory.all((Class)HSqlRow.class), QueryFactory.noQueryOptions());
+		final HSqlPreparedQuery<Customer> query = new HSqlPreparedQuery<>(Customer.class, parsedQuery);
+		Assertions.assertSame(parsedQuery.getQuery(), query.bind(new Object[0]).getQuery());
+	}
+	
+	@Test
+	void bind_TypedParameters()
+	{
+		Assertions.assertEquals(
+			List.of("Keith"),
+			this.execute(
+				QueryFactory.and(
+					QueryFactory.equal(attribute("city"), marker(1)),
+					QueryFactory.greaterThan(comparableAttribute("age"), slot(2))),
+				"London",
+				80));
+		Assertions.assertEquals(
+			List.of("Mick", "Ronnie"),
+			this.execute(QueryFactory.between(comparableAttribute("age"), slot(1), slot(2)), 78, 80));
+		Assertions.assertEquals(
+			List.of("Ronnie"),
+			this.execute(QueryFactory.greaterThan(comparableAttribute("birthday"), slot(1)), LocalDate.of(1945, 1, 1)));
+	}
+	
+	@Test
+	void bind_SameQueryWithOtherParameters()
+	{
+		final HSqlPreparedQuery<Customer> query = prepare(QueryFactory.equal(attribute("city"), marker(1)));
+		Assertions.assertEquals(List.of("Keith", "Mick"), this.retrieve(query, "London"));
+		Assertions.assertEquals(List.of("Ronnie"), this.retrieve(query, "Hillingdon"));
+	}
+	
+	@Test
+	void bind_ParameterOfOtherType_Converted()
+	{
+		Assertions.assertEquals(
+			List.of("Keith"),
+			this.execute(QueryFactory.equal(attribute("age"), slot(1)), "81"));
+		Assertions.assertEquals(
+			List.of("Keith", "Mick"),
+			this.execute(QueryFactory.equal(attribute("city"), marker(1)), new StringBuilder("London")));
+	}
+	
+	@Test
+	void bind_Collection()
+	{
+		Assertions.assertEquals(
+			List.of("Keith", "Ronnie"),
+			this.execute(QueryFactory.equal(attribute("name"), marker(1)), List.of("Keith", "Ronnie")));
+		Assertions.assertEquals(
+			List.of("Mick", "Ronnie"),
+			this.execute(QueryFactory.not(QueryFactory.equal(attribute("age"), slot(1))), List.of(81)));
+	}
+	
+	@Test
+	void bind_WithinString()
+	{
+		Assertions.assertEquals(
+			List.of("Keith", "Mick"),
+			this.execute(QueryFactory.contains(attribute("city"), "o" + marker(1)), "nd"));
+		Assertions.assertEquals(
+			List.of("Mick"),
+			this.execute(QueryFactory.startsWith(attribute("name"), marker(1) + marker(2)), "M", "i"));
+	}
+	
+	@Test
+	void bind_TwoDigitPlaceholder()
+	{
+		Assertions.assertEquals(
+			List.of("Keith"),
+			this.execute(
+				QueryFactory.equal(attribute("name"), marker(10)),
+				"Mick", 0, 0, 0, 0, 0, 0, 0, 0, "Keith"));
+	}
+	
+	@Test
+	void bind_QuoteInParameter_NotInterpreted()
+	{
+		Assertions.assertEquals(
+			List.of(),
+			this.execute(QueryFactory.equal(attribute("name"), marker(1)), "x' OR name <> 'x"));
+	}
+	
+	@Test
+	void bind_MissingParameter()
+	{
+		final HSqlPreparedQuery<Customer> query =
+			prepare(QueryFactory.greaterThan(comparableAttribute("age"), slot(2)));
+		final Object[] parameters = {1};
+		Assertions.assertThrows(IllegalArgumentException.class, () -> query.bind(parameters));
+	}
+	
+	@Test
+	void bind_NullParameter()
+	{
+		final HSqlPreparedQuery<Customer> query = prepare(QueryFactory.equal(attribute("name"), marker(1)));
+		final Object[] parameters = {null};
+		Assertions.assertThrows(IllegalArgumentException.class, () -> query.bind(parameters));
+	}
+	
+	private static String marker(final int index)
+	{
+		return HSqlPreparedQuery.MARKER + String.valueOf(index) + HSqlPreparedQuery.MARKER;
+	}
+	
+	/**
+	 * Placeholder within a field that is not a string, as it is created by the parser.
+	 */
+	private static Comparable slot(final int index)
+	{
+		return new HSqlPreparedQuery.ParameterSlot("'" + marker(index) + "'");
+	}
+	
+	private static HSqlPreparedQuery<Customer> prepare(final Query<HSqlRow<Customer>> query)
+	{
+		return new HSqlPreparedQuery<>(Customer.class, new ParseResult<>(query, QueryFactory.noQueryOptions()));
+	}
+	
+	private List<String> execute(final Query<HSqlRow<Customer>> query, final Object... parameters)
+	{
+		return this.retrieve(prepare(query), parameters);
+	}
+	
+	private List<String> retrieve(final HSqlPreparedQuery<Customer> query, final Object... parameters)
+	{
+		return this.collection.retrieve(query.bind(parameters))
+			.stream()
+			.map(customer -> customer.name)
+			.sorted()
+			.toList();
+	}
+	
+	private static <A> Attribute<HSqlRow<Customer>, A> attribute(final String name)
+	{
+		return (Attribute<HSqlRow<Customer>, A>)ATTRIBUTES.get(name);
+	}
+	
+	private static Attribute comparableAttribute(final String name)
+	{
+		return ATTRIBUTES.get(name);
+	}
+	
+	private static class Customer
+	{
+		private final String name;
+		private final String city;
+		private final int age;
+		private final LocalDate birthday;
+		
+		Customer(final String name, final String city, final int age, final LocalDate birthday)
+		{
+			this.name = name;
+			this.city = city;
+			this.age = age;
+			this.birthday = birthday;
+		}
+	}
+}
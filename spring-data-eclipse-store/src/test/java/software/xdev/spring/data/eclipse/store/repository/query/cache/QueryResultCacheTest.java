@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.cache;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.QueryMethod;
+
+import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.CacheableQuery;
+import software.xdev.spring.data.eclipse.store.repository.query.StringBasedEclipseStoreQueryProvider;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReentrantJavaReadWriteLock;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class QueryResultCacheTest
+{
+	private final EntityData<Item, Void> items = new NonLazyEntityData<>();
+	private final EntityProvider<Item, Void> itemProvider = new EntityProvider<>();
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.itemProvider.addEntityData(this.items);
+		this.items.ensureEntityAndReturnObjectsToStore(new Item(1, "A", true));
+		this.items.ensureEntityAndReturnObjectsToStore(new Item(2, "B", false));
+		this.items.ensureEntityAndReturnObjectsToStore(new Item(3, "C", true));
+	}
+	
+	@Test
+	void execute_HitReturnsNewCopies() throws NoSuchMethodException
+	{
+		final QueryResultCache cache = new QueryResultCache("findByActiveTrue", 10);
+		final StringBasedEclipseStoreQueryProvider<Item> query = this.createQuery("findByActiveTrue", cache);
+		
+		final List<?> firstResult = (List<?>)query.execute(new Object[0]);
+		final List<?> secondResult = (List<?>)query.execute(new Object[0]);
+		
+		Assertions.assertEquals(Set.of(new Item(1, "A", true), new Item(3, "C", true)), Set.copyOf(secondResult));
+		Assertions.assertNotSame(firstResult.get(0), secondResult.get(0));
+		Assertions.assertTrue(this.items.getEntitiesAsStream().noneMatch(item -> item == secondResult.get(0)));
+		Assertions.assertEquals(1, cache.getMissCount());
+		Assertions.assertEquals(1, cache.getHitCount());
+	}
+	
+	@Test
+	void execute_InvalidatedByModification() throws NoSuchMethodException
+	{
+		final QueryResultCache cache = new QueryResultCache("findByActiveTrue", 10);
+		final StringBasedEclipseStoreQueryProvider<Item> query = this.createQuery("findByActiveTrue", cache);
+		query.execute(new Object[0]);
+		
+		this.items.ensureEntityAndReturnObjectsToStore(new Item(4, "D", true));
+		
+		Assertions.assertEquals(3, ((List<?>)query.execute(new Object[0])).size());
+		Assertions.assertEquals(2, cache.getMissCount());
+		Assertions.assertEquals(0, cache.getHitCount());
+	}
+	
+	@Test
+	void execute_CachedPerParameters() throws NoSuchMethodException
+	{
+		final QueryResultCache cache = new QueryResultCache("findByName", 2);
+		final StringBasedEclipseStoreQueryProvider<Item> query =
+			this.createQuery("findByName", cache, String.class);
+		
+		Assertions.assertEquals(Optional.of(new Item(1, "A", true)), query.execute(new Object[]{"A"}));
+		Assertions.assertEquals(Optional.of(new Item(2, "B", false)), query.execute(new Object[]{"B"}));
+		Assertions.assertEquals(Optional.of(new Item(1, "A", true)), query.execute(new Object[]{"A"}));
+		Assertions.assertEquals(Optional.empty(), query.execute(new Object[]{"X"}));
+		
+		Assertions.assertEquals(3, cache.getMissCount());
+		Assertions.assertEquals(1, cache.getHitCount());
+		Assertions.assertEquals(1, cache.getEvictionCount());
+		Assertions.assertEquals(2, cache.getSize());
+	}
+	
+	@Test
+	void execute_CollectionParameterChangedAfterExecution() throws NoSuchMethodException
+	{
+		final QueryResultCache cache = new QueryResultCache("findByNameIn", 10);
+		final StringBasedEclipseStoreQueryProvider<Item> query =
+			this.createQuery("findByNameIn", cache, Collection.class);
+		
+		final List<String> names = new ArrayList<>(List.of("A"));
+		Assertions.assertEquals(1, ((List<?>)query.execute(new Object[]{names})).size());
+		names.add("B");
+		Assertions.assertEquals(2, ((List<?>)query.execute(new Object[]{names})).size());
+		Assertions.assertEquals(1, ((List<?>)query.execute(new Object[]{List.of("A")})).size());
+		
+		Assertions.assertEquals(2, cache.getMissCount());
+		Assertions.assertEquals(1, cache.getHitCount());
+		Assertions.assertEquals(2, cache.getSize());
+	}
+	
+	@Test
+	void execute_ArrayParameterChangedAfterExecution() throws NoSuchMethodException
+	{
+		final QueryResultCache cache = new QueryResultCache("findByNameIn", 10);
+		final StringBasedEclipseStoreQueryProvider<Item> query =
+			this.createQuery("findByNameIn", cache, String[].class);
+		
+		final String[] names = {"A"};
+		Assertions.assertEquals(1, ((List<?>)query.execute(new Object[]{names})).size());
+		names[0] = "B";
+		Assertions.assertEquals(List.of(new Item(2, "B", false)), query.execute(new Object[]{names}));
+		Assertions.assertEquals(List.of(new Item(1, "A", true)), query.execute(new Object[]{new String[]{"A"}}));
+		
+		Assertions.assertEquals(2, cache.getMissCount());
+		Assertions.assertEquals(1, cache.getHitCount());
+	}
+	
+	@Test
+	void constructor_InvalidMaxSize()
+	{
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new QueryResultCache("findByName", 0));
+	}
+	
+	private StringBasedEclipseStoreQueryProvider<Item> createQuery(
+		final String methodName,
+		final QueryResultCache cache,
+		final Class<?>... parameterTypes) throws NoSuchMethodException
+	{
+		final Method method = ItemRepository.class.getMethod(methodName, parameterTypes);
+		final SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+		return new StringBasedEclipseStoreQueryProvider<>(
+			new QueryMethod(method, new DefaultRepositoryMetadata(ItemRepository.class), factory),
+			method,
+			Item.class,
+			new SingleEntityListProvider(this.itemProvider),
+			new CopyingWorkingCopier(),
+			factory,
+			cache);
+	}
+	
+	record Item(int id, String name, boolean active)
+	{
+	}
+	
+	
+	private interface ItemRepository extends Repository<Item, Void>
+	{
+		@CacheableQuery
+		List<Item> findByActiveTrue();
+		
+		@CacheableQuery(maxSize = 2)
+		Optional<Item> findByName(String name);
+		
+		@CacheableQuery
+		List<Item> findByNameIn(Collection<String> names);
+		
+		@CacheableQuery
+		List<Item> findByNameIn(String[] names);
+	}
+	
+	
+	private static class CopyingWorkingCopier extends DummyWorkingCopier<Item>
+	{
+		@Override
+		public Item copy(final Item objectToCopy)
+		{
+			return new Item(objectToCopy.id(), objectToCopy.name(), objectToCopy.active());
+		}
+	}
+	
+	
+	private record SingleEntityListProvider(EntityProvider<Item, Void> itemProvider) implements EntityListProvider
+	{
+		private static final ReadWriteLock LOCK = new ReentrantJavaReadWriteLock();
+		
+		@Override
+		public ReadWriteLock getReadWriteLock()
+		{
+			return LOCK;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T, ID> EntityProvider<T, ID> getEntityProvider(final Class<T> clazz)
+		{
+			return clazz == Item.class ? (EntityProvider<T, ID>)this.itemProvider : null;
+		}
+	}
+}
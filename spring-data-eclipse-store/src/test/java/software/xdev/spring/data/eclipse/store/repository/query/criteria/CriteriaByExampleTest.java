@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.criteria;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class CriteriaByExampleTest
+{
+	private static final User MICK = new User(1, "Mick", "London");
+	private static final User KEITH = new User(2, "Keith", "Dartford");
+	private static final User CHARLIE = new User(3, "Charlie", null);
+	private static final List<User> USERS = List.of(MICK, KEITH, CHARLIE);
+	
+	private static List<User> filter(final Example<User> example)
+	{
+		final CriteriaByExample<User, User> criteria = new CriteriaByExample<>(example);
+		return USERS.stream().filter(criteria::evaluate).toList();
+	}
+	
+	@Test
+	void evaluate_NullPropertiesAreIgnored()
+	{
+		Assertions.assertEquals(List.of(KEITH), filter(Example.of(new User(null, "Keith", null))));
+	}
+	
+	@Test
+	void evaluate_EmptyProbe_AcceptsAll()
+	{
+		final CriteriaByExample<User, User> criteria = new CriteriaByExample<>(Example.of(new User(null, null, null)));
+		
+		Assertions.assertTrue(criteria.acceptsAll());
+		Assertions.assertTrue(criteria.evaluate(MICK));
+	}
+	
+	@Test
+	void getIndexRanges_ExactValues()
+	{
+		final CriteriaByExample<User, User> criteria = new CriteriaByExample<>(Example.of(new User(2, "Keith", null)));
+		
+		Assertions.assertEquals(
+			Set.of(IndexRange.equalTo("id", 2), IndexRange.equalTo("name", "Keith")),
+			Set.copyOf(criteria.getIndexRanges()));
+	}
+	
+	@Test
+	void evaluate_IgnoreCase()
+	{
+		Assertions.assertEquals(List.of(MICK), filter(Example.of(
+			new User(null, "mICK", null),
+			ExampleMatcher.matching().withMatcher("name", ExampleMatcher.GenericPropertyMatchers.ignoreCase()))));
+	}
+	
+	@Test
+	void evaluate_StringMatchers()
+	{
+		Assertions.assertEquals(List.of(CHARLIE), filter(Example.of(
+			new User(null, "Char", null),
+			ExampleMatcher.matching().withMatcher("name", ExampleMatcher.GenericPropertyMatchers.startsWith()))));
+		Assertions.assertEquals(List.of(MICK), filter(Example.of(
+			new User(null, "ck", null),
+			ExampleMatcher.matching().withMatcher("name", ExampleMatcher.GenericPropertyMatchers.endsWith()))));
+		Assertions.assertEquals(List.of(KEITH), filter(Example.of(
+			new User(null, "ei", null),
+			ExampleMatcher.matching().withMatcher("name", ExampleMatcher.GenericPropertyMatchers.contains()))));
+		Assertions.assertEquals(List.of(MICK, CHARLIE), filter(Example.of(
+			new User(null, "^[mc]", null),
+			ExampleMatcher.matching()
+				.withMatcher("name", ExampleMatcher.GenericPropertyMatchers.regex().ignoreCase()))));
+	}
+	
+	@Test
+	void evaluate_MatchingAny()
+	{
+		Assertions.assertEquals(List.of(MICK, KEITH), filter(Example.of(
+			new User(1, "Keith", null),
+			ExampleMatcher.matchingAny()
+				.withMatcher("id", ExampleMatcher.GenericPropertyMatchers.exact())
+				.withMatcher("name", ExampleMatcher.GenericPropertyMatchers.exact()))));
+	}
+	
+	@Test
+	void evaluate_ValueTransformer()
+	{
+		final CriteriaByExample<User, User> criteria = new CriteriaByExample<>(Example.of(
+			new User(10, null, null),
+			ExampleMatcher.matching().withTransformer(
+				"id",
+				value -> value.map(id -> ((Integer)id) % 3))));
+		
+		Assertions.assertEquals(List.of(MICK), USERS.stream().filter(criteria::evaluate).toList());
+		Assertions.assertEquals(List.of(), criteria.getIndexRanges());
+		Assertions.assertFalse(criteria.evaluate(new User(null, null, null)));
+	}
+	
+	private record User(Integer id, String name, String city)
+	{
+	}
+}
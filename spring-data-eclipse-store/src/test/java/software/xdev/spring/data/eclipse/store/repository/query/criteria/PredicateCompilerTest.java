@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.criteria;
+
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import software.xdev.spring.data.eclipse.store.repository.query.ReflectedField;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class PredicateCompilerTest
+{
+	static Stream<Arguments> generateLikes()
+	{
+		return Stream.of(
+			Arguments.of("Mick%", false, "Mick Jagger", true),
+			Arguments.of("mick%", false, "Mick Jagger", false),
+			Arguments.of("mick%", true, "Mick Jagger", true),
+			Arguments.of("%jagger", true, "Mick Jagger", true),
+			Arguments.of("%Jagger", false, "Jag", false),
+			Arguments.of("%k J%", false, "Mick Jagger", true),
+			Arguments.of("%K J%", true, "Mick Jagger", true),
+			Arguments.of("%K J%", false, "Mick Jagger", false),
+			Arguments.of("mick jagger", true, "Mick Jagger", true),
+			Arguments.of("M.ck%", false, "Mick Jagger", false),
+			Arguments.of("M.ck%", false, "M.ck Jagger", true),
+			Arguments.of("M_ck%", false, "Mick Jagger", true),
+			Arguments.of("%a%e%", false, "Mick Jagger", true),
+			Arguments.of("%", false, "", true),
+			Arguments.of("straße", true, "STRASSE", true),
+			Arguments.of("%straße", true, "Hauptstrasse", true),
+			Arguments.of("%stra_e", true, "Hauptstrasse", false)
+		);
+	}
+	
+	@ParameterizedTest
+	@MethodSource("generateLikes")
+	void like(final String like, final boolean doIgnoreCase, final String value, final boolean expectedMatch)
+	{
+		final Predicate<String> matcher = PredicateCompiler.like(like, doIgnoreCase);
+		Assertions.assertEquals(expectedMatch, matcher.test(value));
+	}
+	
+	@Test
+	void compare_PrimitiveFields()
+	{
+		final Numbers numbers = new Numbers(5, 5L, 5.0, 5);
+		Assertions.assertTrue(compare("intValue", 6).test(numbers));
+		Assertions.assertFalse(compare("intValue", 5).test(numbers));
+		Assertions.assertTrue(compare("longValue", 6L).test(numbers));
+		Assertions.assertTrue(compare("doubleValue", 5.5).test(numbers));
+		Assertions.assertTrue(compare("boxedValue", 6).test(numbers));
+		Assertions.assertTrue(compare("boxedValue", 6).test(new Numbers(5, 5L, 5.0, null)));
+	}
+	
+	private static Predicate<Numbers> compare(final String fieldName, final Object lessThan)
+	{
+		return PredicateCompiler.compare(
+			ReflectedField.createReflectedField(Numbers.class, fieldName),
+			lessThan,
+			comparison -> comparison < 0);
+	}
+	
+	private record Numbers(int intValue, long longValue, double doubleValue, Integer boxedValue)
+	{
+	}
+}
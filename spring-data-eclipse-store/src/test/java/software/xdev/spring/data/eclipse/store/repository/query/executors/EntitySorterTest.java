@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.exceptions.NotComparableException;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class EntitySorterTest
+{
+	private static final Customer A_2 = new Customer("A", 2);
+	private static final Customer B_1 = new Customer("B", 1);
+	private static final Customer A_1 = new Customer("A", 1);
+	private static final Customer LOWER_A_3 = new Customer("a", 3);
+	private static final Customer NULL_0 = new Customer(null, 0);
+	
+	private static List<Customer> sort(final Sort sort, final Customer... customers)
+	{
+		return EntitySorter.sortEntitiesStream(Customer.class, sort, Stream.of(customers))
+			.map(Customer.class::cast)
+			.toList();
+	}
+	
+	@Test
+	void sortEntitiesStream_Unsorted()
+	{
+		Assertions.assertEquals(List.of(A_2, B_1, A_1), sort(Sort.unsorted(), A_2, B_1, A_1));
+	}
+	
+	@Test
+	void sortEntitiesStream_AllOrdersAreApplied()
+	{
+		Assertions.assertEquals(
+			List.of(A_1, A_2, B_1),
+			sort(Sort.by("name").and(Sort.by("age")), A_2, B_1, A_1));
+	}
+	
+	@Test
+	void sortEntitiesStream_DirectionPerOrder()
+	{
+		Assertions.assertEquals(
+			List.of(B_1, A_2, A_1),
+			sort(Sort.by(Sort.Order.desc("name"), Sort.Order.desc("age")), A_2, B_1, A_1));
+		Assertions.assertEquals(
+			List.of(A_2, A_1, B_1),
+			sort(Sort.by(Sort.Order.asc("name"), Sort.Order.desc("age")), A_2, B_1, A_1));
+	}
+	
+	@Test
+	void sortEntitiesStream_EqualEntitiesKeepTheirOrder()
+	{
+		Assertions.assertEquals(List.of(A_2, A_1, B_1), sort(Sort.by("name"), A_2, B_1, A_1));
+		Assertions.assertEquals(List.of(A_1, A_2, B_1), sort(Sort.by("name"), A_1, B_1, A_2));
+	}
+	
+	@Test
+	void sortEntitiesStream_NullHandling()
+	{
+		Assertions.assertEquals(List.of(NULL_0, A_1, B_1), sort(Sort.by("name"), B_1, NULL_0, A_1));
+		Assertions.assertEquals(
+			List.of(B_1, A_1, NULL_0),
+			sort(Sort.by(Sort.Direction.DESC, "name"), B_1, NULL_0, A_1));
+		Assertions.assertEquals(
+			List.of(A_1, B_1, NULL_0),
+			sort(Sort.by(Sort.Order.asc("name").nullsLast()), B_1, NULL_0, A_1));
+		Assertions.assertEquals(
+			List.of(NULL_0, B_1, A_1),
+			sort(Sort.by(Sort.Order.desc("name").nullsFirst()), B_1, NULL_0, A_1));
+	}
+	
+	@Test
+	void sortEntitiesStream_IgnoreCase()
+	{
+		Assertions.assertEquals(List.of(A_1, B_1, LOWER_A_3), sort(Sort.by("name"), LOWER_A_3, B_1, A_1));
+		Assertions.assertEquals(
+			List.of(LOWER_A_3, A_1, B_1),
+			sort(Sort.by(Sort.Order.asc("name").ignoreCase()), LOWER_A_3, B_1, A_1));
+	}
+	
+	@Test
+	void sortEntitiesStream_UnknownProperty()
+	{
+		final Sort sort = Sort.by("unknown");
+		Assertions.assertThrows(NotComparableException.class, () -> sort(sort, A_1));
+	}
+	
+	@Test
+	void collectTopEntities_AllOrdersAreApplied()
+	{
+		final TopEntities<Customer> topEntities = EntitySorter.collectTopEntities(
+			Customer.class,
+			Sort.by(Sort.Order.asc("name"), Sort.Order.desc("age")),
+			Stream.of(A_1, B_1, LOWER_A_3, A_2),
+			2);
+		Assertions.assertEquals(List.of(A_2, A_1), topEntities.toSortedList());
+		Assertions.assertEquals(4, topEntities.getCount());
+	}
+	
+	private record Customer(String name, int age)
+	{
+	}
+}
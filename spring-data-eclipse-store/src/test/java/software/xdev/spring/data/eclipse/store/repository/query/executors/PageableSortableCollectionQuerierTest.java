@@ -24,6 +24,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
@@ -192,6 +195,71 @@ class PageableSortableCollectionQuerierTest
 			() -> querier.getEntities(DATA_CUSTOMERS_DABC_ABCD, unpaged, Customer.class, invalid));
 	}
 	
+	@Test
+	void getEntities_EmptyCriteria_Pageable_Sortable_SecondPageIsSorted()
+	{
+		final PageableSortableCollectionQuerier<Customer> querier = new PageableSortableCollectionQuerier<>(
+			new DummyWorkingCopier<>(),
+			new CriteriaSingleNode<>()
+		);
+		final List<Customer> sortedCustomers = querier.getEntities(
+			DATA_CUSTOMERS_DABC_ABCD,
+			PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "firstName")),
+			Customer.class);
+		Assertions.assertEquals(List.of("B", "A"), sortedCustomers.stream().map(Customer::firstName).toList());
+	}
+	
+	@Test
+	void getEntities_EmptyCriteria_Limit_Sortable_KeepsOrderOfEqualEntities()
+	{
+		final PageableSortableCollectionQuerier<Customer> querier = new PageableSortableCollectionQuerier<>(
+			new DummyWorkingCopier<>(),
+			new CriteriaSingleNode<>(),
+			Sort.by("firstName"),
+			Limit.of(2)
+		);
+		final List<Customer> allSortedCustomers = new PageableSortableCollectionQuerier<Customer>(
+			new DummyWorkingCopier<>(),
+			new CriteriaSingleNode<>(),
+			Sort.by("firstName")
+		).getEntities(DATA_CUSTOMERS_THREE, Customer.class);
+		Assertions.assertEquals(
+			allSortedCustomers.subList(0, 2),
+			querier.getEntities(DATA_CUSTOMERS_THREE, Customer.class));
+	}
+	
+	@Test
+	void getPage_Sortable_CountedInSamePass()
+	{
+		final PageableSortableCollectionQuerier<Customer> querier = new PageableSortableCollectionQuerier<>(
+			new DummyWorkingCopier<>(),
+			new CriteriaSingleNode<>()
+		);
+		final Page<Customer> page = querier.getPage(
+			DATA_CUSTOMERS_DABC_ABCD,
+			PageRequest.of(0, 3, Sort.by("lastName")),
+			Customer.class,
+			() -> Assertions.fail("Entities must not be counted separately"));
+		Assertions.assertEquals(4, page.getTotalElements());
+		Assertions.assertEquals(List.of("A", "B", "C"), page.stream().map(Customer::lastName).toList());
+	}
+	
+	@Test
+	void getPage_NoSortable_CountedInSamePass()
+	{
+		final PageableSortableCollectionQuerier<Customer> querier = new PageableSortableCollectionQuerier<>(
+			new DummyWorkingCopier<>(),
+			new CriteriaSingleNode<>()
+		);
+		final Page<Customer> page = querier.getPage(
+			DATA_CUSTOMERS_DABC_ABCD,
+			PageRequest.of(1, 3),
+			Customer.class,
+			() -> Assertions.fail("Entities must not be counted separately"));
+		Assertions.assertEquals(4, page.getTotalElements());
+		Assertions.assertEquals(1, page.getNumberOfElements());
+	}
+	
 	@ParameterizedTest
 	@MethodSource("generateData")
 	void getEntities_CriteriaFirstName_NoPageable_NoSortable(
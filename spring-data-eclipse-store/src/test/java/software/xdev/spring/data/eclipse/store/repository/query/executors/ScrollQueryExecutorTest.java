@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.Id;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class ScrollQueryExecutorTest
+{
+	private static final int ITEM_COUNT = 100;
+	private static final List<Item> ITEMS = IntStream.range(0, ITEM_COUNT)
+		.mapToObj(i -> new Item(i, i / 3, "Item " + i))
+		.toList();
+	private static final List<Item> ITEMS_BY_RANK_DESC = ITEMS
+		.stream()
+		.sorted(Comparator.comparing(Item::rank).reversed().thenComparing(Item::id))
+		.toList();
+	
+	private static EntityProvider<Item, Void> createEntities(final boolean withIndexes)
+	{
+		final NonLazyEntityData<Item, Void> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(null);
+		if(withIndexes)
+		{
+			entityData.setIndexes(EntityIndexes.create(Item.class));
+		}
+		ITEMS.forEach(entityData::ensureEntityAndReturnObjectsToStore);
+		final EntityProvider<Item, Void> entities = new EntityProvider<>();
+		entities.addEntityData(entityData);
+		return entities;
+	}
+	
+	private static ScrollQueryExecutor<Item> createExecutor(final Criteria<Item> criteria, final int windowSize)
+	{
+		return new ScrollQueryExecutor<>(
+			new DummyWorkingCopier<>(),
+			criteria,
+			Sort.by(Sort.Direction.DESC, "rank"),
+			Limit.of(windowSize));
+	}
+	
+	private static List<Item> scrollThroughAll(
+		final EntityProvider<Item, Void> entities,
+		final ScrollPosition initialPosition)
+	{
+		final ScrollQueryExecutor<Item> executor = createExecutor(Criteria.createNoCriteria(), 7);
+		final List<Item> items = new ArrayList<>();
+		Window<Item> window = executor.execute(Item.class, entities, new Object[]{initialPosition});
+		items.addAll(window.getContent());
+		while(window.hasNext())
+		{
+			window = executor.execute(
+				Item.class,
+				entities,
+				new Object[]{window.positionAt(window.size() - 1)});
+			items.addAll(window.getContent());
+		}
+		return items;
+	}
+	
+	@Test
+	void execute_Keyset_ScrollsThroughAllEntities()
+	{
+		Assertions.assertEquals(ITEMS_BY_RANK_DESC, scrollThroughAll(createEntities(false), ScrollPosition.keyset()));
+	}
+	
+	@Test
+	void execute_KeysetWithIndex_ScrollsThroughAllEntities()
+	{
+		Assertions.assertEquals(ITEMS_BY_RANK_DESC, scrollThroughAll(createEntities(true), ScrollPosition.keyset()));
+	}
+	
+	@Test
+	void execute_Offset_ScrollsThroughAllEntities()
+	{
+		final List<Item> items = scrollThroughAll(createEntities(true), ScrollPosition.offset());
+		
+		// Without keyset the order of entities with the same rank is not defined.
+		Assertions.assertEquals(Set.copyOf(ITEMS), Set.copyOf(items));
+		Assertions.assertEquals(
+			ITEMS_BY_RANK_DESC.stream().map(Item::rank).toList(),
+			items.stream().map(Item::rank).toList());
+	}
+	
+	@Test
+	void execute_KeysetWithIndex_OnlyReadsEntitiesAfterPosition()
+	{
+		final AtomicInteger evaluationCount = new AtomicInteger();
+		final ScrollQueryExecutor<Item> executor = createExecutor(
+			item -> {
+				evaluationCount.incrementAndGet();
+				return true;
+			},
+			5);
+		final Item lastOfPreviousWindow = ITEMS_BY_RANK_DESC.get(90);
+		
+		final Window<Item> window = executor.execute(
+			Item.class,
+			createEntities(true),
+			new Object[]{ScrollPosition.forward(Map.of(
+				"rank", lastOfPreviousWindow.rank(),
+				"id", lastOfPreviousWindow.id()))});
+		
+		Assertions.assertEquals(ITEMS_BY_RANK_DESC.subList(91, 96), window.getContent());
+		Assertions.assertTrue(window.hasNext());
+		Assertions.assertTrue(evaluationCount.get() < 20, "Evaluated " + evaluationCount.get() + " entities");
+	}
+	
+	@Test
+	void execute_KeysetBackward()
+	{
+		final Item firstOfNextWindow = ITEMS_BY_RANK_DESC.get(50);
+		final Window<Item> window = createExecutor(Criteria.createNoCriteria(), 4).execute(
+			Item.class,
+			createEntities(true),
+			new Object[]{ScrollPosition.backward(Map.of(
+				"rank", firstOfNextWindow.rank(),
+				"id", firstOfNextWindow.id()))});
+		
+		Assertions.assertEquals(ITEMS_BY_RANK_DESC.subList(46, 50), window.getContent());
+		Assertions.assertTrue(window.hasNext());
+	}
+	
+	@Test
+	void execute_LimitParameter()
+	{
+		final Window<Item> window = createExecutor(Criteria.createNoCriteria(), 10).execute(
+			Item.class,
+			createEntities(false),
+			new Object[]{ScrollPosition.keyset(), Limit.of(3)});
+		
+		Assertions.assertEquals(ITEMS_BY_RANK_DESC.subList(0, 3), window.getContent());
+	}
+	
+	@Test
+	void execute_KeysetWithoutKey()
+	{
+		final ScrollQueryExecutor<Item> executor = createExecutor(Criteria.createNoCriteria(), 5);
+		final EntityProvider<Item, Void> entities = createEntities(false);
+		final Object[] values = {ScrollPosition.forward(Map.of("rank", 1))};
+		Assertions.assertThrows(IllegalArgumentException.class, () -> executor.execute(Item.class, entities, values));
+	}
+	
+	private record Item(@Id Integer id, @Indexed Integer rank, String name)
+	{
+	}
+}
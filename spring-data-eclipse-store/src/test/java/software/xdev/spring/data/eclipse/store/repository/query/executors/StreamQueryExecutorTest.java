@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.executors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+import software.xdev.spring.data.eclipse.store.helper.TestReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings({"checkstyle:MethodName", "unchecked"})
+class StreamQueryExecutorTest
+{
+	private final AtomicInteger copyCount = new AtomicInteger();
+	private final DummyWorkingCopier<Customer> copier = new DummyWorkingCopier<>()
+	{
+		@Override
+		public Customer copy(final Customer objectToCopy)
+		{
+			StreamQueryExecutorTest.this.copyCount.incrementAndGet();
+			return objectToCopy;
+		}
+	};
+	
+	private static EntityData<Customer, Void> createEntityData(final Customer... customers)
+	{
+		final EntityData<Customer, Void> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(null);
+		for(final Customer customer : customers)
+		{
+			entityData.ensureEntityAndReturnObjectsToStore(customer);
+		}
+		return entityData;
+	}
+	
+	private static EntityProvider<Customer, Void> createEntities(final EntityData<Customer, Void> entityData)
+	{
+		final EntityProvider<Customer, Void> entities = new EntityProvider<>();
+		entities.addEntityData(entityData);
+		return entities;
+	}
+	
+	private StreamQueryExecutor<Customer> createExecutor(final Sort sort)
+	{
+		return new StreamQueryExecutor<>(this.copier, Criteria.createNoCriteria(), sort, Limit.unlimited());
+	}
+	
+	@Test
+	void execute_CopiesWhilePulled()
+	{
+		final EntityProvider<Customer, Void> entities =
+			createEntities(createEntityData(new Customer("A"), new Customer("B"), new Customer("C")));
+		
+		try(final Stream<Customer> stream = this.createExecutor(null).execute(Customer.class, entities, null))
+		{
+			Assertions.assertEquals(0, this.copyCount.get());
+			Assertions.assertEquals(2, stream.limit(2).toList().size());
+		}
+		Assertions.assertEquals(2, this.copyCount.get());
+	}
+	
+	@Test
+	void execute_Sorted()
+	{
+		final Customer a = new Customer("A");
+		final Customer b = new Customer("B");
+		final Customer c = new Customer("C");
+		final EntityProvider<Customer, Void> entities = createEntities(createEntityData(b, c, a));
+		
+		try(final Stream<Customer> stream = this.createExecutor(Sort.by(Sort.Direction.DESC, "name"))
+			.execute(Customer.class, entities, null))
+		{
+			Assertions.assertEquals(List.of(c, b, a), stream.toList());
+		}
+	}
+	
+	@Test
+	void execute_SortedAndPagedByParameter()
+	{
+		final Customer a = new Customer("A");
+		final Customer b = new Customer("B");
+		final Customer c = new Customer("C");
+		final EntityProvider<Customer, Void> entities = createEntities(createEntityData(b, c, a));
+		
+		try(final Stream<Customer> stream = this.createExecutor(null)
+			.execute(Customer.class, entities, new Object[]{PageRequest.of(1, 1, Sort.by("name"))}))
+		{
+			Assertions.assertEquals(List.of(b), stream.toList());
+		}
+	}
+	
+	@Test
+	void execute_IsNotAffectedByLaterChanges()
+	{
+		final Customer a = new Customer("A");
+		final EntityData<Customer, Void> entityData = createEntityData(a);
+		final EntityProvider<Customer, Void> entities = createEntities(entityData);
+		
+		try(final Stream<Customer> stream = this.createExecutor(null).execute(Customer.class, entities, null))
+		{
+			entityData.ensureEntityAndReturnObjectsToStore(new Customer("B"));
+			Assertions.assertEquals(List.of(a), stream.toList());
+		}
+	}
+	
+	@Test
+	void createQuery_DerivedStreamCopiesWithinLock() throws NoSuchMethodException
+	{
+		final TestReadWriteLock lock = new TestReadWriteLock();
+		final List<Integer> readLockCounts = new ArrayList<>();
+		final DummyWorkingCopier<Customer> lockCheckingCopier = new DummyWorkingCopier<>()
+		{
+			@Override
+			public Customer copy(final Customer objectToCopy)
+			{
+				readLockCounts.add(lock.getReadLockCount());
+				return objectToCopy;
+			}
+		};
+		final QueryExecutor<Customer> executor = QueryExecutorCreator.createQuery(
+			TypeInformation.fromReturnTypeOf(CustomerRepository.class.getMethod("streamAll")),
+			lockCheckingCopier,
+			Criteria.createNoCriteria(),
+			null,
+			Limit.unlimited(),
+			lock);
+		final EntityProvider<Customer, Void> entities =
+			createEntities(createEntityData(new Customer("A"), new Customer("B")));
+		
+		try(final Stream<Customer> stream = (Stream<Customer>)executor.execute(Customer.class, entities, null))
+		{
+			Assertions.assertEquals(2, stream.toList().size());
+		}
+		Assertions.assertEquals(List.of(1, 1), readLockCounts);
+	}
+	
+	@Test
+	void execute_Empty()
+	{
+		final EntityProvider<Customer, Void> entities = createEntities(createEntityData());
+		Assertions.assertEquals(0, this.createExecutor(null).execute(Customer.class, entities, null).count());
+	}
+	
+	private record Customer(String name)
+	{
+	}
+	
+	private interface CustomerRepository
+	{
+		Stream<Customer> streamAll();
+	}
+}
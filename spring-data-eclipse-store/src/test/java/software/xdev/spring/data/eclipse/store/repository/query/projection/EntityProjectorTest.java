@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.projection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.ReturnedType;
+
+import software.xdev.spring.data.eclipse.store.helper.DummyWorkingCopier;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class EntityProjectorTest
+{
+	private static final ProjectionFactory FACTORY = new SpelAwareProxyProjectionFactory();
+	
+	private final Person person = new Person("Mick", "Jagger", 80, new ArrayList<>(List.of("singer")));
+	private final CountingCopier copier = new CountingCopier();
+	
+	private EntityProjector<Person> createProjector(final Class<?> projectionType, final String... properties)
+	{
+		return EntityProjector.create(
+			ReturnedType.of(projectionType, Person.class, FACTORY),
+			this.copier,
+			FACTORY,
+			List.of(properties)).orElseThrow();
+	}
+	
+	@Test
+	void create_DomainType_NoProjector()
+	{
+		Assertions.assertTrue(EntityProjector.create(
+			ReturnedType.of(Person.class, Person.class, FACTORY),
+			this.copier,
+			FACTORY,
+			List.of()).isEmpty());
+	}
+	
+	@Test
+	void project_InterfaceProjection_ReadsFieldsWithoutCopyingEntity()
+	{
+		final NameAndTags projection = (NameAndTags)this.createProjector(NameAndTags.class).project(this.person);
+		
+		Assertions.assertEquals("Mick", projection.getFirstName());
+		Assertions.assertEquals(List.of("singer"), projection.getTags());
+		Assertions.assertEquals(0, this.copier.entityCopies.get());
+		// Mutable values are copied, so the stored entity can't be changed through the projection.
+		Assertions.assertEquals(1, this.copier.valueCopies.get());
+		Assertions.assertNotSame(this.person.tags, projection.getTags());
+	}
+	
+	@Test
+	void project_InterfaceProjectionWithProperties_OnlyReadsGivenProperties()
+	{
+		final NameAndTags projection =
+			(NameAndTags)this.createProjector(NameAndTags.class, "firstName").project(this.person);
+		
+		Assertions.assertEquals("Mick", projection.getFirstName());
+		Assertions.assertNull(projection.getTags());
+		Assertions.assertEquals(0, this.copier.valueCopies.get());
+	}
+	
+	@Test
+	void project_OpenInterfaceProjection_UsesWorkingCopy()
+	{
+		final FullName projection = (FullName)this.createProjector(FullName.class).project(this.person);
+		
+		Assertions.assertEquals("Mick Jagger", projection.getFullName());
+		Assertions.assertEquals(1, this.copier.entityCopies.get());
+	}
+	
+	@Test
+	void project_DtoProjection()
+	{
+		final NameAndAge projection = (NameAndAge)this.createProjector(NameAndAge.class).project(this.person);
+		
+		Assertions.assertEquals(new NameAndAge("Jagger", 80), projection);
+		Assertions.assertEquals(0, this.copier.entityCopies.get());
+	}
+	
+	@Test
+	void create_DtoWithUnknownParameter()
+	{
+		Assertions.assertThrows(IllegalArgumentException.class, () -> this.createProjector(Unknown.class));
+	}
+	
+	@Test
+	void create_UnknownProperty()
+	{
+		Assertions.assertThrows(
+			IllegalArgumentException.class,
+			() -> this.createProjector(NameAndTags.class, "nickname"));
+	}
+	
+	private static final class CountingCopier extends DummyWorkingCopier<Person>
+	{
+		private final AtomicInteger entityCopies = new AtomicInteger();
+		private final AtomicInteger valueCopies = new AtomicInteger();
+		
+		@Override
+		public Person copy(final Person objectToCopy)
+		{
+			this.entityCopies.incrementAndGet();
+			return objectToCopy;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public <E> E onlyCreateCopy(final E objectToCopy, final boolean invertRegistry)
+		{
+			this.valueCopies.incrementAndGet();
+			return (E)new ArrayList<>((List<?>)objectToCopy);
+		}
+	}
+	
+	private static final class Person
+	{
+		private final String firstName;
+		private final String lastName;
+		private final int age;
+		private final List<String> tags;
+		
+		private Person(final String firstName, final String lastName, final int age, final List<String> tags)
+		{
+			this.firstName = firstName;
+			this.lastName = lastName;
+			this.age = age;
+			this.tags = tags;
+		}
+		
+		public String getFirstName()
+		{
+			return this.firstName;
+		}
+		
+		public String getLastName()
+		{
+			return this.lastName;
+		}
+	}
+	
+	interface NameAndTags
+	{
+		String getFirstName();
+		
+		List<String> getTags();
+	}
+	
+	interface FullName
+	{
+		@Value("#{target.firstName + ' ' + target.lastName}")
+		String getFullName();
+	}
+	
+	record NameAndAge(String lastName, int age)
+	{
+	}
+	
+	record Unknown(String nickname)
+	{
+	}
+}
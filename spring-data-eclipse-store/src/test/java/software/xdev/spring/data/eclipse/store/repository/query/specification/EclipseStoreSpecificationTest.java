@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.specification;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.spring.data.eclipse.store.core.EntityListProvider;
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.helper.DummyEntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.AbstractCriteriaNode;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReadWriteLock;
+import software.xdev.spring.data.eclipse.store.repository.support.concurrency.ReentrantJavaReadWriteLock;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class EclipseStoreSpecificationTest
+{
+	private static final DummyEntityProvider<Person> PERSONS = DummyEntityProvider.of(
+		new Person("Anna", 17, new Address("Regensburg")),
+		new Person("Ben", 30, new Address("Berlin")),
+		new Person("Carla", 45, new Address("Regensburg")),
+		new Person("Dirk", 60, null));
+	private static final DummyEntityProvider<Order> ORDERS = DummyEntityProvider.of(
+		new Order(1, "Anna"),
+		new Order(2, "Ben"),
+		new Order(3, "Carla"),
+		new Order(4, "Emil"));
+	private static final CriteriaFactory<Person> FACTORY = new CriteriaFactory<>(Person.class);
+	
+	private final EntityListProvider entityListProvider = new PersonsAndOrders();
+	
+	@Test
+	void and_AllConditionsMustMatch()
+	{
+		final EclipseStoreSpecification<Person> specification =
+			EclipseStoreSpecification.<Person>where("age", c -> c.gte(18))
+				.and(EclipseStoreSpecification.where("address.city", c -> c.is("Regensburg")));
+		
+		Assertions.assertEquals(List.of("Carla"), names(specification));
+	}
+	
+	@Test
+	void or_AnyConditionMustMatch()
+	{
+		final EclipseStoreSpecification<Person> specification =
+			EclipseStoreSpecification.<Person>where("age", c -> c.lt(18))
+				.or(EclipseStoreSpecification.where("name", c -> c.like("d%", true)));
+		
+		Assertions.assertEquals(List.of("Anna", "Dirk"), names(specification));
+	}
+	
+	@Test
+	void and_KeepsIndexRangesOfBothSides()
+	{
+		final AbstractCriteriaNode<Person> criteria = EclipseStoreSpecification.<Person>where("age", c -> c.gt(20))
+			.and(EclipseStoreSpecification.where("address.city", c -> c.is("Berlin")))
+			.toCriteria(FACTORY);
+		
+		Assertions.assertEquals(
+			Set.of(IndexRange.greaterThan("age", 20, false), IndexRange.equalTo("address.city", "Berlin")),
+			Set.copyOf(criteria.getIndexRanges()));
+	}
+	
+	@Test
+	void or_HasNoIndexRanges()
+	{
+		final AbstractCriteriaNode<Person> criteria = EclipseStoreSpecification.<Person>where("age", c -> c.gt(20))
+			.or(EclipseStoreSpecification.where("name", c -> c.is("Anna")))
+			.toCriteria(FACTORY);
+		
+		Assertions.assertEquals(List.of(), criteria.getIndexRanges());
+	}
+	
+	@Test
+	void existsIn_OnlyEntitiesWithMatchingForeignEntity()
+	{
+		final EclipseStoreSpecification<Order> specification = EclipseStoreSpecification.existsIn(
+			"customerName",
+			Person.class,
+			"name",
+			EclipseStoreSpecification.where("address.city", c -> c.is("Regensburg")));
+		
+		Assertions.assertEquals(List.of(1, 3), this.orderNumbers(specification));
+	}
+	
+	@Test
+	void existsIn_WithoutCondition()
+	{
+		Assertions.assertEquals(
+			List.of(1, 2, 3),
+			this.orderNumbers(EclipseStoreSpecification.existsIn("customerName", Person.class, "name")));
+	}
+	
+	@Test
+	void existsIn_SingleForeignValue_IndexRange()
+	{
+		final AbstractCriteriaNode<Order> criteria = EclipseStoreSpecification.<Order, Person>existsIn(
+				"customerName",
+				Person.class,
+				"name",
+				EclipseStoreSpecification.where("age", c -> c.is(30)))
+			.toCriteria(new CriteriaFactory<>(Order.class, this.entityListProvider));
+		
+		Assertions.assertEquals(List.of(IndexRange.equalTo("customerName", "Ben")), criteria.getIndexRanges());
+	}
+	
+	@Test
+	void existsIn_WithoutEntityListProvider()
+	{
+		final EclipseStoreSpecification<Order> specification =
+			EclipseStoreSpecification.existsIn("customerName", Person.class, "name");
+		final CriteriaFactory<Order> factory = new CriteriaFactory<>(Order.class);
+		
+		Assertions.assertThrows(IllegalStateException.class, () -> specification.toCriteria(factory));
+	}
+	
+	@Test
+	void existsIn_UnmanagedForeignClass()
+	{
+		final EclipseStoreSpecification<Order> specification =
+			EclipseStoreSpecification.existsIn("customerName", Address.class, "city");
+		final CriteriaFactory<Order> factory = new CriteriaFactory<>(Order.class, this.entityListProvider);
+		
+		final IllegalArgumentException exception =
+			Assertions.assertThrows(IllegalArgumentException.class, () -> specification.toCriteria(factory));
+		Assertions.assertTrue(exception.getMessage().contains(Address.class.getSimpleName()));
+	}
+	
+	private List<Integer> orderNumbers(final EclipseStoreSpecification<Order> specification)
+	{
+		return ORDERS.stream(specification.toCriteria(new CriteriaFactory<>(Order.class, this.entityListProvider)))
+			.map(Order::number)
+			.sorted()
+			.toList();
+	}
+	
+	private static List<String> names(final EclipseStoreSpecification<Person> specification)
+	{
+		return PERSONS.stream(specification.toCriteria(FACTORY)).map(Person::name).sorted().toList();
+	}
+	
+	record Person(String name, int age, Address address)
+	{
+	}
+	
+	
+	record Address(String city)
+	{
+	}
+	
+	
+	record Order(int number, String customerName)
+	{
+	}
+	
+	
+	private static class PersonsAndOrders implements EntityListProvider
+	{
+		private final ReadWriteLock readWriteLock = new ReentrantJavaReadWriteLock();
+		
+		@Override
+		public ReadWriteLock getReadWriteLock()
+		{
+			return this.readWriteLock;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T, ID> EntityProvider<T, ID> getEntityProvider(final Class<T> clazz)
+		{
+			if(clazz == Person.class)
+			{
+				return (EntityProvider<T, ID>)PERSONS;
+			}
+			return clazz == Order.class ? (EntityProvider<T, ID>)ORDERS : null;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.query.statistics;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.core.QueryParallelism;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.EntityData;
+import software.xdev.spring.data.eclipse.store.repository.root.v2_4.NonLazyEntityData;
+
+
+@SuppressWarnings("checkstyle:MethodName")
+class QueryStatisticsTest
+{
+	private static final int ENTITY_COUNT = 10_000;
+	
+	private QueryParallelism parallelism;
+	private EntityProvider<Item, Void> sequentialEntities;
+	private EntityProvider<Item, Void> parallelEntities;
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.parallelism = new QueryParallelism(1_000, 4);
+		this.sequentialEntities = new EntityProvider<>();
+		this.parallelEntities = new EntityProvider<>(this.parallelism);
+		final EntityData<Item, Void> entityData = new NonLazyEntityData<>();
+		entityData.setIdGetter(null);
+		entityData.setIndexes(EntityIndexes.create(Item.class));
+		IntStream.range(0, ENTITY_COUNT).forEach(i -> entityData.ensureEntityAndReturnObjectsToStore(new Item(i)));
+		this.sequentialEntities.addEntityData(entityData);
+		this.parallelEntities.addEntityData(entityData);
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.parallelism.close();
+	}
+	
+	private static Criteria<Item> isEven()
+	{
+		return item -> item.value % 2 == 0;
+	}
+	
+	private static Criteria<Item> isLessThanFive()
+	{
+		return new Criteria<>()
+		{
+			@Override
+			public boolean evaluate(final Item item)
+			{
+				return item.value < 5;
+			}
+			
+			@Override
+			public List<IndexRange> getIndexRanges()
+			{
+				return List.of(IndexRange.lessThan("value", 5, false));
+			}
+		};
+	}
+	
+	@Test
+	void record_DisabledDoesNotRecord()
+	{
+		final QueryMethodStatistics method = QueryStatistics.disabled().forMethod("Item.findEven");
+		
+		Assertions.assertEquals(
+			ENTITY_COUNT / 2,
+			method.record(() -> this.sequentialEntities.stream(isEven()).count()));
+		Assertions.assertEquals(0, method.getExecutionCount());
+		Assertions.assertNull(method.getLastExecution());
+		Assertions.assertFalse(QueryExecutionStatistics.isRecording());
+	}
+	
+	@Test
+	void explain_FullScan()
+	{
+		final QueryMethodStatistics method = QueryStatistics.disabled().forMethod("Item.findEven");
+		
+		final List<QueryExecutionStatistics> executions = QueryExecutionStatistics.explain(
+			() -> method.record(() -> this.sequentialEntities.stream(isEven()).count()));
+		
+		Assertions.assertEquals(1, executions.size());
+		final QueryExecutionStatistics execution = executions.get(0);
+		Assertions.assertEquals("Item.findEven", execution.getQueryName());
+		Assertions.assertEquals(List.of("full scan of " + ENTITY_COUNT + " entities"), execution.getPlan());
+		Assertions.assertFalse(execution.isParallel());
+		Assertions.assertEquals(ENTITY_COUNT, execution.getScannedCount());
+		Assertions.assertEquals(ENTITY_COUNT / 2, execution.getMatchedCount());
+		Assertions.assertFalse(QueryExecutionStatistics.isRecording());
+	}
+	
+	@Test
+	void explain_Index()
+	{
+		final QueryMethodStatistics method = QueryStatistics.disabled().forMethod("Item.findByValueLessThan");
+		
+		final QueryExecutionStatistics execution = QueryExecutionStatistics.explain(
+			() -> method.record(() -> this.sequentialEntities.stream(isLessThanFive()).count())).get(0);
+		
+		Assertions.assertEquals(List.of("index on Item.value"), execution.getPlan());
+		Assertions.assertEquals(5, execution.getScannedCount());
+		Assertions.assertEquals(5, execution.getMatchedCount());
+	}
+	
+	@Test
+	void explain_Parallel()
+	{
+		final QueryMethodStatistics method = QueryStatistics.disabled().forMethod("Item.countEven");
+		
+		final QueryExecutionStatistics execution = QueryExecutionStatistics.explain(
+			() -> method.record(() -> this.parallelEntities.count(isEven()))).get(0);
+		
+		Assertions.assertTrue(execution.isParallel());
+		Assertions.assertEquals(ENTITY_COUNT, execution.getScannedCount());
+		Assertions.assertEquals(ENTITY_COUNT / 2, execution.getMatchedCount());
+	}
+	
+	@Test
+	void record_AggregatesExecutionsPerMethod()
+	{
+		final QueryStatistics statistics = new QueryStatistics(true, 0);
+		final QueryMethodStatistics evenMethod = statistics.forMethod("Item.findEven");
+		
+		evenMethod.record(() -> this.sequentialEntities.stream(isEven()).count());
+		evenMethod.record(() -> this.sequentialEntities.stream(isEven()).count());
+		statistics.forMethod("Item.findByValueLessThan")
+			.record(() -> this.sequentialEntities.stream(isLessThanFive()).count());
+		
+		Assertions.assertSame(evenMethod, statistics.forMethod("Item.findEven"));
+		Assertions.assertEquals(2, evenMethod.getExecutionCount());
+		Assertions.assertEquals(2L * ENTITY_COUNT, evenMethod.getScannedCount());
+		Assertions.assertEquals(ENTITY_COUNT, evenMethod.getMatchedCount());
+		Assertions.assertNotNull(evenMethod.getLastExecution());
+		Assertions.assertEquals(2, statistics.getMethodStatistics().size());
+	}
+	
+	@Test
+	void record_CountsSlowExecutions()
+	{
+		final QueryMethodStatistics method = new QueryStatistics(false, 1).forMethod("Item.findSlow");
+		
+		method.record(() -> this.sequentialEntities.stream(isLessThanFive()).count());
+		method.record(() -> {
+			try
+			{
+				Thread.sleep(10);
+			}
+			catch(final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+		
+		Assertions.assertEquals(2, method.getExecutionCount());
+		Assertions.assertTrue(method.getSlowExecutionCount() >= 1);
+		Assertions.assertTrue(method.getMaxTime().toMillis() >= 10);
+	}
+	
+	private static class Item
+	{
+		@Indexed
+		private final int value;
+		
+		Item(final int value)
+		{
+			this.value = value;
+		}
+	}
+}
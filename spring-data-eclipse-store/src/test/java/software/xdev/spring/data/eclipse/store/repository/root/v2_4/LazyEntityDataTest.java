@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.spring.data.eclipse.store.repository.root.v2_4;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.serializer.reference.Lazy;
+import org.eclipse.serializer.reference.ObjectSwizzling;
+import org.eclipse.serializer.reference.Swizzling;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import software.xdev.spring.data.eclipse.store.core.EntityProvider;
+import software.xdev.spring.data.eclipse.store.repository.index.EntityIndexes;
+import software.xdev.spring.data.eclipse.store.repository.index.IndexRange;
+import software.xdev.spring.data.eclipse.store.repository.index.Indexed;
+import software.xdev.spring.data.eclipse.store.repository.lazy.LazyReferenceStatistics;
+import software.xdev.spring.data.eclipse.store.repository.query.criteria.Criteria;
+
+
+@SuppressWarnings({"checkstyle:MethodName", "unchecked"})
+class LazyEntityDataTest
+{
+	private static final int ENTITY_COUNT = 100;
+	
+	private final Map<Object, Long> objectIds = new IdentityHashMap<>();
+	private final Map<Long, Item> objectsById = new HashMap<>();
+	private final AtomicInteger loadCount = new AtomicInteger();
+	private final ObjectSwizzling loader = objectId -> {
+		this.loadCount.incrementAndGet();
+		return this.objectsById.get(objectId);
+	};
+	private LazyEntityData<Item, Void> entityData;
+	
+	@BeforeEach
+	void setUp()
+	{
+		this.entityData = new LazyEntityData<>();
+		this.entityData.setIdGetter(null);
+		this.entityData.setObjectIdLookup(
+			entity -> this.objectIds.getOrDefault(entity, Swizzling.notFoundId()));
+		for(int i = 0; i < ENTITY_COUNT; i++)
+		{
+			this.entityData.ensureEntityAndReturnObjectsToStore(new Item(i));
+		}
+		this.storeAndUnloadAll();
+	}
+	
+	/**
+	 * Does what the storage does when the entity data is stored and the references are cleared afterward.
+	 */
+	private void storeAndUnloadAll()
+	{
+		for(final Object reference : this.getReferences().keySet())
+		{
+			final Lazy.Default<Item> lazyItem = (Lazy.Default<Item>)reference;
+			if(!lazyItem.isStored())
+			{
+				final Item item = lazyItem.peek();
+				final long objectId = this.objectsById.size() + 1L;
+				this.objectIds.put(item, objectId);
+				this.objectsById.put(objectId, item);
+				lazyItem.$link(objectId, this.loader);
+			}
+			lazyItem.clear();
+		}
+	}
+	
+	private Map<Object, ?> getReferences()
+	{
+		return (Map<Object, ?>)this.entityData.getObjectsToStore().iterator().next();
+	}
+	
+	@Test
+	void containsEntity_DoesNotLoadOtherEntities()
+	{
+		Assertions.assertTrue(this.entityData.containsEntity(this.objectsById.get(50L)));
+		Assertions.assertFalse(this.entityData.containsEntity(new Item(ENTITY_COUNT)));
+		Assertions.assertEquals(0, this.loadCount.get());
+	}
+	
+	@Test
+	void ensureEntity_ExistingEntityIsNotAddedAgain()
+	{
+		this.entityData.ensureEntityAndReturnObjectsToStore(this.objectsById.get(1L));
+		Assertions.assertEquals(ENTITY_COUNT, this.entityData.getEntityCount());
+		
+		final Item newItem = new Item(ENTITY_COUNT);
+		this.entityData.ensureEntityAndReturnObjectsToStore(newItem);
+		Assertions.assertTrue(this.entityData.containsEntity(newItem));
+		this.entityData.ensureEntityAndReturnObjectsToStore(newItem);
+		Assertions.assertEquals(ENTITY_COUNT + 1, this.entityData.getEntityCount());
+		
+		this.storeAndUnloadAll();
+		Assertions.assertTrue(this.entityData.containsEntity(newItem));
+		Assertions.assertEquals(0, this.loadCount.get());
+	}
+	
+	@Test
+	void removeEntity_DoesNotLoadOtherEntities()
+	{
+		final Item item = this.objectsById.get(10L);
+		this.entityData.removeEntityAndReturnObjectsToStore(item);
+		
+		Assertions.assertEquals(ENTITY_COUNT - 1, this.entityData.getEntityCount());
+		Assertions.assertFalse(this.entityData.containsEntity(item));
+		Assertions.assertEquals(0, this.loadCount.get());
+	}
+	
+	@Test
+	void containsEntity_WithoutObjectIdLookupComparesAllEntities()
+	{
+		this.entityData.setObjectIdLookup(null);
+		Assertions.assertTrue(this.entityData.containsEntity(this.objectsById.get(50L)));
+		Assertions.assertTrue(this.loadCount.get() > 0);
+	}
+	
+	@Test
+	void getEntitiesAsStream_CountsLoadsAndHits()
+	{
+		final LazyReferenceStatistics statistics = new LazyReferenceStatistics();
+		this.entityData.setLazyReferenceStatistics(statistics);
+		Assertions.assertEquals(List.of(), this.entityData.getLoadedReferences());
+		
+		this.entityData.getEntitiesAsStream().limit(10).toList();
+		this.entityData.getEntitiesAsStream().limit(10).toList();
+		
+		Assertions.assertEquals(10, this.entityData.getLoadedReferences().size());
+		Assertions.assertEquals(10, statistics.getLoadCount());
+		Assertions.assertEquals(10, statistics.getHitCount());
+		Assertions.assertEquals(0.5, statistics.getHitRatio());
+	}
+	
+	@Test
+	void getLoadedReferences_ClearedAndRemovedReferencesNotReturned()
+	{
+		this.entityData.getEntitiesAsStream().limit(3).toList();
+		final List<Lazy<Item>> loadedReferences = this.entityData.getLoadedReferences();
+		Assertions.assertEquals(3, loadedReferences.size());
+		
+		loadedReferences.get(0).clear();
+		this.entityData.removeEntityAndReturnObjectsToStore(loadedReferences.get(1).peek());
+		
+		Assertions.assertEquals(List.of(loadedReferences.get(2)), this.entityData.getLoadedReferences());
+		Assertions.assertEquals(List.of(loadedReferences.get(2)), this.entityData.getLoadedReferences());
+	}
+	
+	@Test
+	void getLoadedReferences_ReloadedReferenceReturnedAgain()
+	{
+		this.entityData.getEntitiesAsStream().limit(1).toList();
+		final Lazy<Item> reference = this.entityData.getLoadedReferences().get(0);
+		reference.clear();
+		Assertions.assertEquals(List.of(), this.entityData.getLoadedReferences());
+		
+		this.entityData.getEntitiesAsStream().limit(1).toList();
+		Assertions.assertEquals(List.of(reference), this.entityData.getLoadedReferences());
+	}
+	
+	@Test
+	void getLoadedReferences_UnstoredReferencesNotReturned()
+	{
+		this.entityData.ensureEntityAndReturnObjectsToStore(new Item(ENTITY_COUNT));
+		Assertions.assertEquals(List.of(), this.entityData.getLoadedReferences());
+		
+		this.storeAndUnloadAll();
+		this.entityData.getEntitiesAsStream().toList();
+		Assertions.assertEquals(ENTITY_COUNT + 1, this.entityData.getLoadedReferences().size());
+	}
+	
+	private EntityProvider<Item, Void> createIndexedEntities()
+	{
+		this.entityData.setIndexes(EntityIndexes.create(Item.class));
+		final EntityProvider<Item, Void> entities = new EntityProvider<>();
+		entities.addEntityData(this.entityData);
+		return entities;
+	}
+	
+	private static Criteria<Item> isBetween(final int min, final int max)
+	{
+		return new Criteria<>()
+		{
+			@Override
+			public boolean evaluate(final Item item)
+			{
+				return item.value() >= min && item.value() <= max;
+			}
+			
+			@Override
+			public List<IndexRange> getIndexRanges()
+			{
+				return List.of(IndexRange.between("value", min, max));
+			}
+		};
+	}
+	
+	@Test
+	void stream_IndexedRange_LoadsOnlyCandidates()
+	{
+		final EntityProvider<Item, Void> entities = this.createIndexedEntities();
+		Assertions.assertEquals(5, entities.stream(isBetween(10, 14)).count());
+		// Building the index loads every entity once.
+		Assertions.assertEquals(ENTITY_COUNT + 5, this.loadCount.get());
+		
+		this.loadCount.set(0);
+		Assertions.assertEquals(
+			List.of(50, 51, 52),
+			entities.stream(isBetween(50, 52)).map(Item::value).toList());
+		Assertions.assertEquals(3, this.loadCount.get());
+	}
+	
+	@Test
+	void streamOrderedByIndex_LoadsOnlyConsumedEntities()
+	{
+		final EntityProvider<Item, Void> entities = this.createIndexedEntities();
+		entities.stream(isBetween(0, 0)).count();
+		this.loadCount.set(0);
+		
+		Assertions.assertEquals(
+			List.of(99, 98, 97),
+			entities.streamOrderedByIndex(Criteria.createNoCriteria(), Sort.by(Sort.Direction.DESC, "value"), true)
+				.orElseThrow()
+				.limit(3)
+				.map(Item::value)
+				.toList());
+		Assertions.assertEquals(3, this.loadCount.get());
+	}
+	
+	@Test
+	void stream_IndexedRange_ContainsSavedAndNotRemovedEntities()
+	{
+		final EntityProvider<Item, Void> entities = this.createIndexedEntities();
+		entities.stream(isBetween(0, 0)).count();
+		
+		this.entityData.ensureEntityAndReturnObjectsToStore(new Item(ENTITY_COUNT));
+		final Item lastItem = this.objectsById.values()
+			.stream()
+			.filter(item -> item.value() == ENTITY_COUNT - 1)
+			.findAny()
+			.orElseThrow();
+		this.entityData.removeEntityAndReturnObjectsToStore(lastItem);
+		this.storeAndUnloadAll();
+		
+		Assertions.assertEquals(
+			List.of(98, ENTITY_COUNT),
+			entities.stream(isBetween(98, ENTITY_COUNT)).map(Item::value).toList());
+	}
+	
+	private record Item(@Indexed int value)
+	{
+	}
+}